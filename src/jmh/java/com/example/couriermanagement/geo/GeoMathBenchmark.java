@@ -0,0 +1,147 @@
+package com.example.couriermanagement.geo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full distance matrix over {@code points} stops: the per-pair code the services used before
+ * {@link GeoMath} against the scalar and vector kernels. The "legacy" variants reproduce the removed
+ * helpers of RouteServiceImpl (double, atan2) and OpenStreetMapServiceImpl (BigDecimal in and out).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class GeoMathBenchmark {
+
+    @Param({"100", "500"})
+    public int points;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private BigDecimal[] decimalLatitudes;
+    private BigDecimal[] decimalLongitudes;
+    private GeoMath.PreparedPoints prepared;
+    private double[] out;
+    private final GeoKernel scalar = new ScalarGeoKernel();
+    private final GeoKernel vector = new VectorGeoKernel();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        latitudes = new double[points];
+        longitudes = new double[points];
+        decimalLatitudes = new BigDecimal[points];
+        decimalLongitudes = new BigDecimal[points];
+        for (int i = 0; i < points; i++) {
+            latitudes[i] = 55.5 + random.nextDouble() * 0.5;
+            longitudes[i] = 37.3 + random.nextDouble() * 0.6;
+            decimalLatitudes[i] = BigDecimal.valueOf(latitudes[i]).setScale(6, RoundingMode.HALF_UP);
+            decimalLongitudes[i] = BigDecimal.valueOf(longitudes[i]).setScale(6, RoundingMode.HALF_UP);
+        }
+        prepared = GeoMath.prepare(latitudes, longitudes);
+        out = new double[points * points];
+    }
+
+    @Benchmark
+    public double[] legacyDecimalHaversine() {
+        for (int i = 0; i < points; i++) {
+            for (int j = 0; j < points; j++) {
+                out[i * points + j] = legacyDecimalHaversine(
+                    decimalLatitudes[i], decimalLongitudes[i], decimalLatitudes[j], decimalLongitudes[j]).doubleValue();
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] legacyDoubleHaversine() {
+        for (int i = 0; i < points; i++) {
+            for (int j = 0; j < points; j++) {
+                out[i * points + j] = legacyDoubleHaversine(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalarHaversine() {
+        for (int i = 0; i < points; i++) {
+            scalar.haversine(prepared.latitudes()[i], prepared.longitudes()[i], prepared.cosLatitudes()[i],
+                prepared, 0, points, out, i * points);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] vectorHaversine() {
+        for (int i = 0; i < points; i++) {
+            vector.haversine(prepared.latitudes()[i], prepared.longitudes()[i], prepared.cosLatitudes()[i],
+                prepared, 0, points, out, i * points);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalarEquirectangular() {
+        for (int i = 0; i < points; i++) {
+            scalar.equirectangular(prepared.latitudes()[i], prepared.longitudes()[i], prepared.cosLatitudes()[i],
+                prepared, 0, points, out, i * points);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] vectorEquirectangular() {
+        for (int i = 0; i < points; i++) {
+            vector.equirectangular(prepared.latitudes()[i], prepared.longitudes()[i], prepared.cosLatitudes()[i],
+                prepared, 0, points, out, i * points);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public DistanceMatrix geoMathMatrix() {
+        return GeoMath.haversineMatrixKm(latitudes, longitudes);
+    }
+
+    private static BigDecimal legacyDecimalHaversine(BigDecimal lat1, BigDecimal lon1, BigDecimal lat2, BigDecimal lon2) {
+        double dLat = Math.toRadians(lat2.doubleValue() - lat1.doubleValue());
+        double dLon = Math.toRadians(lon2.doubleValue() - lon1.doubleValue());
+        double sinDLatHalf = Math.sin(dLat / 2);
+        double sinDLonHalf = Math.sin(dLon / 2);
+        double a = sinDLatHalf * sinDLatHalf
+            + Math.cos(Math.toRadians(lat1.doubleValue())) * Math.cos(Math.toRadians(lat2.doubleValue()))
+            * sinDLonHalf * sinDLonHalf;
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return BigDecimal.valueOf(6371.0 * c).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static double legacyDoubleHaversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinDLatHalf = Math.sin(dLat / 2);
+        double sinDLonHalf = Math.sin(dLon / 2);
+        double a = sinDLatHalf * sinDLatHalf
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinDLonHalf * sinDLonHalf;
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return 6371.0 * c;
+    }
+}
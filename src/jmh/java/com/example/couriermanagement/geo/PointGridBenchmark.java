@@ -0,0 +1,71 @@
+package com.example.couriermanagement.geo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries of the spatial index over {@code points} delivery points of one day spread across
+ * Moscow, with the default 0.01° cells of {@code spatial-index.cell-degrees}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PointGridBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"100000"})
+    public int points;
+
+    private PointGrid grid;
+    private double[][] centers;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(5);
+        grid = new PointGrid(0.01);
+        for (int i = 0; i < points; i++) {
+            grid.put(i, i / 20, 55.5 + random.nextDouble() * 0.5, 37.3 + random.nextDouble() * 0.6);
+        }
+        centers = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            centers[i] = new double[]{55.5 + random.nextDouble() * 0.5, 37.3 + random.nextDouble() * 0.6};
+        }
+    }
+
+    @Benchmark
+    public List<PointGrid.Hit> nearest() {
+        double[] center = centers[next++ & (QUERIES - 1)];
+        return grid.nearest(center[0], center[1], 10);
+    }
+
+    @Benchmark
+    public List<PointGrid.Hit> withinRadius() {
+        double[] center = centers[next++ & (QUERIES - 1)];
+        return grid.withinRadius(center[0], center[1], 1.0);
+    }
+
+    @Benchmark
+    public List<PointGrid.Hit> inBoundingBox() {
+        double[] center = centers[next++ & (QUERIES - 1)];
+        return grid.inBoundingBox(center[0], center[1], center[0] + 0.01, center[1] + 0.02);
+    }
+}
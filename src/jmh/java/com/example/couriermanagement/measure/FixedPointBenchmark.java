@@ -0,0 +1,115 @@
+package com.example.couriermanagement.measure;
+
+import com.example.couriermanagement.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weight and volume totals of product lines as the capacity checks compute them: before, with
+ * {@link BigDecimal} kilograms and {@link Product#getVolume()}; after, with grams and cm³ as
+ * {@code long}, either converted per line or once per product. Run with {@code -prof gc} to see
+ * the bytes allocated per line ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixedPointBenchmark {
+
+    private static final int PRODUCTS = 200;
+    private static final int LINES = 2_000;
+
+    private Product[] products;
+    private long[] productGrams;
+    private long[] productCm3;
+    private int[] lineProducts;
+    private int[] lineQuantities;
+    private BigDecimal maxWeight;
+    private BigDecimal maxVolume;
+    private long maxWeightGrams;
+    private long maxVolumeCm3;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(19);
+        products = new Product[PRODUCTS];
+        productGrams = new long[PRODUCTS];
+        productCm3 = new long[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            // масштабы как у колонок products: вес 3 знака, размеры 2 знака
+            products[i] = Product.builder()
+                .weight(BigDecimal.valueOf(100 + random.nextInt(50_000), 3))
+                .length(BigDecimal.valueOf(500 + random.nextInt(10_000), 2))
+                .width(BigDecimal.valueOf(500 + random.nextInt(10_000), 2))
+                .height(BigDecimal.valueOf(500 + random.nextInt(10_000), 2))
+                .build();
+            productGrams[i] = products[i].getWeightGrams();
+            productCm3[i] = products[i].getVolumeCm3();
+        }
+        lineProducts = new int[LINES];
+        lineQuantities = new int[LINES];
+        for (int i = 0; i < LINES; i++) {
+            lineProducts[i] = random.nextInt(PRODUCTS);
+            lineQuantities[i] = 1 + random.nextInt(5);
+        }
+        maxWeight = new BigDecimal("1000000.00");
+        maxVolume = new BigDecimal("10000.000");
+        maxWeightGrams = FixedPoint.grams(maxWeight);
+        maxVolumeCm3 = FixedPoint.cubicCentimetres(maxVolume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public boolean bigDecimalTotals() {
+        BigDecimal weight = BigDecimal.ZERO;
+        BigDecimal volume = BigDecimal.ZERO;
+        for (int i = 0; i < LINES; i++) {
+            Product product = products[lineProducts[i]];
+            BigDecimal quantity = BigDecimal.valueOf(lineQuantities[i]);
+            weight = weight.add(product.getWeight().multiply(quantity));
+            volume = volume.add(product.getVolume().multiply(quantity));
+        }
+        return weight.compareTo(maxWeight) <= 0 && volume.compareTo(maxVolume) <= 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public boolean fixedPointPerLine() {
+        long grams = 0;
+        long cm3 = 0;
+        for (int i = 0; i < LINES; i++) {
+            Product product = products[lineProducts[i]];
+            grams += product.getWeightGrams() * lineQuantities[i];
+            cm3 += product.getVolumeCm3() * lineQuantities[i];
+        }
+        return grams <= maxWeightGrams && cm3 <= maxVolumeCm3;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public boolean fixedPointPrepared() {
+        long grams = 0;
+        long cm3 = 0;
+        for (int i = 0; i < LINES; i++) {
+            int product = lineProducts[i];
+            grams += productGrams[product] * lineQuantities[i];
+            cm3 += productCm3[product] * lineQuantities[i];
+        }
+        return grams <= maxWeightGrams && cm3 <= maxVolumeCm3;
+    }
+}
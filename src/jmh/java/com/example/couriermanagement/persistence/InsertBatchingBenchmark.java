@@ -0,0 +1,135 @@
+package com.example.couriermanagement.persistence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts per second for delivery points the way Hibernate writes them: before, with IDENTITY ids,
+ * one statement and one round trip per row to read the generated key; after, with a pooled sequence
+ * (one {@code nextval} per 50 ids) and the rows sent as one JDBC batch. Runs against in-memory H2
+ * by default; pass {@code -Djdbc.url=... -Djdbc.user=... -Djdbc.password=...} for PostgreSQL, where
+ * the round trips dominate. That the application's own write paths batch this way is checked by
+ * {@code DeliveryInsertBatchingTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBatchingBenchmark {
+
+    private static final int ROWS = 500;
+    private static final int ALLOCATION_SIZE = 50;
+
+    private Connection connection;
+    private long nextId;
+    private long lastAllocatedId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("jdbc.url", "jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"),
+                System.getProperty("jdbc.user", "sa"),
+                System.getProperty("jdbc.password", ""));
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_points_identity");
+            statement.execute("DROP TABLE IF EXISTS bench_points_sequence");
+            statement.execute("DROP SEQUENCE IF EXISTS bench_points_seq");
+            statement.execute("CREATE TABLE bench_points_identity (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "delivery_id BIGINT NOT NULL, sequence INT NOT NULL, latitude DECIMAL(9,6), longitude DECIMAL(9,6))");
+            statement.execute("CREATE TABLE bench_points_sequence (id BIGINT PRIMARY KEY, "
+                    + "delivery_id BIGINT NOT NULL, sequence INT NOT NULL, latitude DECIMAL(9,6), longitude DECIMAL(9,6))");
+            // с первого значения, равного размеру блока, каждое значение последовательности - граница полного блока
+            statement.execute("CREATE SEQUENCE bench_points_seq START WITH " + ALLOCATION_SIZE + " INCREMENT BY " + ALLOCATION_SIZE);
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identityRowByRow() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bench_points_identity (delivery_id, sequence, latitude, longitude) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int row = 0; row < ROWS; row++) {
+                bind(insert, 1, row);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long pooledSequenceBatched() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bench_points_sequence (id, delivery_id, sequence, latitude, longitude) VALUES (?, ?, ?, ?, ?)")) {
+            for (int row = 0; row < ROWS; row++) {
+                lastId = allocateId();
+                insert.setLong(1, lastId);
+                bind(insert, 2, row);
+                insert.addBatch();
+                if ((row + 1) % ALLOCATION_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    // как pooled-оптимизатор Hibernate: nextval возвращает верхнюю границу блока из 50 идентификаторов
+    private long allocateId() throws SQLException {
+        if (nextId == 0 || nextId > lastAllocatedId) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT NEXT VALUE FOR bench_points_seq")) {
+                resultSet.next();
+                lastAllocatedId = resultSet.getLong(1);
+                nextId = lastAllocatedId - ALLOCATION_SIZE + 1;
+            }
+        }
+        return nextId++;
+    }
+
+    private static void bind(PreparedStatement insert, int firstIndex, int row) throws SQLException {
+        insert.setLong(firstIndex, row / 10 + 1);
+        insert.setInt(firstIndex + 1, row % 10 + 1);
+        insert.setBigDecimal(firstIndex + 2, BigDecimal.valueOf(55_750_000 + row, 6));
+        insert.setBigDecimal(firstIndex + 3, BigDecimal.valueOf(37_610_000 + row, 6));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.couriermanagement.planning;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clustering of one day's {@code points} drop points across Moscow into vehicle-sized routes
+ * (weight, volume and stop count), on a pool of all available processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RouteClusteringBenchmark {
+
+    private static final double[] CAPACITIES = {500, 3, 19};
+
+    @Param({"10000", "50000"})
+    public int points;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[][] loads;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(11);
+        latitudes = new double[points];
+        longitudes = new double[points];
+        loads = new double[3][points];
+        for (int i = 0; i < points; i++) {
+            latitudes[i] = 55.5 + random.nextDouble() * 0.5;
+            longitudes[i] = 37.3 + random.nextDouble() * 0.6;
+            loads[0][i] = 1 + random.nextDouble() * 30;
+            loads[1][i] = 0.01 + random.nextDouble() * 0.1;
+            loads[2][i] = 1;
+        }
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[][] cluster() {
+        return RouteClustering.cluster(latitudes, longitudes, loads, CAPACITIES, pool);
+    }
+}
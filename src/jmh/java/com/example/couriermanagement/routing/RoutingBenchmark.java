@@ -0,0 +1,253 @@
+package com.example.couriermanagement.routing;
+
+import com.example.couriermanagement.config.RestTemplateConfig;
+import com.example.couriermanagement.dto.request.RoutePoint;
+import com.example.couriermanagement.geo.DistanceMatrix;
+import com.example.couriermanagement.routing.offline.ContractionHierarchy;
+import com.example.couriermanagement.routing.offline.OfflineRouter;
+import com.example.couriermanagement.routing.offline.RoadGraph;
+import com.example.couriermanagement.routing.offline.RoutingGraphFile;
+import com.example.couriermanagement.service.OpenStreetMapService;
+import com.example.couriermanagement.service.impl.OfflineOpenStreetMapService;
+import com.example.couriermanagement.service.impl.OpenStreetMapServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline contraction-hierarchy engine against the HTTP routing path.
+ * <p>
+ * By default the HTTP side talks to a local stub that imitates the ORS responses, optionally
+ * with an artificial latency, so the numbers show the client-side cost of going over HTTP.
+ * Pass {@code -Dors.base-url=...} to measure against a real ORS instance instead.
+ * The offline side runs on a synthetic grid network around Moscow; grids are close to the worst
+ * case for contraction hierarchies, so real extracts give smaller search spaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// без nodelay встроенный HttpServer заглушки добавляет ~40 мс задержки подтверждения TCP на каждый ответ
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dsun.net.httpserver.nodelay=true"})
+public class RoutingBenchmark {
+
+    private static final int BASE_LATITUDE = 55_700_000;
+    private static final int BASE_LONGITUDE = 37_500_000;
+    private static final int STEP = 1_000;
+    private static final int QUERIES = 1024;
+
+    @Param({"100"})
+    public int gridSize;
+
+    @Param({"0"})
+    public int httpLatencyMs;
+
+    @Param({"20"})
+    public int matrixPoints;
+
+    private Path graphFile;
+    private HttpServer stub;
+    private CloseableHttpClient httpClient;
+    private RoutingCallGuard callGuard;
+    private OpenStreetMapService offline;
+    private OpenStreetMapService http;
+    private BigDecimal[][] pairs;
+    private List<List<RoutePoint>> routes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        graphFile = Files.createTempFile("road-graph", ".chg");
+        RoadGraph roadGraph = grid(gridSize, new Random(42));
+        RoutingGraphFile.write(ContractionHierarchy.contract(roadGraph), graphFile, 0, 0);
+        offline = new OfflineOpenStreetMapService(new OfflineRouter(RoutingGraphFile.open(graphFile), 2000));
+
+        String baseUrl = System.getProperty("ors.base-url");
+        if (baseUrl == null) {
+            stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            stub.createContext("/v2/directions/driving-car", this::handleDirections);
+            stub.createContext("/v2/matrix/driving-car", this::handleMatrix);
+            stub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            stub.start();
+            baseUrl = "http://127.0.0.1:" + stub.getAddress().getPort();
+        }
+        RestTemplateConfig restTemplateConfig = new RestTemplateConfig();
+        httpClient = restTemplateConfig.routingHttpClient(
+            Duration.ofSeconds(2), Duration.ofSeconds(10), Duration.ofSeconds(1), 50, 20);
+        callGuard = new RoutingCallGuard(
+            new CircuitBreaker(Integer.MAX_VALUE, Duration.ofSeconds(1), Clock.systemUTC()), null, new SimpleMeterRegistry());
+        http = new OpenStreetMapServiceImpl(
+            restTemplateConfig.routingRestTemplate(httpClient), new ObjectMapper(), callGuard, baseUrl, 50);
+
+        Random random = new Random(7);
+        pairs = new BigDecimal[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            pairs[i] = new BigDecimal[]{
+                coordinate(BASE_LATITUDE, random), coordinate(BASE_LONGITUDE, random),
+                coordinate(BASE_LATITUDE, random), coordinate(BASE_LONGITUDE, random)
+            };
+        }
+        routes = new ArrayList<>();
+        for (int r = 0; r < 32; r++) {
+            List<RoutePoint> points = new ArrayList<>();
+            for (int i = 0; i < matrixPoints; i++) {
+                points.add(new RoutePoint(coordinate(BASE_LATITUDE, random), coordinate(BASE_LONGITUDE, random)));
+            }
+            routes.add(points);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (stub != null) {
+            stub.stop(0);
+        }
+        httpClient.close();
+        callGuard.close();
+        Files.deleteIfExists(graphFile);
+    }
+
+    @Benchmark
+    public BigDecimal offlineDistance() {
+        BigDecimal[] pair = pairs[next++ & (QUERIES - 1)];
+        return offline.calculateDistance(pair[0], pair[1], pair[2], pair[3]);
+    }
+
+    @Benchmark
+    public BigDecimal httpDistance() {
+        BigDecimal[] pair = pairs[next++ & (QUERIES - 1)];
+        return http.calculateDistance(pair[0], pair[1], pair[2], pair[3]);
+    }
+
+    @Benchmark
+    public DistanceMatrix offlineMatrix() {
+        return offline.calculateDistanceMatrix(routes.get(next++ & 31));
+    }
+
+    @Benchmark
+    public DistanceMatrix httpMatrix() {
+        return http.calculateDistanceMatrix(routes.get(next++ & 31));
+    }
+
+    private BigDecimal coordinate(int base, Random random) {
+        return BigDecimal.valueOf(base + random.nextInt(gridSize * STEP), 6);
+    }
+
+    private static RoadGraph grid(int size, Random random) {
+        int nodes = size * size;
+        int[] latitudes = new int[nodes];
+        int[] longitudes = new int[nodes];
+        int[] from = new int[2 * nodes];
+        int[] to = new int[2 * nodes];
+        int[] weights = new int[2 * nodes];
+        int edges = 0;
+        for (int node = 0; node < nodes; node++) {
+            latitudes[node] = BASE_LATITUDE + (node / size) * STEP;
+            longitudes[node] = BASE_LONGITUDE + (node % size) * STEP;
+        }
+        for (int node = 0; node < nodes; node++) {
+            int[] neighbours = {node % size + 1 < size ? node + 1 : -1, node / size + 1 < size ? node + size : -1};
+            for (int neighbour : neighbours) {
+                if (neighbour < 0) {
+                    continue;
+                }
+                from[edges] = node;
+                to[edges] = neighbour;
+                double meters = RoadGraph.distanceMeters(
+                    latitudes[node], longitudes[node], latitudes[neighbour], longitudes[neighbour]);
+                weights[edges] = (int) Math.round(meters * (1.0 + random.nextDouble()));
+                edges++;
+            }
+        }
+        return RoadGraph.fromEdges(latitudes, longitudes, from, to, weights, edges);
+    }
+
+    private void handleDirections(HttpExchange exchange) throws IOException {
+        // start=lon,lat&end=lon,lat
+        String query = URI.create(exchange.getRequestURI().toString()).getQuery();
+        double[] values = new double[4];
+        int index = 0;
+        for (String parameter : query.split("&")) {
+            for (String value : parameter.substring(parameter.indexOf('=') + 1).split(",")) {
+                values[index++] = Double.parseDouble(value);
+            }
+        }
+        double meters = greatCircleMeters(values[1], values[0], values[3], values[2]);
+        respond(exchange, "{\"features\":[{\"properties\":{\"summary\":{\"distance\":" + meters + "}}}]}");
+    }
+
+    private void handleMatrix(HttpExchange exchange) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode request = mapper.readTree(exchange.getRequestBody());
+        JsonNode locations = request.get("locations");
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode distances = response.putArray("distances");
+        for (JsonNode source : request.get("sources")) {
+            JsonNode from = locations.get(source.asInt());
+            ArrayNode row = distances.addArray();
+            for (JsonNode destination : request.get("destinations")) {
+                JsonNode to = locations.get(destination.asInt());
+                row.add(greatCircleMeters(from.get(1).asDouble(), from.get(0).asDouble(),
+                    to.get(1).asDouble(), to.get(0).asDouble()) / 1000.0);
+            }
+        }
+        respond(exchange, mapper.writeValueAsString(response));
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        if (httpLatencyMs > 0) {
+            try {
+                Thread.sleep(httpLatencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static double greatCircleMeters(double lat1, double lon1, double lat2, double lon2) {
+        return RoadGraph.distanceMeters(
+            (int) Math.round(lat1 * 1e6), (int) Math.round(lon1 * 1e6),
+            (int) Math.round(lat2 * 1e6), (int) Math.round(lon2 * 1e6));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.couriermanagement.routing;
+
+import com.example.couriermanagement.geo.DistanceMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stop ordering of {@code points} random stops in a square with the default 300 ms budget of
+ * {@code routing.optimizer.time-budget}; an average close to the budget means the search stopped
+ * on the deadline rather than in a local optimum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StopSequenceOptimizerBenchmark {
+
+    private static final Duration BUDGET = Duration.ofMillis(300);
+
+    @Param({"100", "500"})
+    public int points;
+
+    private DistanceMatrix matrix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        double[] x = new double[points];
+        double[] y = new double[points];
+        for (int i = 0; i < points; i++) {
+            x[i] = random.nextDouble() * 10;
+            y[i] = random.nextDouble() * 10;
+        }
+        matrix = new DistanceMatrix(points);
+        for (int i = 0; i < points; i++) {
+            for (int j = 0; j < points; j++) {
+                matrix.set(i, j, Math.hypot(x[i] - x[j], y[i] - y[j]));
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] optimize() {
+        return StopSequenceOptimizer.optimize(matrix, true, false, BUDGET);
+    }
+}
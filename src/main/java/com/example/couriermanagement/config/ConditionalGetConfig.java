@@ -0,0 +1,22 @@
+package com.example.couriermanagement.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class ConditionalGetConfig {
+
+    /**
+     * The courier's delivery list is read by one projection query and has no version of its own, so
+     * its ETag is a hash of the body: an unchanged list still costs the query, but not the transfer.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> courierDeliveriesEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+            new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/courier/deliveries");
+        return registration;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.couriermanagement.config;
+
+import com.example.couriermanagement.entity.CacheRegions;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.ToDoubleFunction;
+
+@Configuration
+public class EntityCacheConfig {
+
+    /**
+     * In-process cache manager of the Hibernate second-level cache. Every region is created here with
+     * a size bound and a time to live; each application context gets its own manager.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(
+            @Value("${entity-cache.max-entries:10000}") long maxEntries,
+            @Value("${entity-cache.ttl:1h}") Duration ttl) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+            URI.create("entity-cache-" + UUID.randomUUID()), getClass().getClassLoader(), new Properties());
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        // Hibernate кладет в кэш разобранное состояние, копировать его при каждом чтении не нужно
+        configuration.setStoreByValue(false);
+        for (String region : CacheRegions.ALL) {
+            cacheManager.createCache(region, configuration);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheProperties(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            // регион без настроек из CacheRegions - ошибка конфигурации, а не неограниченный кэш
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder entityCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : CacheRegions.ALL) {
+                FunctionCounter.builder("hibernate.entity.cache.hits", statistics,
+                        s -> s.getDomainDataRegionStatistics(region).getHitCount())
+                    .tag("region", region)
+                    .register(registry);
+                FunctionCounter.builder("hibernate.entity.cache.misses", statistics,
+                        s -> s.getDomainDataRegionStatistics(region).getMissCount())
+                    .tag("region", region)
+                    .register(registry);
+                FunctionCounter.builder("hibernate.entity.cache.puts", statistics,
+                        s -> s.getDomainDataRegionStatistics(region).getPutCount())
+                    .tag("region", region)
+                    .register(registry);
+                Gauge.builder("hibernate.entity.cache.hit.ratio", statistics, hitRatio(region))
+                    .tag("region", region)
+                    .register(registry);
+            }
+        };
+    }
+
+    private static ToDoubleFunction<Statistics> hitRatio(String region) {
+        return statistics -> {
+            CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+            long lookups = stats.getHitCount() + stats.getMissCount();
+            return lookups == 0 ? Double.NaN : (double) stats.getHitCount() / lookups;
+        };
+    }
+}
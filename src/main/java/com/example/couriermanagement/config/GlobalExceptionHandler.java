@@ -4,6 +4,8 @@ import com.example.couriermanagement.dto.response.ErrorInfo;
 import com.example.couriermanagement.dto.response.ErrorResponse;
 import com.example.couriermanagement.dto.response.ValidationErrorInfo;
 import com.example.couriermanagement.dto.response.ValidationErrorResponse;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -15,6 +17,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -41,6 +44,40 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
 
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponse> handleRejectedExecutionException(RejectedExecutionException ex) {
+        ErrorResponse error = ErrorResponse.builder()
+            .error(ErrorInfo.builder()
+                .code("TOO_MANY_REQUESTS")
+                .message(ex.getMessage() != null ? ex.getMessage() : "Too many requests")
+                .build())
+            .build();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error);
+    }
+
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handlePessimisticLockingFailureException(PessimisticLockingFailureException ex) {
+        // текст исключения БД содержит SQL, наружу уходит общий
+        ErrorResponse error = ErrorResponse.builder()
+            .error(ErrorInfo.builder()
+                .code("CONFLICT")
+                .message("Машина занята другим бронированием, повторите запрос")
+                .build())
+            .build();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ErrorResponse error = ErrorResponse.builder()
+            .error(ErrorInfo.builder()
+                .code("CONFLICT")
+                .message("Доставка изменена другим запросом, повторите запрос")
+                .build())
+            .build();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDeniedException(AccessDeniedException ex) {
         ErrorResponse error = ErrorResponse.builder()
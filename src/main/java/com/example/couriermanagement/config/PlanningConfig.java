@@ -0,0 +1,41 @@
+package com.example.couriermanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class PlanningConfig {
+
+    /**
+     * Pool for CPU-bound planning stages (clustering, stop ordering), separate from the common pool
+     * so that parallel streams elsewhere do not compete with route generation.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool planningPool(@Value("${planning.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs background generation jobs. Each job opens its own per-date transactions, so the number
+     * of threads bounds how many jobs compete for the connection pool; extra jobs wait in a bounded
+     * queue and are rejected beyond it.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor generationJobExecutor(
+            @Value("${generation-jobs.max-concurrent:2}") int maxConcurrent,
+            @Value("${generation-jobs.queue-capacity:20}") int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(
+            maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> new Thread(runnable, "generation-job-" + threadNumber.incrementAndGet()),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,9 +1,21 @@
 package com.example.couriermanagement.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class RestTemplateConfig {
 
@@ -11,4 +23,40 @@ public class RestTemplateConfig {
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
+
+    /**
+     * Client for the routing backend: pooled keep-alive connections and hard deadlines,
+     * so a hanging ORS instance cannot pile up request threads.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient routingHttpClient(
+            @Value("${routing.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${routing.http.read-timeout:5s}") Duration readTimeout,
+            @Value("${routing.http.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+            @Value("${routing.http.max-connections:50}") int maxConnections,
+            @Value("${routing.http.max-connections-per-route:20}") int maxConnectionsPerRoute) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .setTimeToLive(TimeValue.ofMinutes(5))
+                .build())
+            .build();
+
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                .setResponseTimeout(Timeout.of(readTimeout))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(30))
+            .build();
+    }
+
+    @Bean
+    public RestTemplate routingRestTemplate(CloseableHttpClient routingHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(routingHttpClient));
+    }
 }
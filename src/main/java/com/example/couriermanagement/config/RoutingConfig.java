@@ -0,0 +1,97 @@
+package com.example.couriermanagement.config;
+
+import com.example.couriermanagement.routing.CircuitBreaker;
+import com.example.couriermanagement.routing.DistanceCache;
+import com.example.couriermanagement.routing.RoutingCallGuard;
+import com.example.couriermanagement.routing.offline.OfflineRouter;
+import com.example.couriermanagement.routing.offline.RoutingGraphFile;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class RoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public DistanceCache distanceCache(
+            @Value("${routing.distance-cache.precision:4}") int precision,
+            @Value("${routing.distance-cache.max-entries:100000}") int maxEntries,
+            @Value("${routing.distance-cache.ttl:7d}") Duration ttl,
+            @Value("${routing.distance-cache.disk-path:}") String diskPath,
+            @Value("${routing.distance-cache.disk-slots:1048576}") int diskSlots) {
+        return new DistanceCache(
+            precision,
+            maxEntries,
+            ttl,
+            diskPath.isBlank() ? null : Path.of(diskPath),
+            diskSlots,
+            Clock.systemUTC()
+        );
+    }
+
+    @Bean
+    public MeterBinder distanceCacheMetrics(DistanceCache distanceCache) {
+        return registry -> {
+            FunctionCounter.builder("routing.distance.cache.hits", distanceCache, c -> c.stats().memoryHits())
+                .tag("tier", "memory")
+                .register(registry);
+            FunctionCounter.builder("routing.distance.cache.hits", distanceCache, c -> c.stats().diskHits())
+                .tag("tier", "disk")
+                .register(registry);
+            FunctionCounter.builder("routing.distance.cache.misses", distanceCache, c -> c.stats().misses())
+                .register(registry);
+            FunctionCounter.builder("routing.distance.cache.evictions", distanceCache, c -> c.stats().memoryEvictions())
+                .tag("tier", "memory")
+                .register(registry);
+            FunctionCounter.builder("routing.distance.cache.evictions", distanceCache, c -> c.stats().diskEvictions())
+                .tag("tier", "disk")
+                .register(registry);
+            Gauge.builder("routing.distance.cache.size", distanceCache, c -> c.stats().memorySize())
+                .tag("tier", "memory")
+                .register(registry);
+            Gauge.builder("routing.distance.cache.size", distanceCache, c -> c.stats().diskSize())
+                .tag("tier", "disk")
+                .register(registry);
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public RoutingCallGuard routingCallGuard(
+            @Value("${routing.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${routing.circuit-breaker.open-duration:30s}") Duration openDuration,
+            @Value("${routing.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${routing.hedge.budget:800ms}") Duration hedgeBudget,
+            MeterRegistry meterRegistry) {
+        return new RoutingCallGuard(
+            new CircuitBreaker(failureThreshold, openDuration, Clock.systemUTC()),
+            hedgeEnabled ? hedgeBudget : null,
+            meterRegistry
+        );
+    }
+
+    /**
+     * Road graph for the offline engine. The first start with a new extract preprocesses it,
+     * later starts only map the prepared file.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "routing.engine", havingValue = "offline")
+    public OfflineRouter offlineRouter(
+            @Value("${routing.offline.pbf-path:}") String pbfPath,
+            @Value("${routing.offline.graph-path:data/road-graph.chg}") String graphPath,
+            @Value("${routing.offline.max-snap-meters:2000}") int maxSnapMeters) throws IOException {
+        return new OfflineRouter(
+            RoutingGraphFile.openOrBuild(Path.of(graphPath), pbfPath.isBlank() ? null : Path.of(pbfPath)),
+            maxSnapMeters
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.couriermanagement.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a block in a write transaction and records how long it held the JDBC connection.
+ * The connection is taken when the transaction begins and returned on commit or rollback,
+ * so the timer {@code db.transaction.duration} tagged by operation is the hold time.
+ */
+@Component
+public class TimedTransactions {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public TimedTransactions(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T write(String operation, Supplier<T> action) {
+        long startedAt = System.nanoTime();
+        String outcome = "rollback";
+        try {
+            T result = transactionTemplate.execute(status -> action.get());
+            outcome = "commit";
+            return result;
+        } finally {
+            Timer.builder("db.transaction.duration")
+                .description("Время удержания соединения с БД транзакцией")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
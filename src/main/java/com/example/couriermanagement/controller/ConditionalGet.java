@@ -0,0 +1,39 @@
+package com.example.couriermanagement.controller;
+
+import com.example.couriermanagement.entity.Catalog;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Conditional GET by version-based ETags. The versions are read before the payload, so a tag never
+ * describes older data than the body sent with it, and a matching {@code If-None-Match} is answered
+ * with 304 without loading the payload.
+ */
+final class ConditionalGet {
+
+    // клиент может хранить ответ, но перед использованием сверяет тег с сервером
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Versions of all catalogs in one tag part, for payloads that embed products, vehicles and users
+     */
+    static String catalogsTag(Map<Catalog, Long> versions) {
+        return versions.values().stream().map(String::valueOf).collect(Collectors.joining("."));
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, String eTag, Supplier<T> body) {
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(body.get());
+    }
+}
@@ -39,6 +39,7 @@ public class CourierController {
     @ApiResponses(
         value = {
             @ApiResponse(responseCode = "200", description = "Список доставок курьера"),
+            @ApiResponse(responseCode = "304", description = "Список не изменился"),
             @ApiResponse(responseCode = "403", description = "Доступ запрещен")
         }
     )
@@ -63,7 +64,8 @@ public class CourierController {
         LocalDate dateTo
     ) {
         List<CourierDeliveryResponse> deliveries = courierService.getCourierDeliveries(date, status, dateFrom, dateTo);
-        return ResponseEntity.ok(deliveries);
+        // ETag по хешу тела ставит ShallowEtagHeaderFilter
+        return ResponseEntity.ok().cacheControl(ConditionalGet.REVALIDATE).body(deliveries);
     }
 
     @GetMapping("/deliveries/{id}")
@@ -3,22 +3,46 @@ package com.example.couriermanagement.controller;
 import com.example.couriermanagement.dto.DeliveryDto;
 import com.example.couriermanagement.dto.request.DeliveryRequest;
 import com.example.couriermanagement.dto.request.GenerateDeliveriesRequest;
+import com.example.couriermanagement.dto.response.DeliveryImportResult;
+import com.example.couriermanagement.dto.response.DeliveryPage;
 import com.example.couriermanagement.dto.response.GenerateDeliveriesResponse;
+import com.example.couriermanagement.dto.response.GenerationJobDto;
+import com.example.couriermanagement.dto.response.NearbyPointDto;
 import com.example.couriermanagement.entity.DeliveryStatus;
+import com.example.couriermanagement.exporting.DeliveryExportWriter;
+import com.example.couriermanagement.importing.DeliveryImportReader;
+import com.example.couriermanagement.service.CatalogVersionService;
 import com.example.couriermanagement.service.DeliveryService;
+import com.example.couriermanagement.service.GenerationJobService;
+import com.example.couriermanagement.service.SpatialIndexService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -28,10 +52,28 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class DeliveryController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final DeliveryService deliveryService;
+    private final SpatialIndexService spatialIndexService;
+    private final GenerationJobService generationJobService;
+    private final ObjectMapper objectMapper;
+    private final CatalogVersionService catalogVersionService;
+    private final int importMaxLineLength;
+    private final int importMaxRowsPerDelivery;
 
-    public DeliveryController(DeliveryService deliveryService) {
+    public DeliveryController(DeliveryService deliveryService, SpatialIndexService spatialIndexService,
+                              GenerationJobService generationJobService, ObjectMapper objectMapper,
+                              CatalogVersionService catalogVersionService,
+                              @Value("${delivery-import.max-line-length:4096}") int importMaxLineLength,
+                              @Value("${delivery-import.max-rows-per-delivery:1000}") int importMaxRowsPerDelivery) {
         this.deliveryService = deliveryService;
+        this.spatialIndexService = spatialIndexService;
+        this.generationJobService = generationJobService;
+        this.objectMapper = objectMapper;
+        this.catalogVersionService = catalogVersionService;
+        this.importMaxLineLength = importMaxLineLength;
+        this.importMaxRowsPerDelivery = importMaxRowsPerDelivery;
     }
 
     @PostMapping("/generate")
@@ -57,15 +99,119 @@ public class DeliveryController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/generate/jobs")
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(
+        summary = "Запустить фоновую генерацию доставок",
+        description = """
+            Доступно только для менеджера. Тело запроса такое же, как у /deliveries/generate.
+            Возвращает ID задачи; ход генерации можно запрашивать или получать через SSE.
+        """
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "202", description = "Задача принята"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "429", description = "Очередь задач генерации заполнена")
+        }
+    )
+    public ResponseEntity<GenerationJobDto> submitGenerationJob(
+        @Valid @RequestBody GenerateDeliveriesRequest generateRequest
+    ) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(generationJobService.submit(generateRequest));
+    }
+
+    @GetMapping("/generate/jobs/{jobId}")
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(
+        summary = "Состояние задачи генерации",
+        description = "Статус и результаты по уже обработанным датам. Доступно только для менеджера"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Состояние задачи"),
+            @ApiResponse(responseCode = "400", description = "Задача не найдена или удалена по сроку хранения"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<GenerationJobDto> getGenerationJob(
+        @Parameter(description = "ID задачи")
+        @PathVariable String jobId
+    ) {
+        return ResponseEntity.ok(generationJobService.getJob(jobId));
+    }
+
+    @GetMapping(value = "/generate/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(
+        summary = "Поток событий задачи генерации",
+        description = """
+            Server-Sent Events: job - текущее состояние при подписке, date - результат каждой
+            обработанной даты, finished - итог задачи, после него поток закрывается.
+        """
+    )
+    public SseEmitter streamGenerationJob(
+        @Parameter(description = "ID задачи")
+        @PathVariable String jobId
+    ) {
+        return generationJobService.subscribe(jobId);
+    }
+
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"}, produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(
+        summary = "Массовый импорт доставок",
+        description = """
+            Доступно только для менеджера. Тело читается потоково: application/x-ndjson - по объекту
+            доставки в строке, text/csv - по строке на товар точки, строки одной доставки идут подряд
+            с общим ref. Ответ - NDJSON с результатом каждой строки, отправляемый по мере сохранения пакетов.
+        """
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Поток результатов по строкам"),
+            @ApiResponse(responseCode = "400", description = "Неподдерживаемый формат или заголовок CSV"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public void importDeliveries(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        DeliveryImportReader reader = DeliveryImportReader.open(
+            contentType, request.getInputStream(), objectMapper, importMaxLineLength, importMaxRowsPerDelivery);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        PrintWriter writer = response.getWriter();
+        deliveryService.importDeliveries(reader, results -> {
+            try {
+                for (DeliveryImportResult result : results) {
+                    writer.write(objectMapper.writeValueAsString(result));
+                    writer.write('\n');
+                }
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            // клиент получает результаты пакета сразу после его сохранения
+            writer.flush();
+        });
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('MANAGER')")
     @Operation(
         summary = "Получить список доставок",
-        description = "Получение списка доставок с фильтрацией. Доступно только для менеджера"
+        description = """
+            Получение списка доставок с фильтрацией. Доступно только для менеджера.
+            Доставки упорядочены по дате, времени начала и ID и отдаются страницами; если есть следующая,
+            ее курсор приходит в заголовке X-Next-Cursor и передается в параметре cursor.
+        """
     )
     @ApiResponses(
         value = {
             @ApiResponse(responseCode = "200", description = "Список доставок"),
+            @ApiResponse(responseCode = "400", description = "Некорректный фильтр, курсор или размер страницы"),
             @ApiResponse(responseCode = "403", description = "Доступ запрещен")
         }
     )
@@ -75,16 +221,223 @@ public class DeliveryController {
         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
         LocalDate date,
 
+        @Parameter(description = "Начало периода, включительно", example = "2025-01-01")
+        @RequestParam(name = "date_from", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate dateFrom,
+
+        @Parameter(description = "Конец периода, включительно", example = "2025-01-31")
+        @RequestParam(name = "date_to", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate dateTo,
+
+        @Parameter(description = "Фильтр по ID курьера", example = "1")
+        @RequestParam(name = "courier_id", required = false)
+        Long courierId,
+
+        @Parameter(description = "Фильтр по ID машины", example = "1")
+        @RequestParam(name = "vehicle_id", required = false)
+        Long vehicleId,
+
+        @Parameter(description = "Фильтр по статусу")
+        @RequestParam(required = false)
+        DeliveryStatus status,
+
+        @Parameter(description = "Только доставки с этим товаром", example = "1")
+        @RequestParam(name = "product_id", required = false)
+        Long productId,
+
+        @Parameter(description = "Курсор из заголовка X-Next-Cursor предыдущей страницы")
+        @RequestParam(required = false)
+        String cursor,
+
+        @Parameter(description = "Размер страницы, от 1 до 500", example = "100")
+        @RequestParam(defaultValue = "100")
+        int limit
+    ) {
+        DeliveryDto.DeliveryFilterRequest filter = DeliveryDto.DeliveryFilterRequest.builder()
+            .startDate(date != null ? date : dateFrom)
+            .endDate(date != null ? date : dateTo)
+            .courierId(courierId)
+            .vehicleId(vehicleId)
+            .status(status)
+            .productId(productId)
+            .build();
+        DeliveryPage page = deliveryService.searchDeliveries(filter, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getDeliveries());
+    }
+
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(
+        summary = "Выгрузка доставок",
+        description = """
+            Доступно только для менеджера. Все доставки по фильтрам отдаются одним потоком по мере чтения
+            из БД, без постраничной загрузки: ndjson - по объекту доставки в строке, csv - по строке на
+            товар точки в колонках импорта и статус доставки.
+        """
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Поток доставок"),
+            @ApiResponse(responseCode = "400", description = "Некорректный фильтр или формат"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<StreamingResponseBody> exportDeliveries(
+        @Parameter(description = "Начало периода, включительно", example = "2025-01-01")
+        @RequestParam(name = "date_from", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate dateFrom,
+
+        @Parameter(description = "Конец периода, включительно", example = "2025-01-31")
+        @RequestParam(name = "date_to", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate dateTo,
+
         @Parameter(description = "Фильтр по ID курьера", example = "1")
         @RequestParam(name = "courier_id", required = false)
         Long courierId,
 
+        @Parameter(description = "Фильтр по ID машины", example = "1")
+        @RequestParam(name = "vehicle_id", required = false)
+        Long vehicleId,
+
         @Parameter(description = "Фильтр по статусу")
         @RequestParam(required = false)
-        DeliveryStatus status
+        DeliveryStatus status,
+
+        @Parameter(description = "Только доставки с этим товаром", example = "1")
+        @RequestParam(name = "product_id", required = false)
+        Long productId,
+
+        @Parameter(description = "Формат: ndjson или csv", example = "csv")
+        @RequestParam(defaultValue = "ndjson")
+        String format
+    ) {
+        DeliveryDto.DeliveryFilterRequest filter = DeliveryDto.DeliveryFilterRequest.builder()
+            .startDate(dateFrom)
+            .endDate(dateTo)
+            .courierId(courierId)
+            .vehicleId(vehicleId)
+            .status(status)
+            .productId(productId)
+            .build();
+        if (dateFrom != null && dateTo != null && dateFrom.isAfter(dateTo)) {
+            // после начала потока статус ответа уже не изменить
+            throw new IllegalArgumentException("Начало периода позже его конца");
+        }
+        MediaType mediaType = DeliveryExportWriter.mediaType(format);
+        StreamingResponseBody body = out ->
+            deliveryService.exportDeliveries(filter, DeliveryExportWriter.open(mediaType, out, objectMapper));
+        return ResponseEntity.ok()
+            .contentType(new MediaType(mediaType, StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("deliveries." + format.toLowerCase())
+                .build()
+                .toString())
+            .body(body);
+    }
+
+    @GetMapping("/points/nearest")
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(
+        summary = "Ближайшие точки доставки",
+        description = "K ближайших к координатам точек доставок на дату. Доступно только для менеджера"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Точки, ближайшие первыми"),
+            @ApiResponse(responseCode = "400", description = "Неверные параметры"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<List<NearbyPointDto>> getNearestPoints(
+        @Parameter(description = "Дата доставки", example = "2025-01-30")
+        @RequestParam
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate date,
+
+        @Parameter(description = "Широта", example = "55.7558")
+        @RequestParam double latitude,
+
+        @Parameter(description = "Долгота", example = "37.6176")
+        @RequestParam double longitude,
+
+        @Parameter(description = "Количество точек", example = "10")
+        @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(spatialIndexService.findNearest(date, latitude, longitude, limit));
+    }
+
+    @GetMapping("/points/within-radius")
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(
+        summary = "Точки доставки в радиусе",
+        description = "Точки доставок на дату не дальше радиуса от координат. Доступно только для менеджера"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Точки, ближайшие первыми"),
+            @ApiResponse(responseCode = "400", description = "Неверные параметры"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<List<NearbyPointDto>> getPointsWithinRadius(
+        @Parameter(description = "Дата доставки", example = "2025-01-30")
+        @RequestParam
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate date,
+
+        @Parameter(description = "Широта", example = "55.7558")
+        @RequestParam double latitude,
+
+        @Parameter(description = "Долгота", example = "37.6176")
+        @RequestParam double longitude,
+
+        @Parameter(description = "Радиус, км", example = "2.5")
+        @RequestParam(name = "radius_km") double radiusKm
+    ) {
+        return ResponseEntity.ok(spatialIndexService.findWithinRadius(date, latitude, longitude, radiusKm));
+    }
+
+    @GetMapping("/points/in-area")
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(
+        summary = "Точки доставки в прямоугольной области",
+        description = "Точки доставок на дату внутри области, границы включительно. Доступно только для менеджера"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Точки в области"),
+            @ApiResponse(responseCode = "400", description = "Неверные параметры"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<List<NearbyPointDto>> getPointsInArea(
+        @Parameter(description = "Дата доставки", example = "2025-01-30")
+        @RequestParam
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate date,
+
+        @Parameter(description = "Минимальная широта", example = "55.70")
+        @RequestParam(name = "min_latitude") double minLatitude,
+
+        @Parameter(description = "Минимальная долгота", example = "37.55")
+        @RequestParam(name = "min_longitude") double minLongitude,
+
+        @Parameter(description = "Максимальная широта", example = "55.80")
+        @RequestParam(name = "max_latitude") double maxLatitude,
+
+        @Parameter(description = "Максимальная долгота", example = "37.70")
+        @RequestParam(name = "max_longitude") double maxLongitude
     ) {
-        List<DeliveryDto> deliveries = deliveryService.getAllDeliveries(date, courierId, status);
-        return ResponseEntity.ok(deliveries);
+        return ResponseEntity.ok(spatialIndexService.findInBoundingBox(
+            date, minLatitude, minLongitude, maxLatitude, maxLongitude));
     }
 
     @PostMapping
@@ -115,15 +468,20 @@ public class DeliveryController {
     @ApiResponses(
         value = {
             @ApiResponse(responseCode = "200", description = "Детали доставки"),
+            @ApiResponse(responseCode = "304", description = "Доставка не изменилась"),
             @ApiResponse(responseCode = "404", description = "Доставка не найдена")
         }
     )
     public ResponseEntity<DeliveryDto> getDeliveryById(
         @Parameter(description = "ID доставки", example = "1")
-        @PathVariable Long id
+        @PathVariable Long id,
+        WebRequest request
     ) {
-        DeliveryDto delivery = deliveryService.getDeliveryById(id);
-        return ResponseEntity.ok(delivery);
+        // в ответе есть товары, машина и курьер, а признак canEdit зависит от текущей даты
+        String eTag = "delivery-" + id + "-" + deliveryService.getDeliveryVersion(id)
+            + "-" + ConditionalGet.catalogsTag(catalogVersionService.getVersions())
+            + "-" + LocalDate.now();
+        return ConditionalGet.respond(request, eTag, () -> deliveryService.getDeliveryById(id));
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,133 @@
+package com.example.couriermanagement.controller;
+
+import com.example.couriermanagement.dto.response.DeliveryTotalsCheck;
+import com.example.couriermanagement.dto.response.DistanceCacheStats;
+import com.example.couriermanagement.dto.response.LoadTimelineCheck;
+import com.example.couriermanagement.service.DeliveryTotalsService;
+import com.example.couriermanagement.service.DistanceCacheService;
+import com.example.couriermanagement.service.VehicleLoadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/maintenance")
+@Tag(name = "Maintenance", description = "Служебные операции (админ)")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class MaintenanceController {
+
+    private final DistanceCacheService distanceCacheService;
+    private final VehicleLoadService vehicleLoadService;
+    private final DeliveryTotalsService deliveryTotalsService;
+
+    public MaintenanceController(DistanceCacheService distanceCacheService, VehicleLoadService vehicleLoadService,
+                                 DeliveryTotalsService deliveryTotalsService) {
+        this.distanceCacheService = distanceCacheService;
+        this.vehicleLoadService = vehicleLoadService;
+        this.deliveryTotalsService = deliveryTotalsService;
+    }
+
+    @GetMapping("/distance-cache")
+    @Operation(
+        summary = "Статистика кэша расстояний",
+        description = "Попадания, промахи и вытеснения по уровням кэша. Доступно только для админа"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Статистика кэша"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<DistanceCacheStats> getDistanceCacheStats() {
+        return ResponseEntity.ok(distanceCacheService.getStats());
+    }
+
+    @PostMapping("/distance-cache/warm-up")
+    @Operation(
+        summary = "Прогреть кэш расстояний",
+        description = "Рассчитывает расстояния маршрутов существующих доставок начиная с указанной даты"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Кэш прогрет"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<DistanceCacheStats> warmUpDistanceCache(
+        @Parameter(description = "Начальная дата доставок", example = "2025-01-01")
+        @RequestParam
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate since,
+
+        @Parameter(description = "Максимальное количество точек", example = "20000")
+        @RequestParam(name = "max_points", defaultValue = "20000")
+        int maxPoints
+    ) {
+        distanceCacheService.warmUp(since, maxPoints);
+        return ResponseEntity.ok(distanceCacheService.getStats());
+    }
+
+    @GetMapping("/load-timelines/check")
+    @Operation(
+        summary = "Сверить графики загрузки машин",
+        description = "Сравнивает графики загрузки в памяти с базой данных и при необходимости исправляет расхождения"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Результат сверки"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<LoadTimelineCheck> checkLoadTimelines(
+        @Parameter(description = "Заменить расходящиеся графики данными из базы", example = "false")
+        @RequestParam(defaultValue = "false")
+        boolean repair
+    ) {
+        return ResponseEntity.ok(vehicleLoadService.checkConsistency(repair));
+    }
+
+    @PostMapping("/load-timelines/rebuild")
+    @Operation(
+        summary = "Перестроить графики загрузки машин",
+        description = "Заново загружает из базы все графики загрузки, находящиеся в памяти"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Количество перестроенных графиков"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<Integer> rebuildLoadTimelines() {
+        return ResponseEntity.ok(vehicleLoadService.rebuild());
+    }
+
+    @GetMapping("/delivery-totals/check")
+    @Operation(
+        summary = "Сверить итоги доставок",
+        description = "Сравнивает хранимые вес, объем и количества доставок с их точками и товарами "
+            + "и при необходимости пересчитывает расходящиеся"
+    )
+    @ApiResponses(
+        value = {
+            @ApiResponse(responseCode = "200", description = "Результат сверки"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+        }
+    )
+    public ResponseEntity<DeliveryTotalsCheck> checkDeliveryTotals(
+        @Parameter(description = "Пересчитать расходящиеся итоги", example = "false")
+        @RequestParam(defaultValue = "false")
+        boolean repair
+    ) {
+        return ResponseEntity.ok(deliveryTotalsService.checkConsistency(repair));
+    }
+}
@@ -2,6 +2,8 @@ package com.example.couriermanagement.controller;
 
 import com.example.couriermanagement.dto.ProductDto;
 import com.example.couriermanagement.dto.request.ProductRequest;
+import com.example.couriermanagement.entity.Catalog;
+import com.example.couriermanagement.service.CatalogVersionService;
 import com.example.couriermanagement.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +16,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -24,9 +27,11 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogVersionService catalogVersionService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, CatalogVersionService catalogVersionService) {
         this.productService = productService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @GetMapping
@@ -37,12 +42,13 @@ public class ProductController {
     @ApiResponses(
         value = {
             @ApiResponse(responseCode = "200", description = "Список товаров"),
+            @ApiResponse(responseCode = "304", description = "Список не изменился"),
             @ApiResponse(responseCode = "403", description = "Доступ запрещен")
         }
     )
-    public ResponseEntity<List<ProductDto>> getAllProducts() {
-        List<ProductDto> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDto>> getAllProducts(WebRequest request) {
+        String eTag = "products-" + catalogVersionService.getVersions().get(Catalog.PRODUCTS);
+        return ConditionalGet.respond(request, eTag, productService::getAllProducts);
     }
 
     @PostMapping
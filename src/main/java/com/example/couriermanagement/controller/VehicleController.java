@@ -2,6 +2,8 @@ package com.example.couriermanagement.controller;
 
 import com.example.couriermanagement.dto.VehicleDto;
 import com.example.couriermanagement.dto.request.VehicleRequest;
+import com.example.couriermanagement.entity.Catalog;
+import com.example.couriermanagement.service.CatalogVersionService;
 import com.example.couriermanagement.service.VehicleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +16,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -24,9 +27,11 @@ import java.util.List;
 public class VehicleController {
 
     private final VehicleService vehicleService;
+    private final CatalogVersionService catalogVersionService;
 
-    public VehicleController(VehicleService vehicleService) {
+    public VehicleController(VehicleService vehicleService, CatalogVersionService catalogVersionService) {
         this.vehicleService = vehicleService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @GetMapping
@@ -37,12 +42,13 @@ public class VehicleController {
     @ApiResponses(
         value = {
             @ApiResponse(responseCode = "200", description = "Список машин"),
+            @ApiResponse(responseCode = "304", description = "Список не изменился"),
             @ApiResponse(responseCode = "403", description = "Доступ запрещен")
         }
     )
-    public ResponseEntity<List<VehicleDto>> getAllVehicles() {
-        List<VehicleDto> vehicles = vehicleService.getAllVehicles();
-        return ResponseEntity.ok(vehicles);
+    public ResponseEntity<List<VehicleDto>> getAllVehicles(WebRequest request) {
+        String eTag = "vehicles-" + catalogVersionService.getVersions().get(Catalog.VEHICLES);
+        return ConditionalGet.respond(request, eTag, vehicleService::getAllVehicles);
     }
 
     @PostMapping
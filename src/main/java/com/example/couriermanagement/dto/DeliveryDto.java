@@ -37,17 +37,6 @@ public class DeliveryDto {
     private Boolean canEdit = false;
 
     public static DeliveryDto from(Delivery delivery) {
-        // Calculate total weight and volume
-        BigDecimal totalWeight = delivery.getDeliveryPoints().stream()
-                .flatMap(dp -> dp.getDeliveryPointProducts().stream())
-                .map(dpp -> dpp.getProduct().getWeight().multiply(BigDecimal.valueOf(dpp.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalVolume = delivery.getDeliveryPoints().stream()
-                .flatMap(dp -> dp.getDeliveryPointProducts().stream())
-                .map(dpp -> dpp.getProduct().getVolume().multiply(BigDecimal.valueOf(dpp.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         boolean canEdit = delivery.getDeliveryDate().isAfter(LocalDate.now().plusDays(3));
 
         return DeliveryDto.builder()
@@ -66,8 +55,8 @@ public class DeliveryDto {
                 .deliveryPoints(delivery.getDeliveryPoints().stream()
                         .map(DeliveryPointDto::from)
                         .collect(Collectors.toList()))
-                .totalWeight(totalWeight)
-                .totalVolume(totalVolume)
+                .totalWeight(delivery.getTotalWeight())
+                .totalVolume(delivery.getTotalVolume())
                 .canEdit(canEdit)
                 .build();
     }
@@ -80,6 +69,8 @@ public class DeliveryDto {
         private LocalDate startDate;
         private LocalDate endDate;
         private Long courierId;
+        private Long vehicleId;
         private DeliveryStatus status;
+        private Long productId;
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.example.couriermanagement.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Drop point not yet bound to a route; routes are built by clustering.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DropPointRequest {
+
+    @NotNull(message = "Широта не может быть null")
+    private BigDecimal latitude;
+
+    @NotNull(message = "Долгота не может быть null")
+    private BigDecimal longitude;
+
+    @NotEmpty(message = "Список товаров не может быть пустым")
+    @Valid
+    private List<DeliveryProductRequest> products;
+}
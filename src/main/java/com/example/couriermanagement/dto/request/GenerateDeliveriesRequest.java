@@ -1,12 +1,13 @@
 package com.example.couriermanagement.dto.request;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import jakarta.validation.Valid;
-import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.AssertTrue;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -17,7 +18,18 @@ import java.util.Map;
 @AllArgsConstructor
 public class GenerateDeliveriesRequest {
     
-    @NotEmpty(message = "Данные для генерации доставок не могут быть пустыми")
     @Valid
     private Map<LocalDate, List<RouteWithProducts>> deliveryData;
-}
\ No newline at end of file
+
+    /**
+     * Raw drop points by date; they are clustered into routes before generation.
+     */
+    @Valid
+    private Map<LocalDate, List<DropPointRequest>> dropPoints;
+
+    @JsonIgnore
+    @AssertTrue(message = "Данные для генерации доставок не могут быть пустыми")
+    public boolean isDataPresent() {
+        return (deliveryData != null && !deliveryData.isEmpty()) || (dropPoints != null && !dropPoints.isEmpty());
+    }
+}
@@ -2,6 +2,8 @@ package com.example.couriermanagement.dto.request;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @Data
@@ -22,4 +25,24 @@ public class RouteCalculationRequest {
     @Valid
     @Schema(description = "Точки маршрута (минимум 2)")
     private List<RoutePoint> points;
+
+    @Schema(description = "Переупорядочить точки для минимального пробега (не более routing.optimizer.max-points точек)", example = "false")
+    private Boolean optimize;
+
+    @Schema(description = "Первая точка остается началом маршрута (по умолчанию да)", example = "true")
+    private Boolean fixedStart;
+
+    @Schema(description = "Последняя точка остается концом маршрута (по умолчанию нет)", example = "false")
+    private Boolean fixedEnd;
+
+    @Min(value = 1, message = "Лимит времени оптимизации должен быть больше 0")
+    @Max(value = 5000, message = "Лимит времени оптимизации не может превышать 5000 мс")
+    @Schema(description = "Лимит времени оптимизации в миллисекундах", example = "300")
+    private Integer timeBudgetMs;
+
+    @Schema(description = "ID курьера: рекомендуемое время подбирается в его свободном окне", example = "2")
+    private Long courierId;
+
+    @Schema(description = "Дата доставки для подбора рекомендуемого времени", example = "2025-01-30")
+    private LocalDate deliveryDate;
 }
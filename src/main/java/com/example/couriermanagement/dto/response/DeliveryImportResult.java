@@ -0,0 +1,39 @@
+package com.example.couriermanagement.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Результат импорта одной доставки")
+public class DeliveryImportResult {
+    @Schema(description = "Номер строки NDJSON или значение колонки ref в CSV", example = "12")
+    private String ref;
+
+    @Schema(description = "Итог обработки строки")
+    private Status status;
+
+    @Schema(description = "ID созданной доставки", example = "1")
+    private Long deliveryId;
+
+    @Schema(description = "Причина отказа")
+    private String error;
+
+    public static DeliveryImportResult created(String ref, Long deliveryId) {
+        return DeliveryImportResult.builder().ref(ref).status(Status.CREATED).deliveryId(deliveryId).build();
+    }
+
+    public static DeliveryImportResult rejected(String ref, String error) {
+        return DeliveryImportResult.builder().ref(ref).status(Status.REJECTED).error(error).build();
+    }
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.couriermanagement.dto.response;
+
+import com.example.couriermanagement.dto.DeliveryDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Страница поиска доставок")
+public class DeliveryPage {
+    @Schema(description = "Доставки по дате, времени начала и ID")
+    private List<DeliveryDto> deliveries;
+
+    @Schema(description = "Курсор следующей страницы, нет на последней", example = "MjAyNS0wMS0zMHwwOTowMHwxMjM")
+    private String nextCursor;
+}
@@ -0,0 +1,28 @@
+package com.example.couriermanagement.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Результат сверки хранимых итогов доставок с точками и товарами")
+public class DeliveryTotalsCheck {
+    @Schema(description = "Проверено доставок", example = "1200")
+    private Integer checkedDeliveries;
+
+    @Schema(description = "Доставок с расхождениями", example = "0")
+    private Integer mismatchedDeliveries;
+
+    @Schema(description = "Исправлено доставок", example = "0")
+    private Integer repairedDeliveries;
+
+    @Schema(description = "Идентификаторы доставок с расхождениями (не больше 100)")
+    private List<Long> mismatchedDeliveryIds;
+}
@@ -0,0 +1,38 @@
+package com.example.couriermanagement.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Статистика кэша расстояний")
+public class DistanceCacheStats {
+    @Schema(description = "Точность квантования координат (знаков после запятой)", example = "4")
+    private Integer precision;
+
+    @Schema(description = "Попадания в памяти", example = "120")
+    private Long memoryHits;
+
+    @Schema(description = "Попадания на диске", example = "15")
+    private Long diskHits;
+
+    @Schema(description = "Промахи", example = "30")
+    private Long misses;
+
+    @Schema(description = "Вытеснения из памяти", example = "0")
+    private Long memoryEvictions;
+
+    @Schema(description = "Вытеснения с диска", example = "0")
+    private Long diskEvictions;
+
+    @Schema(description = "Записей в памяти", example = "135")
+    private Integer memorySize;
+
+    @Schema(description = "Записей на диске", example = "1200")
+    private Integer diskSize;
+}
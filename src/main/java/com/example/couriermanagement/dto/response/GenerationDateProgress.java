@@ -0,0 +1,31 @@
+package com.example.couriermanagement.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Событие о завершении генерации одной даты задачи")
+public class GenerationDateProgress {
+    @Schema(description = "ID задачи", example = "3f1c7a52-8d0e-4a8e-9f0b-2b1d6c4e5a7f")
+    private String jobId;
+
+    @Schema(description = "Дата доставки", example = "2025-01-30")
+    private LocalDate date;
+
+    @Schema(description = "Обработано дат", example = "5")
+    private Integer completedDates;
+
+    @Schema(description = "Всего дат в задаче", example = "14")
+    private Integer totalDates;
+
+    @Schema(description = "Результат по дате")
+    private GenerationResultByDate result;
+}
@@ -0,0 +1,55 @@
+package com.example.couriermanagement.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Задача фоновой генерации доставок")
+public class GenerationJobDto {
+    @Schema(description = "ID задачи", example = "3f1c7a52-8d0e-4a8e-9f0b-2b1d6c4e5a7f")
+    private String jobId;
+
+    @Schema(description = "Статус задачи")
+    private Status status;
+
+    @Schema(description = "Время постановки в очередь")
+    private Instant submittedAt;
+
+    @Schema(description = "Время начала генерации")
+    private Instant startedAt;
+
+    @Schema(description = "Время завершения")
+    private Instant finishedAt;
+
+    @Schema(description = "Всего дат в задаче, известно после начала генерации", example = "14")
+    private Integer totalDates;
+
+    @Schema(description = "Обработано дат", example = "5")
+    private Integer completedDates;
+
+    @Schema(description = "Создано доставок на текущий момент", example = "42")
+    private Integer totalGenerated;
+
+    @Schema(description = "Результаты по уже обработанным датам")
+    private Map<LocalDate, GenerationResultByDate> byDate;
+
+    @Schema(description = "Причина ошибки, если задача завершилась неудачно")
+    private String error;
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.couriermanagement.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Результат сверки графиков загрузки машин с базой данных")
+public class LoadTimelineCheck {
+    @Schema(description = "Проверено графиков (машина + дата)", example = "12")
+    private Integer checkedTimelines;
+
+    @Schema(description = "Графиков с расхождениями", example = "0")
+    private Integer mismatchedTimelines;
+
+    @Schema(description = "Исправлено графиков", example = "0")
+    private Integer repairedTimelines;
+
+    @Schema(description = "Описание расхождений")
+    private List<String> mismatches;
+}
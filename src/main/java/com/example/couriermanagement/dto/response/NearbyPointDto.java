@@ -0,0 +1,31 @@
+package com.example.couriermanagement.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Точка доставки из пространственного индекса")
+public class NearbyPointDto {
+    @Schema(description = "ID точки доставки", example = "15")
+    private Long pointId;
+
+    @Schema(description = "ID доставки", example = "3")
+    private Long deliveryId;
+
+    @Schema(description = "Широта", example = "55.7558")
+    private BigDecimal latitude;
+
+    @Schema(description = "Долгота", example = "37.6176")
+    private BigDecimal longitude;
+
+    @Schema(description = "Расстояние до точки запроса по прямой, км (нет для поиска по области)", example = "1.25")
+    private Double distanceKm;
+}
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Data
 @Builder
@@ -20,6 +21,15 @@ public class RouteCalculationResponse {
     @Schema(description = "Время в пути в минутах", example = "120")
     private Integer durationMinutes;
 
-    @Schema(description = "Рекомендуемое время")
+    @Schema(description = "Рекомендуемое время (нет, если у курьера не нашлось свободного окна)")
     private SuggestedTime suggestedTime;
+
+    @Schema(description = "Расстояние в порядке запроса, км (при оптимизации)", example = "31.2")
+    private BigDecimal originalDistanceKm;
+
+    @Schema(description = "Расстояние после оптимизации, км (при оптимизации)", example = "25.5")
+    private BigDecimal optimizedDistanceKm;
+
+    @Schema(description = "Порядок обхода - индексы точек из запроса (при оптимизации)")
+    private List<Integer> order;
 }
\ No newline at end of file
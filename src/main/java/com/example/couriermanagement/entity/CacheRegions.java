@@ -0,0 +1,20 @@
+package com.example.couriermanagement.entity;
+
+import java.util.List;
+
+/**
+ * Second-level cache regions of the reference entities and their natural-id lookups.
+ */
+public final class CacheRegions {
+
+    public static final String PRODUCTS = "products";
+    public static final String VEHICLES = "vehicles";
+    public static final String VEHICLES_BY_PLATE = "vehicles-by-plate";
+    public static final String USERS = "users";
+    public static final String USERS_BY_LOGIN = "users-by-login";
+
+    public static final List<String> ALL = List.of(PRODUCTS, VEHICLES, VEHICLES_BY_PLATE, USERS, USERS_BY_LOGIN);
+
+    private CacheRegions() {
+    }
+}
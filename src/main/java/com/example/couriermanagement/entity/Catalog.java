@@ -0,0 +1,10 @@
+package com.example.couriermanagement.entity;
+
+/**
+ * Reference data with a change counter in {@code catalog_versions}.
+ */
+public enum Catalog {
+    PRODUCTS,
+    VEHICLES,
+    USERS
+}
@@ -0,0 +1,31 @@
+package com.example.couriermanagement.entity;
+
+import com.example.couriermanagement.service.CatalogVersionService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Bumps the version of the catalog an added, changed or removed product, vehicle or user belongs to,
+ * whichever service or repository wrote it.
+ */
+public class CatalogVersionListener extends EntityChangeListener<CatalogVersionService> {
+
+    public CatalogVersionListener(ObjectProvider<CatalogVersionService> catalogVersionService) {
+        super(catalogVersionService);
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        Catalog catalog = entity instanceof Product ? Catalog.PRODUCTS
+            : entity instanceof Vehicle ? Catalog.VEHICLES
+            : entity instanceof User ? Catalog.USERS
+            : null;
+        if (catalog != null) {
+            forward(service -> service.catalogChanged(catalog));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.couriermanagement.entity;
+
+import com.example.couriermanagement.service.CourierScheduleService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Forwards delivery windows to the in-memory courier schedules.
+ */
+public class CourierScheduleListener extends EntityChangeListener<CourierScheduleService> {
+
+    public CourierScheduleListener(ObjectProvider<CourierScheduleService> courierScheduleService) {
+        super(courierScheduleService);
+    }
+
+    @PostPersist
+    @PostUpdate
+    void deliverySaved(Delivery delivery) {
+        // id курьера берется из прокси без загрузки пользователя
+        Long courierId = delivery.getCourier() != null ? delivery.getCourier().getId() : null;
+        forward(service -> service.deliverySaved(
+            delivery.getId(),
+            courierId,
+            delivery.getDeliveryDate(),
+            delivery.getTimeStart(),
+            delivery.getTimeEnd(),
+            delivery.getStatus()
+        ));
+    }
+
+    @PostRemove
+    void deliveryRemoved(Delivery delivery) {
+        forward(service -> service.deliveryRemoved(delivery.getId()));
+    }
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -14,13 +15,15 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "deliveries")
+@EntityListeners({DeliveryLoadListener.class, CourierScheduleListener.class})
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Delivery {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deliveries_seq")
+    @SequenceGenerator(name = "deliveries_seq", sequenceName = "deliveries_seq", allocationSize = 50)
     private Long id = 0L;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -54,6 +57,28 @@ public class Delivery {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // итоги по точкам и товарам, пересчитываются перед коммитом каждой транзакции, изменившей доставку
+    @Builder.Default
+    @Column(name = "total_weight", precision = 12, scale = 3, nullable = false)
+    private BigDecimal totalWeight = BigDecimal.ZERO;
+
+    @Builder.Default
+    @Column(name = "total_volume", precision = 14, scale = 6, nullable = false)
+    private BigDecimal totalVolume = BigDecimal.ZERO;
+
+    @Builder.Default
+    @Column(name = "points_count", nullable = false)
+    private Integer pointsCount = 0;
+
+    @Builder.Default
+    @Column(name = "products_count", nullable = false)
+    private Integer productsCount = 0;
+
+    // растет и при изменении точек и товаров (см. DeliveryTotalsService), основа ETag доставки
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "delivery", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<DeliveryPoint> deliveryPoints = new ArrayList<>();
 
@@ -0,0 +1,40 @@
+package com.example.couriermanagement.entity;
+
+import com.example.couriermanagement.service.VehicleLoadService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Tells the vehicle load timelines which deliveries changed: the delivery itself (window, vehicle,
+ * status), its product lines, or a product whose weight or size every timeline depends on.
+ */
+public class DeliveryLoadListener extends EntityChangeListener<VehicleLoadService> {
+
+    public DeliveryLoadListener(ObjectProvider<VehicleLoadService> vehicleLoadService) {
+        super(vehicleLoadService);
+    }
+
+    @PostPersist
+    void persisted(Object entity) {
+        if (affectsDeliveries(entity)) {
+            changed(entity);
+        }
+    }
+
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        if (entity instanceof Delivery delivery) {
+            forward(service -> service.deliveryChanged(delivery.getId()));
+        } else if (entity instanceof DeliveryPointProduct pointProduct) {
+            DeliveryPoint point = pointProduct.getDeliveryPoint();
+            if (point != null && point.getDelivery() != null) {
+                forward(service -> service.deliveryChanged(point.getDelivery().getId()));
+            }
+        } else if (entity instanceof Product) {
+            forward(VehicleLoadService::productChanged);
+        }
+    }
+}
@@ -17,13 +17,16 @@ import java.util.Objects;
         @UniqueConstraint(columnNames = {"delivery_id", "sequence"})
     }
 )
+@EntityListeners({DeliveryPointIndexListener.class, DeliveryTotalsListener.class})
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class DeliveryPoint {
+    // пул из 50 id на обращение к последовательности: IDENTITY не дает Hibernate группировать вставки
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "delivery_points_seq")
+    @SequenceGenerator(name = "delivery_points_seq", sequenceName = "delivery_points_seq", allocationSize = 50)
     private Long id = 0L;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,5 +44,4 @@ public class DeliveryPoint {
 
     @OneToMany(mappedBy = "deliveryPoint", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<DeliveryPointProduct> deliveryPointProducts = new ArrayList<>();
-
 }
\ No newline at end of file
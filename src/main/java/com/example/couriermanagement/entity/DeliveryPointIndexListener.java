@@ -0,0 +1,36 @@
+package com.example.couriermanagement.entity;
+
+import com.example.couriermanagement.service.SpatialIndexService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Forwards point changes to the in-memory spatial index. Catches every write path, including
+ * cascades from {@link Delivery} and derived deletes, which all go through the persistence context.
+ */
+public class DeliveryPointIndexListener extends EntityChangeListener<SpatialIndexService> {
+
+    public DeliveryPointIndexListener(ObjectProvider<SpatialIndexService> spatialIndexService) {
+        super(spatialIndexService);
+    }
+
+    @PostPersist
+    @PostUpdate
+    void pointSaved(DeliveryPoint point) {
+        Delivery delivery = point.getDelivery();
+        forward(index -> index.pointSaved(
+            point.getId(),
+            delivery.getId(),
+            delivery.getDeliveryDate(),
+            point.getLatitude().doubleValue(),
+            point.getLongitude().doubleValue()
+        ));
+    }
+
+    @PostRemove
+    void pointRemoved(DeliveryPoint point) {
+        forward(index -> index.pointRemoved(point.getId()));
+    }
+}
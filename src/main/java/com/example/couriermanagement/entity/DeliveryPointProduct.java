@@ -9,13 +9,15 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "delivery_point_products")
+@EntityListeners({DeliveryLoadListener.class, DeliveryTotalsListener.class})
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class DeliveryPointProduct {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "delivery_point_products_seq")
+    @SequenceGenerator(name = "delivery_point_products_seq", sequenceName = "delivery_point_products_seq", allocationSize = 50)
     private Long id = 0L;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,46 @@
+package com.example.couriermanagement.entity;
+
+import com.example.couriermanagement.service.DeliveryTotalsService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Marks the deliveries whose stored totals went stale: a point or product line was added, changed
+ * or removed, or a product's weight or size changed. Every write path goes through here, so the
+ * totals do not depend on which service or repository made the change.
+ */
+public class DeliveryTotalsListener extends EntityChangeListener<DeliveryTotalsService> {
+
+    public DeliveryTotalsListener(ObjectProvider<DeliveryTotalsService> deliveryTotalsService) {
+        super(deliveryTotalsService);
+    }
+
+    @PostPersist
+    void persisted(Object entity) {
+        if (affectsDeliveries(entity)) {
+            changed(entity);
+        }
+    }
+
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        if (entity instanceof DeliveryPoint point) {
+            deliveryChanged(point.getDelivery());
+        } else if (entity instanceof DeliveryPointProduct pointProduct) {
+            if (pointProduct.getDeliveryPoint() != null) {
+                deliveryChanged(pointProduct.getDeliveryPoint().getDelivery());
+            }
+        } else if (entity instanceof Product product) {
+            forward(service -> service.productChanged(product.getId()));
+        }
+    }
+
+    private void deliveryChanged(Delivery delivery) {
+        if (delivery != null) {
+            forward(service -> service.deliveryChanged(delivery.getId()));
+        }
+    }
+}
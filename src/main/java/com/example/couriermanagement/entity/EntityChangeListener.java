@@ -0,0 +1,32 @@
+package com.example.couriermanagement.entity;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.function.Consumer;
+
+/**
+ * Base of the entity listeners that forward entity changes to a service. Hibernate creates the
+ * listeners through Spring's bean container while it builds the EntityManagerFactory, and the
+ * services depend on repositories built from that factory, so the service is looked up on every
+ * event instead of being injected.
+ */
+abstract class EntityChangeListener<S> {
+
+    private final ObjectProvider<S> service;
+
+    protected EntityChangeListener(ObjectProvider<S> service) {
+        this.service = service;
+    }
+
+    protected void forward(Consumer<S> action) {
+        service.ifAvailable(action);
+    }
+
+    /**
+     * Whether a newly persisted entity can affect existing deliveries; a new product is not part
+     * of any delivery yet.
+     */
+    protected static boolean affectsDeliveries(Object persisted) {
+        return !(persisted instanceof Product);
+    }
+}
@@ -1,15 +1,21 @@
 package com.example.couriermanagement.entity;
 
+import com.example.couriermanagement.measure.FixedPoint;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PRODUCTS)
+@EntityListeners({DeliveryLoadListener.class, DeliveryTotalsListener.class, CatalogVersionListener.class})
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
@@ -34,6 +40,14 @@ public class Product {
     @Column(name = "height", nullable = false, precision = 6, scale = 2)
     private BigDecimal height;
 
+    public long getWeightGrams() {
+        return FixedPoint.grams(weight);
+    }
+
+    public long getVolumeCm3() {
+        return FixedPoint.cubicCentimetres(length, width, height);
+    }
+
     public BigDecimal getVolume() {
         return length.multiply(width).multiply(height).divide(new BigDecimal("1000000")); // convert cm³ to m³
     }
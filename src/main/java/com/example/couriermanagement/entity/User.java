@@ -5,11 +5,19 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(CatalogVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USERS)
+@NaturalIdCache(region = CacheRegions.USERS_BY_LOGIN)
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
@@ -19,6 +27,7 @@ public class User {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id = 0L;
 
+    @NaturalId(mutable = true)
     @Column(name = "login", unique = true, nullable = false, length = 50)
     private String login;
 
@@ -1,15 +1,24 @@
 package com.example.couriermanagement.entity;
 
+import com.example.couriermanagement.measure.FixedPoint;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
 @Table(name = "vehicles")
+@EntityListeners(CatalogVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.VEHICLES)
+@NaturalIdCache(region = CacheRegions.VEHICLES_BY_PLATE)
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
@@ -22,6 +31,7 @@ public class Vehicle {
     @Column(name = "brand", nullable = false, length = 100)
     private String brand;
 
+    @NaturalId(mutable = true)
     @Column(name = "license_plate", unique = true, nullable = false, length = 20)
     private String licensePlate;
 
@@ -31,4 +41,12 @@ public class Vehicle {
     @Column(name = "max_volume", nullable = false, precision = 8, scale = 3)
     private BigDecimal maxVolume;
 
+    public long getMaxWeightGrams() {
+        return FixedPoint.grams(maxWeight);
+    }
+
+    public long getMaxVolumeCm3() {
+        return FixedPoint.cubicCentimetres(maxVolume);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.example.couriermanagement.exporting;
+
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryPoint;
+import com.example.couriermanagement.entity.DeliveryPointProduct;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One row per product line, in the columns of the CSV import followed by the delivery status:
+ * <pre>
+ * ref,courier_id,vehicle_id,delivery_date,time_start,time_end,sequence,latitude,longitude,product_id,quantity,status
+ * </pre>
+ * The ref is the delivery ID. A point without products, or a delivery without points, is one row
+ * with the missing columns empty.
+ */
+public class CsvDeliveryWriter implements DeliveryExportWriter {
+
+    static final String HEADER = "ref,courier_id,vehicle_id,delivery_date,time_start,time_end,"
+        + "sequence,latitude,longitude,product_id,quantity,status";
+
+    private final Writer writer;
+    private boolean headerWritten;
+
+    public CsvDeliveryWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(Delivery delivery, List<DeliveryPoint> points) throws IOException {
+        if (!headerWritten) {
+            writer.write(HEADER);
+            writer.write('\n');
+            headerWritten = true;
+        }
+        String prefix = delivery.getId() + ","
+            + id(delivery.getCourier() != null ? delivery.getCourier().getId() : null) + ","
+            + id(delivery.getVehicle() != null ? delivery.getVehicle().getId() : null) + ","
+            + delivery.getDeliveryDate() + "," + delivery.getTimeStart() + "," + delivery.getTimeEnd() + ",";
+        String suffix = "," + delivery.getStatus() + "\n";
+        if (points.isEmpty()) {
+            writer.write(prefix + ",,,," + suffix);
+            return;
+        }
+        for (DeliveryPoint point : points) {
+            String pointColumns = prefix + point.getSequence() + ","
+                + point.getLatitude().toPlainString() + "," + point.getLongitude().toPlainString() + ",";
+            if (point.getDeliveryPointProducts().isEmpty()) {
+                writer.write(pointColumns + "," + suffix);
+                continue;
+            }
+            for (DeliveryPointProduct line : point.getDeliveryPointProducts()) {
+                writer.write(pointColumns + line.getProduct().getId() + "," + line.getQuantity() + suffix);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!headerWritten) {
+            // пустая выгрузка - только заголовок
+            writer.write(HEADER);
+            writer.write('\n');
+            headerWritten = true;
+        }
+        writer.flush();
+    }
+
+    private static String id(Long id) {
+        return Objects.toString(id, "");
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.couriermanagement.exporting;
+
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryPoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes exported deliveries to the response one at a time, in the formats the import reads.
+ */
+public interface DeliveryExportWriter {
+
+    MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    /**
+     * @param points points of the delivery by sequence, with their products loaded
+     */
+    void write(Delivery delivery, List<DeliveryPoint> points) throws IOException;
+
+    /**
+     * Sends what is buffered, called after every batch and at the end
+     */
+    void flush() throws IOException;
+
+    static MediaType mediaType(String format) {
+        return switch (format.toLowerCase()) {
+            case "ndjson" -> NDJSON;
+            case "csv" -> CSV;
+            default -> throw new IllegalArgumentException("Неподдерживаемый формат выгрузки: " + format);
+        };
+    }
+
+    static DeliveryExportWriter open(MediaType mediaType, OutputStream body, ObjectMapper objectMapper) {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+        if (NDJSON.isCompatibleWith(mediaType)) {
+            return new NdjsonDeliveryWriter(writer, objectMapper);
+        }
+        if (CSV.isCompatibleWith(mediaType)) {
+            return new CsvDeliveryWriter(writer);
+        }
+        throw new IllegalArgumentException("Неподдерживаемый формат выгрузки: " + mediaType);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.couriermanagement.exporting;
+
+import com.example.couriermanagement.dto.DeliveryDto;
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryPoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * One {@link DeliveryDto} JSON object per line, the same object the delivery API returns.
+ */
+public class NdjsonDeliveryWriter implements DeliveryExportWriter {
+
+    private final Writer writer;
+    private final ObjectMapper objectMapper;
+
+    public NdjsonDeliveryWriter(Writer writer, ObjectMapper objectMapper) {
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void write(Delivery delivery, List<DeliveryPoint> points) throws IOException {
+        writer.write(objectMapper.writeValueAsString(DeliveryDto.from(delivery.toBuilder().deliveryPoints(points).build())));
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
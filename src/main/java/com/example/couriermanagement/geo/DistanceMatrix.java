@@ -0,0 +1,56 @@
+package com.example.couriermanagement.geo;
+
+import java.util.BitSet;
+
+/**
+ * Square matrix of distances in kilometres stored row-major in a single primitive array.
+ */
+public final class DistanceMatrix {
+
+    private final int size;
+    private final double[] values;
+    // ячейки с локальной оценкой вместо ответа сервиса маршрутизации
+    private final BitSet estimated = new BitSet();
+
+    public DistanceMatrix(int size) {
+        this(size, new double[size * size]);
+    }
+
+    public DistanceMatrix(int size, double[] values) {
+        if (values.length != size * size) {
+            throw new IllegalArgumentException("Размер массива не соответствует матрице " + size + "x" + size);
+        }
+        this.size = size;
+        this.values = values;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double get(int from, int to) {
+        return values[from * size + to];
+    }
+
+    public void set(int from, int to, double distanceKm) {
+        values[from * size + to] = distanceKm;
+    }
+
+    public void markEstimated(int from, int to) {
+        estimated.set(from * size + to);
+    }
+
+    /**
+     * Whether the cell holds a local estimate rather than a road distance
+     */
+    public boolean isEstimated(int from, int to) {
+        return estimated.get(from * size + to);
+    }
+
+    /**
+     * Backing row-major array, exposed for bulk kernels. Not copied.
+     */
+    public double[] values() {
+        return values;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.couriermanagement.geo;
+
+/**
+ * One-to-many distance loops over prepared points. Coordinates are in radians, results in kilometres.
+ */
+interface GeoKernel {
+
+    /**
+     * Haversine distances from one point to {@code targets[from..to)}, written to {@code out[offset..]}.
+     */
+    void haversine(double latitude, double longitude, double cosLatitude,
+                   GeoMath.PreparedPoints targets, int from, int to, double[] out, int offset);
+
+    /**
+     * Equirectangular distances from one point to {@code targets[from..to)}, written to {@code out[offset..]}.
+     */
+    void equirectangular(double latitude, double longitude, double cosLatitude,
+                         GeoMath.PreparedPoints targets, int from, int to, double[] out, int offset);
+}
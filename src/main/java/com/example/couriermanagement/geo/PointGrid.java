@@ -0,0 +1,410 @@
+package com.example.couriermanagement.geo;
+
+import com.example.couriermanagement.measure.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Mutable uniform grid of points in degree cells. Queries visit only the cells that can hold
+ * an answer and filter candidates by exact haversine distance; when a query would touch more
+ * cells than there are points, it scans the points instead.
+ * <p>
+ * Not thread-safe: callers guard it with their own lock.
+ */
+public final class PointGrid {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final Comparator<Hit> BY_DISTANCE = Comparator.comparingDouble(Hit::distanceKm);
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    private long[] ids = new long[16];
+    private long[] deliveryIds = new long[16];
+    // координаты в микроградусах: нужны только для фильтра по области и ответа, расстояния считаются в радианах
+    private int[] latitudes = new int[16];
+    private int[] longitudes = new int[16];
+    private double[] radLatitudes = new double[16];
+    private double[] radLongitudes = new double[16];
+    private double[] cosLatitudes = new double[16];
+    private long[] cellKeys = new long[16];
+    private int[] positions = new int[16];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+
+    public PointGrid(double cellDegrees) {
+        if (!(cellDegrees > 0) || cellDegrees > 10) {
+            throw new IllegalArgumentException("Размер ячейки сетки должен быть от 0 до 10 градусов");
+        }
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees) + 1;
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    public boolean contains(long id) {
+        return slotById.containsKey(id);
+    }
+
+    public void clear() {
+        cells.clear();
+        slotById.clear();
+        freeCount = 0;
+        slotCount = 0;
+    }
+
+    /**
+     * Adds a point or moves an existing one.
+     */
+    public void put(long id, long deliveryId, double latitude, double longitude) {
+        validate(latitude, longitude);
+        remove(id);
+
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot();
+        double radLatitude = Math.toRadians(latitude);
+        ids[slot] = id;
+        deliveryIds[slot] = deliveryId;
+        latitudes[slot] = FixedPoint.microdegrees(latitude);
+        longitudes[slot] = FixedPoint.microdegrees(longitude);
+        radLatitudes[slot] = radLatitude;
+        radLongitudes[slot] = Math.toRadians(longitude);
+        cosLatitudes[slot] = Math.cos(radLatitude);
+
+        long key = key(row(latitude), column(longitude));
+        Cell cell = cells.computeIfAbsent(key, k -> new Cell());
+        cellKeys[slot] = key;
+        positions[slot] = cell.size;
+        cell.add(slot);
+        slotById.put(id, slot);
+    }
+
+    public boolean remove(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        Cell cell = cells.get(cellKeys[slot]);
+        int moved = cell.removeAt(positions[slot]);
+        if (moved >= 0) {
+            positions[moved] = positions[slot];
+        }
+        if (cell.size == 0) {
+            cells.remove(cellKeys[slot]);
+        }
+        cellKeys[slot] = FREE;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    /**
+     * Up to {@code k} points closest to the given one, nearest first.
+     */
+    public List<Hit> nearest(double latitude, double longitude, int k) {
+        validate(latitude, longitude);
+        if (k <= 0 || size() == 0) {
+            return List.of();
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        if (k >= size()) {
+            return scanAll(lat, lon, cosLat, Double.POSITIVE_INFINITY);
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(k, BY_DISTANCE.reversed());
+        int row = row(latitude);
+        int column = column(longitude);
+        int visited = 0;
+        for (int ring = 0; ; ring++) {
+            int rowFrom = row - ring;
+            int rowTo = row + ring;
+            if (2 * ring + 1 > columns || visited > size()) {
+                // сетка разреженная для такого k: дешевле пройти все точки
+                return scanNearest(lat, lon, cosLat, k);
+            }
+            for (int r = Math.max(rowFrom, 0); r <= Math.min(rowTo, rows - 1); r++) {
+                boolean edgeRow = r == rowFrom || r == rowTo;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int c = column - ring; c <= column + ring; c += Math.max(step, 1)) {
+                    visited++;
+                    Cell cell = cells.get(key(r, Math.floorMod(c, columns)));
+                    if (cell != null) {
+                        offerAll(cell, lat, lon, cosLat, k, best);
+                    }
+                }
+            }
+            if (best.size() == k && best.peek().distanceKm() <= unvisitedDistanceKm(latitude, longitude, cosLat, ring)) {
+                break;
+            }
+            if (rowFrom <= 0 && rowTo >= rows - 1 && 2 * ring + 1 >= columns) {
+                break;
+            }
+        }
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(BY_DISTANCE);
+        return result;
+    }
+
+    /**
+     * Points not farther than {@code radiusKm}, nearest first.
+     */
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm) {
+        validate(latitude, longitude);
+        if (radiusKm < 0 || size() == 0) {
+            return List.of();
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        double angle = radiusKm / GeoMath.EARTH_RADIUS_KM;
+        double latDelta = Math.toDegrees(angle);
+
+        int rowFrom = row(Math.max(latitude - latDelta, -90));
+        int rowTo = row(Math.min(latitude + latDelta, 90));
+        // точки в пределах угла d отличаются по долготе не больше чем на asin(sin d / cos(lat))
+        double sinRatio = angle >= Math.PI / 2 ? 2 : Math.sin(angle) / cosLat;
+        int columnFrom;
+        int columnTo;
+        if (sinRatio >= 1) {
+            columnFrom = 0;
+            columnTo = columns - 1;
+        } else {
+            double lonDelta = Math.toDegrees(Math.asin(sinRatio));
+            columnFrom = (int) Math.floor((longitude - lonDelta + 180) / cellDegrees);
+            columnTo = (int) Math.floor((longitude + lonDelta + 180) / cellDegrees);
+            if (columnTo - columnFrom + 1 >= columns) {
+                columnFrom = 0;
+                columnTo = columns - 1;
+            }
+        }
+
+        if ((long) (rowTo - rowFrom + 1) * (columnTo - columnFrom + 1) > size()) {
+            return scanAll(lat, lon, cosLat, radiusKm);
+        }
+        List<Hit> result = new ArrayList<>();
+        for (int r = rowFrom; r <= rowTo; r++) {
+            for (int c = columnFrom; c <= columnTo; c++) {
+                Cell cell = cells.get(key(r, Math.floorMod(c, columns)));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    int slot = cell.slots[i];
+                    double distance = distanceKm(slot, lat, lon, cosLat);
+                    if (distance <= radiusKm) {
+                        result.add(hit(slot, distance));
+                    }
+                }
+            }
+        }
+        result.sort(BY_DISTANCE);
+        return result;
+    }
+
+    /**
+     * Points inside the box, edges included. Boxes across the antimeridian are not supported.
+     * Hits carry {@link Double#NaN} as distance.
+     */
+    public List<Hit> inBoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        validate(minLatitude, minLongitude);
+        validate(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+            throw new IllegalArgumentException("Минимальные координаты области больше максимальных");
+        }
+        // границы округляются так же, как точки, поэтому точка на границе остается внутри
+        int minLat = FixedPoint.microdegrees(minLatitude);
+        int minLon = FixedPoint.microdegrees(minLongitude);
+        int maxLat = FixedPoint.microdegrees(maxLatitude);
+        int maxLon = FixedPoint.microdegrees(maxLongitude);
+        List<Hit> result = new ArrayList<>();
+        int rowFrom = row(minLatitude);
+        int rowTo = row(maxLatitude);
+        int columnFrom = column(minLongitude);
+        int columnTo = column(maxLongitude);
+        if ((long) (rowTo - rowFrom + 1) * (columnTo - columnFrom + 1) > size()) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (cellKeys[slot] != FREE && inBox(slot, minLat, minLon, maxLat, maxLon)) {
+                    result.add(hit(slot, Double.NaN));
+                }
+            }
+            return result;
+        }
+        for (int r = rowFrom; r <= rowTo; r++) {
+            for (int c = columnFrom; c <= columnTo; c++) {
+                Cell cell = cells.get(key(r, c));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    int slot = cell.slots[i];
+                    if (inBox(slot, minLat, minLon, maxLat, maxLon)) {
+                        result.add(hit(slot, Double.NaN));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private double unvisitedDistanceKm(double latitude, double longitude, double cosLat, int ring) {
+        int row = row(latitude);
+        int column = column(longitude);
+        double below = row - ring <= 0
+            ? Double.POSITIVE_INFINITY
+            : latitude - ((row - ring) * cellDegrees - 90);
+        double above = row + ring >= rows - 1
+            ? Double.POSITIVE_INFINITY
+            : ((row + ring + 1) * cellDegrees - 90) - latitude;
+        double latGapKm = Math.toRadians(Math.min(below, above)) * GeoMath.EARTH_RADIUS_KM;
+
+        double west = longitude - ((column - ring) * cellDegrees - 180);
+        double east = ((column + ring + 1) * cellDegrees - 180) - longitude;
+        double lonGap = Math.toRadians(Math.min(west, east));
+        // до точки с разностью долгот lonGap не ближе asin(cos(lat) * sin(lonGap)) >= cos(lat) * sin(lonGap)
+        double lonGapKm = lonGap >= Math.PI / 2
+            ? cosLat * GeoMath.EARTH_RADIUS_KM
+            : cosLat * Math.sin(lonGap) * GeoMath.EARTH_RADIUS_KM;
+        return Math.min(latGapKm, lonGapKm);
+    }
+
+    private List<Hit> scanNearest(double lat, double lon, double cosLat, int k) {
+        PriorityQueue<Hit> best = new PriorityQueue<>(k, BY_DISTANCE.reversed());
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (cellKeys[slot] != FREE) {
+                offer(slot, lat, lon, cosLat, k, best);
+            }
+        }
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(BY_DISTANCE);
+        return result;
+    }
+
+    private List<Hit> scanAll(double lat, double lon, double cosLat, double radiusKm) {
+        List<Hit> result = new ArrayList<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (cellKeys[slot] == FREE) {
+                continue;
+            }
+            double distance = distanceKm(slot, lat, lon, cosLat);
+            if (distance <= radiusKm) {
+                result.add(hit(slot, distance));
+            }
+        }
+        result.sort(BY_DISTANCE);
+        return result;
+    }
+
+    private void offerAll(Cell cell, double lat, double lon, double cosLat, int k, PriorityQueue<Hit> best) {
+        for (int i = 0; i < cell.size; i++) {
+            offer(cell.slots[i], lat, lon, cosLat, k, best);
+        }
+    }
+
+    private void offer(int slot, double lat, double lon, double cosLat, int k, PriorityQueue<Hit> best) {
+        double distance = distanceKm(slot, lat, lon, cosLat);
+        if (best.size() < k) {
+            best.add(hit(slot, distance));
+        } else if (distance < best.peek().distanceKm()) {
+            best.poll();
+            best.add(hit(slot, distance));
+        }
+    }
+
+    private boolean inBox(int slot, int minLatitude, int minLongitude, int maxLatitude, int maxLongitude) {
+        return latitudes[slot] >= minLatitude && latitudes[slot] <= maxLatitude
+            && longitudes[slot] >= minLongitude && longitudes[slot] <= maxLongitude;
+    }
+
+    private double distanceKm(int slot, double lat, double lon, double cosLat) {
+        return GeoMath.haversineRadians(lat, lon, cosLat, radLatitudes[slot], radLongitudes[slot], cosLatitudes[slot]);
+    }
+
+    private Hit hit(int slot, double distanceKm) {
+        return new Hit(ids[slot], deliveryIds[slot],
+            FixedPoint.degrees(latitudes[slot]), FixedPoint.degrees(longitudes[slot]), distanceKm);
+    }
+
+    private int nextSlot() {
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            deliveryIds = Arrays.copyOf(deliveryIds, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            radLatitudes = Arrays.copyOf(radLatitudes, capacity);
+            radLongitudes = Arrays.copyOf(radLongitudes, capacity);
+            cosLatitudes = Arrays.copyOf(cosLatitudes, capacity);
+            cellKeys = Arrays.copyOf(cellKeys, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        return slotCount++;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    /**
+     * Column of a point or of a query; longitude 180 falls into the last column, next to 179.99,
+     * on insert and on query alike.
+     */
+    private int column(double longitude) {
+        return Math.min((int) Math.floor((longitude + 180) / cellDegrees), columns - 1);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private static void validate(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Координаты вне допустимого диапазона");
+        }
+    }
+
+    /**
+     * Query result; {@code distanceKm} is great-circle distance to the query point.
+     */
+    public record Hit(long pointId, long deliveryId, double latitude, double longitude, double distanceKm) {
+    }
+
+    private static final class Cell {
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        /**
+         * @return slot moved into {@code position}, or -1
+         */
+        private int removeAt(int position) {
+            int last = --size;
+            if (position == last) {
+                return -1;
+            }
+            slots[position] = slots[last];
+            return slots[position];
+        }
+    }
+}
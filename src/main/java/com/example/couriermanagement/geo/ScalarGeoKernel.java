@@ -0,0 +1,31 @@
+package com.example.couriermanagement.geo;
+
+/**
+ * Plain loops, used when the vector API module is not available.
+ */
+final class ScalarGeoKernel implements GeoKernel {
+
+    @Override
+    public void haversine(double latitude, double longitude, double cosLatitude,
+                          GeoMath.PreparedPoints targets, int from, int to, double[] out, int offset) {
+        double[] latitudes = targets.latitudes();
+        double[] longitudes = targets.longitudes();
+        double[] cosLatitudes = targets.cosLatitudes();
+        for (int i = from; i < to; i++) {
+            out[offset + i - from] = GeoMath.haversineRadians(
+                latitude, longitude, cosLatitude, latitudes[i], longitudes[i], cosLatitudes[i]);
+        }
+    }
+
+    @Override
+    public void equirectangular(double latitude, double longitude, double cosLatitude,
+                                GeoMath.PreparedPoints targets, int from, int to, double[] out, int offset) {
+        double[] latitudes = targets.latitudes();
+        double[] longitudes = targets.longitudes();
+        double[] cosLatitudes = targets.cosLatitudes();
+        for (int i = from; i < to; i++) {
+            out[offset + i - from] = GeoMath.equirectangularRadians(
+                latitude, longitude, cosLatitude, latitudes[i], longitudes[i], cosLatitudes[i]);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.couriermanagement.importing;
+
+import com.example.couriermanagement.dto.request.DeliveryPointRequest;
+import com.example.couriermanagement.dto.request.DeliveryProductRequest;
+import com.example.couriermanagement.dto.request.DeliveryRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One product line per CSV row, with a header naming the columns:
+ * <pre>
+ * ref,courier_id,vehicle_id,delivery_date,time_start,time_end,sequence,latitude,longitude,product_id,quantity
+ * </pre>
+ * Adjacent rows with the same {@code ref} form one delivery, and rows with the same {@code sequence}
+ * inside it one point; the delivery columns and the point coordinates must repeat the same values.
+ * Values are not quoted. Lines longer than {@code maxLineLength} and deliveries of more than
+ * {@code maxRowsPerDelivery} rows are rejected without being held in memory.
+ */
+public class CsvDeliveryReader implements DeliveryImportReader {
+
+    static final List<String> COLUMNS = List.of(
+        "ref", "courier_id", "vehicle_id", "delivery_date", "time_start", "time_end",
+        "sequence", "latitude", "longitude", "product_id", "quantity");
+
+    private final LineReader reader;
+    private final int maxLineLength;
+    private final int maxRowsPerDelivery;
+    private Map<String, Integer> columnIndex;
+    // первая строка следующей доставки, прочитанная при поиске конца текущей
+    private Row lookahead;
+    private int lineNumber;
+
+    public CsvDeliveryReader(BufferedReader reader, int maxLineLength, int maxRowsPerDelivery) {
+        this.reader = new LineReader(reader, maxLineLength);
+        this.maxLineLength = maxLineLength;
+        this.maxRowsPerDelivery = maxRowsPerDelivery;
+    }
+
+    @Override
+    public DeliveryImportRow next() throws IOException {
+        if (columnIndex == null) {
+            readHeader();
+        }
+        Row first = lookahead != null ? lookahead : readRow();
+        lookahead = null;
+        if (first == null) {
+            return null;
+        }
+        if (first.error() != null) {
+            return DeliveryImportRow.malformed(first.ref(), first.error());
+        }
+
+        String ref = first.ref();
+        List<String[]> rows = new ArrayList<>();
+        rows.add(first.values());
+        boolean tooLarge = false;
+        Row row;
+        while ((row = readRow()) != null) {
+            if (row.error() != null || !ref.equals(row.ref())) {
+                lookahead = row;
+                break;
+            }
+            // строки сверх предела дочитываются до конца доставки, но не накапливаются
+            if (rows.size() < maxRowsPerDelivery) {
+                rows.add(row.values());
+            } else {
+                tooLarge = true;
+            }
+        }
+        if (tooLarge) {
+            return DeliveryImportRow.malformed(ref, "В доставке больше " + maxRowsPerDelivery + " строк");
+        }
+        return toDelivery(ref, rows);
+    }
+
+    private void readHeader() throws IOException {
+        String header = reader.readLine();
+        lineNumber++;
+        if (header == null) {
+            throw new IllegalArgumentException("Пустой файл импорта");
+        }
+        if (reader.truncated()) {
+            throw new IllegalArgumentException("Заголовок CSV длиннее " + maxLineLength + " символов");
+        }
+        // BOM, который добавляют табличные редакторы
+        String[] names = header.replace("﻿", "").split(",", -1);
+        columnIndex = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            columnIndex.put(names[i].trim().toLowerCase(), i);
+        }
+        for (String column : COLUMNS) {
+            if (!columnIndex.containsKey(column)) {
+                throw new IllegalArgumentException("В заголовке CSV нет колонки " + column);
+            }
+        }
+    }
+
+    private Row readRow() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        if (reader.truncated()) {
+            // по обрезанной строке ref не определить, она становится отдельной ошибочной доставкой
+            return new Row("строка " + lineNumber, null, "Строка длиннее " + maxLineLength + " символов");
+        }
+        String[] values = line.split(",", -1);
+        if (values.length < columnIndex.size()) {
+            // строка с нехваткой колонок становится отдельной ошибочной доставкой
+            String[] padded = new String[columnIndex.size()];
+            for (int i = 0; i < padded.length; i++) {
+                padded[i] = i < values.length ? values[i] : "";
+            }
+            padded[columnIndex.get("ref")] = "строка " + lineNumber;
+            return new Row(value(padded, "ref"), padded, null);
+        }
+        return new Row(value(values, "ref"), values, null);
+    }
+
+    private DeliveryImportRow toDelivery(String ref, List<String[]> rows) {
+        try {
+            String[] first = rows.get(0);
+            Map<Integer, DeliveryPointRequest> points = new LinkedHashMap<>();
+            for (String[] row : rows) {
+                for (String column : List.of("courier_id", "vehicle_id", "delivery_date", "time_start", "time_end")) {
+                    if (!Objects.equals(value(row, column), value(first, column))) {
+                        return DeliveryImportRow.malformed(ref, "Колонка " + column + " различается в строках доставки");
+                    }
+                }
+                int sequence = Integer.parseInt(value(row, "sequence"));
+                BigDecimal latitude = new BigDecimal(value(row, "latitude"));
+                BigDecimal longitude = new BigDecimal(value(row, "longitude"));
+                DeliveryPointRequest point = points.computeIfAbsent(sequence, s -> DeliveryPointRequest.builder()
+                    .sequence(s)
+                    .latitude(latitude)
+                    .longitude(longitude)
+                    .products(new ArrayList<>())
+                    .build());
+                if (point.getLatitude().compareTo(latitude) != 0 || point.getLongitude().compareTo(longitude) != 0) {
+                    return DeliveryImportRow.malformed(ref, "Координаты точки " + sequence + " различаются в строках доставки");
+                }
+                point.getProducts().add(DeliveryProductRequest.builder()
+                    .productId(Long.parseLong(value(row, "product_id")))
+                    .quantity(Integer.parseInt(value(row, "quantity")))
+                    .build());
+            }
+            return DeliveryImportRow.parsed(ref, DeliveryRequest.builder()
+                .courierId(Long.parseLong(value(first, "courier_id")))
+                .vehicleId(Long.parseLong(value(first, "vehicle_id")))
+                .deliveryDate(LocalDate.parse(value(first, "delivery_date")))
+                .timeStart(LocalTime.parse(value(first, "time_start")))
+                .timeEnd(LocalTime.parse(value(first, "time_end")))
+                .points(new ArrayList<>(points.values()))
+                .build());
+        } catch (RuntimeException e) {
+            return DeliveryImportRow.malformed(ref, "Некорректное значение в CSV: " + e.getMessage());
+        }
+    }
+
+    private String value(String[] row, String column) {
+        return row[columnIndex.get(column)].trim();
+    }
+
+    /**
+     * A data line; {@code values} is {@code null} when the line was rejected with {@code error}.
+     */
+    private record Row(String ref, String[] values, String error) {
+    }
+}
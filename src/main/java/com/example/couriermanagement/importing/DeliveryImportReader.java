@@ -0,0 +1,40 @@
+package com.example.couriermanagement.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads deliveries from an import body one at a time, holding at most one delivery in memory.
+ */
+public interface DeliveryImportReader {
+
+    MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    /**
+     * @return next delivery, or {@code null} at the end of the input
+     */
+    DeliveryImportRow next() throws IOException;
+
+    /**
+     * @param maxLineLength      longest line accepted, in characters
+     * @param maxRowsPerDelivery most CSV rows accepted for one delivery
+     */
+    static DeliveryImportReader open(MediaType contentType, InputStream body, ObjectMapper objectMapper,
+                                     int maxLineLength, int maxRowsPerDelivery) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (NDJSON.isCompatibleWith(contentType)) {
+            return new NdjsonDeliveryReader(reader, objectMapper, maxLineLength);
+        }
+        if (CSV.isCompatibleWith(contentType)) {
+            return new CsvDeliveryReader(reader, maxLineLength, maxRowsPerDelivery);
+        }
+        throw new IllegalArgumentException("Неподдерживаемый формат импорта: " + contentType);
+    }
+}
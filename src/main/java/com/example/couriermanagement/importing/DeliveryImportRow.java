@@ -0,0 +1,20 @@
+package com.example.couriermanagement.importing;
+
+import com.example.couriermanagement.dto.request.DeliveryRequest;
+
+/**
+ * One delivery read from an import file.
+ *
+ * @param ref   line number (NDJSON) or the {@code ref} column (CSV), echoed back in the result
+ * @param error why the row could not be parsed; {@code request} is {@code null} then
+ */
+public record DeliveryImportRow(String ref, DeliveryRequest request, String error) {
+
+    public static DeliveryImportRow parsed(String ref, DeliveryRequest request) {
+        return new DeliveryImportRow(ref, request, null);
+    }
+
+    public static DeliveryImportRow malformed(String ref, String error) {
+        return new DeliveryImportRow(ref, null, error);
+    }
+}
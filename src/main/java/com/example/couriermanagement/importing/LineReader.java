@@ -0,0 +1,56 @@
+package com.example.couriermanagement.importing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads lines of at most {@code maxLength} characters; the rest of a longer line is skipped without
+ * being held in memory and the line is reported as {@link #truncated()}.
+ */
+final class LineReader {
+
+    private final BufferedReader reader;
+    private final int maxLength;
+    private final StringBuilder line = new StringBuilder();
+    private boolean truncated;
+
+    LineReader(BufferedReader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return next line without its terminator, or {@code null} at the end of the input
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        truncated = false;
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        while (c >= 0 && c != '\n' && c != '\r') {
+            if (line.length() < maxLength) {
+                line.append((char) c);
+            } else {
+                truncated = true;
+            }
+            c = reader.read();
+        }
+        if (c == '\r') {
+            // \r\n считается одним переводом строки
+            reader.mark(1);
+            if (reader.read() != '\n') {
+                reader.reset();
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return whether the last line read was longer than {@code maxLength}
+     */
+    boolean truncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.couriermanagement.importing;
+
+import com.example.couriermanagement.dto.request.DeliveryRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * One {@link DeliveryRequest} JSON object per line; blank lines are skipped and lines longer than
+ * {@code maxLineLength} are rejected. The ref of a row is its line number.
+ */
+public class NdjsonDeliveryReader implements DeliveryImportReader {
+
+    private final LineReader reader;
+    private final ObjectMapper objectMapper;
+    private final int maxLineLength;
+    private int lineNumber;
+
+    public NdjsonDeliveryReader(BufferedReader reader, ObjectMapper objectMapper, int maxLineLength) {
+        this.reader = new LineReader(reader, maxLineLength);
+        this.objectMapper = objectMapper;
+        this.maxLineLength = maxLineLength;
+    }
+
+    @Override
+    public DeliveryImportRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        String ref = String.valueOf(lineNumber);
+        if (reader.truncated()) {
+            return DeliveryImportRow.malformed(ref, "Строка длиннее " + maxLineLength + " символов");
+        }
+        try {
+            return DeliveryImportRow.parsed(ref, objectMapper.readValue(line, DeliveryRequest.class));
+        } catch (JsonProcessingException e) {
+            return DeliveryImportRow.malformed(ref, "Некорректный JSON: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.couriermanagement.measure;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Integer units of the planning and geo code: weight in grams, volume in cubic centimetres and
+ * coordinates in microdegrees. Entities and DTOs keep {@link BigDecimal} kilograms, cubic metres
+ * and degrees; values are converted here once, when they enter or leave a computation, so the
+ * loops in between add and compare plain {@code long}s without allocating.
+ * <p>
+ * Conversions round half-up to a whole unit. That is the resolution of the stored columns: weights
+ * have three decimals of a kilogram, volumes six decimals of a cubic metre.
+ */
+public final class FixedPoint {
+
+    public static final long GRAMS_PER_KILOGRAM = 1_000;
+    public static final long CM3_PER_M3 = 1_000_000;
+    public static final int MICRODEGREES_PER_DEGREE = 1_000_000;
+
+    private FixedPoint() {
+    }
+
+    public static long grams(BigDecimal kilograms) {
+        return kilograms.movePointRight(3).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal kilograms(long grams) {
+        return BigDecimal.valueOf(grams, 3);
+    }
+
+    public static long cubicCentimetres(BigDecimal cubicMetres) {
+        return cubicMetres.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Volume of a box with sides in centimetres.
+     */
+    public static long cubicCentimetres(BigDecimal lengthCm, BigDecimal widthCm, BigDecimal heightCm) {
+        return lengthCm.multiply(widthCm).multiply(heightCm).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal cubicMetres(long cubicCentimetres) {
+        return BigDecimal.valueOf(cubicCentimetres, 6);
+    }
+
+    public static int microdegrees(BigDecimal degrees) {
+        return degrees.movePointRight(6).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    public static int microdegrees(double degrees) {
+        return (int) Math.round(degrees * MICRODEGREES_PER_DEGREE);
+    }
+
+    public static double degrees(int microdegrees) {
+        return microdegrees / (double) MICRODEGREES_PER_DEGREE;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.couriermanagement.planning;
+
+/**
+ * Places routes on vehicles so that as many routes as possible fit into the remaining
+ * weight and volume of a vehicle, and among such placements the spare capacity is smallest
+ * (large vehicles stay free for large routes). At most {@code courierCount} vehicles are used.
+ */
+public final class CapacityAssignment {
+
+    public static final int UNASSIGNED = -1;
+
+    // одна дополнительная назначенная доставка всегда выгоднее любой экономии вместимости
+    private static final double UNASSIGNED_COST = 1e6;
+    private static final double FORBIDDEN_COST = 1e12;
+
+    private CapacityAssignment() {
+    }
+
+    /**
+     * @param routeWeights load of every route, g
+     * @param routeVolumes load of every route, cm³
+     * @param vehicleWeights weight still free on every vehicle, g
+     * @param vehicleVolumes volume still free on every vehicle, cm³
+     * @param courierCount couriers available to drive the vehicles
+     * @return vehicle index for every route or {@link #UNASSIGNED}
+     */
+    public static int[] assign(long[] routeWeights, long[] routeVolumes,
+                               long[] vehicleWeights, long[] vehicleVolumes,
+                               int courierCount) {
+        int routes = routeWeights.length;
+        int vehicles = vehicleWeights.length;
+        // лишние машины занимаются фиктивными строками, чтобы маршрутам досталось не больше машин, чем курьеров
+        int idleRows = Math.max(0, vehicles - courierCount);
+        int columns = vehicles + routes;
+
+        double weightScale = Math.max(1, max(vehicleWeights));
+        double volumeScale = Math.max(1, max(vehicleVolumes));
+
+        double[][] cost = new double[routes + idleRows][columns];
+        for (int r = 0; r < routes; r++) {
+            for (int v = 0; v < vehicles; v++) {
+                long spareWeight = vehicleWeights[v] - routeWeights[r];
+                long spareVolume = vehicleVolumes[v] - routeVolumes[r];
+                cost[r][v] = spareWeight < 0 || spareVolume < 0
+                    ? FORBIDDEN_COST
+                    : spareWeight / weightScale + spareVolume / volumeScale;
+            }
+            for (int d = 0; d < routes; d++) {
+                cost[r][vehicles + d] = UNASSIGNED_COST;
+            }
+        }
+        for (int idle = routes; idle < routes + idleRows; idle++) {
+            for (int d = 0; d < routes; d++) {
+                cost[idle][vehicles + d] = FORBIDDEN_COST;
+            }
+        }
+
+        int[] solution = MinCostAssignment.solve(cost);
+        int[] result = new int[routes];
+        for (int r = 0; r < routes; r++) {
+            int column = solution[r];
+            result[r] = column < vehicles && cost[r][column] < FORBIDDEN_COST ? column : UNASSIGNED;
+        }
+        return result;
+    }
+
+    private static long max(long[] values) {
+        long result = 0;
+        for (long value : values) {
+            result = Math.max(result, value);
+        }
+        return result;
+    }
+}
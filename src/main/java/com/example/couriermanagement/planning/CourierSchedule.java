@@ -0,0 +1,146 @@
+package com.example.couriermanagement.planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivery windows of one courier over one day, in minutes, answering "does {@code [start, end)}
+ * overlap anything", "which windows", "where are the free gaps" and "earliest free slot of N minutes".
+ * <p>
+ * The windows are kept as a flattened interval tree: sorted by start with a running maximum of
+ * ends, so a conflict check is one binary search (the last window starting before {@code end})
+ * plus one comparison (does any window up to it end after {@code start}). The arrays are rebuilt
+ * lazily after changes; a courier has a handful of windows per day. Windows may overlap each other.
+ * Not thread-safe.
+ */
+public final class CourierSchedule {
+
+    private final Map<Long, Window> windows = new HashMap<>();
+    private Window[] sorted = new Window[0];
+    // maxEnd[i] - самый поздний конец среди окон sorted[0..i]
+    private int[] maxEnd = new int[0];
+    private boolean dirty;
+
+    public void put(Window window) {
+        windows.put(window.deliveryId(), window);
+        dirty = true;
+    }
+
+    /**
+     * @return removed window or {@code null}
+     */
+    public Window remove(long deliveryId) {
+        Window removed = windows.remove(deliveryId);
+        dirty |= removed != null;
+        return removed;
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    public boolean hasConflict(int startMinute, int endMinute) {
+        if (startMinute >= endMinute) {
+            return false;
+        }
+        rebuildIfNeeded();
+        int last = lastStartingBefore(endMinute);
+        return last >= 0 && maxEnd[last] > startMinute;
+    }
+
+    /**
+     * Windows overlapping {@code [startMinute, endMinute)}, by start.
+     */
+    public List<Window> conflicts(int startMinute, int endMinute) {
+        List<Window> result = new ArrayList<>();
+        if (startMinute >= endMinute) {
+            return result;
+        }
+        rebuildIfNeeded();
+        for (int i = lastStartingBefore(endMinute); i >= 0 && maxEnd[i] > startMinute; i--) {
+            if (sorted[i].endMinute() > startMinute) {
+                result.add(sorted[i]);
+            }
+        }
+        result.sort(Comparator.comparingInt(Window::startMinute));
+        return result;
+    }
+
+    /**
+     * Maximal free intervals inside {@code [fromMinute, toMinute)}, in order.
+     */
+    public List<Gap> freeGaps(int fromMinute, int toMinute) {
+        List<Gap> gaps = new ArrayList<>();
+        rebuildIfNeeded();
+        int cursor = fromMinute;
+        for (Window window : sorted) {
+            if (window.startMinute() >= toMinute) {
+                break;
+            }
+            if (window.startMinute() > cursor) {
+                gaps.add(new Gap(cursor, window.startMinute()));
+            }
+            cursor = Math.max(cursor, window.endMinute());
+        }
+        if (cursor < toMinute) {
+            gaps.add(new Gap(cursor, toMinute));
+        }
+        return gaps;
+    }
+
+    /**
+     * Start of the earliest free slot of {@code lengthMinutes} inside {@code [fromMinute, toMinute)}.
+     *
+     * @return -1 when there is none
+     */
+    public int earliestSlot(int fromMinute, int toMinute, int lengthMinutes) {
+        for (Gap gap : freeGaps(fromMinute, toMinute)) {
+            if (gap.endMinute() - gap.startMinute() >= lengthMinutes) {
+                return gap.startMinute();
+            }
+        }
+        return -1;
+    }
+
+    private int lastStartingBefore(int minute) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle].startMinute() < minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    private void rebuildIfNeeded() {
+        if (!dirty) {
+            return;
+        }
+        sorted = windows.values().toArray(new Window[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Window::startMinute).thenComparingInt(Window::endMinute));
+        maxEnd = new int[sorted.length];
+        int running = Integer.MIN_VALUE;
+        for (int i = 0; i < sorted.length; i++) {
+            running = Math.max(running, sorted[i].endMinute());
+            maxEnd[i] = running;
+        }
+        dirty = false;
+    }
+
+    /**
+     * Window of one delivery; minutes are {@code [startMinute, endMinute)}.
+     */
+    public record Window(long deliveryId, int startMinute, int endMinute) {
+    }
+
+    public record Gap(int startMinute, int endMinute) {
+    }
+}
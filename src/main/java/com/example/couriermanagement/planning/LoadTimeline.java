@@ -0,0 +1,197 @@
+package com.example.couriermanagement.planning;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load of one vehicle over one day at minute resolution: weight (g) and volume (cm³) of every
+ * booked window, summed per minute. Integer units keep the sums exact however many bookings are
+ * added and cancelled. Backed by a sparse segment tree with range add and range max, so
+ * booking, cancelling and "peak load between two times" are all O(log 1440), and a day with a
+ * handful of bookings takes a few kilobytes.
+ * <p>
+ * Windows are half-open {@code [start, end)}: a delivery ending at 12:00 does not overlap one
+ * starting at 12:00. Seconds are rounded outwards to whole minutes. Not thread-safe.
+ */
+public final class LoadTimeline {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int LEAVES = 2048;
+    private static final int ROOT = 0;
+    private static final int INITIAL_NODES = 64;
+
+    // узлы создаются только на путях обновлений: у машины обычно десяток окон в день, а не 1440
+    // max[node] - максимум на отрезке узла с учетом add[node], но без добавок предков
+    private long[] maxWeight = new long[INITIAL_NODES];
+    private long[] maxVolume = new long[INITIAL_NODES];
+    private long[] addWeight = new long[INITIAL_NODES];
+    private long[] addVolume = new long[INITIAL_NODES];
+    // 0 - нет потомка: корень никогда не бывает потомком
+    private int[] left = new int[INITIAL_NODES];
+    private int[] right = new int[INITIAL_NODES];
+    private int nodes = 1;
+    private final Map<Long, Booking> bookings = new HashMap<>();
+
+    public void put(Booking booking) {
+        remove(booking.deliveryId());
+        if (booking.startMinute() < booking.endMinute()) {
+            add(ROOT, 0, LEAVES, booking.startMinute(), booking.endMinute(), booking.weightGrams(), booking.volumeCm3());
+        }
+        bookings.put(booking.deliveryId(), booking);
+    }
+
+    /**
+     * @return removed booking or {@code null}
+     */
+    public Booking remove(long deliveryId) {
+        Booking booking = bookings.remove(deliveryId);
+        if (booking != null && booking.startMinute() < booking.endMinute()) {
+            add(ROOT, 0, LEAVES, booking.startMinute(), booking.endMinute(), -booking.weightGrams(), -booking.volumeCm3());
+        }
+        return booking;
+    }
+
+    /**
+     * Highest simultaneous load in {@code [startMinute, endMinute)}.
+     */
+    public Peak peak(int startMinute, int endMinute) {
+        if (startMinute >= endMinute) {
+            return new Peak(0, 0);
+        }
+        return new Peak(
+            query(maxWeight, addWeight, ROOT, 0, LEAVES, startMinute, endMinute),
+            query(maxVolume, addVolume, ROOT, 0, LEAVES, startMinute, endMinute));
+    }
+
+    public Peak peak(LocalTime start, LocalTime end) {
+        return peak(startMinute(start), endMinute(end));
+    }
+
+    public Collection<Booking> bookings() {
+        return bookings.values();
+    }
+
+    public int size() {
+        return bookings.size();
+    }
+
+    /**
+     * Compares the tree with a plain per-minute sweep over the bookings.
+     *
+     * @return minutes where they disagree
+     */
+    public List<Integer> verify() {
+        long[] weight = new long[MINUTES_PER_DAY + 1];
+        long[] volume = new long[MINUTES_PER_DAY + 1];
+        for (Booking booking : bookings.values()) {
+            weight[booking.startMinute()] += booking.weightGrams();
+            weight[booking.endMinute()] -= booking.weightGrams();
+            volume[booking.startMinute()] += booking.volumeCm3();
+            volume[booking.endMinute()] -= booking.volumeCm3();
+        }
+        List<Integer> mismatches = new ArrayList<>();
+        long currentWeight = 0;
+        long currentVolume = 0;
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            currentWeight += weight[minute];
+            currentVolume += volume[minute];
+            Peak peak = peak(minute, minute + 1);
+            if (peak.weightGrams() != currentWeight || peak.volumeCm3() != currentVolume) {
+                mismatches.add(minute);
+            }
+        }
+        return mismatches;
+    }
+
+    public static int startMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    public static int endMinute(LocalTime time) {
+        int minute = time.getHour() * 60 + time.getMinute();
+        return time.getSecond() > 0 || time.getNano() > 0 ? minute + 1 : minute;
+    }
+
+    private void add(int node, int low, int high, int from, int to, long weight, long volume) {
+        if (from <= low && high <= to) {
+            addWeight[node] += weight;
+            addVolume[node] += volume;
+            maxWeight[node] += weight;
+            maxVolume[node] += volume;
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        if (from < middle) {
+            if (left[node] == 0) {
+                // отдельная переменная: newNode может заменить массив left
+                int child = newNode();
+                left[node] = child;
+            }
+            add(left[node], low, middle, from, to, weight, volume);
+        }
+        if (to > middle) {
+            if (right[node] == 0) {
+                int child = newNode();
+                right[node] = child;
+            }
+            add(right[node], middle, high, from, to, weight, volume);
+        }
+        maxWeight[node] = addWeight[node] + Math.max(childMax(maxWeight, left[node]), childMax(maxWeight, right[node]));
+        maxVolume[node] = addVolume[node] + Math.max(childMax(maxVolume, left[node]), childMax(maxVolume, right[node]));
+    }
+
+    private long query(long[] max, long[] add, int node, int low, int high, int from, int to) {
+        if (from <= low && high <= to) {
+            return max[node];
+        }
+        int middle = (low + high) >>> 1;
+        long best = Long.MIN_VALUE;
+        if (from < middle) {
+            best = left[node] == 0 ? 0 : query(max, add, left[node], low, middle, from, to);
+        }
+        if (to > middle) {
+            best = Math.max(best, right[node] == 0 ? 0 : query(max, add, right[node], middle, high, from, to));
+        }
+        return add[node] + best;
+    }
+
+    private static long childMax(long[] max, int child) {
+        return child == 0 ? 0 : max[child];
+    }
+
+    private int newNode() {
+        if (nodes == left.length) {
+            int capacity = nodes * 2;
+            maxWeight = Arrays.copyOf(maxWeight, capacity);
+            maxVolume = Arrays.copyOf(maxVolume, capacity);
+            addWeight = Arrays.copyOf(addWeight, capacity);
+            addVolume = Arrays.copyOf(addVolume, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+        }
+        return nodes++;
+    }
+
+    /**
+     * Committed load of one delivery; minutes are {@code [startMinute, endMinute)}.
+     */
+    public record Booking(long deliveryId, int startMinute, int endMinute, long weightGrams, long volumeCm3) {
+
+        public static Booking of(long deliveryId, LocalTime start, LocalTime end, long weightGrams, long volumeCm3) {
+            return new Booking(deliveryId, LoadTimeline.startMinute(start), LoadTimeline.endMinute(end),
+                weightGrams, volumeCm3);
+        }
+    }
+
+    /**
+     * Weight in grams and volume in cm³; each is the maximum over the window on its own.
+     */
+    public record Peak(long weightGrams, long volumeCm3) {
+    }
+}
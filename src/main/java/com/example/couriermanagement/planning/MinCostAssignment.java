@@ -0,0 +1,84 @@
+package com.example.couriermanagement.planning;
+
+import java.util.Arrays;
+
+/**
+ * Hungarian algorithm with potentials for rectangular cost matrices, {@code O(rows² · columns)}.
+ * Every row gets a distinct column and the total cost is minimal.
+ */
+public final class MinCostAssignment {
+
+    private MinCostAssignment() {
+    }
+
+    /**
+     * @param cost {@code rows x columns} matrix with {@code rows <= columns}, all values finite
+     * @return column assigned to every row
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        if (rows > columns) {
+            throw new IllegalArgumentException("Строк в матрице назначений больше, чем столбцов");
+        }
+
+        // индексация с 1, столбец 0 - фиктивный для текущей строки
+        double[] rowPotential = new double[rows + 1];
+        double[] columnPotential = new double[columns + 1];
+        int[] owner = new int[columns + 1];
+        int[] way = new int[columns + 1];
+        double[] minSlack = new double[columns + 1];
+        boolean[] used = new boolean[columns + 1];
+
+        for (int row = 1; row <= rows; row++) {
+            owner[0] = row;
+            int column = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int currentRow = owner[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+                double[] costRow = cost[currentRow - 1];
+                for (int j = 1; j <= columns; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double slack = costRow[j - 1] - rowPotential[currentRow] - columnPotential[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = column;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        nextColumn = j;
+                    }
+                }
+                for (int j = 0; j <= columns; j++) {
+                    if (used[j]) {
+                        rowPotential[owner[j]] += delta;
+                        columnPotential[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (owner[column] != 0);
+
+            do {
+                int previous = way[column];
+                owner[column] = owner[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int[] assignment = new int[rows];
+        for (int j = 1; j <= columns; j++) {
+            if (owner[j] != 0) {
+                assignment[owner[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+}
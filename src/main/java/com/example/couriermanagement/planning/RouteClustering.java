@@ -0,0 +1,326 @@
+package com.example.couriermanagement.planning;
+
+import com.example.couriermanagement.geo.PointGrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Splits drop points into geographically compact clusters that each fit one vehicle.
+ * <p>
+ * Every point carries loads in several dimensions (weight, volume, stops...) and every cluster
+ * has the same capacity per dimension. The points are first cut by recursive balanced bisection
+ * along the longer side of their extent, so each half receives a share of clusters proportional
+ * to its load; the halves are processed in parallel on the given pool. Then a few rounds of
+ * capacity-constrained k-means move points to a closer cluster centre when that cluster has room.
+ * <p>
+ * A point heavier than the capacity ends up alone in its cluster; the caller reports it.
+ */
+public final class RouteClustering {
+
+    // запас вместимости при выборе числа кластеров, чтобы уточнению было куда переносить точки
+    private static final double FILL_FACTOR = 0.9;
+    private static final int SEQUENTIAL_THRESHOLD = 2048;
+    private static final int REFINEMENT_ROUNDS = 6;
+    private static final int CANDIDATE_CLUSTERS = 4;
+    private static final double KM_PER_DEGREE = 111.195;
+    private static final double EPSILON = 1e-9;
+
+    private RouteClustering() {
+    }
+
+    /**
+     * @param latitudes point latitudes, degrees
+     * @param longitudes point longitudes, degrees
+     * @param loads {@code loads[dimension][point]}
+     * @param capacities capacity of one cluster per dimension
+     * @return point indexes of every cluster
+     */
+    public static int[][] cluster(double[] latitudes, double[] longitudes, double[][] loads, double[] capacities,
+                                  ForkJoinPool pool) {
+        int size = latitudes.length;
+        if (longitudes.length != size || loads.length != capacities.length) {
+            throw new IllegalArgumentException("Размеры входных массивов кластеризации не совпадают");
+        }
+        for (int d = 0; d < capacities.length; d++) {
+            if (!(capacities[d] > 0) || loads[d].length != size) {
+                throw new IllegalArgumentException("Некорректная вместимость кластера");
+            }
+        }
+        if (size == 0) {
+            return new int[0][];
+        }
+
+        Geometry geometry = new Geometry(latitudes, longitudes, loads, capacities);
+        int clusterCount = 1;
+        for (int d = 0; d < capacities.length; d++) {
+            double total = 0;
+            for (double load : loads[d]) {
+                total += load;
+            }
+            clusterCount = Math.max(clusterCount, (int) Math.ceil(total / (capacities[d] * FILL_FACTOR) - EPSILON));
+        }
+        clusterCount = Math.min(clusterCount, size);
+
+        int[] order = IntStream.range(0, size).toArray();
+        List<int[]> initial = pool.invoke(new Bisection(geometry, order, 0, size, clusterCount));
+        int[] assignment = new int[size];
+        for (int c = 0; c < initial.size(); c++) {
+            for (int point : initial.get(c)) {
+                assignment[point] = c;
+            }
+        }
+        refine(geometry, assignment, initial.size(), pool);
+
+        List<List<Integer>> members = new ArrayList<>();
+        for (int c = 0; c < initial.size(); c++) {
+            members.add(new ArrayList<>());
+        }
+        for (int point = 0; point < size; point++) {
+            members.get(assignment[point]).add(point);
+        }
+        return members.stream()
+            .filter(list -> !list.isEmpty())
+            .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+            .toArray(int[][]::new);
+    }
+
+    /**
+     * Moves points to a nearer cluster centre while the target cluster keeps within capacity.
+     * Proposals are computed in parallel against the centres of the previous round and applied
+     * sequentially, best gain first.
+     */
+    private static void refine(Geometry geometry, int[] assignment, int clusterCount, ForkJoinPool pool) {
+        int size = assignment.length;
+        int dimensions = geometry.capacities.length;
+        double[][] clusterLoads = new double[clusterCount][dimensions];
+        int[] clusterSizes = new int[clusterCount];
+        for (int point = 0; point < size; point++) {
+            clusterSizes[assignment[point]]++;
+            for (int d = 0; d < dimensions; d++) {
+                clusterLoads[assignment[point]][d] += geometry.loads[d][point];
+            }
+        }
+
+        for (int round = 0; round < REFINEMENT_ROUNDS && clusterCount > 1; round++) {
+            double[] centreLat = new double[clusterCount];
+            double[] centreLon = new double[clusterCount];
+            for (int point = 0; point < size; point++) {
+                centreLat[assignment[point]] += geometry.latitudes[point];
+                centreLon[assignment[point]] += geometry.longitudes[point];
+            }
+            PointGrid centres = new PointGrid(0.01);
+            for (int c = 0; c < clusterCount; c++) {
+                if (clusterSizes[c] > 0) {
+                    centreLat[c] /= clusterSizes[c];
+                    centreLon[c] /= clusterSizes[c];
+                    centres.put(c, c, centreLat[c], centreLon[c]);
+                }
+            }
+
+            // предложения переноса считаются параллельно: сетка центров только читается
+            int[] targets = new int[size];
+            long[] proposals = pool.submit(() -> IntStream.range(0, size).parallel()
+                .mapToLong(point -> propose(geometry, point, assignment[point], centres, centreLat, centreLon, targets))
+                .filter(proposal -> proposal >= 0)
+                .sorted()
+                .toArray()).join();
+
+            int moved = 0;
+            for (long proposal : proposals) {
+                int point = (int) proposal;
+                int target = targets[point];
+                int source = assignment[point];
+                if (clusterSizes[source] <= 1 || !fits(geometry, clusterLoads[target], point)) {
+                    continue;
+                }
+                assignment[point] = target;
+                clusterSizes[source]--;
+                clusterSizes[target]++;
+                for (int d = 0; d < dimensions; d++) {
+                    clusterLoads[source][d] -= geometry.loads[d][point];
+                    clusterLoads[target][d] += geometry.loads[d][point];
+                }
+                moved++;
+            }
+            if (moved == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Best move of a point as a sortable key: inverted relative gain in the higher half, so that
+     * larger gains sort first, and the point in the lower half. The target goes to {@code targets}.
+     *
+     * @return -1 when staying is best
+     */
+    private static long propose(Geometry geometry, int point, int current, PointGrid centres,
+                                double[] centreLat, double[] centreLon, int[] targets) {
+        double lat = geometry.latitudes[point];
+        double lon = geometry.longitudes[point];
+        double own = planarDistance(geometry, lat, lon, centreLat[current], centreLon[current]);
+        int best = -1;
+        double bestDistance = own * (1 - 1e-3);
+        for (PointGrid.Hit hit : centres.nearest(lat, lon, CANDIDATE_CLUSTERS)) {
+            int candidate = (int) hit.pointId();
+            if (candidate == current) {
+                continue;
+            }
+            double distance = planarDistance(geometry, lat, lon, centreLat[candidate], centreLon[candidate]);
+            if (distance < bestDistance) {
+                best = candidate;
+                bestDistance = distance;
+            }
+        }
+        if (best < 0) {
+            return -1;
+        }
+        targets[point] = best;
+        double gain = (own - bestDistance) / Math.max(own, EPSILON);
+        long rank = Math.round((1 - Math.min(1.0, gain)) * Integer.MAX_VALUE);
+        return (rank << 32) | point;
+    }
+
+    private static boolean fits(Geometry geometry, double[] clusterLoad, int point) {
+        for (int d = 0; d < geometry.capacities.length; d++) {
+            if (clusterLoad[d] + geometry.loads[d][point] > geometry.capacities[d] + EPSILON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double planarDistance(Geometry geometry, double lat1, double lon1, double lat2, double lon2) {
+        double dx = (lon2 - lon1) * geometry.cosLatitude;
+        double dy = lat2 - lat1;
+        return Math.sqrt(dx * dx + dy * dy) * KM_PER_DEGREE;
+    }
+
+    private static final class Geometry {
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final double[][] loads;
+        private final double[] capacities;
+        private final double cosLatitude;
+        // доля вместимости, которую занимает точка по самому загруженному измерению
+        private final double[] shares;
+
+        private Geometry(double[] latitudes, double[] longitudes, double[][] loads, double[] capacities) {
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.loads = loads;
+            this.capacities = capacities;
+            this.cosLatitude = Math.cos(Math.toRadians(Arrays.stream(latitudes).average().orElse(0)));
+            this.shares = new double[latitudes.length];
+            for (int point = 0; point < latitudes.length; point++) {
+                double share = 0;
+                for (int d = 0; d < capacities.length; d++) {
+                    share = Math.max(share, loads[d][point] / capacities[d]);
+                }
+                // точка без нагрузки все равно занимает место, иначе разрез может уйти к краю
+                shares[point] = Math.max(share, EPSILON);
+            }
+        }
+    }
+
+    private static final class Bisection extends RecursiveTask<List<int[]>> {
+        private final Geometry geometry;
+        private final int[] order;
+        private final int from;
+        private final int to;
+        private final int clusters;
+
+        private Bisection(Geometry geometry, int[] order, int from, int to, int clusters) {
+            this.geometry = geometry;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.clusters = clusters;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            int count = to - from;
+            // лист может не уместиться, если разрез получился неровным: тогда он делится дальше
+            int parts = Math.min(clusters > 1 ? clusters : requiredClusters(), count);
+            if (parts <= 1) {
+                List<int[]> leaf = new ArrayList<>(1);
+                leaf.add(Arrays.copyOfRange(order, from, to));
+                return leaf;
+            }
+
+            sortAlongLongerSide();
+            int leftParts = parts / 2;
+            double total = 0;
+            for (int i = from; i < to; i++) {
+                total += geometry.shares[order[i]];
+            }
+            double target = total * leftParts / parts;
+            double accumulated = 0;
+            int split = from;
+            while (split < to - 1 && accumulated + geometry.shares[order[split]] / 2 < target) {
+                accumulated += geometry.shares[order[split]];
+                split++;
+            }
+            split = Math.max(split, from + 1);
+
+            Bisection left = new Bisection(geometry, order, from, split, leftParts);
+            Bisection right = new Bisection(geometry, order, split, to, parts - leftParts);
+            List<int[]> result;
+            if (count > SEQUENTIAL_THRESHOLD) {
+                right.fork();
+                result = left.compute();
+                result.addAll(right.join());
+            } else {
+                result = left.compute();
+                result.addAll(right.compute());
+            }
+            return result;
+        }
+
+        private int requiredClusters() {
+            int required = 1;
+            for (int d = 0; d < geometry.capacities.length; d++) {
+                double total = 0;
+                for (int i = from; i < to; i++) {
+                    total += geometry.loads[d][order[i]];
+                }
+                required = Math.max(required, (int) Math.ceil(total / geometry.capacities[d] - EPSILON));
+            }
+            return required;
+        }
+
+        private void sortAlongLongerSide() {
+            double minLat = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double minLon = Double.POSITIVE_INFINITY;
+            double maxLon = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                int point = order[i];
+                minLat = Math.min(minLat, geometry.latitudes[point]);
+                maxLat = Math.max(maxLat, geometry.latitudes[point]);
+                minLon = Math.min(minLon, geometry.longitudes[point]);
+                maxLon = Math.max(maxLon, geometry.longitudes[point]);
+            }
+            boolean byLatitude = maxLat - minLat >= (maxLon - minLon) * geometry.cosLatitude;
+            double[] coordinates = byLatitude ? geometry.latitudes : geometry.longitudes;
+
+            // ключ сортировки: координата как упорядоченные биты float в старшей половине, точка в младшей
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i++) {
+                int bits = Float.floatToIntBits((float) coordinates[order[i]]);
+                int sortable = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+                keys[i - from] = ((long) sortable << 32) | order[i];
+            }
+            Arrays.sort(keys);
+            for (int i = from; i < to; i++) {
+                order[i] = (int) keys[i - from];
+            }
+        }
+    }
+}
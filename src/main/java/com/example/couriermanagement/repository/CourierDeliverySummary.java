@@ -0,0 +1,16 @@
+package com.example.couriermanagement.repository;
+
+import com.example.couriermanagement.entity.DeliveryStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Delivery as the courier's list shows it, without loading entities.
+ * Vehicle columns are {@code null} when no vehicle is assigned.
+ */
+public record CourierDeliverySummary(Long id, LocalDate deliveryDate, LocalTime timeStart, LocalTime timeEnd,
+                                     DeliveryStatus status, String vehicleBrand, String vehicleLicensePlate,
+                                     Integer pointsCount, Integer productsCount, BigDecimal totalWeight) {
+}
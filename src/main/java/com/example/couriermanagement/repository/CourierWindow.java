@@ -0,0 +1,9 @@
+package com.example.couriermanagement.repository;
+
+import java.time.LocalTime;
+
+/**
+ * Time window a courier is busy with a delivery, without loading entities.
+ */
+public record CourierWindow(Long deliveryId, Long courierId, LocalTime timeStart, LocalTime timeEnd) {
+}
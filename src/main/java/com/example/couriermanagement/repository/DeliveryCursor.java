@@ -0,0 +1,31 @@
+package com.example.couriermanagement.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the delivery list ordered by {@code (delivery_date, time_start, id)}: the key of the
+ * last delivery of a page. Clients get it as an opaque string and pass it back for the next page.
+ */
+public record DeliveryCursor(LocalDate deliveryDate, LocalTime timeStart, Long id) {
+
+    public String encode() {
+        String key = deliveryDate + "|" + timeStart + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static DeliveryCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Некорректный курсор");
+            }
+            return new DeliveryCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.couriermanagement.repository;
+
+import com.example.couriermanagement.entity.DeliveryStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Total weight (kg) and volume (cm³) of one delivery's products, aggregated in the database.
+ * Sums are {@code null} for a delivery without products.
+ */
+public record DeliveryLoad(Long deliveryId, Long vehicleId, LocalDate deliveryDate, LocalTime timeStart,
+                           LocalTime timeEnd, DeliveryStatus status, BigDecimal weight, BigDecimal volumeCm3) {
+}
@@ -0,0 +1,9 @@
+package com.example.couriermanagement.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Coordinates of a point with its delivery, without loading entities.
+ */
+public record DeliveryPointLocation(Long pointId, Long deliveryId, BigDecimal latitude, BigDecimal longitude) {
+}
@@ -2,11 +2,13 @@ package com.example.couriermanagement.repository;
 
 import com.example.couriermanagement.entity.Delivery;
 import com.example.couriermanagement.entity.DeliveryPoint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,4 +35,18 @@ public interface DeliveryPointRepository extends JpaRepository<DeliveryPoint, Lo
     Optional<Integer> findMaxSequenceByDeliveryId(@Param("deliveryId") Long deliveryId);
     
     Optional<DeliveryPoint> findByDeliveryAndSequence(Delivery delivery, Integer sequence);
-}
\ No newline at end of file
+    
+    @Query("""
+        SELECT dp FROM DeliveryPoint dp 
+        WHERE dp.delivery.deliveryDate >= :since 
+        ORDER BY dp.delivery.id, dp.sequence
+    """)
+    List<DeliveryPoint> findForRouteWarmUp(@Param("since") LocalDate since, Pageable pageable);
+
+    @Query("""
+        SELECT new com.example.couriermanagement.repository.DeliveryPointLocation(dp.id, d.id, dp.latitude, dp.longitude)
+        FROM DeliveryPoint dp JOIN dp.delivery d
+        WHERE d.deliveryDate = :date
+    """)
+    List<DeliveryPointLocation> findLocationsByDeliveryDate(@Param("date") LocalDate date);
+}
@@ -5,17 +5,43 @@ import com.example.couriermanagement.entity.DeliveryPoint;
 import com.example.couriermanagement.entity.DeliveryPointProduct;
 import com.example.couriermanagement.entity.DeliveryStatus;
 import com.example.couriermanagement.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
+public interface DeliveryRepository extends JpaRepository<Delivery, Long>, JpaSpecificationExecutor<Delivery> {
+
+    /**
+     * Recalculates the stored totals from points and products; callers append the {@code WHERE} clause
+     */
+    String RECALCULATE_TOTALS = """
+        UPDATE deliveries d SET
+            points_count = (SELECT COUNT(*) FROM delivery_points dp WHERE dp.delivery_id = d.id),
+            products_count = (SELECT COALESCE(SUM(dpp.quantity), 0)
+                FROM delivery_points dp JOIN delivery_point_products dpp ON dpp.delivery_point_id = dp.id
+                WHERE dp.delivery_id = d.id),
+            total_weight = (SELECT COALESCE(SUM(p.weight * dpp.quantity), 0)
+                FROM delivery_points dp JOIN delivery_point_products dpp ON dpp.delivery_point_id = dp.id
+                JOIN products p ON p.id = dpp.product_id
+                WHERE dp.delivery_id = d.id),
+            total_volume = (SELECT ROUND(COALESCE(SUM(p.length * p.width * p.height * dpp.quantity), 0) / 1000000, 6)
+                FROM delivery_points dp JOIN delivery_point_products dpp ON dpp.delivery_point_id = dp.id
+                JOIN products p ON p.id = dpp.product_id
+                WHERE dp.delivery_id = d.id)
+        """;
     
     List<Delivery> findByDeliveryDate(LocalDate deliveryDate);
     
@@ -25,20 +51,10 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     
     List<Delivery> findByCourierAndDeliveryDate(User courier, LocalDate deliveryDate);
     
-    List<Delivery> findByDeliveryDateAndCourierId(LocalDate deliveryDate, Long courierId);
-    
-    List<Delivery> findByDeliveryDateAndCourierIdAndStatus(LocalDate deliveryDate, Long courierId, DeliveryStatus status);
-    
-    List<Delivery> findByDeliveryDateAndStatus(LocalDate deliveryDate, DeliveryStatus status);
-    
-    List<Delivery> findByCourierIdAndStatus(Long courierId, DeliveryStatus status);
-    
     List<Delivery> findByCourierIdAndDeliveryDateBetween(Long courierId, LocalDate dateFrom, LocalDate dateTo);
     
     List<Delivery> findByCourierIdAndStatusAndDeliveryDateBetween(Long courierId, DeliveryStatus status, LocalDate dateFrom, LocalDate dateTo);
     
-    List<Delivery> findByStatus(DeliveryStatus status);
-
     List<Delivery> findByVehicleId(Long vehicleId);
     
     @Query("""
@@ -60,106 +76,25 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     """)
     List<Delivery> findByDateOrderByTime(@Param("date") LocalDate date);
     
+    @Query("SELECT d.version FROM Delivery d WHERE d.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Courier's list screen in one query: stored totals and vehicle columns instead of entities.
+     * A {@code null} status or period is not filtered on.
+     */
     @Query("""
-        SELECT d FROM Delivery d 
-        WHERE d.deliveryDate BETWEEN :startDate AND :endDate
-        AND (:courierId IS NULL OR d.courier.id = :courierId)
-        AND (:status IS NULL OR d.status = :status)
-        ORDER BY d.deliveryDate, d.timeStart
-    """)
-    List<Delivery> findByDateRangeAndFilters(
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate,
-        @Param("courierId") Long courierId,
-        @Param("status") DeliveryStatus status
-    );
-    
-    @Query("""
-        SELECT COUNT(d) > 0 FROM Delivery d 
-        WHERE d.courier.id = :courierId 
-        AND d.deliveryDate = :date
-        AND d.status != 'CANCELLED'
-        AND (
-            (d.timeStart <= :timeStart AND d.timeEnd > :timeStart) OR
-            (d.timeStart < :timeEnd AND d.timeEnd >= :timeEnd) OR
-            (d.timeStart >= :timeStart AND d.timeEnd <= :timeEnd)
-        )
-    """)
-    boolean existsCourierTimeConflict(
-        @Param("courierId") Long courierId,
-        @Param("date") LocalDate date,
-        @Param("timeStart") LocalTime timeStart,
-        @Param("timeEnd") LocalTime timeEnd
-    );
-    
-    @Query("""
-        SELECT DISTINCT d FROM Delivery d 
-        LEFT JOIN FETCH d.deliveryPoints
-        LEFT JOIN FETCH d.vehicle
+        SELECT new com.example.couriermanagement.repository.CourierDeliverySummary(
+            d.id, d.deliveryDate, d.timeStart, d.timeEnd, d.status, v.brand, v.licensePlate,
+            d.pointsCount, d.productsCount, d.totalWeight)
+        FROM Delivery d
+        LEFT JOIN d.vehicle v
         WHERE d.courier.id = :courierId
+        AND (:status IS NULL OR d.status = :status)
+        AND (:dateFrom IS NULL OR d.deliveryDate BETWEEN :dateFrom AND :dateTo)
+        ORDER BY d.deliveryDate, d.timeStart, d.id
     """)
-    List<Delivery> findByCourierIdWithDetails(@Param("courierId") Long courierId);
-    
-    @Query("""
-        SELECT DISTINCT d FROM Delivery d 
-        LEFT JOIN FETCH d.deliveryPoints
-        LEFT JOIN FETCH d.vehicle
-        WHERE d.courier.id = :courierId 
-        AND d.deliveryDate = :date
-    """)
-    List<Delivery> findByDeliveryDateAndCourierIdWithDetails(
-        @Param("date") LocalDate date, 
-        @Param("courierId") Long courierId
-    );
-    
-    @Query("""
-        SELECT DISTINCT d FROM Delivery d 
-        LEFT JOIN FETCH d.deliveryPoints
-        LEFT JOIN FETCH d.vehicle
-        WHERE d.courier.id = :courierId 
-        AND d.status = :status
-    """)
-    List<Delivery> findByCourierIdAndStatusWithDetails(
-        @Param("courierId") Long courierId,
-        @Param("status") DeliveryStatus status
-    );
-    
-    @Query("""
-        SELECT DISTINCT d FROM Delivery d 
-        LEFT JOIN FETCH d.deliveryPoints
-        LEFT JOIN FETCH d.vehicle
-        WHERE d.courier.id = :courierId 
-        AND d.deliveryDate = :date 
-        AND d.status = :status
-    """)
-    List<Delivery> findByDeliveryDateAndCourierIdAndStatusWithDetails(
-        @Param("date") LocalDate date,
-        @Param("courierId") Long courierId,
-        @Param("status") DeliveryStatus status
-    );
-    
-    @Query("""
-        SELECT DISTINCT d FROM Delivery d 
-        LEFT JOIN FETCH d.deliveryPoints
-        LEFT JOIN FETCH d.vehicle
-        WHERE d.courier.id = :courierId 
-        AND d.deliveryDate BETWEEN :dateFrom AND :dateTo
-    """)
-    List<Delivery> findByCourierIdAndDeliveryDateBetweenWithDetails(
-        @Param("courierId") Long courierId,
-        @Param("dateFrom") LocalDate dateFrom,
-        @Param("dateTo") LocalDate dateTo
-    );
-    
-    @Query("""
-        SELECT DISTINCT d FROM Delivery d 
-        LEFT JOIN FETCH d.deliveryPoints
-        LEFT JOIN FETCH d.vehicle
-        WHERE d.courier.id = :courierId 
-        AND d.status = :status
-        AND d.deliveryDate BETWEEN :dateFrom AND :dateTo
-    """)
-    List<Delivery> findByCourierIdAndStatusAndDeliveryDateBetweenWithDetails(
+    List<CourierDeliverySummary> findCourierDeliverySummaries(
         @Param("courierId") Long courierId,
         @Param("status") DeliveryStatus status,
         @Param("dateFrom") LocalDate dateFrom,
@@ -201,6 +136,22 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
         @Param("timeEnd") LocalTime timeEnd
     );
 
+    @Query("""
+        SELECT d FROM Delivery d 
+        WHERE d.deliveryDate = :date 
+        AND d.status NOT IN ('CANCELLED', 'COMPLETED')
+        AND (
+            (d.timeStart <= :timeStart AND d.timeEnd > :timeStart) OR
+            (d.timeStart < :timeEnd AND d.timeEnd >= :timeEnd) OR
+            (d.timeStart >= :timeStart AND d.timeEnd <= :timeEnd)
+        )
+    """)
+    List<Delivery> findActiveByDateAndOverlappingTime(
+        @Param("date") LocalDate date,
+        @Param("timeStart") LocalTime timeStart,
+        @Param("timeEnd") LocalTime timeEnd
+    );
+
     @Query("""
         SELECT d FROM Delivery d 
         JOIN d.deliveryPoints dp 
@@ -208,4 +159,101 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
         WHERE dpp.product.id = :productId
     """)
     List<Delivery> findByProductId(@Param("productId") Long productId);
-}
\ No newline at end of file
+
+    @Query("""
+        SELECT new com.example.couriermanagement.repository.DeliveryLoad(
+            d.id, v.id, d.deliveryDate, d.timeStart, d.timeEnd, d.status,
+            SUM(p.weight * dpp.quantity), SUM(p.length * p.width * p.height * dpp.quantity))
+        FROM Delivery d
+        JOIN d.vehicle v
+        LEFT JOIN d.deliveryPoints dp
+        LEFT JOIN dp.deliveryPointProducts dpp
+        LEFT JOIN dpp.product p
+        WHERE d.deliveryDate = :date
+        AND v.id IN :vehicleIds
+        AND d.status NOT IN ('CANCELLED', 'COMPLETED')
+        GROUP BY d.id, v.id, d.deliveryDate, d.timeStart, d.timeEnd, d.status
+    """)
+    List<DeliveryLoad> findActiveLoadsByDateAndVehicles(
+        @Param("date") LocalDate date,
+        @Param("vehicleIds") Collection<Long> vehicleIds
+    );
+
+    @Query("""
+        SELECT new com.example.couriermanagement.repository.DeliveryLoad(
+            d.id, v.id, d.deliveryDate, d.timeStart, d.timeEnd, d.status,
+            SUM(p.weight * dpp.quantity), SUM(p.length * p.width * p.height * dpp.quantity))
+        FROM Delivery d
+        JOIN d.vehicle v
+        LEFT JOIN d.deliveryPoints dp
+        LEFT JOIN dp.deliveryPointProducts dpp
+        LEFT JOIN dpp.product p
+        WHERE d.id IN :ids
+        GROUP BY d.id, v.id, d.deliveryDate, d.timeStart, d.timeEnd, d.status
+    """)
+    List<DeliveryLoad> findLoadsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+        SELECT new com.example.couriermanagement.repository.CourierWindow(d.id, c.id, d.timeStart, d.timeEnd)
+        FROM Delivery d
+        JOIN d.courier c
+        WHERE d.deliveryDate = :date
+        AND c.id IN :courierIds
+        AND d.status != 'CANCELLED'
+    """)
+    List<CourierWindow> findCourierWindowsByDate(
+        @Param("date") LocalDate date,
+        @Param("courierIds") Collection<Long> courierIds
+    );
+
+    @Query("""
+        SELECT new com.example.couriermanagement.repository.DeliveryTotals(
+            dp.delivery.id, COUNT(DISTINCT dp.id), SUM(dpp.quantity),
+            SUM(p.weight * dpp.quantity), SUM(p.length * p.width * p.height * dpp.quantity))
+        FROM DeliveryPoint dp
+        LEFT JOIN dp.deliveryPointProducts dpp
+        LEFT JOIN dpp.product p
+        WHERE dp.delivery.id IN :ids
+        GROUP BY dp.delivery.id
+    """)
+    List<DeliveryTotals> findTotalsByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    // запись только в deliveries: кэш второго уровня справочников не сбрасывается
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "deliveries"))
+    // исправленные итоги меняют ответ по доставке, поэтому и ее версию
+    @Query(value = RECALCULATE_TOTALS + ", version = d.version + 1 WHERE d.id IN (:ids)", nativeQuery = true)
+    int recalculateTotals(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "deliveries"))
+    @Query(value = RECALCULATE_TOTALS + """
+        WHERE d.id IN (
+            SELECT dp.delivery_id FROM delivery_points dp
+            JOIN delivery_point_products dpp ON dpp.delivery_point_id = dp.id
+            WHERE dpp.product_id IN (:productIds)
+        )
+    """, nativeQuery = true)
+    int recalculateTotalsByProducts(@Param("productIds") Collection<Long> productIds);
+
+    @Query(value = """
+        SELECT d.id FROM deliveries d
+        LEFT JOIN (
+            SELECT dp.delivery_id,
+                COUNT(DISTINCT dp.id) AS points_count,
+                COALESCE(SUM(dpp.quantity), 0) AS products_count,
+                COALESCE(SUM(p.weight * dpp.quantity), 0) AS total_weight,
+                ROUND(COALESCE(SUM(p.length * p.width * p.height * dpp.quantity), 0) / 1000000, 6) AS total_volume
+            FROM delivery_points dp
+            LEFT JOIN delivery_point_products dpp ON dpp.delivery_point_id = dp.id
+            LEFT JOIN products p ON p.id = dpp.product_id
+            GROUP BY dp.delivery_id
+        ) t ON t.delivery_id = d.id
+        WHERE d.points_count <> COALESCE(t.points_count, 0)
+        OR d.products_count <> COALESCE(t.products_count, 0)
+        OR d.total_weight <> COALESCE(t.total_weight, 0)
+        OR d.total_volume <> COALESCE(t.total_volume, 0)
+        ORDER BY d.id
+    """, nativeQuery = true)
+    List<Long> findIdsWithStaleTotals();
+}
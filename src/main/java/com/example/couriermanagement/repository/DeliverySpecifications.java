@@ -0,0 +1,100 @@
+package com.example.couriermanagement.repository;
+
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryPointProduct;
+import com.example.couriermanagement.entity.DeliveryStatus;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Filters of the delivery search. Every one matches all deliveries when its argument is
+ * {@code null}, so the search combines them without branching on which filters are set.
+ */
+public final class DeliverySpecifications {
+
+    /**
+     * Order of the search pages; {@link #after} continues it and the {@code *_keyset} indexes follow it
+     */
+    public static final Sort KEYSET_ORDER = Sort.by("deliveryDate", "timeStart", "id");
+
+    private DeliverySpecifications() {
+    }
+
+    public static Specification<Delivery> dateFrom(LocalDate from) {
+        return (root, query, cb) -> from == null ? null : cb.greaterThanOrEqualTo(root.get("deliveryDate"), from);
+    }
+
+    public static Specification<Delivery> dateTo(LocalDate to) {
+        return (root, query, cb) -> to == null ? null : cb.lessThanOrEqualTo(root.get("deliveryDate"), to);
+    }
+
+    public static Specification<Delivery> courier(Long courierId) {
+        return (root, query, cb) -> courierId == null ? null : cb.equal(root.get("courier").get("id"), courierId);
+    }
+
+    public static Specification<Delivery> vehicle(Long vehicleId) {
+        return (root, query, cb) -> vehicleId == null ? null : cb.equal(root.get("vehicle").get("id"), vehicleId);
+    }
+
+    public static Specification<Delivery> status(DeliveryStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    /**
+     * Deliveries with the product at any of their points, as a semi-join so a delivery is returned once
+     */
+    public static Specification<Delivery> containsProduct(Long productId) {
+        return (root, query, cb) -> {
+            if (productId == null) {
+                return null;
+            }
+            Subquery<Integer> line = query.subquery(Integer.class);
+            Root<DeliveryPointProduct> product = line.from(DeliveryPointProduct.class);
+            line.select(cb.literal(1)).where(
+                cb.equal(product.get("deliveryPoint").get("delivery"), root),
+                cb.equal(product.get("product").get("id"), productId));
+            return cb.exists(line);
+        };
+    }
+
+    /**
+     * Deliveries strictly after the cursor in {@link #KEYSET_ORDER}
+     */
+    public static Specification<Delivery> after(DeliveryCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return null;
+            }
+            Path<LocalDate> date = root.get("deliveryDate");
+            Path<LocalTime> start = root.get("timeStart");
+            Path<Long> id = root.get("id");
+            return cb.or(
+                cb.greaterThan(date, cursor.deliveryDate()),
+                cb.and(cb.equal(date, cursor.deliveryDate()), cb.greaterThan(start, cursor.timeStart())),
+                cb.and(cb.equal(date, cursor.deliveryDate()), cb.equal(start, cursor.timeStart()),
+                    cb.greaterThan(id, cursor.id())));
+        };
+    }
+
+    /**
+     * Courier, vehicle and author of the page in the same query instead of one query per delivery
+     */
+    public static Specification<Delivery> fetchParticipants() {
+        return (root, query, cb) -> {
+            // у запроса количества или существования нет выборки сущностей
+            if (Delivery.class.equals(query.getResultType())) {
+                root.fetch("courier", JoinType.LEFT);
+                root.fetch("vehicle", JoinType.LEFT);
+                root.fetch("createdBy", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.couriermanagement.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Point count, item count, weight (kg) and volume (cm³) of one delivery, aggregated in the database.
+ * Sums are {@code null} for a delivery whose points have no products.
+ */
+public record DeliveryTotals(Long deliveryId, Long pointsCount, Long productsCount,
+                             BigDecimal weight, BigDecimal volumeCm3) {
+}
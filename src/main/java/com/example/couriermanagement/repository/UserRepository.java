@@ -7,12 +7,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    
-    Optional<User> findByLogin(String login);
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     
     List<User> findByRole(UserRole role);
     
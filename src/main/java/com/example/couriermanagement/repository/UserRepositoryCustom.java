@@ -0,0 +1,12 @@
+package com.example.couriermanagement.repository;
+
+import com.example.couriermanagement.entity.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    /**
+     * Resolves the login through the natural-id cache; only a miss queries the database
+     */
+    Optional<User> findByLogin(String login);
+}
@@ -0,0 +1,23 @@
+package com.example.couriermanagement.repository;
+
+import com.example.couriermanagement.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    public UserRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(login);
+    }
+}
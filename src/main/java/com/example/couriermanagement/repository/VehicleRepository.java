@@ -1,20 +1,21 @@
 package com.example.couriermanagement.repository;
 
 import com.example.couriermanagement.entity.Vehicle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
-    
-    Optional<Vehicle> findByLicensePlate(String licensePlate);
+public interface VehicleRepository extends JpaRepository<Vehicle, Long>, VehicleRepositoryCustom {
     
     @Query("""
         SELECT v FROM Vehicle v 
@@ -35,4 +36,40 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     List<Vehicle> findAvailableVehiclesForDate(@Param("date") LocalDate date);
     
     boolean existsByLicensePlate(String licensePlate);
+
+    /**
+     * Creates the reservation row of the vehicle and date unless it exists; the row is what
+     * {@link #lockReservation} locks
+     */
+    @Modifying
+    // без указания таблицы Hibernate сбрасывает весь кэш второго уровня
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vehicle_day_reservations"))
+    @Query(value = """
+        INSERT INTO vehicle_day_reservations (vehicle_id, reservation_date, revision)
+        SELECT :vehicleId, :date, 0
+        WHERE NOT EXISTS (
+            SELECT 1 FROM vehicle_day_reservations
+            WHERE vehicle_id = :vehicleId AND reservation_date = :date
+        )
+    """, nativeQuery = true)
+    int createReservation(@Param("vehicleId") Long vehicleId, @Param("date") LocalDate date);
+
+    /**
+     * Locks the reservation row until the end of the transaction and returns its revision, or
+     * {@code null} if the row does not exist
+     */
+    @Query(value = """
+        SELECT revision FROM vehicle_day_reservations
+        WHERE vehicle_id = :vehicleId AND reservation_date = :date
+        FOR UPDATE
+    """, nativeQuery = true)
+    Long lockReservation(@Param("vehicleId") Long vehicleId, @Param("date") LocalDate date);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vehicle_day_reservations"))
+    @Query(value = """
+        UPDATE vehicle_day_reservations SET revision = revision + 1
+        WHERE vehicle_id = :vehicleId AND reservation_date = :date
+    """, nativeQuery = true)
+    int bumpReservation(@Param("vehicleId") Long vehicleId, @Param("date") LocalDate date);
 }
\ No newline at end of file
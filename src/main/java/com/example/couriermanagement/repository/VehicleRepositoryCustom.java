@@ -0,0 +1,12 @@
+package com.example.couriermanagement.repository;
+
+import com.example.couriermanagement.entity.Vehicle;
+
+import java.util.Optional;
+
+public interface VehicleRepositoryCustom {
+    /**
+     * Resolves the plate through the natural-id cache; only a miss queries the database
+     */
+    Optional<Vehicle> findByLicensePlate(String licensePlate);
+}
@@ -0,0 +1,23 @@
+package com.example.couriermanagement.repository;
+
+import com.example.couriermanagement.entity.Vehicle;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public class VehicleRepositoryCustomImpl implements VehicleRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    public VehicleRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Vehicle> findByLicensePlate(String licensePlate) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Vehicle.class).loadOptional(licensePlate);
+    }
+}
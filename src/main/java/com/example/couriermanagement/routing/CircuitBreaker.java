@@ -0,0 +1,78 @@
+package com.example.couriermanagement.routing;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures in a row the
+ * circuit opens and calls are rejected for {@code openDuration}; then a single trial call is let
+ * through (half-open) and its outcome either closes the circuit or opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Порог ошибок должен быть не меньше 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * @return {@code true} if the caller may go to the remote service
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.couriermanagement.routing;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of road distances keyed by quantized start/end coordinates.
+ * The memory tier is a bounded LRU map, the disk tier is a fixed-size hash table
+ * in a memory-mapped file, so entries survive restarts. Both tiers honour the same TTL.
+ */
+public class DistanceCache implements AutoCloseable {
+
+    private static final int MAX_PRECISION = 6;
+    private static final int MAX_DISK_SLOTS = 1 << 24;
+
+    private final int precision;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<Key, Entry> memory;
+    private final DiskTier disk;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    public DistanceCache(int precision, int maxEntries, Duration ttl, Path diskPath, int diskSlots, Clock clock) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Точность квантования должна быть от 0 до " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > DistanceCache.this.maxEntries) {
+                    memoryEvictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.disk = diskPath != null ? new DiskTier(diskPath, diskSlots, precision) : null;
+    }
+
+    public Key key(BigDecimal startLatitude, BigDecimal startLongitude, BigDecimal endLatitude, BigDecimal endLongitude) {
+        return new Key(
+            quantize(startLatitude),
+            quantize(startLongitude),
+            quantize(endLatitude),
+            quantize(endLongitude)
+        );
+    }
+
+    /**
+     * Returns the cached distance in kilometres or {@code null} when neither tier holds a live entry.
+     */
+    public Double get(Key key) {
+        long now = clock.millis();
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    memoryHits.incrementAndGet();
+                    return entry.distanceKm;
+                }
+                memory.remove(key);
+            }
+        }
+
+        if (disk != null) {
+            Entry stored = disk.get(key, ttlMillis, now);
+            if (stored != null) {
+                diskHits.incrementAndGet();
+                synchronized (memory) {
+                    memory.put(key, stored);
+                }
+                return stored.distanceKm();
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(Key key, double distanceKm) {
+        long now = clock.millis();
+        synchronized (memory) {
+            memory.put(key, new Entry(distanceKm, now + ttlMillis));
+        }
+        if (disk != null && disk.put(key, distanceKm, now)) {
+            diskEvictions.incrementAndGet();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (memory) {
+            size = memory.size();
+        }
+        return new Stats(
+            memoryHits.get(),
+            diskHits.get(),
+            misses.get(),
+            memoryEvictions.get(),
+            diskEvictions.get(),
+            size,
+            disk != null ? disk.size() : 0
+        );
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public void close() {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    private int quantize(BigDecimal coordinate) {
+        return coordinate.setScale(precision, RoundingMode.HALF_UP).movePointRight(precision).intValueExact();
+    }
+
+    public record Key(int startLatitude, int startLongitude, int endLatitude, int endLongitude) {
+    }
+
+    public record Stats(
+        long memoryHits,
+        long diskHits,
+        long misses,
+        long memoryEvictions,
+        long diskEvictions,
+        int memorySize,
+        int diskSize
+    ) {
+        public long hits() {
+            return memoryHits + diskHits;
+        }
+    }
+
+    private record Entry(double distanceKm, long expiresAt) {
+    }
+
+    /**
+     * Open-addressing hash table on top of a memory-mapped file. Slot layout:
+     * four int coordinates, double distance, long write timestamp (0 marks an empty slot).
+     * When the probe sequence is exhausted the oldest probed slot is overwritten.
+     */
+    private static final class DiskTier {
+
+        private static final int MAGIC = 0x44434331; // "DCC1"
+        private static final int HEADER_BYTES = 64;
+        private static final int SLOT_BYTES = 32;
+        private static final int MAX_PROBES = 16;
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int slots;
+        private int size;
+
+        DiskTier(Path path, int requestedSlots, int precision) {
+            int slotCount = Integer.highestOneBit(Math.min(Math.max(requestedSlots, MAX_PROBES), MAX_DISK_SLOTS) - 1) << 1;
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                long expectedSize = HEADER_BYTES + (long) slotCount * SLOT_BYTES;
+                boolean compatible = channel.size() == expectedSize && headerMatches(channel, slotCount, precision);
+                if (!compatible) {
+                    channel.truncate(0);
+                }
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, expectedSize);
+                this.slots = slotCount;
+                if (!compatible) {
+                    buffer.putInt(0, MAGIC);
+                    buffer.putInt(4, slotCount);
+                    buffer.putInt(8, precision);
+                } else {
+                    for (int slot = 0; slot < slots; slot++) {
+                        if (buffer.getLong(offset(slot) + 24) != 0) {
+                            size++;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Не удалось открыть файл кэша расстояний: " + path, e);
+            }
+        }
+
+        private static boolean headerMatches(FileChannel channel, int slotCount, int precision) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(12);
+            channel.read(header, 0);
+            return header.getInt(0) == MAGIC && header.getInt(4) == slotCount && header.getInt(8) == precision;
+        }
+
+        synchronized Entry get(Key key, long ttlMillis, long now) {
+            int slot = home(key);
+            for (int probe = 0; probe < MAX_PROBES; probe++, slot = (slot + 1) & (slots - 1)) {
+                int offset = offset(slot);
+                long writtenAt = buffer.getLong(offset + 24);
+                if (writtenAt == 0) {
+                    return null;
+                }
+                if (matches(offset, key)) {
+                    long expiresAt = writtenAt + ttlMillis;
+                    return expiresAt > now ? new Entry(buffer.getDouble(offset + 16), expiresAt) : null;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return {@code true} if a live entry for another key had to be overwritten
+         */
+        synchronized boolean put(Key key, double distanceKm, long now) {
+            int slot = home(key);
+            int victim = slot;
+            long victimWrittenAt = Long.MAX_VALUE;
+            for (int probe = 0; probe < MAX_PROBES; probe++, slot = (slot + 1) & (slots - 1)) {
+                int offset = offset(slot);
+                long writtenAt = buffer.getLong(offset + 24);
+                if (writtenAt == 0 || matches(offset, key)) {
+                    if (writtenAt == 0) {
+                        size++;
+                    }
+                    write(offset, key, distanceKm, now);
+                    return false;
+                }
+                if (writtenAt < victimWrittenAt) {
+                    victimWrittenAt = writtenAt;
+                    victim = slot;
+                }
+            }
+            write(offset(victim), key, distanceKm, now);
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                // файл кэша не критичен для работы сервиса
+            }
+        }
+
+        private void write(int offset, Key key, double distanceKm, long now) {
+            buffer.putInt(offset, key.startLatitude());
+            buffer.putInt(offset + 4, key.startLongitude());
+            buffer.putInt(offset + 8, key.endLatitude());
+            buffer.putInt(offset + 12, key.endLongitude());
+            buffer.putDouble(offset + 16, distanceKm);
+            buffer.putLong(offset + 24, now);
+        }
+
+        private boolean matches(int offset, Key key) {
+            return buffer.getInt(offset) == key.startLatitude()
+                && buffer.getInt(offset + 4) == key.startLongitude()
+                && buffer.getInt(offset + 8) == key.endLatitude()
+                && buffer.getInt(offset + 12) == key.endLongitude();
+        }
+
+        private int home(Key key) {
+            int hash = key.hashCode();
+            hash ^= (hash >>> 16);
+            hash *= 0x85ebca6b;
+            hash ^= (hash >>> 13);
+            return hash & (slots - 1);
+        }
+
+        private static int offset(int slot) {
+            return HEADER_BYTES + slot * SLOT_BYTES;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.couriermanagement.routing;
+
+import java.math.BigDecimal;
+
+/**
+ * Distance in kilometres; {@code estimated} when the routing engine gave no answer and the
+ * great-circle distance was used instead.
+ */
+public record RoadDistance(BigDecimal km, boolean estimated) {
+}
@@ -0,0 +1,29 @@
+package com.example.couriermanagement.routing;
+
+import com.example.couriermanagement.service.OpenStreetMapService;
+
+import java.math.BigDecimal;
+
+/**
+ * Routing engine behind the distance cache. Answers the engine could not give are replaced by a
+ * local estimate and reported as such: {@link RoadDistance#estimated()} for single distances and
+ * {@link com.example.couriermanagement.geo.DistanceMatrix#isEstimated} for matrix cells.
+ */
+public interface RoutingBackend extends OpenStreetMapService {
+
+    RoadDistance distance(
+        BigDecimal startLatitude,
+        BigDecimal startLongitude,
+        BigDecimal endLatitude,
+        BigDecimal endLongitude
+    );
+
+    @Override
+    default BigDecimal calculateDistance(
+            BigDecimal startLatitude,
+            BigDecimal startLongitude,
+            BigDecimal endLatitude,
+            BigDecimal endLongitude) {
+        return distance(startLatitude, startLongitude, endLatitude, endLongitude).km();
+    }
+}
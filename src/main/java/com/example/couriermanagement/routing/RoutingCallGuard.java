@@ -0,0 +1,135 @@
+package com.example.couriermanagement.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Wraps remote routing calls with a circuit breaker and an optional latency budget.
+ * While the circuit is open the local estimate is returned without touching the network.
+ * In hedged mode the remote call runs on a virtual thread and the local estimate is returned
+ * once the budget is spent; the late remote answer still feeds the breaker.
+ */
+public class RoutingCallGuard implements AutoCloseable {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Duration hedgeBudget;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param hedgeBudget latency budget for hedged mode, {@code null} or zero disables hedging
+     */
+    public RoutingCallGuard(CircuitBreaker circuitBreaker, Duration hedgeBudget, MeterRegistry meterRegistry) {
+        this.circuitBreaker = circuitBreaker;
+        this.hedgeBudget = hedgeBudget != null && !hedgeBudget.isZero() ? hedgeBudget : null;
+        this.executor = this.hedgeBudget != null ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("routing.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+            .description("Состояние circuit breaker: 0 - закрыт, 1 - полуоткрыт, 2 - открыт")
+            .register(meterRegistry);
+    }
+
+    public <T> T call(String operation, Callable<T> remote, Supplier<T> fallback) {
+        return attempt(operation, remote, fallback).value();
+    }
+
+    /**
+     * Same as {@link #call}, but tells whether the value came from the remote call or the fallback
+     */
+    public <T> Answer<T> attempt(String operation, Callable<T> remote, Supplier<T> fallback) {
+        if (!circuitBreaker.tryAcquire()) {
+            return fallback(operation, "circuit_open", fallback);
+        }
+
+        if (executor == null) {
+            try {
+                return new Answer<>(timed(operation, remote), true);
+            } catch (Exception e) {
+                return fallback(operation, "error", fallback);
+            }
+        }
+
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return timed(operation, remote);
+            } catch (Exception e) {
+                throw new RemoteCallException(e);
+            }
+        }, executor);
+        try {
+            return new Answer<>(future.get(hedgeBudget.toMillis(), TimeUnit.MILLISECONDS), true);
+        } catch (TimeoutException e) {
+            return fallback(operation, "hedge_timeout", fallback);
+        } catch (ExecutionException e) {
+            return fallback(operation, "error", fallback);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback(operation, "interrupted", fallback);
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> T timed(String operation, Callable<T> remote) throws Exception {
+        long startedAt = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = remote.call();
+            outcome = "success";
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (Exception e) {
+            circuitBreaker.onFailure();
+            throw e;
+        } finally {
+            Timer.builder("routing.remote.duration")
+                .description("Время ответа сервиса маршрутизации")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> Answer<T> fallback(String operation, String reason, Supplier<T> fallback) {
+        Counter.builder("routing.fallback")
+            .description("Ответы, посчитанные локально вместо сервиса маршрутизации")
+            .tag("operation", operation)
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .increment();
+        return new Answer<>(fallback.get(), false);
+    }
+
+    public record Answer<T>(T value, boolean remote) {
+    }
+
+    private static final class RemoteCallException extends RuntimeException {
+        RemoteCallException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
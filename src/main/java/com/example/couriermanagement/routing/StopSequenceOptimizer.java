@@ -0,0 +1,228 @@
+package com.example.couriermanagement.routing;
+
+import com.example.couriermanagement.geo.DistanceMatrix;
+
+import java.time.Duration;
+
+/**
+ * Reorders route stops to shorten an open path over a precomputed distance matrix.
+ * A nearest-neighbour tour is improved with 2-opt and Or-opt moves until no move helps
+ * or the time budget runs out. The matrix may be asymmetric: reversed segments are priced
+ * from prefix sums of both directions, so every move is evaluated in constant time.
+ * <p>
+ * The returned order is never longer than the original one.
+ */
+public final class StopSequenceOptimizer {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT = 3;
+
+    private final DistanceMatrix matrix;
+    private final int size;
+    private final int low;
+    private final int high;
+    private final long deadline;
+    private int[] tour;
+    private final double[] forward;
+    private final double[] backward;
+
+    private StopSequenceOptimizer(DistanceMatrix matrix, boolean fixedStart, boolean fixedEnd, Duration budget) {
+        this.matrix = matrix;
+        this.size = matrix.size();
+        // границы участка, внутри которого точки можно переставлять
+        this.low = fixedStart ? 1 : 0;
+        this.high = fixedEnd ? size - 2 : size - 1;
+        this.deadline = System.nanoTime() + budget.toNanos();
+        this.forward = new double[size];
+        this.backward = new double[size];
+    }
+
+    /**
+     * @param fixedStart keep the first point first
+     * @param fixedEnd keep the last point last
+     * @return visiting order as indices into the matrix
+     */
+    public static int[] optimize(DistanceMatrix matrix, boolean fixedStart, boolean fixedEnd, Duration budget) {
+        int[] original = new int[matrix.size()];
+        for (int i = 0; i < original.length; i++) {
+            original[i] = i;
+        }
+        if (original.length < 3) {
+            return original;
+        }
+
+        StopSequenceOptimizer optimizer = new StopSequenceOptimizer(matrix, fixedStart, fixedEnd, budget);
+        optimizer.tour = optimizer.nearestNeighbour(fixedEnd);
+        optimizer.improve();
+        return pathLength(matrix, optimizer.tour) < pathLength(matrix, original) - EPSILON ? optimizer.tour : original;
+    }
+
+    public static double pathLength(DistanceMatrix matrix, int[] order) {
+        double length = 0.0;
+        for (int i = 0; i + 1 < order.length; i++) {
+            length += matrix.get(order[i], order[i + 1]);
+        }
+        return length;
+    }
+
+    private int[] nearestNeighbour(boolean fixedEnd) {
+        int[] result = new int[size];
+        boolean[] visited = new boolean[size];
+        int last = fixedEnd ? size - 1 : size;
+        if (fixedEnd) {
+            visited[size - 1] = true;
+            result[size - 1] = size - 1;
+        }
+        // без фиксированного начала стартуем тоже с первой точки, локальный поиск может ее сдвинуть
+        int current = 0;
+        visited[0] = true;
+        for (int position = 1; position < last; position++) {
+            int best = -1;
+            for (int candidate = 0; candidate < size; candidate++) {
+                if (!visited[candidate] && (best < 0 || matrix.get(current, candidate) < matrix.get(current, best))) {
+                    best = candidate;
+                }
+            }
+            result[position] = best;
+            visited[best] = true;
+            current = best;
+        }
+        return result;
+    }
+
+    private void improve() {
+        recomputePrefixes();
+        boolean improved = true;
+        while (improved && !expired()) {
+            improved = twoOpt();
+            improved |= orOpt();
+        }
+    }
+
+    /**
+     * Reverses {@code tour[i..j]} whenever that shortens the path.
+     */
+    private boolean twoOpt() {
+        boolean improved = false;
+        for (int i = low; i < high && !expired(); i++) {
+            for (int j = i + 1; j <= high; j++) {
+                double before = edge(i - 1, i) + (forward[j] - forward[i]) + edge(j, j + 1);
+                double after = linkFrom(i - 1, tour[j]) + (backward[j] - backward[i]) + linkTo(tour[i], j + 1);
+                if (after < before - EPSILON) {
+                    reverse(i, j);
+                    recomputePrefixes();
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Moves segments of up to {@link #MAX_SEGMENT} stops to a better gap, in either direction.
+     */
+    private boolean orOpt() {
+        boolean improved = false;
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            for (int s = low; s + length - 1 <= high && !expired(); s++) {
+                int e = s + length - 1;
+                int first = tour[s];
+                int last = tour[e];
+                double removed = edge(s - 1, s) + edge(e, e + 1) - edge(s - 1, e + 1);
+                double internal = forward[e] - forward[s];
+                double internalReversed = backward[e] - backward[s];
+
+                int bestGap = Integer.MIN_VALUE;
+                boolean bestReversed = false;
+                double bestDelta = -EPSILON;
+                // вставка после позиции p: p = -1 - в начало пути, соседние с отрезком позиции ничего не меняют
+                for (int p = low - 1; p <= high; p++) {
+                    if (p >= s - 1 && p <= e) {
+                        continue;
+                    }
+                    int q = p + 1;
+                    double gap = edge(p, q);
+                    double straight = linkFrom(p, first) + linkTo(last, q) - gap - removed;
+                    if (straight < bestDelta) {
+                        bestDelta = straight;
+                        bestGap = p;
+                        bestReversed = false;
+                    }
+                    if (length > 1) {
+                        double reversed = linkFrom(p, last) + linkTo(first, q) - gap - removed + internalReversed - internal;
+                        if (reversed < bestDelta) {
+                            bestDelta = reversed;
+                            bestGap = p;
+                            bestReversed = true;
+                        }
+                    }
+                }
+                if (bestGap != Integer.MIN_VALUE) {
+                    move(s, e, bestGap, bestReversed);
+                    recomputePrefixes();
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private void reverse(int i, int j) {
+        while (i < j) {
+            int swap = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = swap;
+        }
+    }
+
+    private void move(int s, int e, int gap, boolean reversed) {
+        int[] result = new int[size];
+        int cursor = 0;
+        if (gap == -1) {
+            cursor = copySegment(result, cursor, s, e, reversed);
+        }
+        for (int position = 0; position < size; position++) {
+            if (position >= s && position <= e) {
+                continue;
+            }
+            result[cursor++] = tour[position];
+            if (position == gap) {
+                cursor = copySegment(result, cursor, s, e, reversed);
+            }
+        }
+        tour = result;
+    }
+
+    private int copySegment(int[] target, int cursor, int s, int e, boolean reversed) {
+        for (int k = 0; k <= e - s; k++) {
+            target[cursor++] = tour[reversed ? e - k : s + k];
+        }
+        return cursor;
+    }
+
+    private void recomputePrefixes() {
+        for (int k = 1; k < size; k++) {
+            forward[k] = forward[k - 1] + matrix.get(tour[k - 1], tour[k]);
+            backward[k] = backward[k - 1] + matrix.get(tour[k], tour[k - 1]);
+        }
+    }
+
+    /**
+     * Cost of the existing edge between positions; zero past either end of the path.
+     */
+    private double edge(int from, int to) {
+        return from < 0 || to >= size ? 0.0 : matrix.get(tour[from], tour[to]);
+    }
+
+    private double linkFrom(int position, int node) {
+        return position < 0 ? 0.0 : matrix.get(tour[position], node);
+    }
+
+    private double linkTo(int node, int position) {
+        return position >= size ? 0.0 : matrix.get(node, tour[position]);
+    }
+
+    private boolean expired() {
+        return System.nanoTime() - deadline > 0;
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.couriermanagement.routing.offline;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy preprocessing for an undirected road graph. Nodes are contracted
+ * in order of edge difference with lazy priority updates; shortcuts are added only when a
+ * bounded witness search finds no path of equal or shorter length around the contracted node.
+ * The result keeps only upward edges, which is enough for queries on an undirected graph.
+ */
+public final class ContractionHierarchy {
+
+    // при оценке приоритета достаточно грубого поиска, при реальном сжатии лишние шорткаты дороже
+    private static final int SIMULATION_SETTLED_LIMIT = 50;
+    private static final int CONTRACTION_SETTLED_LIMIT = 500;
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final int nodeCount;
+    private final int[][] neighbors;
+    private final int[][] weights;
+    private final int[] degree;
+    private final int[] contractedNeighbors;
+    private final int[] level;
+    private final int[] rank;
+
+    private final int[] witnessDistance;
+    private final int[] witnessTouched;
+    private int witnessTouchedCount;
+    private final IndexedMinHeap witnessHeap;
+
+    private ContractionHierarchy(RoadGraph graph) {
+        this.nodeCount = graph.nodeCount();
+        this.neighbors = new int[nodeCount][];
+        this.weights = new int[nodeCount][];
+        this.degree = new int[nodeCount];
+        this.contractedNeighbors = new int[nodeCount];
+        this.level = new int[nodeCount];
+        this.rank = new int[nodeCount];
+        this.witnessDistance = new int[nodeCount];
+        this.witnessTouched = new int[nodeCount];
+        this.witnessHeap = new IndexedMinHeap(nodeCount);
+        Arrays.fill(witnessDistance, INFINITY);
+
+        for (int v = 0; v < nodeCount; v++) {
+            int size = graph.firstEdge(v + 1) - graph.firstEdge(v);
+            neighbors[v] = new int[Math.max(2, size)];
+            weights[v] = new int[Math.max(2, size)];
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            for (int e = graph.firstEdge(v); e < graph.firstEdge(v + 1); e++) {
+                addOrImprove(v, graph.edgeTarget(e), graph.edgeWeight(e));
+            }
+        }
+    }
+
+    public static RoutingGraph contract(RoadGraph graph) {
+        ContractionHierarchy hierarchy = new ContractionHierarchy(graph);
+        hierarchy.contractAll();
+        return hierarchy.upwardGraph(graph);
+    }
+
+    private void contractAll() {
+        IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+        for (int v = 0; v < nodeCount; v++) {
+            queue.push(v, priority(v));
+        }
+
+        int nextRank = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.pollNode();
+            int updated = priority(v);
+            if (!queue.isEmpty() && updated > queue.peekKey()) {
+                queue.push(v, updated);
+                continue;
+            }
+
+            contractNode(v, true);
+            rank[v] = nextRank++;
+            // оставшиеся соседи v ранжируются выше, поэтому список v дальше хранит его восходящие ребра,
+            // а из списков соседей v удаляется, чтобы остаточный граф не разрастался
+            for (int i = 0; i < degree[v]; i++) {
+                int u = neighbors[v][i];
+                remove(u, v);
+                contractedNeighbors[u]++;
+                level[u] = Math.max(level[u], level[v] + 1);
+            }
+            for (int i = 0; i < degree[v]; i++) {
+                int u = neighbors[v][i];
+                queue.push(u, priority(u));
+            }
+        }
+    }
+
+    private int priority(int v) {
+        int shortcuts = contractNode(v, false);
+        return 2 * (shortcuts - degree[v]) + contractedNeighbors[v] + level[v];
+    }
+
+    /**
+     * Finds the shortcuts needed to remove {@code v}; adds them when {@code apply} is set.
+     *
+     * @return number of shortcuts
+     */
+    private int contractNode(int v, boolean apply) {
+        int count = degree[v];
+        int[] around = Arrays.copyOf(neighbors[v], count);
+        int[] aroundWeights = Arrays.copyOf(weights[v], count);
+
+        int shortcuts = 0;
+        for (int i = 0; i < count - 1; i++) {
+            int maxVia = 0;
+            for (int j = i + 1; j < count; j++) {
+                maxVia = Math.max(maxVia, aroundWeights[i] + aroundWeights[j]);
+            }
+            witnessSearch(around[i], v, maxVia, apply ? CONTRACTION_SETTLED_LIMIT : SIMULATION_SETTLED_LIMIT);
+            for (int j = i + 1; j < count; j++) {
+                int via = aroundWeights[i] + aroundWeights[j];
+                if (witnessDistance[around[j]] > via) {
+                    shortcuts++;
+                    if (apply) {
+                        addOrImprove(around[i], around[j], via);
+                        addOrImprove(around[j], around[i], via);
+                    }
+                }
+            }
+            resetWitnessSearch();
+        }
+        return shortcuts;
+    }
+
+    private void witnessSearch(int source, int excluded, int maxDistance, int settledLimit) {
+        witnessDistance[source] = 0;
+        witnessTouched[witnessTouchedCount++] = source;
+        witnessHeap.push(source, 0);
+        int settled = 0;
+        while (!witnessHeap.isEmpty() && settled < settledLimit) {
+            int distance = witnessHeap.peekKey();
+            if (distance > maxDistance) {
+                break;
+            }
+            int u = witnessHeap.pollNode();
+            settled++;
+            for (int i = 0; i < degree[u]; i++) {
+                int w = neighbors[u][i];
+                if (w == excluded) {
+                    continue;
+                }
+                int candidate = distance + weights[u][i];
+                if (candidate < witnessDistance[w]) {
+                    if (witnessDistance[w] == INFINITY) {
+                        witnessTouched[witnessTouchedCount++] = w;
+                    }
+                    witnessDistance[w] = candidate;
+                    witnessHeap.push(w, candidate);
+                }
+            }
+        }
+    }
+
+    private void resetWitnessSearch() {
+        for (int i = 0; i < witnessTouchedCount; i++) {
+            witnessDistance[witnessTouched[i]] = INFINITY;
+        }
+        witnessTouchedCount = 0;
+        witnessHeap.clear();
+    }
+
+    private void addOrImprove(int from, int to, int weight) {
+        for (int i = 0; i < degree[from]; i++) {
+            if (neighbors[from][i] == to) {
+                if (weight < weights[from][i]) {
+                    weights[from][i] = weight;
+                }
+                return;
+            }
+        }
+        if (degree[from] == neighbors[from].length) {
+            neighbors[from] = Arrays.copyOf(neighbors[from], degree[from] * 2);
+            weights[from] = Arrays.copyOf(weights[from], degree[from] * 2);
+        }
+        neighbors[from][degree[from]] = to;
+        weights[from][degree[from]] = weight;
+        degree[from]++;
+    }
+
+    private void remove(int from, int to) {
+        for (int i = 0; i < degree[from]; i++) {
+            if (neighbors[from][i] == to) {
+                degree[from]--;
+                neighbors[from][i] = neighbors[from][degree[from]];
+                weights[from][i] = weights[from][degree[from]];
+                return;
+            }
+        }
+    }
+
+    private RoutingGraph upwardGraph(RoadGraph graph) {
+        int[] latitudes = new int[nodeCount];
+        int[] longitudes = new int[nodeCount];
+        int[] upFirst = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            latitudes[v] = graph.latitude(v);
+            longitudes[v] = graph.longitude(v);
+            for (int i = 0; i < degree[v]; i++) {
+                if (rank[neighbors[v][i]] > rank[v]) {
+                    upFirst[v + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            upFirst[v + 1] += upFirst[v];
+        }
+
+        int[] upTargets = new int[upFirst[nodeCount]];
+        int[] upWeights = new int[upFirst[nodeCount]];
+        for (int v = 0; v < nodeCount; v++) {
+            int cursor = upFirst[v];
+            for (int i = 0; i < degree[v]; i++) {
+                if (rank[neighbors[v][i]] > rank[v]) {
+                    upTargets[cursor] = neighbors[v][i];
+                    upWeights[cursor] = weights[v][i];
+                    cursor++;
+                }
+            }
+        }
+        return new RoutingGraph(
+            IntBuffer.wrap(latitudes),
+            IntBuffer.wrap(longitudes),
+            IntBuffer.wrap(upFirst),
+            IntBuffer.wrap(upTargets),
+            IntBuffer.wrap(upWeights)
+        );
+    }
+
+    /**
+     * Binary min-heap over node ids with decrease-key through a position index.
+     */
+    static final class IndexedMinHeap {
+        private final int[] nodes;
+        private final int[] keys;
+        private final int[] positions;
+        private int size;
+
+        IndexedMinHeap(int capacity) {
+            nodes = new int[capacity];
+            keys = new int[capacity];
+            positions = new int[capacity];
+            Arrays.fill(positions, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peekKey() {
+            return keys[0];
+        }
+
+        /**
+         * Inserts the node or moves it to the new key if already queued.
+         */
+        void push(int node, int key) {
+            int position = positions[node];
+            if (position < 0) {
+                position = size++;
+                nodes[position] = node;
+                positions[node] = position;
+            } else if (key > keys[position]) {
+                keys[position] = key;
+                siftDown(position);
+                return;
+            }
+            keys[position] = key;
+            siftUp(position);
+        }
+
+        int pollNode() {
+            int node = nodes[0];
+            positions[node] = -1;
+            size--;
+            if (size > 0) {
+                nodes[0] = nodes[size];
+                keys[0] = keys[size];
+                positions[nodes[0]] = 0;
+                siftDown(0);
+            }
+            return node;
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                positions[nodes[i]] = -1;
+            }
+            size = 0;
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (keys[parent] <= keys[position]) {
+                    return;
+                }
+                swap(position, parent);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                int left = 2 * position + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && keys[left + 1] < keys[left] ? left + 1 : left;
+                if (keys[position] <= keys[smallest]) {
+                    return;
+                }
+                swap(position, smallest);
+                position = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int node = nodes[a];
+            int key = keys[a];
+            nodes[a] = nodes[b];
+            keys[a] = keys[b];
+            nodes[b] = node;
+            keys[b] = key;
+            positions[nodes[a]] = a;
+            positions[nodes[b]] = b;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.couriermanagement.routing.offline;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} to {@code int} without boxing.
+ * {@link Long#MIN_VALUE} is reserved as the empty-slot marker and cannot be used as a key.
+ */
+final class LongIntMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int get(long key, int missing) {
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return missing;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    void put(long key, int value) {
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                values[slot] = value;
+                return;
+            }
+            if (current == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value of {@code key}, starting from zero for a new key.
+     */
+    void increment(long key, int delta) {
+        put(key, get(key, 0) + delta);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Iterates over the entries in slot order.
+     */
+    void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                visitor.visit(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(long key, int value);
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        Arrays.fill(keys, EMPTY);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+}
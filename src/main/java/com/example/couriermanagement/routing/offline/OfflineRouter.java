@@ -0,0 +1,323 @@
+package com.example.couriermanagement.routing.offline;
+
+import java.util.Arrays;
+
+/**
+ * Answers road-distance queries on a contracted {@link RoutingGraph}. Coordinates are snapped
+ * to the nearest graph node through a uniform grid; the snap offsets are added to the network
+ * distance. Point-to-point queries meet in the middle of two upward searches, matrices use
+ * the bucket method so every point is searched once.
+ * <p>
+ * Instances are thread-safe: search state is allocated per query and stays proportional to the
+ * upward search space, not to the graph size.
+ */
+public class OfflineRouter {
+
+    private static final int CELL_MICRODEGREES = 10_000;
+    private static final int LONGITUDE_CELLS = 360_000_000 / CELL_MICRODEGREES + 1;
+    private static final double METERS_PER_MICRODEGREE = Math.PI * RoadGraph.EARTH_RADIUS_METERS / 180e6;
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final RoutingGraph graph;
+    private final int maxSnapMeters;
+    private final int[] cellKeys;
+    private final int[] cellNodes;
+
+    public OfflineRouter(RoutingGraph graph, int maxSnapMeters) {
+        this.graph = graph;
+        this.maxSnapMeters = maxSnapMeters;
+
+        int nodes = graph.nodeCount();
+        long[] packed = new long[nodes];
+        for (int v = 0; v < nodes; v++) {
+            packed[v] = ((long) cellKey(graph.latitude(v), graph.longitude(v)) << 32) | v;
+        }
+        Arrays.sort(packed);
+        cellKeys = new int[nodes];
+        cellNodes = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            cellKeys[i] = (int) (packed[i] >>> 32);
+            cellNodes[i] = (int) packed[i];
+        }
+    }
+
+    public RoutingGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return road distance in kilometres, or {@link Double#NaN} if either point is too far from
+     * the network or the points are in disconnected parts of it
+     */
+    public double distanceKm(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+        Snap start = snap(startLatitude, startLongitude);
+        Snap end = snap(endLatitude, endLongitude);
+        if (start == null || end == null) {
+            return Double.NaN;
+        }
+        if (start.node() == end.node()) {
+            return (start.offsetMeters() + end.offsetMeters()) / 1000.0;
+        }
+
+        SearchSpace forward = upwardSearch(start.node());
+        SearchSpace backward = upwardSearch(end.node());
+        SearchSpace smaller = forward.size <= backward.size ? forward : backward;
+        SearchSpace larger = smaller == forward ? backward : forward;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < smaller.size; i++) {
+            int other = larger.distance(smaller.nodes[i]);
+            if (other != INFINITY) {
+                best = Math.min(best, (long) smaller.distances[i] + other);
+            }
+        }
+        if (best == Long.MAX_VALUE) {
+            return Double.NaN;
+        }
+        return (best + start.offsetMeters() + end.offsetMeters()) / 1000.0;
+    }
+
+    /**
+     * Row-major {@code n x n} matrix of road distances in kilometres; unroutable cells are NaN.
+     */
+    public double[] distanceMatrixKm(double[] latitudes, double[] longitudes) {
+        int size = latitudes.length;
+        Snap[] snaps = new Snap[size];
+        SearchSpace[] spaces = new SearchSpace[size];
+        for (int i = 0; i < size; i++) {
+            snaps[i] = snap(latitudes[i], longitudes[i]);
+            spaces[i] = snaps[i] != null ? upwardSearch(snaps[i].node()) : null;
+        }
+
+        // корзины: для каждого узла поискового пространства - список (точка, расстояние)
+        LongIntMap bucketHeads = new LongIntMap(64);
+        int entries = 0;
+        for (SearchSpace space : spaces) {
+            entries += space != null ? space.size : 0;
+        }
+        int[] bucketPoint = new int[entries];
+        int[] bucketDistance = new int[entries];
+        int[] bucketNext = new int[entries];
+        int used = 0;
+        for (int j = 0; j < size; j++) {
+            SearchSpace space = spaces[j];
+            if (space == null) {
+                continue;
+            }
+            for (int k = 0; k < space.size; k++) {
+                bucketPoint[used] = j;
+                bucketDistance[used] = space.distances[k];
+                bucketNext[used] = bucketHeads.get(space.nodes[k], -1);
+                bucketHeads.put(space.nodes[k], used);
+                used++;
+            }
+        }
+
+        long[] best = new long[size * size];
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (int i = 0; i < size; i++) {
+            SearchSpace space = spaces[i];
+            if (space == null) {
+                continue;
+            }
+            for (int k = 0; k < space.size; k++) {
+                int distance = space.distances[k];
+                for (int entry = bucketHeads.get(space.nodes[k], -1); entry >= 0; entry = bucketNext[entry]) {
+                    int cell = i * size + bucketPoint[entry];
+                    best[cell] = Math.min(best[cell], (long) distance + bucketDistance[entry]);
+                }
+            }
+        }
+
+        double[] result = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int cell = i * size + j;
+                if (i == j) {
+                    result[cell] = 0.0;
+                } else if (snaps[i] == null || snaps[j] == null || best[cell] == Long.MAX_VALUE) {
+                    result[cell] = Double.NaN;
+                } else {
+                    result[cell] = (best[cell] + snaps[i].offsetMeters() + snaps[j].offsetMeters()) / 1000.0;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nearest graph node within the snap radius, or {@code null}. Rings of grid cells are scanned
+     * outwards until no closer node can exist in the next ring.
+     */
+    Snap snap(double latitude, double longitude) {
+        int lat = (int) Math.round(latitude * 1e6);
+        int lon = (int) Math.round(longitude * 1e6);
+        int centerLatCell = latitudeCell(lat);
+        int centerLonCell = longitudeCell(lon);
+        double cosLatitude = Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+        double cellMeters = CELL_MICRODEGREES * METERS_PER_MICRODEGREE * cosLatitude;
+        int maxRing = (int) Math.ceil(maxSnapMeters / cellMeters) + 1;
+
+        int bestNode = -1;
+        double bestMeters = Double.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (bestNode >= 0 && bestMeters <= (ring - 1) * cellMeters) {
+                break;
+            }
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                for (int dLon = -ring; dLon <= ring; dLon++) {
+                    if (Math.abs(dLat) != ring && Math.abs(dLon) != ring) {
+                        continue;
+                    }
+                    int key = (centerLatCell + dLat) * LONGITUDE_CELLS + Math.floorMod(centerLonCell + dLon, LONGITUDE_CELLS);
+                    for (int i = firstIndex(key); i < cellKeys.length && cellKeys[i] == key; i++) {
+                        int node = cellNodes[i];
+                        double meters = equirectangularMeters(lat, lon, graph.latitude(node), graph.longitude(node), cosLatitude);
+                        if (meters < bestMeters) {
+                            bestMeters = meters;
+                            bestNode = node;
+                        }
+                    }
+                }
+            }
+        }
+        if (bestNode < 0 || bestMeters > maxSnapMeters) {
+            return null;
+        }
+        return new Snap(bestNode, (int) Math.round(bestMeters));
+    }
+
+    private SearchSpace upwardSearch(int source) {
+        SearchSpace space = new SearchSpace();
+        LongIntMap tentative = new LongIntMap(64);
+        long[] heap = new long[64];
+        int heapSize = 0;
+
+        tentative.put(source, 0);
+        heap[heapSize++] = pack(0, source);
+        while (heapSize > 0) {
+            long top = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            int distance = (int) (top >>> 32);
+            int node = (int) top;
+            if (distance > tentative.get(node, INFINITY) || space.contains(node)) {
+                continue;
+            }
+            space.add(node, distance);
+
+            for (int e = graph.upFirst(node); e < graph.upFirst(node + 1); e++) {
+                int target = graph.upTarget(e);
+                int candidate = distance + graph.upWeight(e);
+                if (candidate < tentative.get(target, INFINITY)) {
+                    tentative.put(target, candidate);
+                    if (heapSize == heap.length) {
+                        heap = Arrays.copyOf(heap, heapSize * 2);
+                    }
+                    heap[heapSize] = pack(candidate, target);
+                    siftUp(heap, heapSize++);
+                }
+            }
+        }
+        return space;
+    }
+
+    private int firstIndex(int key) {
+        int low = 0;
+        int high = cellKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cellKeys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int cellKey(int latitude, int longitude) {
+        return latitudeCell(latitude) * LONGITUDE_CELLS + longitudeCell(longitude);
+    }
+
+    private static int latitudeCell(int latitude) {
+        return (latitude + 90_000_000) / CELL_MICRODEGREES;
+    }
+
+    private static int longitudeCell(int longitude) {
+        return (longitude + 180_000_000) / CELL_MICRODEGREES;
+    }
+
+    private static double equirectangularMeters(int lat1, int lon1, int lat2, int lon2, double cosLatitude) {
+        double dLat = (lat2 - lat1) * METERS_PER_MICRODEGREE;
+        double dLon = (lon2 - lon1) * METERS_PER_MICRODEGREE * cosLatitude;
+        return Math.sqrt(dLat * dLat + dLon * dLon);
+    }
+
+    private static long pack(int distance, int node) {
+        return ((long) distance << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    private static void siftUp(long[] heap, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heap[parent] <= heap[position]) {
+                return;
+            }
+            long swap = heap[parent];
+            heap[parent] = heap[position];
+            heap[position] = swap;
+            position = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int position = 0;
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && heap[left + 1] < heap[left] ? left + 1 : left;
+            if (heap[position] <= heap[smallest]) {
+                return;
+            }
+            long swap = heap[position];
+            heap[position] = heap[smallest];
+            heap[smallest] = swap;
+            position = smallest;
+        }
+    }
+
+    record Snap(int node, int offsetMeters) {
+    }
+
+    /**
+     * Settled nodes of one upward search with their final distances.
+     */
+    private static final class SearchSpace {
+        int[] nodes = new int[32];
+        int[] distances = new int[32];
+        int size;
+        private final LongIntMap index = new LongIntMap(32);
+
+        void add(int node, int distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            index.put(node, size);
+            nodes[size] = node;
+            distances[size] = distance;
+            size++;
+        }
+
+        boolean contains(int node) {
+            return index.get(node, -1) >= 0;
+        }
+
+        int distance(int node) {
+            int position = index.get(node, -1);
+            return position >= 0 ? distances[position] : INFINITY;
+        }
+    }
+}
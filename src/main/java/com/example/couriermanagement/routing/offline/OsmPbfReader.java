@@ -0,0 +1,433 @@
+package com.example.couriermanagement.routing.offline;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming reader for OpenStreetMap PBF extracts. Only the parts needed for a road graph
+ * are decoded: plain and dense nodes, and ways with their tags. Relations are skipped.
+ * The protobuf wire format is decoded by hand to avoid pulling in a protobuf runtime.
+ */
+public class OsmPbfReader {
+
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+    public interface Handler {
+        default void node(long id, double latitude, double longitude) {
+        }
+
+        default void way(long id, long[] nodeIds, Map<String, String> tags) {
+        }
+    }
+
+    private final boolean readNodes;
+    private final boolean readWays;
+
+    public OsmPbfReader(boolean readNodes, boolean readWays) {
+        this.readNodes = readNodes;
+        this.readWays = readWays;
+    }
+
+    public void read(Path path, Handler handler) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            read(input, handler);
+        }
+    }
+
+    public void read(InputStream stream, Handler handler) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        while (true) {
+            int headerSize;
+            try {
+                headerSize = input.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            if (headerSize <= 0 || headerSize > MAX_HEADER_SIZE) {
+                throw new IOException("Некорректный размер заголовка блока PBF: " + headerSize);
+            }
+            byte[] header = input.readNBytes(headerSize);
+            if (header.length != headerSize) {
+                throw new EOFException("Файл PBF обрезан");
+            }
+
+            String type = null;
+            int dataSize = 0;
+            ProtoReader headerReader = new ProtoReader(header, 0, header.length);
+            while (headerReader.hasMore()) {
+                int tag = headerReader.readTag();
+                switch (tag >>> 3) {
+                    case 1 -> type = headerReader.readString();
+                    case 3 -> dataSize = (int) headerReader.readVarint();
+                    default -> headerReader.skip(tag);
+                }
+            }
+            if (dataSize <= 0 || dataSize > MAX_BLOB_SIZE) {
+                throw new IOException("Некорректный размер блока PBF: " + dataSize);
+            }
+            byte[] blob = input.readNBytes(dataSize);
+            if (blob.length != dataSize) {
+                throw new EOFException("Файл PBF обрезан");
+            }
+
+            if ("OSMHeader".equals(type)) {
+                checkHeader(decodeBlob(blob));
+            } else if ("OSMData".equals(type)) {
+                readPrimitiveBlock(decodeBlob(blob), handler);
+            }
+        }
+    }
+
+    private static byte[] decodeBlob(byte[] blob) throws IOException {
+        ProtoReader reader = new ProtoReader(blob, 0, blob.length);
+        int rawSize = 0;
+        int zlibOffset = -1;
+        int zlibLength = 0;
+        while (reader.hasMore()) {
+            int tag = reader.readTag();
+            switch (tag >>> 3) {
+                case 1 -> {
+                    int length = reader.readLength();
+                    byte[] raw = new byte[length];
+                    System.arraycopy(blob, reader.position, raw, 0, length);
+                    reader.position += length;
+                    return raw;
+                }
+                case 2 -> rawSize = (int) reader.readVarint();
+                case 3 -> {
+                    zlibLength = reader.readLength();
+                    zlibOffset = reader.position;
+                    reader.position += zlibLength;
+                }
+                case 4, 6, 7 -> throw new IOException("Поддерживается только сжатие zlib в файлах PBF");
+                default -> reader.skip(tag);
+            }
+        }
+        if (zlibOffset < 0 || rawSize <= 0 || rawSize > MAX_BLOB_SIZE) {
+            throw new IOException("Пустой или некорректный блок PBF");
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob, zlibOffset, zlibLength);
+            byte[] raw = new byte[rawSize];
+            int inflated = 0;
+            while (inflated < rawSize) {
+                int count = inflater.inflate(raw, inflated, rawSize - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != rawSize) {
+                throw new IOException("Размер распакованного блока PBF не совпадает с заявленным");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Поврежденный блок PBF", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void checkHeader(byte[] data) throws IOException {
+        ProtoReader reader = new ProtoReader(data, 0, data.length);
+        while (reader.hasMore()) {
+            int tag = reader.readTag();
+            if (tag >>> 3 == 4) {
+                String feature = reader.readString();
+                if (!feature.equals("OsmSchema-V0.6") && !feature.equals("DenseNodes")) {
+                    throw new IOException("Неподдерживаемая возможность PBF: " + feature);
+                }
+            } else {
+                reader.skip(tag);
+            }
+        }
+    }
+
+    private void readPrimitiveBlock(byte[] data, Handler handler) throws IOException {
+        ProtoReader reader = new ProtoReader(data, 0, data.length);
+        String[] strings = new String[0];
+        long granularity = 100;
+        long latOffset = 0;
+        long lonOffset = 0;
+        int[] groupOffsets = new int[16];
+        int[] groupLengths = new int[16];
+        int groups = 0;
+
+        // stringtable и параметры координат могут идти после групп, поэтому группы разбираются вторым проходом
+        while (reader.hasMore()) {
+            int tag = reader.readTag();
+            switch (tag >>> 3) {
+                case 1 -> strings = readStringTable(reader);
+                case 2 -> {
+                    if (groups == groupOffsets.length) {
+                        groupOffsets = Arrays.copyOf(groupOffsets, groups * 2);
+                        groupLengths = Arrays.copyOf(groupLengths, groups * 2);
+                    }
+                    groupLengths[groups] = reader.readLength();
+                    groupOffsets[groups] = reader.position;
+                    reader.position += groupLengths[groups];
+                    groups++;
+                }
+                case 17 -> granularity = reader.readVarint();
+                case 19 -> latOffset = reader.readVarint();
+                case 20 -> lonOffset = reader.readVarint();
+                default -> reader.skip(tag);
+            }
+        }
+
+        Coordinates coordinates = new Coordinates(granularity, latOffset, lonOffset);
+        for (int group = 0; group < groups; group++) {
+            ProtoReader groupReader = new ProtoReader(data, groupOffsets[group], groupOffsets[group] + groupLengths[group]);
+            while (groupReader.hasMore()) {
+                int tag = groupReader.readTag();
+                int field = tag >>> 3;
+                if (field == 1 && readNodes) {
+                    readNode(groupReader.embedded(), coordinates, handler);
+                } else if (field == 2 && readNodes) {
+                    readDenseNodes(groupReader.embedded(), coordinates, handler);
+                } else if (field == 3 && readWays) {
+                    readWay(groupReader.embedded(), strings, handler);
+                } else {
+                    groupReader.skip(tag);
+                }
+            }
+        }
+    }
+
+    private static String[] readStringTable(ProtoReader reader) throws IOException {
+        ProtoReader table = reader.embedded();
+        String[] strings = new String[64];
+        int count = 0;
+        while (table.hasMore()) {
+            int tag = table.readTag();
+            if (tag >>> 3 == 1) {
+                if (count == strings.length) {
+                    strings = Arrays.copyOf(strings, count * 2);
+                }
+                strings[count++] = table.readString();
+            } else {
+                table.skip(tag);
+            }
+        }
+        return Arrays.copyOf(strings, count);
+    }
+
+    private static void readNode(ProtoReader reader, Coordinates coordinates, Handler handler) throws IOException {
+        long id = 0;
+        long lat = 0;
+        long lon = 0;
+        while (reader.hasMore()) {
+            int tag = reader.readTag();
+            switch (tag >>> 3) {
+                case 1 -> id = reader.readSignedVarint();
+                case 8 -> lat = reader.readSignedVarint();
+                case 9 -> lon = reader.readSignedVarint();
+                default -> reader.skip(tag);
+            }
+        }
+        handler.node(id, coordinates.latitude(lat), coordinates.longitude(lon));
+    }
+
+    private static void readDenseNodes(ProtoReader reader, Coordinates coordinates, Handler handler) throws IOException {
+        LongArray ids = new LongArray();
+        LongArray lats = new LongArray();
+        LongArray lons = new LongArray();
+        while (reader.hasMore()) {
+            int tag = reader.readTag();
+            switch (tag >>> 3) {
+                case 1 -> reader.readSignedVarints(tag, ids);
+                case 8 -> reader.readSignedVarints(tag, lats);
+                case 9 -> reader.readSignedVarints(tag, lons);
+                default -> reader.skip(tag);
+            }
+        }
+        if (ids.size != lats.size || ids.size != lons.size) {
+            throw new IOException("Несогласованный блок DenseNodes в PBF");
+        }
+
+        long id = 0;
+        long lat = 0;
+        long lon = 0;
+        for (int i = 0; i < ids.size; i++) {
+            id += ids.values[i];
+            lat += lats.values[i];
+            lon += lons.values[i];
+            handler.node(id, coordinates.latitude(lat), coordinates.longitude(lon));
+        }
+    }
+
+    private static void readWay(ProtoReader reader, String[] strings, Handler handler) throws IOException {
+        long id = 0;
+        LongArray keys = new LongArray();
+        LongArray values = new LongArray();
+        LongArray refs = new LongArray();
+        while (reader.hasMore()) {
+            int tag = reader.readTag();
+            switch (tag >>> 3) {
+                case 1 -> id = reader.readVarint();
+                case 2 -> reader.readVarints(tag, keys);
+                case 3 -> reader.readVarints(tag, values);
+                case 8 -> reader.readSignedVarints(tag, refs);
+                default -> reader.skip(tag);
+            }
+        }
+
+        Map<String, String> tags = new HashMap<>(Math.max(4, keys.size * 2));
+        for (int i = 0; i < keys.size && i < values.size; i++) {
+            tags.put(strings[(int) keys.values[i]], strings[(int) values.values[i]]);
+        }
+
+        long[] nodeIds = new long[refs.size];
+        long nodeId = 0;
+        for (int i = 0; i < refs.size; i++) {
+            nodeId += refs.values[i];
+            nodeIds[i] = nodeId;
+        }
+        handler.way(id, nodeIds, tags);
+    }
+
+    private record Coordinates(long granularity, long latOffset, long lonOffset) {
+        double latitude(long value) {
+            return 1e-9 * (latOffset + granularity * value);
+        }
+
+        double longitude(long value) {
+            return 1e-9 * (lonOffset + granularity * value);
+        }
+    }
+
+    private static final class LongArray {
+        long[] values = new long[64];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Minimal protobuf wire-format reader over a byte array slice.
+     */
+    private static final class ProtoReader {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        ProtoReader(byte[] data, int position, int limit) {
+            this.data = data;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        boolean hasMore() {
+            return position < limit;
+        }
+
+        int readTag() throws IOException {
+            return (int) readVarint();
+        }
+
+        long readVarint() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw new IOException("Неожиданный конец сообщения PBF");
+                }
+                byte b = data[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Некорректный varint в PBF");
+        }
+
+        long readSignedVarint() throws IOException {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readLength() throws IOException {
+            long length = readVarint();
+            if (length < 0 || position + length > limit) {
+                throw new IOException("Некорректная длина поля в PBF");
+            }
+            return (int) length;
+        }
+
+        String readString() throws IOException {
+            int length = readLength();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        ProtoReader embedded() throws IOException {
+            int length = readLength();
+            ProtoReader reader = new ProtoReader(data, position, position + length);
+            position += length;
+            return reader;
+        }
+
+        void readVarints(int tag, LongArray target) throws IOException {
+            if ((tag & 7) == 2) {
+                int length = readLength();
+                int end = position + length;
+                ProtoReader packed = new ProtoReader(data, position, end);
+                while (packed.hasMore()) {
+                    target.add(packed.readVarint());
+                }
+                position = end;
+            } else {
+                target.add(readVarint());
+            }
+        }
+
+        void readSignedVarints(int tag, LongArray target) throws IOException {
+            if ((tag & 7) == 2) {
+                int length = readLength();
+                int end = position + length;
+                ProtoReader packed = new ProtoReader(data, position, end);
+                while (packed.hasMore()) {
+                    target.add(packed.readSignedVarint());
+                }
+                position = end;
+            } else {
+                target.add(readSignedVarint());
+            }
+        }
+
+        void skip(int tag) throws IOException {
+            switch (tag & 7) {
+                case 0 -> readVarint();
+                case 1 -> position += 8;
+                case 2 -> {
+                    int length = readLength();
+                    position += length;
+                }
+                case 5 -> position += 4;
+                default -> throw new IOException("Неподдерживаемый тип поля в PBF: " + (tag & 7));
+            }
+            if (position > limit) {
+                throw new IOException("Неожиданный конец сообщения PBF");
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.couriermanagement.routing.offline;
+
+import com.example.couriermanagement.geo.GeoMath;
+
+/**
+ * Undirected road network in compressed sparse row form. Node coordinates are stored in
+ * microdegrees, edge weights in metres. Every edge is present in the adjacency of both ends.
+ */
+public final class RoadGraph {
+
+    static final double EARTH_RADIUS_METERS = GeoMath.EARTH_RADIUS_KM * 1000;
+
+    private final int[] latitudes;
+    private final int[] longitudes;
+    private final int[] firstEdge;
+    private final int[] edgeTargets;
+    private final int[] edgeWeights;
+
+    private RoadGraph(int[] latitudes, int[] longitudes, int[] firstEdge, int[] edgeTargets, int[] edgeWeights) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.firstEdge = firstEdge;
+        this.edgeTargets = edgeTargets;
+        this.edgeWeights = edgeWeights;
+    }
+
+    /**
+     * Builds the graph from an edge list. Self-loops are dropped; parallel edges are kept and
+     * resolved to the shortest one during contraction.
+     */
+    public static RoadGraph fromEdges(int[] latitudes, int[] longitudes,
+                                      int[] from, int[] to, int[] weights, int edgeCount) {
+        int nodeCount = latitudes.length;
+        int[] firstEdge = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            if (from[e] != to[e]) {
+                firstEdge[from[e] + 1]++;
+                firstEdge[to[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            firstEdge[v + 1] += firstEdge[v];
+        }
+
+        int[] targets = new int[firstEdge[nodeCount]];
+        int[] edgeWeights = new int[firstEdge[nodeCount]];
+        int[] cursor = new int[nodeCount];
+        System.arraycopy(firstEdge, 0, cursor, 0, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            if (from[e] == to[e]) {
+                continue;
+            }
+            int forward = cursor[from[e]]++;
+            targets[forward] = to[e];
+            edgeWeights[forward] = weights[e];
+            int backward = cursor[to[e]]++;
+            targets[backward] = from[e];
+            edgeWeights[backward] = weights[e];
+        }
+        return new RoadGraph(latitudes, longitudes, firstEdge, targets, edgeWeights);
+    }
+
+    public int nodeCount() {
+        return latitudes.length;
+    }
+
+    public int edgeCount() {
+        return edgeTargets.length / 2;
+    }
+
+    public int latitude(int node) {
+        return latitudes[node];
+    }
+
+    public int longitude(int node) {
+        return longitudes[node];
+    }
+
+    public int firstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public int edgeWeight(int edge) {
+        return edgeWeights[edge];
+    }
+
+    /**
+     * Great-circle distance in metres between two points given in microdegrees.
+     */
+    public static double distanceMeters(int latitude1, int longitude1, int latitude2, int longitude2) {
+        return GeoMath.haversineKm(latitude1 / 1e6, longitude1 / 1e6, latitude2 / 1e6, longitude2 / 1e6) * 1000;
+    }
+}
\ No newline at end of file
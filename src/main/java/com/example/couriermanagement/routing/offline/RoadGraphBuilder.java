@@ -0,0 +1,161 @@
+package com.example.couriermanagement.routing.offline;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts the drivable road network from a PBF file in two passes: ways first, to learn which
+ * nodes are needed, then coordinates of just those nodes. Nodes that are only interior points
+ * of a single way are folded into the edge length, so the graph keeps junctions and way ends.
+ */
+public final class RoadGraphBuilder {
+
+    private static final Set<String> DRIVABLE_HIGHWAYS = Set.of(
+        "motorway", "motorway_link", "trunk", "trunk_link",
+        "primary", "primary_link", "secondary", "secondary_link",
+        "tertiary", "tertiary_link", "unclassified", "residential",
+        "living_street", "service", "road"
+    );
+
+    private static final int MISSING = -1;
+
+    private RoadGraphBuilder() {
+    }
+
+    public static RoadGraph fromPbf(Path pbfPath) throws IOException {
+        WayCollector ways = new WayCollector();
+        new OsmPbfReader(false, true).read(pbfPath, ways);
+
+        // счетчик использований узла: >1 или конец пути - перекресток, остальные промежуточные
+        LongIntMap usage = new LongIntMap(ways.nodeCount);
+        for (int w = 0; w < ways.wayCount; w++) {
+            int start = ways.wayStarts[w];
+            int end = ways.wayStarts[w + 1];
+            for (int i = start; i < end; i++) {
+                int weight = (i == start || i == end - 1) ? 2 : 1;
+                usage.increment(ways.nodeIds[i], weight);
+            }
+        }
+
+        LongIntMap coordinateIndex = new LongIntMap(usage.size());
+        int[] nodeLatitudes = new int[usage.size()];
+        int[] nodeLongitudes = new int[usage.size()];
+        int[] loaded = new int[1];
+        new OsmPbfReader(true, false).read(pbfPath, new OsmPbfReader.Handler() {
+            @Override
+            public void node(long id, double latitude, double longitude) {
+                if (usage.get(id, 0) > 0 && coordinateIndex.get(id, MISSING) == MISSING) {
+                    int index = loaded[0]++;
+                    coordinateIndex.put(id, index);
+                    nodeLatitudes[index] = (int) Math.round(latitude * 1e6);
+                    nodeLongitudes[index] = (int) Math.round(longitude * 1e6);
+                }
+            }
+        });
+
+        LongIntMap graphIndex = new LongIntMap(Math.max(16, usage.size() / 4));
+        IntList latitudes = new IntList();
+        IntList longitudes = new IntList();
+        IntList from = new IntList();
+        IntList to = new IntList();
+        IntList weights = new IntList();
+
+        for (int w = 0; w < ways.wayCount; w++) {
+            int previousGraphNode = MISSING;
+            int previousCoordinate = MISSING;
+            double length = 0;
+            for (int i = ways.wayStarts[w]; i < ways.wayStarts[w + 1]; i++) {
+                long osmId = ways.nodeIds[i];
+                int coordinate = coordinateIndex.get(osmId, MISSING);
+                if (coordinate == MISSING) {
+                    // узел за пределами выгрузки: путь обрывается
+                    previousGraphNode = MISSING;
+                    previousCoordinate = MISSING;
+                    length = 0;
+                    continue;
+                }
+                if (previousCoordinate != MISSING) {
+                    length += RoadGraph.distanceMeters(
+                        nodeLatitudes[previousCoordinate], nodeLongitudes[previousCoordinate],
+                        nodeLatitudes[coordinate], nodeLongitudes[coordinate]);
+                }
+                previousCoordinate = coordinate;
+
+                boolean junction = usage.get(osmId, 0) > 1 || previousGraphNode == MISSING;
+                if (!junction) {
+                    continue;
+                }
+                int graphNode = graphIndex.get(osmId, MISSING);
+                if (graphNode == MISSING) {
+                    graphNode = latitudes.size;
+                    graphIndex.put(osmId, graphNode);
+                    latitudes.add(nodeLatitudes[coordinate]);
+                    longitudes.add(nodeLongitudes[coordinate]);
+                }
+                if (previousGraphNode != MISSING) {
+                    from.add(previousGraphNode);
+                    to.add(graphNode);
+                    weights.add((int) Math.max(1, Math.round(length)));
+                }
+                previousGraphNode = graphNode;
+                length = 0;
+            }
+        }
+
+        return RoadGraph.fromEdges(latitudes.toArray(), longitudes.toArray(),
+            from.values, to.values, weights.values, from.size);
+    }
+
+    static boolean isDrivable(Map<String, String> tags) {
+        String highway = tags.get("highway");
+        if (highway == null || !DRIVABLE_HIGHWAYS.contains(highway)) {
+            return false;
+        }
+        String access = tags.get("access");
+        return !"no".equals(access) && !"private".equals(access) && !"no".equals(tags.get("motor_vehicle"));
+    }
+
+    private static final class WayCollector implements OsmPbfReader.Handler {
+        long[] nodeIds = new long[1 << 16];
+        int[] wayStarts = new int[1 << 12];
+        int nodeCount;
+        int wayCount;
+
+        @Override
+        public void way(long id, long[] refs, Map<String, String> tags) {
+            if (refs.length < 2 || !isDrivable(tags)) {
+                return;
+            }
+            if (nodeCount + refs.length > nodeIds.length) {
+                nodeIds = Arrays.copyOf(nodeIds, Math.max(nodeIds.length * 2, nodeCount + refs.length));
+            }
+            if (wayCount + 2 > wayStarts.length) {
+                wayStarts = Arrays.copyOf(wayStarts, wayStarts.length * 2);
+            }
+            System.arraycopy(refs, 0, nodeIds, nodeCount, refs.length);
+            wayStarts[wayCount] = nodeCount;
+            nodeCount += refs.length;
+            wayCount++;
+            wayStarts[wayCount] = nodeCount;
+        }
+    }
+
+    static final class IntList {
+        int[] values = new int[1 << 10];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.couriermanagement.routing.offline;
+
+import java.nio.IntBuffer;
+
+/**
+ * Contracted road network ready for queries: node coordinates in microdegrees plus the upward
+ * graph of the contraction hierarchy in CSR form (only edges towards higher-ranked nodes,
+ * shortcuts included). Backed either by heap arrays or by a memory-mapped file.
+ */
+public final class RoutingGraph {
+
+    private final int nodeCount;
+    private final IntBuffer latitudes;
+    private final IntBuffer longitudes;
+    private final IntBuffer upFirst;
+    private final IntBuffer upTargets;
+    private final IntBuffer upWeights;
+
+    RoutingGraph(IntBuffer latitudes, IntBuffer longitudes, IntBuffer upFirst, IntBuffer upTargets, IntBuffer upWeights) {
+        this.nodeCount = latitudes.limit();
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.upFirst = upFirst;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int upEdgeCount() {
+        return upTargets.limit();
+    }
+
+    public int latitude(int node) {
+        return latitudes.get(node);
+    }
+
+    public int longitude(int node) {
+        return longitudes.get(node);
+    }
+
+    int upFirst(int node) {
+        return upFirst.get(node);
+    }
+
+    int upTarget(int edge) {
+        return upTargets.get(edge);
+    }
+
+    int upWeight(int edge) {
+        return upWeights.get(edge);
+    }
+
+    IntBuffer latitudes() {
+        return latitudes.duplicate();
+    }
+
+    IntBuffer longitudes() {
+        return longitudes.duplicate();
+    }
+
+    IntBuffer upFirst() {
+        return upFirst.duplicate();
+    }
+
+    IntBuffer upTargets() {
+        return upTargets.duplicate();
+    }
+
+    IntBuffer upWeights() {
+        return upWeights.duplicate();
+    }
+}
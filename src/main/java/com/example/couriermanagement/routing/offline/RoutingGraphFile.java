@@ -0,0 +1,178 @@
+package com.example.couriermanagement.routing.offline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * On-disk format of a preprocessed {@link RoutingGraph}. The file is a fixed header followed by
+ * the int arrays of the graph, and is opened by memory-mapping each array, so start-up does not
+ * depend on the graph size. The header remembers size and modification time of the source PBF
+ * to detect a stale graph.
+ */
+public final class RoutingGraphFile {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingGraphFile.class);
+
+    private static final int MAGIC = 0x43484731; // "CHG1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int WRITE_CHUNK_INTS = 1 << 18;
+
+    public record Header(int nodeCount, int upEdgeCount, long sourceSize, long sourceModified) {
+    }
+
+    private RoutingGraphFile() {
+    }
+
+    /**
+     * Maps the graph file, rebuilding it first from the PBF extract when the file is missing
+     * or was built from a different version of the extract.
+     *
+     * @param pbfPath source extract, may be {@code null} when only a prebuilt graph is deployed
+     */
+    public static RoutingGraph openOrBuild(Path graphPath, Path pbfPath) throws IOException {
+        if (pbfPath == null) {
+            if (!Files.exists(graphPath)) {
+                throw new IllegalStateException("Не найден файл графа дорог " + graphPath + " и не задан PBF для его построения");
+            }
+            return open(graphPath);
+        }
+
+        long sourceSize = Files.size(pbfPath);
+        long sourceModified = Files.getLastModifiedTime(pbfPath).toMillis();
+        if (Files.exists(graphPath)) {
+            Header header = readHeader(graphPath);
+            if (header != null && header.sourceSize() == sourceSize && header.sourceModified() == sourceModified) {
+                return open(graphPath);
+            }
+            log.info("Road graph {} is out of date, rebuilding from {}", graphPath, pbfPath);
+        }
+
+        long startedAt = System.currentTimeMillis();
+        RoadGraph roadGraph = RoadGraphBuilder.fromPbf(pbfPath);
+        log.info("Loaded {} nodes and {} edges from {} in {} ms",
+            roadGraph.nodeCount(), roadGraph.edgeCount(), pbfPath, System.currentTimeMillis() - startedAt);
+
+        startedAt = System.currentTimeMillis();
+        RoutingGraph contracted = ContractionHierarchy.contract(roadGraph);
+        log.info("Contraction hierarchy built in {} ms, {} upward edges",
+            System.currentTimeMillis() - startedAt, contracted.upEdgeCount());
+
+        write(contracted, graphPath, sourceSize, sourceModified);
+        return open(graphPath);
+    }
+
+    public static void write(RoutingGraph graph, Path path, long sourceSize, long sourceModified) throws IOException {
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(graph.nodeCount())
+                .putInt(graph.upEdgeCount())
+                .putLong(sourceSize)
+                .putLong(sourceModified);
+            header.clear();
+            writeFully(channel, header);
+
+            writeInts(channel, graph.latitudes());
+            writeInts(channel, graph.longitudes());
+            writeInts(channel, graph.upFirst());
+            writeInts(channel, graph.upTargets());
+            writeInts(channel, graph.upWeights());
+            channel.force(true);
+        }
+        // файл подменяется целиком, чтобы упавшая сборка не оставила полузаписанный граф
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static RoutingGraph open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header == null) {
+                throw new IOException("Файл " + path + " не является графом дорог или имеет другую версию");
+            }
+            int nodes = header.nodeCount();
+            int edges = header.upEdgeCount();
+            long expectedSize = HEADER_BYTES + 4L * (3L * nodes + 1 + 2L * edges);
+            if (channel.size() != expectedSize) {
+                throw new IOException("Файл графа дорог " + path + " поврежден: неверный размер");
+            }
+
+            long offset = HEADER_BYTES;
+            IntBuffer latitudes = map(channel, offset, nodes);
+            offset += 4L * nodes;
+            IntBuffer longitudes = map(channel, offset, nodes);
+            offset += 4L * nodes;
+            IntBuffer upFirst = map(channel, offset, nodes + 1);
+            offset += 4L * (nodes + 1);
+            IntBuffer upTargets = map(channel, offset, edges);
+            offset += 4L * edges;
+            IntBuffer upWeights = map(channel, offset, edges);
+            return new RoutingGraph(latitudes, longitudes, upFirst, upTargets, upWeights);
+        }
+    }
+
+    public static Header readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel);
+        }
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // читаем заголовок целиком
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            return null;
+        }
+        return new Header(header.getInt(), header.getInt(), header.getLong(), header.getLong());
+    }
+
+    private static IntBuffer map(FileChannel channel, long offset, int ints) throws IOException {
+        // после закрытия канала отображение остается действительным
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, 4L * ints)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asIntBuffer();
+    }
+
+    private static void writeInts(FileChannel channel, IntBuffer values) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocateDirect(4 * WRITE_CHUNK_INTS).order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer view = chunk.asIntBuffer();
+        values.rewind();
+        while (values.hasRemaining()) {
+            view.clear();
+            int count = Math.min(WRITE_CHUNK_INTS, values.remaining());
+            IntBuffer slice = values.slice(values.position(), count);
+            view.put(slice);
+            values.position(values.position() + count);
+            chunk.clear().limit(4 * count);
+            writeFully(channel, chunk);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.entity.Catalog;
+
+import java.util.Map;
+
+public interface CatalogVersionService {
+    /**
+     * Called for every change of a product, vehicle or user; the catalog's version is bumped in the
+     * same transaction, just before it commits
+     */
+    void catalogChanged(Catalog catalog);
+
+    /**
+     * Current versions of all catalogs, read with one query
+     */
+    Map<Catalog, Long> getVersions();
+}
@@ -0,0 +1,40 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.entity.DeliveryStatus;
+import com.example.couriermanagement.planning.CourierSchedule;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface CourierScheduleService {
+    /**
+     * Whether the courier has a non-cancelled delivery overlapping {@code [start, end)}
+     */
+    boolean hasConflict(Long courierId, LocalDate date, LocalTime start, LocalTime end);
+
+    /**
+     * Couriers among the given ones that are busy at some moment of {@code [start, end)}
+     */
+    Set<Long> busyCouriers(Collection<Long> courierIds, LocalDate date, LocalTime start, LocalTime end);
+
+    List<CourierSchedule.Gap> freeGaps(Long courierId, LocalDate date, LocalTime from, LocalTime to);
+
+    /**
+     * Start of the earliest free slot of the given length inside {@code [from, to)}
+     */
+    Optional<LocalTime> earliestSlot(Long courierId, LocalDate date, LocalTime from, LocalTime to, Duration length);
+
+    /**
+     * Called for every persisted or updated delivery; visible to the current transaction at once
+     * and to everyone else after commit
+     */
+    void deliverySaved(Long deliveryId, Long courierId, LocalDate date, LocalTime start, LocalTime end,
+                       DeliveryStatus status);
+
+    void deliveryRemoved(Long deliveryId);
+}
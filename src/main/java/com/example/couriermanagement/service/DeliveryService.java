@@ -3,17 +3,39 @@ package com.example.couriermanagement.service;
 import com.example.couriermanagement.dto.DeliveryDto;
 import com.example.couriermanagement.dto.request.DeliveryRequest;
 import com.example.couriermanagement.dto.request.GenerateDeliveriesRequest;
+import com.example.couriermanagement.dto.response.DeliveryImportResult;
+import com.example.couriermanagement.dto.response.DeliveryPage;
 import com.example.couriermanagement.dto.response.GenerateDeliveriesResponse;
-import com.example.couriermanagement.entity.DeliveryStatus;
+import com.example.couriermanagement.exporting.DeliveryExportWriter;
+import com.example.couriermanagement.importing.DeliveryImportReader;
 
-import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface DeliveryService {
-    List<DeliveryDto> getAllDeliveries(LocalDate date, Long courierId, DeliveryStatus status);
+    /**
+     * Page of deliveries matching every set filter, after the cursor returned with the previous page
+     *
+     * @param cursor {@code null} for the first page
+     */
+    DeliveryPage searchDeliveries(DeliveryDto.DeliveryFilterRequest filter, String cursor, int limit);
+    /**
+     * Write every delivery matching the filter, in search order, without holding them all in memory
+     */
+    void exportDeliveries(DeliveryDto.DeliveryFilterRequest filter, DeliveryExportWriter writer);
     DeliveryDto getDeliveryById(Long id);
+
+    /**
+     * Version of the delivery for its ETag, read without loading the delivery
+     */
+    long getDeliveryVersion(Long id);
     DeliveryDto createDelivery(DeliveryRequest deliveryRequest);
     DeliveryDto updateDelivery(Long id, DeliveryRequest deliveryRequest);
     void deleteDelivery(Long id);
     GenerateDeliveriesResponse generateDeliveries(GenerateDeliveriesRequest generateRequest);
+    /**
+     * Create deliveries read from an import file, reporting the outcome of every row once its batch is committed
+     */
+    void importDeliveries(DeliveryImportReader reader, Consumer<List<DeliveryImportResult>> onBatch);
+    GenerateDeliveriesResponse generateDeliveries(GenerateDeliveriesRequest generateRequest, GenerationProgressListener listener);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.response.DeliveryTotalsCheck;
+
+public interface DeliveryTotalsService {
+    /**
+     * Called for every change of a delivery's points or product lines; the stored totals are
+     * recalculated before the transaction commits
+     */
+    void deliveryChanged(Long deliveryId);
+
+    /**
+     * Product weight or size changed, totals of every delivery containing it are recalculated
+     */
+    void productChanged(Long productId);
+
+    /**
+     * Recalculate now the totals of deliveries changed earlier in the current transaction, for
+     * readers that use the stored columns before commit
+     */
+    void applyPending();
+
+    /**
+     * Compare the stored totals with the points and products and, if asked, recalculate the ones that differ
+     */
+    DeliveryTotalsCheck checkConsistency(boolean repair);
+}
@@ -0,0 +1,14 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.response.DistanceCacheStats;
+
+import java.time.LocalDate;
+
+public interface DistanceCacheService {
+    /**
+     * Pre-compute route distances for deliveries dated on or after {@code since}
+     */
+    int warmUp(LocalDate since, int maxPoints);
+
+    DistanceCacheStats getStats();
+}
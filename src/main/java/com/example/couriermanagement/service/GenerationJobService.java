@@ -0,0 +1,22 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.request.GenerateDeliveriesRequest;
+import com.example.couriermanagement.dto.response.GenerationJobDto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface GenerationJobService {
+    /**
+     * Queue a generation on behalf of the current user
+     *
+     * @throws java.util.concurrent.RejectedExecutionException when the job queue is full
+     */
+    GenerationJobDto submit(GenerateDeliveriesRequest generateRequest);
+
+    GenerationJobDto getJob(String jobId);
+
+    /**
+     * Stream of {@code job} (current state), {@code date} (one per finished date) and
+     * {@code finished} events; completes when the job does
+     */
+    SseEmitter subscribe(String jobId);
+}
@@ -0,0 +1,27 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.response.GenerationResultByDate;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Receives progress of {@link DeliveryService#generateDeliveries}; calls may come from several threads
+ */
+public interface GenerationProgressListener {
+
+    GenerationProgressListener NONE = new GenerationProgressListener() {
+    };
+
+    /**
+     * Dates that will be generated, known once drop points are clustered
+     */
+    default void datesPlanned(Set<LocalDate> dates) {
+    }
+
+    /**
+     * A date is committed or, if it failed, rolled back with the reason in its warnings
+     */
+    default void dateCompleted(LocalDate date, GenerationResultByDate result) {
+    }
+}
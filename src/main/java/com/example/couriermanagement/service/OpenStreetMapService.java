@@ -1,6 +1,10 @@
 package com.example.couriermanagement.service;
 
+import com.example.couriermanagement.dto.request.RoutePoint;
+import com.example.couriermanagement.geo.DistanceMatrix;
+
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface OpenStreetMapService {
     /**
@@ -12,4 +16,9 @@ public interface OpenStreetMapService {
         BigDecimal endLatitude,
         BigDecimal endLongitude
     );
-}
\ No newline at end of file
+
+    /**
+     * Calculate road distances between every pair of points, in kilometres
+     */
+    DistanceMatrix calculateDistanceMatrix(List<RoutePoint> points);
+}
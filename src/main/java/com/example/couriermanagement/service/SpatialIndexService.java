@@ -0,0 +1,25 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.response.NearbyPointDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SpatialIndexService {
+    /**
+     * Up to {@code limit} delivery points of the date closest to the given location, nearest first
+     */
+    List<NearbyPointDto> findNearest(LocalDate date, double latitude, double longitude, int limit);
+
+    List<NearbyPointDto> findWithinRadius(LocalDate date, double latitude, double longitude, double radiusKm);
+
+    List<NearbyPointDto> findInBoundingBox(LocalDate date, double minLatitude, double minLongitude,
+                                           double maxLatitude, double maxLongitude);
+
+    /**
+     * Called for every persisted or updated point; applied to the index after commit
+     */
+    void pointSaved(Long pointId, Long deliveryId, LocalDate date, double latitude, double longitude);
+
+    void pointRemoved(Long pointId);
+}
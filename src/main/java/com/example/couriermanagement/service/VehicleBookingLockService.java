@@ -0,0 +1,18 @@
+package com.example.couriermanagement.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+public interface VehicleBookingLockService {
+    /**
+     * Locks the vehicle's capacity on the date until the current transaction ends, so the capacity
+     * check and the booking it allows commit before anyone else checks the same vehicle and date
+     */
+    void lock(Long vehicleId, LocalDate date);
+
+    /**
+     * Locks several vehicles and dates at once, in a fixed order
+     */
+    void lock(Map<LocalDate, ? extends Collection<Long>> vehicleIdsByDate);
+}
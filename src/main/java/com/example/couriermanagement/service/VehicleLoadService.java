@@ -0,0 +1,54 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.response.LoadTimelineCheck;
+import com.example.couriermanagement.planning.LoadTimeline;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface VehicleLoadService {
+    /**
+     * Highest load booked on the vehicle at any moment of {@code [start, end)}, including changes
+     * made earlier in the current transaction
+     *
+     * @param excludeDeliveryId delivery whose own load is not counted, e.g. the one being edited
+     */
+    LoadTimeline.Peak peakLoad(Long vehicleId, LocalDate date, LocalTime start, LocalTime end, Long excludeDeliveryId);
+
+    Map<Long, LoadTimeline.Peak> peakLoads(Collection<Long> vehicleIds, LocalDate date, LocalTime start, LocalTime end);
+
+    /**
+     * Copy of every booking of the vehicles on the date, including changes of the current
+     * transaction, for callers that plan several deliveries at once
+     */
+    Map<Long, List<LoadTimeline.Booking>> bookings(Collection<Long> vehicleIds, LocalDate date);
+
+    /**
+     * Called for every change of a delivery or its products; applied to the timelines after commit
+     */
+    void deliveryChanged(Long deliveryId);
+
+    /**
+     * Product dimensions changed, every timeline is stale
+     */
+    void productChanged();
+
+    /**
+     * Drop the cached timeline of the vehicle on the date, e.g. after another instance booked it;
+     * the next query loads it from the database again
+     */
+    void forget(Long vehicleId, LocalDate date);
+
+    /**
+     * Reload every cached timeline from the database
+     */
+    int rebuild();
+
+    /**
+     * Compare cached timelines with the database and, if asked, replace the ones that differ
+     */
+    LoadTimelineCheck checkConsistency(boolean repair);
+}
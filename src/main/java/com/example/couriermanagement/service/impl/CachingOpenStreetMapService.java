@@ -0,0 +1,101 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.dto.request.RoutePoint;
+import com.example.couriermanagement.geo.DistanceMatrix;
+import com.example.couriermanagement.routing.DistanceCache;
+import com.example.couriermanagement.routing.RoadDistance;
+import com.example.couriermanagement.routing.RoutingBackend;
+import com.example.couriermanagement.service.OpenStreetMapService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Caching decorator in front of the configured routing backend. Only road distances are stored:
+ * a local estimate made while the backend was down would otherwise outlive the outage by the
+ * whole TTL, on disk even across restarts.
+ */
+@Service
+@Primary
+public class CachingOpenStreetMapService implements OpenStreetMapService {
+
+    private final RoutingBackend delegate;
+    private final DistanceCache distanceCache;
+
+    public CachingOpenStreetMapService(RoutingBackend delegate, DistanceCache distanceCache) {
+        this.delegate = delegate;
+        this.distanceCache = distanceCache;
+    }
+
+    @Override
+    public BigDecimal calculateDistance(
+            BigDecimal startLatitude,
+            BigDecimal startLongitude,
+            BigDecimal endLatitude,
+            BigDecimal endLongitude) {
+        DistanceCache.Key key = distanceCache.key(startLatitude, startLongitude, endLatitude, endLongitude);
+        Double cached = distanceCache.get(key);
+        if (cached != null) {
+            return BigDecimal.valueOf(cached).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        RoadDistance distance = delegate.distance(startLatitude, startLongitude, endLatitude, endLongitude);
+        if (!distance.estimated()) {
+            distanceCache.put(key, distance.km().doubleValue());
+        }
+        return distance.km();
+    }
+
+    /**
+     * Pairs found in the cache are taken from it; the backend is asked only when some pair is
+     * missing, and its road distances are cached pair by pair.
+     */
+    @Override
+    public DistanceMatrix calculateDistanceMatrix(List<RoutePoint> points) {
+        int size = points.size();
+        DistanceMatrix matrix = new DistanceMatrix(size);
+        DistanceCache.Key[] keys = new DistanceCache.Key[size * size];
+        boolean complete = true;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i == j) {
+                    continue;
+                }
+                RoutePoint from = points.get(i);
+                RoutePoint to = points.get(j);
+                DistanceCache.Key key = distanceCache.key(
+                    from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+                Double cached = distanceCache.get(key);
+                if (cached != null) {
+                    matrix.set(i, j, cached);
+                } else {
+                    keys[i * size + j] = key;
+                    complete = false;
+                }
+            }
+        }
+        if (complete) {
+            return matrix;
+        }
+
+        DistanceMatrix fetched = delegate.calculateDistanceMatrix(points);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                DistanceCache.Key key = keys[i * size + j];
+                if (key == null) {
+                    continue;
+                }
+                matrix.set(i, j, fetched.get(i, j));
+                if (fetched.isEstimated(i, j)) {
+                    matrix.markEstimated(i, j);
+                } else {
+                    distanceCache.put(key, fetched.get(i, j));
+                }
+            }
+        }
+        return matrix;
+    }
+}
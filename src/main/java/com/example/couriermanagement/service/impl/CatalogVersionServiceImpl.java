@@ -0,0 +1,82 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.entity.Catalog;
+import com.example.couriermanagement.service.CatalogVersionService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catalog versions live in {@code catalog_versions}, so every application instance sees the same
+ * value. Changes are collected per transaction by
+ * {@link com.example.couriermanagement.entity.CatalogVersionListener} and written with one update
+ * at commit, after the last flush.
+ */
+@Service
+public class CatalogVersionServiceImpl implements CatalogVersionService {
+
+    private final EntityManager entityManager;
+
+    private final Object changedResourceKey = new Object();
+
+    public CatalogVersionServiceImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void catalogChanged(Catalog catalog) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Catalog> changed = (Set<Catalog>) TransactionSynchronizationManager.getResource(changedResourceKey);
+        if (changed == null) {
+            Set<Catalog> created = EnumSet.noneOf(Catalog.class);
+            TransactionSynchronizationManager.bindResource(changedResourceKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(changedResourceKey);
+                }
+            });
+            // обновления сущностей видны слушателю только при сбросе, в том числе при сбросе во время коммита;
+            // процесс Hibernate выполняется после этого последнего сброса
+            entityManager.unwrap(SessionImplementor.class).getActionQueue()
+                .registerProcess((BeforeTransactionCompletionProcess) session -> bump(session, created));
+            changed = created;
+        }
+        changed.add(catalog);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Catalog, Long> getVersions() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("SELECT name, version FROM catalog_versions")
+            .getResultList();
+        Map<Catalog, Long> versions = new EnumMap<>(Catalog.class);
+        for (Object[] row : rows) {
+            versions.put(Catalog.valueOf((String) row[0]), ((Number) row[1]).longValue());
+        }
+        return versions;
+    }
+
+    private static void bump(SessionImplementor session, Set<Catalog> catalogs) {
+        session.createNativeMutationQuery("UPDATE catalog_versions SET version = version + 1 WHERE name IN (:names)")
+            .setParameter("names", catalogs.stream().map(Catalog::name).toList())
+            // иначе Hibernate сбросит весь кэш второго уровня
+            .setHint(HibernateHints.HINT_NATIVE_SPACES, "catalog_versions")
+            .executeUpdate();
+    }
+}
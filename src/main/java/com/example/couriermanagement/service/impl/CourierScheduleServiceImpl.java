@@ -0,0 +1,256 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.entity.DeliveryStatus;
+import com.example.couriermanagement.planning.CourierSchedule;
+import com.example.couriermanagement.planning.LoadTimeline;
+import com.example.couriermanagement.repository.CourierWindow;
+import com.example.couriermanagement.repository.DeliveryRepository;
+import com.example.couriermanagement.service.CourierScheduleService;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps one {@link CourierSchedule} per courier and date. A schedule is loaded from the database
+ * on its first query, for all requested couriers of a date at once, and then follows committed
+ * delivery changes. Changes made by the current transaction are laid over the schedule for the
+ * duration of a query, so planning inside one transaction sees its own deliveries.
+ */
+@Service
+public class CourierScheduleServiceImpl implements CourierScheduleService {
+
+    private final DeliveryRepository deliveryRepository;
+    private final EntityManager entityManager;
+    private final TransactionalCache<ScheduleKey, CourierDay> schedules;
+    private final Map<Long, ScheduleKey> keyByDelivery = new ConcurrentHashMap<>();
+    // ключ ресурса транзакции с измененными в ней доставками
+    private final Object pendingResourceKey = new Object();
+
+    public CourierScheduleServiceImpl(
+            DeliveryRepository deliveryRepository,
+            EntityManager entityManager,
+            @Value("${courier-schedule.max-schedules:20000}") int maxSchedules) {
+        this.deliveryRepository = deliveryRepository;
+        this.entityManager = entityManager;
+        this.schedules = new TransactionalCache<>(CourierDay::new, maxSchedules);
+    }
+
+    @Override
+    public boolean hasConflict(Long courierId, LocalDate date, LocalTime start, LocalTime end) {
+        return !busyCouriers(List.of(courierId), date, start, end).isEmpty();
+    }
+
+    @Override
+    public Set<Long> busyCouriers(Collection<Long> courierIds, LocalDate date, LocalTime start, LocalTime end) {
+        int startMinute = LoadTimeline.startMinute(start);
+        int endMinute = LoadTimeline.endMinute(end);
+        Set<Long> busy = new HashSet<>();
+        query(courierIds, date, (courierId, schedule) -> {
+            if (schedule.hasConflict(startMinute, endMinute)) {
+                busy.add(courierId);
+            }
+            return null;
+        });
+        return busy;
+    }
+
+    @Override
+    public List<CourierSchedule.Gap> freeGaps(Long courierId, LocalDate date, LocalTime from, LocalTime to) {
+        int fromMinute = LoadTimeline.startMinute(from);
+        int toMinute = LoadTimeline.endMinute(to);
+        return query(List.of(courierId), date, (id, schedule) -> schedule.freeGaps(fromMinute, toMinute))
+            .get(courierId);
+    }
+
+    @Override
+    public Optional<LocalTime> earliestSlot(Long courierId, LocalDate date, LocalTime from, LocalTime to,
+                                            Duration length) {
+        int fromMinute = LoadTimeline.startMinute(from);
+        int toMinute = LoadTimeline.endMinute(to);
+        int lengthMinutes = (int) Math.max(1, (length.toSeconds() + 59) / 60);
+        int slot = query(List.of(courierId), date,
+            (id, schedule) -> schedule.earliestSlot(fromMinute, toMinute, lengthMinutes)).get(courierId);
+        return slot < 0 ? Optional.empty() : Optional.of(LocalTime.MIDNIGHT.plusMinutes(slot));
+    }
+
+    @Override
+    public void deliverySaved(Long deliveryId, Long courierId, LocalDate date, LocalTime start, LocalTime end,
+                              DeliveryStatus status) {
+        Change change = courierId == null || status == DeliveryStatus.CANCELLED
+            ? new Change(deliveryId, null, null)
+            : new Change(deliveryId, new ScheduleKey(courierId, date), new CourierSchedule.Window(
+                deliveryId, LoadTimeline.startMinute(start), LoadTimeline.endMinute(end)));
+        record(change);
+    }
+
+    @Override
+    public void deliveryRemoved(Long deliveryId) {
+        record(new Change(deliveryId, null, null));
+    }
+
+    private <T> Map<Long, T> query(Collection<Long> courierIds, LocalDate date,
+                                   ScheduleQuery<T> query) {
+        if (date == null) {
+            throw new IllegalArgumentException("Дата обязательна");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // изменения доходят до слушателя при сбросе, как и перед JPQL-запросом
+            entityManager.flush();
+        }
+        List<ScheduleKey> keys = courierIds.stream().map(courierId -> new ScheduleKey(courierId, date)).toList();
+        Map<ScheduleKey, CourierDay> days = schedules.loaded(keys, missing -> load(date, missing));
+        Map<Long, Change> pending = pendingChanges(false);
+        Map<Long, T> results = new HashMap<>();
+        for (Map.Entry<ScheduleKey, CourierDay> entry : days.entrySet()) {
+            ScheduleKey key = entry.getKey();
+            List<CourierSchedule.Window> current = pending.values().stream()
+                .filter(change -> key.equals(change.key()))
+                .map(Change::window)
+                .toList();
+            CourierDay day = entry.getValue();
+            day.lock.lock();
+            try {
+                results.put(key.courierId(), TransactionalCache.withOverlay(pending.keySet(), current,
+                    day.schedule::remove, day.schedule::put, CourierSchedule.Window::deliveryId,
+                    () -> query.apply(key.courierId(), day.schedule)));
+            } finally {
+                day.lock.unlock();
+            }
+        }
+        return results;
+    }
+
+    private void record(Change change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(List.of(change));
+            return;
+        }
+        pendingChanges(true).put(change.deliveryId(), change);
+    }
+
+    /**
+     * Moves committed deliveries between schedules; only loaded schedules are touched, the others
+     * will read the change from the database when loaded.
+     */
+    private void apply(Collection<Change> changes) {
+        for (Change change : changes) {
+            ScheduleKey previous = keyByDelivery.remove(change.deliveryId());
+            if (previous != null) {
+                CourierDay day = schedules.get(previous);
+                if (day != null) {
+                    day.lock.lock();
+                    try {
+                        day.schedule.remove(change.deliveryId());
+                        day.version++;
+                    } finally {
+                        day.lock.unlock();
+                    }
+                }
+            }
+            if (change.key() == null) {
+                continue;
+            }
+            CourierDay day = schedules.get(change.key());
+            if (day != null) {
+                day.lock.lock();
+                try {
+                    if (day.loaded) {
+                        day.schedule.put(change.window());
+                        keyByDelivery.put(change.deliveryId(), change.key());
+                    }
+                    day.version++;
+                } finally {
+                    day.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private Map<Long, Change> pendingChanges(boolean create) {
+        Map<Long, Change> pending = TransactionalCache.pending(
+            pendingResourceKey, create, LinkedHashMap::new, changes -> apply(changes.values()));
+        return pending != null ? pending : Map.of();
+    }
+
+    /**
+     * Loads the schedules of several couriers with one query. A schedule changed by a commit while
+     * the query ran is reloaded on its own under its lock, so that change is not lost.
+     */
+    private void load(LocalDate date, Map<ScheduleKey, CourierDay> days) {
+        Map<ScheduleKey, Long> versions = new HashMap<>();
+        days.forEach((key, day) -> {
+            day.lock.lock();
+            try {
+                versions.put(key, day.version);
+            } finally {
+                day.lock.unlock();
+            }
+        });
+        List<Long> courierIds = days.keySet().stream().map(ScheduleKey::courierId).toList();
+        Map<Long, List<CourierWindow>> windows = byCourier(deliveryRepository.findCourierWindowsByDate(date, courierIds));
+        for (Map.Entry<ScheduleKey, CourierDay> entry : days.entrySet()) {
+            ScheduleKey key = entry.getKey();
+            Long courierId = key.courierId();
+            CourierDay day = entry.getValue();
+            day.lock.lock();
+            try {
+                if (day.loaded) {
+                    continue;
+                }
+                List<CourierWindow> courierWindows = day.version == versions.get(key)
+                    ? windows.getOrDefault(courierId, List.of())
+                    : byCourier(deliveryRepository.findCourierWindowsByDate(date, List.of(courierId)))
+                        .getOrDefault(courierId, List.of());
+                CourierSchedule schedule = new CourierSchedule();
+                for (CourierWindow window : courierWindows) {
+                    schedule.put(new CourierSchedule.Window(window.deliveryId(),
+                        LoadTimeline.startMinute(window.timeStart()), LoadTimeline.endMinute(window.timeEnd())));
+                    keyByDelivery.put(window.deliveryId(), key);
+                }
+                day.schedule = schedule;
+                day.loaded = true;
+                day.version++;
+            } finally {
+                day.lock.unlock();
+            }
+        }
+    }
+
+    private static Map<Long, List<CourierWindow>> byCourier(List<CourierWindow> windows) {
+        Map<Long, List<CourierWindow>> byCourier = new HashMap<>();
+        for (CourierWindow window : windows) {
+            byCourier.computeIfAbsent(window.courierId(), id -> new ArrayList<>()).add(window);
+        }
+        return byCourier;
+    }
+
+    @FunctionalInterface
+    private interface ScheduleQuery<T> {
+        T apply(Long courierId, CourierSchedule schedule);
+    }
+
+    private record ScheduleKey(Long courierId, LocalDate date) {
+    }
+
+    /**
+     * New state of a delivery: its schedule and window, or no schedule when it was removed or cancelled.
+     */
+    private record Change(Long deliveryId, ScheduleKey key, CourierSchedule.Window window) {
+    }
+
+    private static final class CourierDay extends TransactionalCache.Entry {
+        // загрузка читает базу под этой блокировкой, как у графиков загрузки машин
+        private final ReentrantLock lock = new ReentrantLock();
+        // поля меняются под блокировкой lock
+        private CourierSchedule schedule = new CourierSchedule();
+        private long version;
+    }
+}
@@ -8,13 +8,14 @@ import com.example.couriermanagement.entity.DeliveryPoint;
 import com.example.couriermanagement.entity.DeliveryPointProduct;
 import com.example.couriermanagement.entity.DeliveryStatus;
 import com.example.couriermanagement.entity.User;
+import com.example.couriermanagement.repository.CourierDeliverySummary;
 import com.example.couriermanagement.repository.DeliveryRepository;
 import com.example.couriermanagement.service.AuthService;
 import com.example.couriermanagement.service.CourierService;
+import com.example.couriermanagement.service.DeliveryTotalsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
@@ -27,10 +28,13 @@ public class CourierServiceImpl implements CourierService {
     
     private final DeliveryRepository deliveryRepository;
     private final AuthService authService;
+    private final DeliveryTotalsService deliveryTotalsService;
 
-    public CourierServiceImpl(DeliveryRepository deliveryRepository, AuthService authService) {
+    public CourierServiceImpl(DeliveryRepository deliveryRepository, AuthService authService,
+                              DeliveryTotalsService deliveryTotalsService) {
         this.deliveryRepository = deliveryRepository;
         this.authService = authService;
+        this.deliveryTotalsService = deliveryTotalsService;
     }
     
     @Override
@@ -65,59 +69,31 @@ public class CourierServiceImpl implements CourierService {
             }
         }
         
-        List<com.example.couriermanagement.entity.Delivery> deliveries;
-        
-        if (date != null && status != null) {
-            deliveries = deliveryRepository.findByDeliveryDateAndCourierIdAndStatusWithDetails(date, currentUser.getId(), status);
-        } else if (date != null) {
-            deliveries = deliveryRepository.findByDeliveryDateAndCourierIdWithDetails(date, currentUser.getId());
-        } else if (status != null && dateFrom != null && dateTo != null) {
-            deliveries = deliveryRepository.findByCourierIdAndStatusAndDeliveryDateBetweenWithDetails(currentUser.getId(), status, dateFrom, dateTo);
-        } else if (status != null) {
-            deliveries = deliveryRepository.findByCourierIdAndStatusWithDetails(currentUser.getId(), status);
-        } else if (dateFrom != null && dateTo != null) {
-            deliveries = deliveryRepository.findByCourierIdAndDeliveryDateBetweenWithDetails(currentUser.getId(), dateFrom, dateTo);
-        } else {
-            deliveries = deliveryRepository.findByCourierIdWithDetails(currentUser.getId());
-        }
+        deliveryTotalsService.applyPending();
+        // один день - это период из одной даты; неполный период не фильтруется
+        LocalDate periodFrom = date != null ? date : (dateTo != null ? dateFrom : null);
+        LocalDate periodTo = date != null ? date : (dateFrom != null ? dateTo : null);
+        List<CourierDeliverySummary> deliveries = deliveryRepository.findCourierDeliverySummaries(
+            currentUser.getId(), status, periodFrom, periodTo);
 
-        Map<Long, List<DeliveryPoint>> deliveryPointsWithProducts = !deliveries.isEmpty() 
-            ? deliveryRepository.loadDeliveryPoint(deliveries).stream()
-                .collect(Collectors.groupingBy(dp -> dp.getDelivery().getId()))
-            : Collections.emptyMap();
-        
         return deliveries.stream().map(delivery -> {
-            List<DeliveryPoint> points = deliveryPointsWithProducts.getOrDefault(delivery.getId(), Collections.emptyList());
-
-            calculateEverything(delivery.getId());
-            processDeliveryLogic(delivery.getId());
+            calculateEverything(delivery.id());
+            processDeliveryLogic(delivery.id());
 
-            List<DeliveryPointProduct> allProducts = !points.isEmpty() 
-                ? loadDeliveryPointProducts(points)
-                : Collections.emptyList();
-            
-            BigDecimal totalWeight = allProducts.stream()
-                .map(product -> product.getProduct().getWeight().multiply(BigDecimal.valueOf(product.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            int totalProductsCount = allProducts.stream()
-                .mapToInt(DeliveryPointProduct::getQuantity)
-                .sum();
-            
             return CourierDeliveryResponse.builder()
-                .id(delivery.getId())
-                .deliveryNumber(String.format("DEL-%d-%03d", delivery.getDeliveryDate().getYear(), delivery.getId()))
-                .deliveryDate(delivery.getDeliveryDate())
-                .timeStart(delivery.getTimeStart())
-                .timeEnd(delivery.getTimeEnd())
-                .status(delivery.getStatus())
+                .id(delivery.id())
+                .deliveryNumber(String.format("DEL-%d-%03d", delivery.deliveryDate().getYear(), delivery.id()))
+                .deliveryDate(delivery.deliveryDate())
+                .timeStart(delivery.timeStart())
+                .timeEnd(delivery.timeEnd())
+                .status(delivery.status())
                 .vehicle(VehicleInfo.builder()
-                    .brand(delivery.getVehicle() != null ? delivery.getVehicle().getBrand() : "Не назначена")
-                    .licensePlate(delivery.getVehicle() != null ? delivery.getVehicle().getLicensePlate() : "")
+                    .brand(delivery.vehicleBrand() != null ? delivery.vehicleBrand() : "Не назначена")
+                    .licensePlate(delivery.vehicleLicensePlate() != null ? delivery.vehicleLicensePlate() : "")
                     .build())
-                .pointsCount(points.size())
-                .productsCount(totalProductsCount)
-                .totalWeight(totalWeight)
+                .pointsCount(delivery.pointsCount())
+                .productsCount(delivery.productsCount())
+                .totalWeight(delivery.totalWeight())
                 .build();
         }).collect(Collectors.toList());
     }
@@ -147,6 +123,7 @@ public class CourierServiceImpl implements CourierService {
             }
         }
         
+        deliveryTotalsService.applyPending();
         com.example.couriermanagement.entity.Delivery delivery = deliveryRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Доставка не найдена"));
 
@@ -216,19 +193,6 @@ public class CourierServiceImpl implements CourierService {
         // Placeholder for delivery flow processor method
     }
 
-    private List<DeliveryPointProduct> loadDeliveryPointProducts(List<DeliveryPoint> points) {
-        try {
-            return deliveryRepository.loadDeliveryPointsProductsByDeliveryPoint(points);
-        } catch (Exception e) {
-            processWithRetry(e, 3);
-            return Collections.emptyList();
-        }
-    }
-
-    private void processWithRetry(Exception e, int retries) {
-        // Placeholder for system monitoring service method
-    }
-
     private void entryPointA() {
         // Placeholder for delivery flow processor method
     }
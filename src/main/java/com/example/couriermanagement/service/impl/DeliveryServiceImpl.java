@@ -1,23 +1,58 @@
 package com.example.couriermanagement.service.impl;
 
+import com.example.couriermanagement.config.TimedTransactions;
 import com.example.couriermanagement.dto.DeliveryDto;
 import com.example.couriermanagement.dto.UserDto;
 import com.example.couriermanagement.dto.request.DeliveryPointRequest;
 import com.example.couriermanagement.dto.request.DeliveryProductRequest;
 import com.example.couriermanagement.dto.request.DeliveryRequest;
+import com.example.couriermanagement.dto.request.DropPointRequest;
 import com.example.couriermanagement.dto.request.GenerateDeliveriesRequest;
 import com.example.couriermanagement.dto.request.RouteWithProducts;
 import com.example.couriermanagement.dto.response.GenerateDeliveriesResponse;
+import com.example.couriermanagement.dto.response.DeliveryImportResult;
+import com.example.couriermanagement.dto.response.DeliveryPage;
 import com.example.couriermanagement.dto.response.GenerationResultByDate;
 import com.example.couriermanagement.entity.*;
+import com.example.couriermanagement.exporting.DeliveryExportWriter;
+import com.example.couriermanagement.geo.GeoMath;
+import com.example.couriermanagement.importing.DeliveryImportReader;
+import com.example.couriermanagement.importing.DeliveryImportRow;
+import com.example.couriermanagement.measure.FixedPoint;
+import com.example.couriermanagement.planning.CapacityAssignment;
+import com.example.couriermanagement.planning.LoadTimeline;
+import com.example.couriermanagement.planning.RouteClustering;
 import com.example.couriermanagement.repository.*;
+import com.example.couriermanagement.routing.StopSequenceOptimizer;
 import com.example.couriermanagement.service.AuthService;
+import com.example.couriermanagement.service.CourierScheduleService;
 import com.example.couriermanagement.service.DeliveryService;
+import com.example.couriermanagement.service.DeliveryTotalsService;
+import com.example.couriermanagement.service.GenerationProgressListener;
 import com.example.couriermanagement.service.OpenStreetMapService;
+import com.example.couriermanagement.service.SpatialIndexService;
+import com.example.couriermanagement.service.VehicleBookingLockService;
+import com.example.couriermanagement.service.VehicleLoadService;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
@@ -26,12 +61,33 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Remote routing calls are made before the write transaction is opened,
+ * so a slow routing backend never holds a pooled JDBC connection.
+ */
 @Service
-@Transactional
 public class DeliveryServiceImpl implements DeliveryService {
-    
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryServiceImpl.class);
+
+    // все сгенерированные доставки планируются на рабочий день
+    private static final LocalTime GENERATION_TIME_START = LocalTime.of(9, 0);
+    private static final LocalTime GENERATION_TIME_END = LocalTime.of(18, 0);
+    private static final int MAX_GENERATED_ROUTE_POINTS = 20;
+    private static final int MAX_GENERATED_ROUTE_PRODUCTS = 50;
+    private static final Duration CLUSTER_ORDER_BUDGET = Duration.ofMillis(20);
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final DeliveryRepository deliveryRepository;
     private final DeliveryPointRepository deliveryPointRepository;
     private final DeliveryPointProductRepository deliveryPointProductRepository;
@@ -40,7 +96,18 @@ public class DeliveryServiceImpl implements DeliveryService {
     private final ProductRepository productRepository;
     private final AuthService authService;
     private final OpenStreetMapService openStreetMapService;
+    private final VehicleLoadService vehicleLoadService;
+    private final VehicleBookingLockService vehicleBookingLockService;
+    private final CourierScheduleService courierScheduleService;
+    private final SpatialIndexService spatialIndexService;
+    private final DeliveryTotalsService deliveryTotalsService;
+    private final TimedTransactions transactions;
+    private final ForkJoinPool planningPool;
+    private final Semaphore generationPermits;
+    private final int importBatchSize;
+    private final int exportBatchSize;
     private final EntityManager entityManager;
+    private final Validator validator;
 
     public DeliveryServiceImpl(
             DeliveryRepository deliveryRepository,
@@ -51,7 +118,18 @@ public class DeliveryServiceImpl implements DeliveryService {
             ProductRepository productRepository,
             AuthService authService,
             OpenStreetMapService openStreetMapService,
-            EntityManager entityManager) {
+            VehicleLoadService vehicleLoadService,
+            VehicleBookingLockService vehicleBookingLockService,
+            CourierScheduleService courierScheduleService,
+            SpatialIndexService spatialIndexService,
+            DeliveryTotalsService deliveryTotalsService,
+            TimedTransactions transactions,
+            @Qualifier("planningPool") ForkJoinPool planningPool,
+            @Value("${planning.generation.max-concurrent-dates:4}") int maxConcurrentDates,
+            @Value("${delivery-import.batch-size:200}") int importBatchSize,
+            @Value("${delivery-export.batch-size:500}") int exportBatchSize,
+            EntityManager entityManager,
+            Validator validator) {
         this.deliveryRepository = deliveryRepository;
         this.deliveryPointRepository = deliveryPointRepository;
         this.deliveryPointProductRepository = deliveryPointProductRepository;
@@ -60,31 +138,136 @@ public class DeliveryServiceImpl implements DeliveryService {
         this.productRepository = productRepository;
         this.authService = authService;
         this.openStreetMapService = openStreetMapService;
+        this.vehicleLoadService = vehicleLoadService;
+        this.vehicleBookingLockService = vehicleBookingLockService;
+        this.courierScheduleService = courierScheduleService;
+        this.spatialIndexService = spatialIndexService;
+        this.deliveryTotalsService = deliveryTotalsService;
+        this.transactions = transactions;
+        this.planningPool = planningPool;
+        this.generationPermits = new Semaphore(maxConcurrentDates, true);
+        this.importBatchSize = importBatchSize;
+        this.exportBatchSize = exportBatchSize;
         this.entityManager = entityManager;
+        this.validator = validator;
     }
 
+    /**
+     * One criteria query for every combination of filters, ordered by {@code (delivery_date,
+     * time_start, id)} and continued from the cursor with a keyset condition instead of an offset,
+     * so a page costs the same wherever it is in the table. One row past the page tells whether
+     * there is a next one.
+     */
     @Override
-    public List<DeliveryDto> getAllDeliveries(LocalDate date, Long courierId, DeliveryStatus status) {
-        List<Delivery> deliveries;
-        
-        if (date != null && courierId != null && status != null) {
-            deliveries = deliveryRepository.findByDeliveryDateAndCourierIdAndStatus(date, courierId, status);
-        } else if (date != null && courierId != null) {
-            deliveries = deliveryRepository.findByDeliveryDateAndCourierId(date, courierId);
-        } else if (date != null && status != null) {
-            deliveries = deliveryRepository.findByDeliveryDateAndStatus(date, status);
-        } else if (date != null) {
-            deliveries = deliveryRepository.findByDeliveryDate(date);
-        } else if (courierId != null && status != null) {
-            deliveries = deliveryRepository.findByCourierIdAndStatus(courierId, status);
-        } else if (courierId != null) {
-            deliveries = deliveryRepository.findByCourierId(courierId);
-        } else if (status != null) {
-            deliveries = deliveryRepository.findByStatus(status);
-        } else {
-            deliveries = deliveryRepository.findAll();
+    @Transactional(readOnly = true)
+    public DeliveryPage searchDeliveries(DeliveryDto.DeliveryFilterRequest filter, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        deliveryTotalsService.applyPending();
+
+        Specification<Delivery> specification = filterSpecification(filter).and(
+            DeliverySpecifications.after(cursor != null ? DeliveryCursor.decode(cursor) : null));
+        List<Delivery> deliveries = deliveryRepository.findBy(specification, query -> query
+            .sortBy(DeliverySpecifications.KEYSET_ORDER)
+            .limit(limit + 1)
+            .all());
+
+        String nextCursor = null;
+        if (deliveries.size() > limit) {
+            deliveries = deliveries.subList(0, limit);
+            Delivery last = deliveries.get(limit - 1);
+            nextCursor = new DeliveryCursor(last.getDeliveryDate(), last.getTimeStart(), last.getId()).encode();
+        }
+        return DeliveryPage.builder()
+            .deliveries(withPointsAndProducts(deliveries).stream()
+                .map(DeliveryDto::from)
+                .collect(Collectors.toList()))
+            .nextCursor(nextCursor)
+            .build();
+    }
+
+    /**
+     * Reads the deliveries through a forward-only cursor with the JDBC fetch size set to
+     * {@code delivery-export.batch-size}. Each batch gets its points and products with one query,
+     * is written and flushed, and is then detached, so the persistence context holds at most one
+     * batch besides the couriers, vehicles and products it refers to.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportDeliveries(DeliveryDto.DeliveryFilterRequest filter, DeliveryExportWriter writer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Delivery> query = cb.createQuery(Delivery.class);
+        Root<Delivery> root = query.from(Delivery.class);
+        Predicate predicate = filterSpecification(filter).toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(DeliverySpecifications.KEYSET_ORDER, root, cb));
+
+        List<Delivery> batch = new ArrayList<>(exportBatchSize);
+        try (Stream<Delivery> deliveries = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, exportBatchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<Delivery> iterator = deliveries.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == exportBatchSize) {
+                    writeExportBatch(batch, writer);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeExportBatch(batch, writer);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи выгрузки", e);
         }
+    }
 
+    private void writeExportBatch(List<Delivery> batch, DeliveryExportWriter writer) throws IOException {
+        List<DeliveryPoint> points = deliveryRepository.loadDeliveryPoint(batch);
+        List<DeliveryPointProduct> lines = points.isEmpty()
+            ? List.of()
+            : deliveryRepository.loadDeliveryPointsProductsByDeliveryPoint(points);
+        Map<Long, List<DeliveryPointProduct>> linesByPoint = lines.stream()
+            .collect(Collectors.groupingBy(line -> line.getDeliveryPoint().getId()));
+        Map<Long, List<DeliveryPoint>> pointsByDelivery = points.stream()
+            .map(point -> point.toBuilder()
+                .deliveryPointProducts(linesByPoint.getOrDefault(point.getId(), Collections.emptyList()))
+                .build())
+            .collect(Collectors.groupingBy(point -> point.getDelivery().getId()));
+        for (Delivery delivery : batch) {
+            writer.write(delivery, pointsByDelivery.getOrDefault(delivery.getId(), List.of()));
+        }
+        writer.flush();
+        // строки, точки и доставки пачки больше не нужны контексту
+        lines.forEach(entityManager::detach);
+        points.forEach(entityManager::detach);
+        batch.forEach(entityManager::detach);
+    }
+
+    /**
+     * Filters shared by the search and the export; each one is skipped when its value is not set.
+     */
+    private Specification<Delivery> filterSpecification(DeliveryDto.DeliveryFilterRequest filter) {
+        if (filter.getStartDate() != null && filter.getEndDate() != null
+                && filter.getStartDate().isAfter(filter.getEndDate())) {
+            throw new IllegalArgumentException("Начало периода позже его конца");
+        }
+        return Specification.allOf(
+            DeliverySpecifications.dateFrom(filter.getStartDate()),
+            DeliverySpecifications.dateTo(filter.getEndDate()),
+            DeliverySpecifications.courier(filter.getCourierId()),
+            DeliverySpecifications.vehicle(filter.getVehicleId()),
+            DeliverySpecifications.status(filter.getStatus()),
+            DeliverySpecifications.containsProduct(filter.getProductId()),
+            DeliverySpecifications.fetchParticipants());
+    }
+
+    private List<Delivery> withPointsAndProducts(List<Delivery> deliveries) {
         Map<Long, List<DeliveryPoint>> deliveryPointsMap = deliveryRepository.loadDeliveryPoint(deliveries)
                 .stream()
                 .collect(Collectors.groupingBy(dp -> dp.getDelivery().getId()));
@@ -109,14 +292,21 @@ public class DeliveryServiceImpl implements DeliveryService {
                 return delivery.toBuilder().deliveryPoints(updatedPoints).build();
             }).collect(Collectors.toList());
         }
-        
-        return deliveries.stream()
-                .map(DeliveryDto::from)
-                .collect(Collectors.toList());
+        return deliveries;
     }
     
     @Override
+    @Transactional(readOnly = true)
+    public long getDeliveryVersion(Long id) {
+        deliveryTotalsService.applyPending();
+        return deliveryRepository.findVersionById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Доставка не найдена"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public DeliveryDto getDeliveryById(Long id) {
+        deliveryTotalsService.applyPending();
         Delivery delivery = deliveryRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Доставка не найдена"));
 
@@ -140,7 +330,12 @@ public class DeliveryServiceImpl implements DeliveryService {
     
     @Override
     public DeliveryDto createDelivery(DeliveryRequest deliveryRequest) {
-        validateDeliveryRequest(deliveryRequest);
+        BigDecimal routeDistanceKm = calculateRouteDistance(deliveryRequest);
+        return transactions.write("delivery.create", () -> createDelivery(deliveryRequest, routeDistanceKm));
+    }
+
+    private DeliveryDto createDelivery(DeliveryRequest deliveryRequest, BigDecimal routeDistanceKm) {
+        validateDeliveryRequest(deliveryRequest, routeDistanceKm, null);
         
         UserDto currentUser = authService.getCurrentUser();
         if (currentUser == null) {
@@ -180,6 +375,11 @@ public class DeliveryServiceImpl implements DeliveryService {
     
     @Override
     public DeliveryDto updateDelivery(Long id, DeliveryRequest deliveryRequest) {
+        BigDecimal routeDistanceKm = calculateRouteDistance(deliveryRequest);
+        return transactions.write("delivery.update", () -> updateDelivery(id, deliveryRequest, routeDistanceKm));
+    }
+
+    private DeliveryDto updateDelivery(Long id, DeliveryRequest deliveryRequest, BigDecimal routeDistanceKm) {
         Delivery delivery = deliveryRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Доставка не найдена"));
 
@@ -188,7 +388,7 @@ public class DeliveryServiceImpl implements DeliveryService {
             throw new IllegalArgumentException("Нельзя редактировать доставку менее чем за 3 дня до даты доставки");
         }
         
-        validateDeliveryRequest(deliveryRequest);
+        validateDeliveryRequest(deliveryRequest, routeDistanceKm, delivery);
         
         User courier = userRepository.findById(deliveryRequest.getCourierId())
                 .orElseThrow(() -> new IllegalArgumentException("Курьер не найден"));
@@ -209,22 +409,22 @@ public class DeliveryServiceImpl implements DeliveryService {
                 .updatedAt(LocalDateTime.now())
                 .build();
         
+        boolean dateChanged = !delivery.getDeliveryDate().equals(deliveryRequest.getDeliveryDate());
         Delivery savedDelivery = deliveryRepository.save(updatedDelivery);
-
-        deliveryPointRepository.findByDeliveryId(delivery.getId()).forEach(point -> 
-            deliveryPointProductRepository.deleteByDeliveryPointId(point.getId())
-        );
-        deliveryPointRepository.deleteByDeliveryId(delivery.getId());
-
-        entityManager.flush();
-        
-        createDeliveryPointsWithProducts(savedDelivery, deliveryRequest);
+        syncDeliveryPoints(savedDelivery, deliveryRequest, dateChanged);
         
         return getDeliveryById(savedDelivery.getId());
     }
     
     @Override
     public void deleteDelivery(Long id) {
+        transactions.write("delivery.delete", () -> {
+            deleteDeliveryInTransaction(id);
+            return null;
+        });
+    }
+
+    private void deleteDeliveryInTransaction(Long id) {
         Delivery delivery = deliveryRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Доставка не найдена"));
 
@@ -236,90 +436,516 @@ public class DeliveryServiceImpl implements DeliveryService {
         deliveryRepository.delete(delivery);
     }
     
+    /**
+     * Rows are validated and written {@code delivery-import.batch-size} at a time, one transaction per
+     * batch: couriers, vehicles and products of the batch are read with one query each, capacity is
+     * checked against a copy of the vehicle timelines that also holds the rows accepted earlier in
+     * the batch, and the accepted deliveries are inserted together at commit.
+     */
     @Override
-    public GenerateDeliveriesResponse generateDeliveries(GenerateDeliveriesRequest generateRequest) {
+    public void importDeliveries(DeliveryImportReader reader, Consumer<List<DeliveryImportResult>> onBatch) {
         UserDto currentUser = authService.getCurrentUser();
         if (currentUser == null) {
             throw new IllegalStateException("Пользователь не авторизован");
         }
-        
         User createdBy = userRepository.findByLogin(currentUser.getLogin())
                 .orElseThrow(() -> new IllegalStateException("Пользователь не найден"));
-        
-        Map<LocalDate, GenerationResultByDate> resultsByDate = new HashMap<>();
-        int totalGenerated = 0;
-        
-        for (Map.Entry<LocalDate, List<RouteWithProducts>> entry : generateRequest.getDeliveryData().entrySet()) {
-            LocalDate date = entry.getKey();
-            List<RouteWithProducts> routes = entry.getValue();
-            
-            List<DeliveryDto> generatedDeliveries = new ArrayList<>();
-            List<String> warnings = new ArrayList<>();
 
-            List<User> availableCouriers = userRepository.findByRole(UserRole.values()[2]);
-            List<Vehicle> availableVehicles = vehicleRepository.findAll();
-            
-            if (availableCouriers.isEmpty()) {
-                warnings.add("Нет доступных курьеров");
-                addComplexWarnings(warnings, date, availableCouriers, availableVehicles, routes, currentUser);
+        List<DeliveryImportRow> batch = new ArrayList<>(importBatchSize);
+        try {
+            DeliveryImportRow row;
+            while ((row = reader.next()) != null) {
+                batch.add(row);
+                if (batch.size() == importBatchSize) {
+                    onBatch.accept(importBatch(batch, createdBy));
+                    batch.clear();
+                }
             }
-            
-            if (availableVehicles.isEmpty()) {
-                warnings.add("Нет доступных машин");
-                addVehicleWarnings(warnings, date, availableVehicles);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения файла импорта", e);
+        }
+        if (!batch.isEmpty()) {
+            onBatch.accept(importBatch(batch, createdBy));
+        }
+    }
+
+    private List<DeliveryImportResult> importBatch(List<DeliveryImportRow> rows, User createdBy) {
+        DeliveryImportResult[] results = new DeliveryImportResult[rows.size()];
+        // расстояния считаются внешним сервисом, поэтому до открытия транзакции
+        Map<Integer, BigDecimal> routeDistances = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            DeliveryImportRow row = rows.get(i);
+            if (row.error() != null) {
+                results[i] = DeliveryImportResult.rejected(row.ref(), row.error());
+                continue;
             }
-            
-            for (int idx = 0; idx < routes.size(); idx++) {
-                RouteWithProducts route = routes.get(idx);
-                
-                if (idx < availableCouriers.size() && idx < availableVehicles.size()) {
-                    try {
-                        User courier = availableCouriers.get(idx % availableCouriers.size());
-                        Vehicle vehicle = availableVehicles.get(idx % availableVehicles.size());
-
-                        if (validateGenerationConditions(courier, vehicle, date, route, idx, warnings)) {
-                            DeliveryRequest tempDeliveryRequest = createTempDeliveryRequest(courier, vehicle, date, route, idx);
-                            
-                            try {
-                                validateVehicleCapacity(tempDeliveryRequest);
-                                
-                                Delivery delivery = createDeliveryFromRoute(courier, vehicle, createdBy, date, route, idx);
-                                Delivery savedDelivery = deliveryRepository.save(delivery);
-
-                                createDeliveryPointsFromRoute(savedDelivery, route, warnings);
-                                
-                                generatedDeliveries.add(DeliveryDto.from(
-                                    deliveryRepository.findById(savedDelivery.getId()).orElseThrow()
-                                ));
-                                totalGenerated++;
-                            } catch (Exception validationException) {
-                                warnings.add("Ошибка валидации: " + validationException.getMessage());
-                            }
+            Set<ConstraintViolation<DeliveryRequest>> violations = validator.validate(row.request());
+            if (!violations.isEmpty()) {
+                results[i] = DeliveryImportResult.rejected(row.ref(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+                continue;
+            }
+            routeDistances.put(i, calculateRouteDistance(row.request()));
+        }
+        if (routeDistances.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        try {
+            transactions.write("delivery.import", () -> {
+                writeImportBatch(rows, routeDistances, createdBy, results);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Delivery import batch was not saved", e);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null || results[i].getStatus() == DeliveryImportResult.Status.CREATED) {
+                    results[i] = DeliveryImportResult.rejected(rows.get(i).ref(), "Пакет не сохранен: " + e.getMessage());
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void writeImportBatch(List<DeliveryImportRow> rows, Map<Integer, BigDecimal> routeDistances,
+                                  User createdBy, DeliveryImportResult[] results) {
+        Set<Long> courierIds = new HashSet<>();
+        Set<Long> vehicleIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        Map<LocalDate, Set<Long>> vehiclesByDate = new HashMap<>();
+        for (int i : routeDistances.keySet()) {
+            DeliveryRequest request = rows.get(i).request();
+            courierIds.add(request.getCourierId());
+            vehicleIds.add(request.getVehicleId());
+            vehiclesByDate.computeIfAbsent(request.getDeliveryDate(), date -> new HashSet<>()).add(request.getVehicleId());
+            for (DeliveryPointRequest point : request.getPoints()) {
+                for (DeliveryProductRequest productRequest : point.getProducts()) {
+                    productIds.add(productRequest.getProductId());
+                }
+            }
+        }
+        Map<Long, User> couriers = userRepository.findAllById(courierIds).stream()
+            .collect(Collectors.toMap(User::getId, user -> user));
+        Map<Long, Vehicle> vehicles = vehicleRepository.findAllById(vehicleIds).stream()
+            .collect(Collectors.toMap(Vehicle::getId, vehicle -> vehicle));
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, product -> product));
+
+        Map<LocalDate, List<Long>> existingVehiclesByDate = new HashMap<>();
+        vehiclesByDate.forEach((date, ids) ->
+            existingVehiclesByDate.put(date, ids.stream().filter(vehicles::containsKey).toList()));
+        vehicleBookingLockService.lock(existingVehiclesByDate);
+
+        // копии графиков загрузки, в которые добавляются уже принятые строки пакета
+        Map<LocalDate, Map<Long, LoadTimeline>> timelines = new HashMap<>();
+        vehiclesByDate.forEach((date, ids) -> {
+            Map<Long, LoadTimeline> byVehicle = new HashMap<>();
+            vehicleLoadService.bookings(ids, date).forEach((vehicleId, bookings) -> {
+                LoadTimeline timeline = new LoadTimeline();
+                bookings.forEach(timeline::put);
+                byVehicle.put(vehicleId, timeline);
+            });
+            timelines.put(date, byVehicle);
+        });
+
+        Map<Integer, Delivery> deliveries = new LinkedHashMap<>();
+        List<DeliveryPoint> points = new ArrayList<>();
+        List<DeliveryPointProduct> pointProducts = new ArrayList<>();
+        for (int i : new TreeSet<>(routeDistances.keySet())) {
+            DeliveryImportRow row = rows.get(i);
+            DeliveryRequest request = row.request();
+            try {
+                if (!request.getTimeStart().isBefore(request.getTimeEnd())) {
+                    throw new IllegalArgumentException("Время начала должно быть раньше времени окончания");
+                }
+                User courier = couriers.get(request.getCourierId());
+                if (courier == null) {
+                    throw new IllegalArgumentException("Курьер не найден");
+                }
+                if (courier.getRole() != UserRole.COURIER) {
+                    throw new IllegalArgumentException("Пользователь не является курьером");
+                }
+                Vehicle vehicle = vehicles.get(request.getVehicleId());
+                if (vehicle == null) {
+                    throw new IllegalArgumentException("Машина не найдена");
+                }
+
+                long totalGrams = 0;
+                long totalCm3 = 0;
+                for (DeliveryPointRequest point : request.getPoints()) {
+                    for (DeliveryProductRequest productRequest : point.getProducts()) {
+                        Product product = products.get(productRequest.getProductId());
+                        if (product == null) {
+                            throw new IllegalArgumentException("Товар с ID " + productRequest.getProductId() + " не найден");
                         }
-                    } catch (IllegalArgumentException e) {
-                        addCapacityWarnings(warnings, e);
-                    } catch (Exception e) {
-                        addGeneralWarnings(warnings, e);
+                        totalGrams += product.getWeightGrams() * productRequest.getQuantity();
+                        totalCm3 += product.getVolumeCm3() * productRequest.getQuantity();
                     }
-                } else {
-                    addResourceWarnings(warnings, idx, availableCouriers, availableVehicles);
                 }
+                LoadTimeline timeline = timelines.get(request.getDeliveryDate()).get(vehicle.getId());
+                checkVehicleCapacity(request, vehicle, timeline.peak(request.getTimeStart(), request.getTimeEnd()),
+                    totalGrams, totalCm3);
+                BigDecimal routeDistanceKm = routeDistances.get(i);
+                if (routeDistanceKm != null) {
+                    validateRouteTime(request, routeDistanceKm);
+                }
+
+                // до вставки у строки нет id, в копии графика она бронируется под отрицательным номером
+                timeline.put(LoadTimeline.Booking.of(-(i + 1L), request.getTimeStart(), request.getTimeEnd(),
+                    totalGrams, totalCm3));
+                Delivery delivery = Delivery.builder()
+                        .courier(courier)
+                        .vehicle(vehicle)
+                        .createdBy(createdBy)
+                        .deliveryDate(request.getDeliveryDate())
+                        .timeStart(request.getTimeStart())
+                        .timeEnd(request.getTimeEnd())
+                        .status(DeliveryStatus.PLANNED)
+                        .createdAt(LocalDateTime.now())
+                        .updatedAt(LocalDateTime.now())
+                        .build();
+                addDeliveryPoints(delivery, request, products, points, pointProducts);
+                deliveries.put(i, delivery);
+            } catch (IllegalArgumentException e) {
+                results[i] = DeliveryImportResult.rejected(row.ref(), e.getMessage());
             }
-            
-            resultsByDate.put(date, GenerationResultByDate.builder()
-                    .generatedCount(generatedDeliveries.size())
-                    .deliveries(generatedDeliveries)
-                    .warnings(warnings.isEmpty() ? null : warnings)
-                    .build());
         }
-        
+
+        deliveryRepository.saveAll(deliveries.values());
+        deliveryPointRepository.saveAll(points);
+        deliveryPointProductRepository.saveAll(pointProducts);
+        deliveries.forEach((i, delivery) -> results[i] = DeliveryImportResult.created(rows.get(i).ref(), delivery.getId()));
+    }
+
+    @Override
+    public GenerateDeliveriesResponse generateDeliveries(GenerateDeliveriesRequest generateRequest) {
+        return generateDeliveries(generateRequest, GenerationProgressListener.NONE);
+    }
+
+    @Override
+    public GenerateDeliveriesResponse generateDeliveries(GenerateDeliveriesRequest generateRequest,
+                                                         GenerationProgressListener listener) {
+        // кластеризация занимает процессор, а не соединение, поэтому выполняется до транзакции
+        Map<LocalDate, List<RouteWithProducts>> routesByDate = new HashMap<>();
+        if (generateRequest.getDeliveryData() != null) {
+            generateRequest.getDeliveryData().forEach((date, routes) -> routesByDate.put(date, new ArrayList<>(routes)));
+        }
+        if (generateRequest.getDropPoints() != null) {
+            generateRequest.getDropPoints().forEach((date, points) ->
+                routesByDate.computeIfAbsent(date, d -> new ArrayList<>()).addAll(clusterDropPoints(points)));
+        }
+
+        UserDto currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            throw new IllegalStateException("Пользователь не авторизован");
+        }
+        // справочные данные читаются один раз на весь запрос, а не для каждой даты
+        User createdBy = userRepository.findByLogin(currentUser.getLogin())
+                .orElseThrow(() -> new IllegalStateException("Пользователь не найден"));
+        List<User> availableCouriers = userRepository.findByRole(UserRole.COURIER);
+        List<Vehicle> availableVehicles = vehicleRepository.findAll();
+        listener.datesPlanned(Set.copyOf(routesByDate.keySet()));
+
+        Map<LocalDate, GenerationResultByDate> resultsByDate = new HashMap<>();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // транзакцию вызывающего нельзя ни разбить, ни передать другим потокам;
+            // машины всех дат блокируются одним вызовом, чтобы захват шел в общем порядке
+            List<Long> usableVehicleIds = availableVehicles.stream()
+                .filter(DeliveryServiceImpl::hasCapacity)
+                .map(Vehicle::getId)
+                .toList();
+            Map<LocalDate, List<Long>> vehicleIdsByDate = new HashMap<>();
+            routesByDate.keySet().forEach(date -> vehicleIdsByDate.put(date, usableVehicleIds));
+            vehicleBookingLockService.lock(vehicleIdsByDate);
+            routesByDate.forEach((date, routes) -> {
+                GenerationResultByDate result = generateDate(
+                    date, routes, availableCouriers, availableVehicles, createdBy, currentUser);
+                resultsByDate.put(date, result);
+                listener.dateCompleted(date, result);
+            });
+        } else {
+            resultsByDate.putAll(generateDatesConcurrently(
+                routesByDate, availableCouriers, availableVehicles, createdBy, currentUser, listener));
+        }
+
+        int totalGenerated = resultsByDate.values().stream()
+                .mapToInt(GenerationResultByDate::getGeneratedCount)
+                .sum();
         return GenerateDeliveriesResponse.builder()
                 .totalGenerated(totalGenerated)
                 .byDate(resultsByDate)
                 .build();
     }
+
+    /**
+     * Every date is generated in its own transaction on a virtual thread; at most
+     * {@code planning.generation.max-concurrent-dates} of them hold a connection at once across all
+     * requests. A failed date is rolled back alone and reported in its warnings; only the messages
+     * of rejected input reach the client, other failures are logged.
+     */
+    private Map<LocalDate, GenerationResultByDate> generateDatesConcurrently(
+            Map<LocalDate, List<RouteWithProducts>> routesByDate, List<User> couriers, List<Vehicle> vehicles,
+            User createdBy, UserDto currentUser, GenerationProgressListener listener) {
+        Map<LocalDate, Future<GenerationResultByDate>> futures = new HashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            routesByDate.forEach((date, routes) -> futures.put(date, executor.submit(() -> {
+                GenerationResultByDate result;
+                generationPermits.acquire();
+                try {
+                    result = transactions.write("delivery.generate",
+                        () -> generateDate(date, routes, couriers, vehicles, createdBy, currentUser));
+                } catch (IllegalArgumentException e) {
+                    result = cancelledDate("Генерация на дату отменена: " + e.getMessage());
+                } catch (RuntimeException e) {
+                    // текст остальных исключений может содержать SQL и внутренние детали
+                    log.warn("Delivery generation for {} failed", date, e);
+                    result = cancelledDate("Генерация на дату отменена из-за внутренней ошибки");
+                } finally {
+                    generationPermits.release();
+                }
+                listener.dateCompleted(date, result);
+                return result;
+            })));
+        }
+
+        Map<LocalDate, GenerationResultByDate> resultsByDate = new HashMap<>();
+        futures.forEach((date, future) -> {
+            try {
+                resultsByDate.put(date, future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Генерация доставок на " + date + " прервана", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Генерация доставок прервана", e);
+            }
+        });
+        return resultsByDate;
+    }
+
+    private static GenerationResultByDate cancelledDate(String warning) {
+        return GenerationResultByDate.builder()
+                .generatedCount(0)
+                .deliveries(new ArrayList<>())
+                .warnings(List.of(warning))
+                .build();
+    }
+
+    private GenerationResultByDate generateDate(LocalDate date, List<RouteWithProducts> routes,
+                                                List<User> availableCouriers, List<Vehicle> availableVehicles,
+                                                User createdBy, UserDto currentUser) {
+        List<String> warnings = new ArrayList<>();
+
+        if (availableCouriers.isEmpty()) {
+            warnings.add("Нет доступных курьеров");
+            addComplexWarnings(warnings, date, availableCouriers, availableVehicles, routes, currentUser);
+        }
+
+        if (availableVehicles.isEmpty()) {
+            warnings.add("Нет доступных машин");
+            addVehicleWarnings(warnings, date, availableVehicles);
+        }
+
+        List<DeliveryDto> generatedDeliveries = generateForDate(
+            date, routes, availableCouriers, availableVehicles, createdBy, warnings);
+
+        return GenerationResultByDate.builder()
+                .generatedCount(generatedDeliveries.size())
+                .deliveries(generatedDeliveries)
+                .warnings(warnings.isEmpty() ? null : warnings)
+                .build();
+    }
     
-    private void validateDeliveryRequest(DeliveryRequest deliveryRequest) {
+    /**
+     * Places the routes of one date on free courier/vehicle pairs with a single min-cost assignment
+     * over the capacity each vehicle has left in the generation window.
+     */
+    private List<DeliveryDto> generateForDate(LocalDate date, List<RouteWithProducts> routes,
+                                              List<User> couriers, List<Vehicle> vehicles,
+                                              User createdBy, List<String> warnings) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int idx = 0; idx < routes.size(); idx++) {
+            if (validateGenerationConditions(date, routes.get(idx), warnings)) {
+                candidates.add(idx);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> busyCourierIds = courierScheduleService.busyCouriers(
+            couriers.stream().map(User::getId).toList(), date, GENERATION_TIME_START, GENERATION_TIME_END);
+        List<User> freeCouriers = couriers.stream()
+            .filter(courier -> !busyCourierIds.contains(courier.getId()))
+            .toList();
+
+        List<Vehicle> usableVehicles = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle.getMaxWeight().compareTo(BigDecimal.ZERO) <= 0) {
+                warnings.add("Нулевая грузоподъемность машины " + vehicle.getLicensePlate());
+            } else if (vehicle.getMaxVolume().compareTo(BigDecimal.ZERO) <= 0) {
+                warnings.add("Нулевой объем машины " + vehicle.getLicensePlate());
+            } else {
+                usableVehicles.add(vehicle);
+            }
+        }
+
+        List<Long> usableVehicleIds = usableVehicles.stream().map(Vehicle::getId).toList();
+        vehicleBookingLockService.lock(Map.of(date, usableVehicleIds));
+        Map<Long, LoadTimeline.Peak> bookedLoad = vehicleLoadService.peakLoads(
+            usableVehicleIds, date, GENERATION_TIME_START, GENERATION_TIME_END);
+        long[] freeWeights = new long[usableVehicles.size()];
+        long[] freeVolumes = new long[usableVehicles.size()];
+        for (int v = 0; v < usableVehicles.size(); v++) {
+            Vehicle vehicle = usableVehicles.get(v);
+            LoadTimeline.Peak booked = bookedLoad.get(vehicle.getId());
+            freeWeights[v] = vehicle.getMaxWeightGrams() - booked.weightGrams();
+            freeVolumes[v] = vehicle.getMaxVolumeCm3() - booked.volumeCm3();
+        }
+
+        Set<Long> productIds = new HashSet<>();
+        for (int idx : candidates) {
+            for (DeliveryPointRequest point : routes.get(idx).getRoute()) {
+                for (DeliveryProductRequest productRequest : point.getProducts()) {
+                    productIds.add(productRequest.getProductId());
+                }
+            }
+        }
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, product -> product));
+
+        long[] routeWeights = new long[candidates.size()];
+        long[] routeVolumes = new long[candidates.size()];
+        for (int r = 0; r < candidates.size(); r++) {
+            for (DeliveryPointRequest point : routes.get(candidates.get(r)).getRoute()) {
+                for (DeliveryProductRequest productRequest : point.getProducts()) {
+                    Product product = products.get(productRequest.getProductId());
+                    if (product != null && productRequest.getQuantity() > 0) {
+                        routeWeights[r] += product.getWeightGrams() * productRequest.getQuantity();
+                        routeVolumes[r] += product.getVolumeCm3() * productRequest.getQuantity();
+                    }
+                }
+            }
+        }
+
+        int[] assignment = CapacityAssignment.assign(
+            routeWeights, routeVolumes, freeWeights, freeVolumes, freeCouriers.size());
+
+        List<Long> generatedIds = new ArrayList<>();
+        int nextCourier = 0;
+        for (int r = 0; r < candidates.size(); r++) {
+            int idx = candidates.get(r);
+            if (assignment[r] == CapacityAssignment.UNASSIGNED) {
+                warnings.add(String.format(
+                    "Маршрут %d не назначен: нет свободной пары курьер-машина с достаточной вместимостью " +
+                    "(требуется %s кг, %s м³)",
+                    idx + 1, FixedPoint.kilograms(routeWeights[r]), FixedPoint.cubicMetres(routeVolumes[r])));
+                continue;
+            }
+            User courier = freeCouriers.get(nextCourier++);
+            Vehicle vehicle = usableVehicles.get(assignment[r]);
+            RouteWithProducts route = routes.get(idx);
+
+            Delivery savedDelivery = deliveryRepository.save(createDeliveryFromRoute(courier, vehicle, createdBy, date));
+            createDeliveryPointsFromRoute(savedDelivery, route, products, warnings);
+            generatedIds.add(savedDelivery.getId());
+        }
+        // первое чтение сбрасывает все доставки даты одной серией пакетных вставок
+        return generatedIds.stream().map(this::getDeliveryById).collect(Collectors.toList());
+    }
+
+    /**
+     * Groups drop points of one date into routes that fit the largest vehicle and the generation
+     * limits on stops and product lines, then orders the stops of every route.
+     */
+    private List<RouteWithProducts> clusterDropPoints(List<DropPointRequest> points) {
+        if (points.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> productIds = new HashSet<>();
+        for (DropPointRequest point : points) {
+            for (DeliveryProductRequest productRequest : point.getProducts()) {
+                productIds.add(productRequest.getProductId());
+            }
+        }
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, product -> product));
+
+        int size = points.size();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        // измерения нагрузки: вес (г), объем (см³), точки маршрута, строки товаров; целые в double складываются точно
+        double[][] loads = new double[4][size];
+        for (int i = 0; i < size; i++) {
+            DropPointRequest point = points.get(i);
+            latitudes[i] = point.getLatitude().doubleValue();
+            longitudes[i] = point.getLongitude().doubleValue();
+            for (DeliveryProductRequest productRequest : point.getProducts()) {
+                Product product = products.get(productRequest.getProductId());
+                if (product != null) {
+                    loads[0][i] += product.getWeightGrams() * productRequest.getQuantity();
+                    loads[1][i] += product.getVolumeCm3() * productRequest.getQuantity();
+                }
+            }
+            loads[2][i] = 1;
+            loads[3][i] = point.getProducts().size();
+        }
+
+        List<Vehicle> vehicles = vehicleRepository.findAll();
+        long maxWeight = vehicles.stream().mapToLong(Vehicle::getMaxWeightGrams).max().orElse(0);
+        long maxVolume = vehicles.stream().mapToLong(Vehicle::getMaxVolumeCm3).max().orElse(0);
+        double[] capacities = {
+            maxWeight > 0 ? maxWeight : Double.MAX_VALUE,
+            maxVolume > 0 ? maxVolume : Double.MAX_VALUE,
+            MAX_GENERATED_ROUTE_POINTS - 1,
+            MAX_GENERATED_ROUTE_PRODUCTS - 1
+        };
+
+        int[][] clusters = RouteClustering.cluster(latitudes, longitudes, loads, capacities, planningPool);
+        return planningPool.submit(() -> Arrays.stream(clusters).parallel()
+            .map(cluster -> buildClusterRoute(points, cluster, latitudes, longitudes))
+            .toList()).join();
+    }
+
+    private RouteWithProducts buildClusterRoute(List<DropPointRequest> points, int[] cluster,
+                                                double[] latitudes, double[] longitudes) {
+        double[] clusterLatitudes = new double[cluster.length];
+        double[] clusterLongitudes = new double[cluster.length];
+        for (int i = 0; i < cluster.length; i++) {
+            clusterLatitudes[i] = latitudes[cluster[i]];
+            clusterLongitudes[i] = longitudes[cluster[i]];
+        }
+        int[] order = StopSequenceOptimizer.optimize(
+            GeoMath.haversineMatrixKm(clusterLatitudes, clusterLongitudes), false, false, CLUSTER_ORDER_BUDGET);
+
+        List<DeliveryPointRequest> route = new ArrayList<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < order.length; i++) {
+            DropPointRequest point = points.get(cluster[order[i]]);
+            route.add(DeliveryPointRequest.builder()
+                .sequence(i + 1)
+                .latitude(point.getLatitude())
+                .longitude(point.getLongitude())
+                .products(point.getProducts())
+                .build());
+            for (DeliveryProductRequest productRequest : point.getProducts()) {
+                quantities.merge(productRequest.getProductId(), productRequest.getQuantity(), Integer::sum);
+            }
+        }
+        List<DeliveryProductRequest> routeProducts = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> routeProducts.add(DeliveryProductRequest.builder()
+            .productId(productId)
+            .quantity(quantity)
+            .build()));
+        return RouteWithProducts.builder()
+            .route(route)
+            .products(routeProducts)
+            .build();
+    }
+
+    private void validateDeliveryRequest(DeliveryRequest deliveryRequest, BigDecimal routeDistanceKm,
+                                         Delivery existing) {
         if (!deliveryRequest.getTimeStart().isBefore(deliveryRequest.getTimeEnd())) {
             throw new IllegalArgumentException("Время начала должно быть раньше времени окончания");
         }
@@ -328,88 +954,112 @@ public class DeliveryServiceImpl implements DeliveryService {
             throw new IllegalArgumentException("Дата доставки не может быть в прошлом");
         }
 
-        validateVehicleCapacity(deliveryRequest);
+        validateVehicleCapacity(deliveryRequest, existing);
 
-        if (deliveryRequest.getPoints().size() >= 2) {
-            validateRouteTime(deliveryRequest);
+        if (routeDistanceKm != null) {
+            validateRouteTime(deliveryRequest, routeDistanceKm);
         }
     }
+
+    /**
+     * Pre-validation phase, runs outside any transaction. Returns {@code null} when the route
+     * has fewer than two points or the request would be rejected anyway by the cheap checks.
+     */
+    private BigDecimal calculateRouteDistance(DeliveryRequest deliveryRequest) {
+        if (deliveryRequest.getPoints().size() < 2
+                || !deliveryRequest.getTimeStart().isBefore(deliveryRequest.getTimeEnd())
+                || deliveryRequest.getDeliveryDate().isBefore(LocalDate.now())) {
+            return null;
+        }
+
+        DeliveryPointRequest firstPoint = deliveryRequest.getPoints().get(0);
+        DeliveryPointRequest lastPoint = deliveryRequest.getPoints().get(deliveryRequest.getPoints().size() - 1);
+
+        return openStreetMapService.calculateDistance(
+            firstPoint.getLatitude(),
+            firstPoint.getLongitude(),
+            lastPoint.getLatitude(),
+            lastPoint.getLongitude()
+        );
+    }
     
-    private void validateVehicleCapacity(DeliveryRequest deliveryRequest) {
+    /**
+     * Checks the peak load the vehicle already carries inside the requested window, read from the
+     * in-memory load timeline; the edited delivery's own previous load is not counted. The vehicle
+     * and date stay locked until commit, so no other booking can take the capacity checked here;
+     * an edited delivery's previous vehicle and date are locked in the same call.
+     */
+    private void validateVehicleCapacity(DeliveryRequest deliveryRequest, Delivery existing) {
         Vehicle vehicle = vehicleRepository.findById(deliveryRequest.getVehicleId())
                 .orElseThrow(() -> new IllegalArgumentException("Машина не найдена"));
 
-        BigDecimal totalWeight = BigDecimal.ZERO;
-        BigDecimal totalVolume = BigDecimal.ZERO;
+        long totalGrams = 0;
+        long totalCm3 = 0;
         
         for (DeliveryPointRequest point : deliveryRequest.getPoints()) {
             for (DeliveryProductRequest productRequest : point.getProducts()) {
                 Product product = productRepository.findById(productRequest.getProductId())
                         .orElseThrow(() -> new IllegalArgumentException("Товар с ID " + productRequest.getProductId() + " не найден"));
                 
-                BigDecimal quantity = BigDecimal.valueOf(productRequest.getQuantity());
-                totalWeight = totalWeight.add(product.getWeight().multiply(quantity));
-                totalVolume = totalVolume.add(product.getVolume().multiply(quantity));
+                totalGrams += product.getWeightGrams() * productRequest.getQuantity();
+                totalCm3 += product.getVolumeCm3() * productRequest.getQuantity();
             }
         }
 
-        List<Delivery> existingDeliveries = deliveryRepository.findByDateVehicleAndOverlappingTime(
-            deliveryRequest.getDeliveryDate(), 
-            deliveryRequest.getVehicleId(),
+        Map<LocalDate, Set<Long>> vehicleIdsByDate = new HashMap<>();
+        vehicleIdsByDate.computeIfAbsent(deliveryRequest.getDeliveryDate(), date -> new HashSet<>()).add(vehicle.getId());
+        if (existing != null) {
+            vehicleIdsByDate.computeIfAbsent(existing.getDeliveryDate(), date -> new HashSet<>())
+                .add(existing.getVehicle().getId());
+        }
+        vehicleBookingLockService.lock(vehicleIdsByDate);
+        LoadTimeline.Peak booked = vehicleLoadService.peakLoad(
+            vehicle.getId(),
+            deliveryRequest.getDeliveryDate(),
             deliveryRequest.getTimeStart(),
-            deliveryRequest.getTimeEnd()
+            deliveryRequest.getTimeEnd(),
+            existing != null ? existing.getId() : null
         );
+        checkVehicleCapacity(deliveryRequest, vehicle, booked, totalGrams, totalCm3);
+    }
 
-        BigDecimal existingWeight = BigDecimal.ZERO;
-        BigDecimal existingVolume = BigDecimal.ZERO;
-        
-        if (!existingDeliveries.isEmpty()) {
-            List<DeliveryPoint> deliveryPoints = deliveryRepository.loadDeliveryPoint(existingDeliveries);
-            if (!deliveryPoints.isEmpty()) {
-                List<DeliveryPointProduct> products = deliveryRepository.loadDeliveryPointsProductsByDeliveryPoint(deliveryPoints);
-                for (DeliveryPointProduct dpp : products) {
-                    BigDecimal quantity = BigDecimal.valueOf(dpp.getQuantity());
-                    existingWeight = existingWeight.add(dpp.getProduct().getWeight().multiply(quantity));
-                    existingVolume = existingVolume.add(dpp.getProduct().getVolume().multiply(quantity));
-                }
-            }
-        }
+    private static boolean hasCapacity(Vehicle vehicle) {
+        return vehicle.getMaxWeight().compareTo(BigDecimal.ZERO) > 0
+            && vehicle.getMaxVolume().compareTo(BigDecimal.ZERO) > 0;
+    }
 
-        BigDecimal totalRequiredWeight = existingWeight.add(totalWeight);
-        BigDecimal totalRequiredVolume = existingVolume.add(totalVolume);
+    /**
+     * Compares in grams and cm³; the message converts back to kg and m³.
+     */
+    private void checkVehicleCapacity(DeliveryRequest deliveryRequest, Vehicle vehicle, LoadTimeline.Peak booked,
+                                      long totalGrams, long totalCm3) {
+        long requiredGrams = booked.weightGrams() + totalGrams;
+        long requiredCm3 = booked.volumeCm3() + totalCm3;
         
-        if (totalRequiredWeight.compareTo(vehicle.getMaxWeight()) > 0) {
+        if (requiredGrams > vehicle.getMaxWeightGrams()) {
             throw new IllegalArgumentException(String.format(
                 "Превышена грузоподъемность машины в период %s-%s. " +
                 "Максимум: %s кг, требуется: %s кг " +
                 "(пересекающиеся доставки: %s кг, новые: %s кг)",
                 deliveryRequest.getTimeStart(), deliveryRequest.getTimeEnd(),
-                vehicle.getMaxWeight(), totalRequiredWeight, existingWeight, totalWeight
+                vehicle.getMaxWeight(), FixedPoint.kilograms(requiredGrams),
+                FixedPoint.kilograms(booked.weightGrams()), FixedPoint.kilograms(totalGrams)
             ));
         }
         
-        if (totalRequiredVolume.compareTo(vehicle.getMaxVolume()) > 0) {
+        if (requiredCm3 > vehicle.getMaxVolumeCm3()) {
             throw new IllegalArgumentException(String.format(
                 "Превышен объем машины в период %s-%s. " +
                 "Максимум: %s м³, требуется: %s м³ " +
                 "(пересекающиеся доставки: %s м³, новые: %s м³)",
                 deliveryRequest.getTimeStart(), deliveryRequest.getTimeEnd(),
-                vehicle.getMaxVolume(), totalRequiredVolume, existingVolume, totalVolume
+                vehicle.getMaxVolume(), FixedPoint.cubicMetres(requiredCm3),
+                FixedPoint.cubicMetres(booked.volumeCm3()), FixedPoint.cubicMetres(totalCm3)
             ));
         }
     }
     
-    private void validateRouteTime(DeliveryRequest deliveryRequest) {
-        DeliveryPointRequest firstPoint = deliveryRequest.getPoints().get(0);
-        DeliveryPointRequest lastPoint = deliveryRequest.getPoints().get(deliveryRequest.getPoints().size() - 1);
-
-        BigDecimal distanceKm = openStreetMapService.calculateDistance(
-            firstPoint.getLatitude(),
-            firstPoint.getLongitude(),
-            lastPoint.getLatitude(),
-            lastPoint.getLongitude()
-        );
-
+    private void validateRouteTime(DeliveryRequest deliveryRequest, BigDecimal distanceKm) {
         BigDecimal speedKmPerHour = BigDecimal.valueOf(60);
         BigDecimal requiredHours = distanceKm.divide(speedKmPerHour, 4, RoundingMode.HALF_UP);
 
@@ -433,7 +1083,114 @@ public class DeliveryServiceImpl implements DeliveryService {
         }
     }
     
+    /**
+     * Points and product lines are persisted with pooled sequence ids, so Hibernate sends them to
+     * the database in JDBC batches at flush instead of one round trip per row.
+     */
     private void createDeliveryPointsWithProducts(Delivery delivery, DeliveryRequest deliveryRequest) {
+        Set<Long> productIds = new HashSet<>();
+        for (DeliveryPointRequest pointRequest : deliveryRequest.getPoints()) {
+            for (DeliveryProductRequest productRequest : pointRequest.getProducts()) {
+                productIds.add(productRequest.getProductId());
+            }
+        }
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, product -> product));
+
+        List<DeliveryPoint> points = new ArrayList<>();
+        List<DeliveryPointProduct> pointProducts = new ArrayList<>();
+        addDeliveryPoints(delivery, deliveryRequest, products, points, pointProducts);
+        deliveryPointRepository.saveAll(points);
+        deliveryPointProductRepository.saveAll(pointProducts);
+    }
+
+    /**
+     * Brings stored points and product lines to the request: points are matched by sequence and
+     * lines by product id, so an edit of the time window alone writes nothing here, and any other
+     * edit becomes only the inserts, updates and deletes it needs, batched at flush.
+     */
+    private void syncDeliveryPoints(Delivery delivery, DeliveryRequest deliveryRequest, boolean dateChanged) {
+        List<DeliveryPoint> storedPoints = deliveryPointRepository.findByDeliveryIdOrderBySequence(delivery.getId());
+        Map<Long, List<DeliveryPointProduct>> storedLines = storedPoints.isEmpty()
+            ? Map.of()
+            : deliveryRepository.loadDeliveryPointsProductsByDeliveryPoint(storedPoints).stream()
+                .collect(Collectors.groupingBy(line -> line.getDeliveryPoint().getId()));
+        // номер точки уникален в доставке (uk_delivery_points_delivery_sequence)
+        Map<Integer, DeliveryPoint> unmatchedPoints = new HashMap<>();
+        storedPoints.forEach(point -> unmatchedPoints.put(point.getSequence(), point));
+
+        Set<Long> productIds = new HashSet<>();
+        for (DeliveryPointRequest pointRequest : deliveryRequest.getPoints()) {
+            for (DeliveryProductRequest productRequest : pointRequest.getProducts()) {
+                productIds.add(productRequest.getProductId());
+            }
+        }
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, product -> product));
+
+        List<DeliveryPoint> newPoints = new ArrayList<>();
+        List<DeliveryPointProduct> newLines = new ArrayList<>();
+        List<DeliveryPointProduct> removedLines = new ArrayList<>();
+        for (int index = 0; index < deliveryRequest.getPoints().size(); index++) {
+            DeliveryPointRequest pointRequest = deliveryRequest.getPoints().get(index);
+            int sequence = pointRequest.getSequence() != null ? pointRequest.getSequence() : (index + 1);
+            DeliveryPoint point = unmatchedPoints.remove(sequence);
+            if (point == null) {
+                point = DeliveryPoint.builder()
+                        .delivery(delivery)
+                        .sequence(sequence)
+                        .latitude(pointRequest.getLatitude())
+                        .longitude(pointRequest.getLongitude())
+                        .build();
+                newPoints.add(point);
+            } else if (point.getLatitude().compareTo(pointRequest.getLatitude()) != 0
+                    || point.getLongitude().compareTo(pointRequest.getLongitude()) != 0) {
+                point.setLatitude(pointRequest.getLatitude());
+                point.setLongitude(pointRequest.getLongitude());
+            } else if (dateChanged) {
+                // точка не меняется и не попадет в слушатель, а индекс разложен по датам
+                spatialIndexService.pointSaved(point.getId(), delivery.getId(), deliveryRequest.getDeliveryDate(),
+                    point.getLatitude().doubleValue(), point.getLongitude().doubleValue());
+            }
+
+            Map<Long, Deque<DeliveryPointProduct>> storedByProduct = new HashMap<>();
+            if (point.getId() != null) {
+                for (DeliveryPointProduct line : storedLines.getOrDefault(point.getId(), List.of())) {
+                    storedByProduct.computeIfAbsent(line.getProduct().getId(), id -> new ArrayDeque<>()).add(line);
+                }
+            }
+            for (DeliveryProductRequest productRequest : pointRequest.getProducts()) {
+                Product product = products.get(productRequest.getProductId());
+                if (product == null) {
+                    throw new IllegalArgumentException("Товар с ID " + productRequest.getProductId() + " не найден");
+                }
+                Deque<DeliveryPointProduct> stored = storedByProduct.get(product.getId());
+                DeliveryPointProduct line = stored != null ? stored.poll() : null;
+                if (line == null) {
+                    newLines.add(DeliveryPointProduct.builder()
+                            .deliveryPoint(point)
+                            .product(product)
+                            .quantity(productRequest.getQuantity())
+                            .build());
+                } else if (!line.getQuantity().equals(productRequest.getQuantity())) {
+                    line.setQuantity(productRequest.getQuantity());
+                }
+            }
+            storedByProduct.values().forEach(removedLines::addAll);
+        }
+        for (DeliveryPoint point : unmatchedPoints.values()) {
+            removedLines.addAll(storedLines.getOrDefault(point.getId(), List.of()));
+        }
+
+        // удаления в порядке вызова: строки товаров раньше своих точек
+        deliveryPointProductRepository.deleteAll(removedLines);
+        deliveryPointRepository.deleteAll(unmatchedPoints.values());
+        deliveryPointRepository.saveAll(newPoints);
+        deliveryPointProductRepository.saveAll(newLines);
+    }
+
+    private void addDeliveryPoints(Delivery delivery, DeliveryRequest deliveryRequest, Map<Long, Product> products,
+                                   List<DeliveryPoint> points, List<DeliveryPointProduct> pointProducts) {
         for (int index = 0; index < deliveryRequest.getPoints().size(); index++) {
             DeliveryPointRequest pointRequest = deliveryRequest.getPoints().get(index);
             
@@ -443,20 +1200,19 @@ public class DeliveryServiceImpl implements DeliveryService {
                     .latitude(pointRequest.getLatitude())
                     .longitude(pointRequest.getLongitude())
                     .build();
-            
-            DeliveryPoint savedPoint = deliveryPointRepository.save(deliveryPoint);
+            points.add(deliveryPoint);
 
             for (DeliveryProductRequest productRequest : pointRequest.getProducts()) {
-                Product product = productRepository.findById(productRequest.getProductId())
-                        .orElseThrow(() -> new IllegalArgumentException("Товар с ID " + productRequest.getProductId() + " не найден"));
+                Product product = products.get(productRequest.getProductId());
+                if (product == null) {
+                    throw new IllegalArgumentException("Товар с ID " + productRequest.getProductId() + " не найден");
+                }
                 
-                DeliveryPointProduct deliveryPointProduct = DeliveryPointProduct.builder()
-                        .deliveryPoint(savedPoint)
+                pointProducts.add(DeliveryPointProduct.builder()
+                        .deliveryPoint(deliveryPoint)
                         .product(product)
                         .quantity(productRequest.getQuantity())
-                        .build();
-                
-                deliveryPointProductRepository.save(deliveryPointProduct);
+                        .build());
             }
         }
     }
@@ -512,17 +1268,7 @@ public class DeliveryServiceImpl implements DeliveryService {
         }
     }
 
-    private boolean validateGenerationConditions(User courier, Vehicle vehicle, LocalDate date, 
-                                                RouteWithProducts route, int idx, 
-                                                List<String> warnings) {
-        if (courier == null) {
-            warnings.add("Курьер null");
-            return false;
-        }
-        if (vehicle == null) {
-            warnings.add("Машина null");
-            return false;
-        }
+    private boolean validateGenerationConditions(LocalDate date, RouteWithProducts route, List<String> warnings) {
         if (route == null) {
             warnings.add("Маршрут null");
             return false;
@@ -535,68 +1281,39 @@ public class DeliveryServiceImpl implements DeliveryService {
             warnings.add("Нет товаров в маршруте");
             return false;
         }
-        if (courier.getRole().ordinal() != 1) {
-            warnings.add("Пользователь не курьер");
-            return false;
-        }
-        if (vehicle.getMaxWeight().compareTo(BigDecimal.ZERO) <= 0) {
-            warnings.add("Нулевая грузоподъемность машины");
-            return false;
-        }
-        if (vehicle.getMaxVolume().compareTo(BigDecimal.ZERO) <= 0) {
-            warnings.add("Нулевой объем машины");
-            return false;
-        }
         if (!date.isAfter(LocalDate.now())) {
             warnings.add("Дата доставки в прошлом");
             return false;
         }
-        if (idx >= 10) {
-            warnings.add("Слишком большой индекс маршрута");
-            return false;
-        }
-        if (route.getRoute().size() >= 20) {
+        if (route.getRoute().size() >= MAX_GENERATED_ROUTE_POINTS) {
             warnings.add("Слишком много точек в маршруте");
             return false;
         }
-        if (route.getProducts().size() >= 50) {
+        if (route.getProducts().size() >= MAX_GENERATED_ROUTE_PRODUCTS) {
             warnings.add("Слишком много товаров в маршруте");
             return false;
         }
         return true;
     }
 
-    private DeliveryRequest createTempDeliveryRequest(User courier, Vehicle vehicle, LocalDate date, 
-                                                     RouteWithProducts route, int idx) {
-        List<DeliveryPointRequest> points = route.getRoute();
-
-        return DeliveryRequest.builder()
-            .courierId(courier.getId())
-            .vehicleId(vehicle.getId())
-            .deliveryDate(date)
-            .timeStart(LocalTime.of(9, 0).plusHours(idx))
-            .timeEnd(LocalTime.of(18, 0))
-            .points(points)
-            .build();
-    }
-
-    private Delivery createDeliveryFromRoute(User courier, Vehicle vehicle, User createdBy, LocalDate date, 
-                                           RouteWithProducts route, int idx) {
+    private Delivery createDeliveryFromRoute(User courier, Vehicle vehicle, User createdBy, LocalDate date) {
         return Delivery.builder()
             .courier(courier)
             .vehicle(vehicle)
             .createdBy(createdBy)
             .deliveryDate(date)
-            .timeStart(LocalTime.of(9, 0).plusHours(idx))
-            .timeEnd(LocalTime.of(18, 0))
+            .timeStart(GENERATION_TIME_START)
+            .timeEnd(GENERATION_TIME_END)
             .status(DeliveryStatus.PLANNED)
             .createdAt(LocalDateTime.now())
             .updatedAt(LocalDateTime.now())
             .build();
     }
 
-    private void createDeliveryPointsFromRoute(Delivery delivery, RouteWithProducts route, 
-                                             List<String> warnings) {
+    private void createDeliveryPointsFromRoute(Delivery delivery, RouteWithProducts route,
+                                               Map<Long, Product> products, List<String> warnings) {
+        List<DeliveryPoint> points = new ArrayList<>();
+        List<DeliveryPointProduct> pointProducts = new ArrayList<>();
         for (int pointIndex = 0; pointIndex < route.getRoute().size(); pointIndex++) {
             DeliveryPointRequest routePoint = route.getRoute().get(pointIndex);
             
@@ -606,11 +1323,10 @@ public class DeliveryServiceImpl implements DeliveryService {
                 .latitude(routePoint.getLatitude())
                 .longitude(routePoint.getLongitude())
                 .build();
-            
-            DeliveryPoint savedPoint = deliveryPointRepository.save(deliveryPoint);
+            points.add(deliveryPoint);
 
             for (DeliveryProductRequest productData : routePoint.getProducts()) {
-                Product product = productRepository.findById(productData.getProductId()).orElse(null);
+                Product product = products.get(productData.getProductId());
                 if (product != null) {
                     if (product.getWeight().compareTo(BigDecimal.ZERO) > 0 &&
                         product.getLength().compareTo(BigDecimal.ZERO) > 0 &&
@@ -618,12 +1334,11 @@ public class DeliveryServiceImpl implements DeliveryService {
                         product.getHeight().compareTo(BigDecimal.ZERO) > 0 &&
                         productData.getQuantity() > 0) {
                         
-                        DeliveryPointProduct deliveryPointProduct = DeliveryPointProduct.builder()
-                            .deliveryPoint(savedPoint)
+                        pointProducts.add(DeliveryPointProduct.builder()
+                            .deliveryPoint(deliveryPoint)
                             .product(product)
                             .quantity(productData.getQuantity())
-                            .build();
-                        deliveryPointProductRepository.save(deliveryPointProduct);
+                            .build());
                     } else {
                         warnings.add("Нулевое количество товара");
                     }
@@ -632,47 +1347,7 @@ public class DeliveryServiceImpl implements DeliveryService {
                 }
             }
         }
-    }
-
-    private void addCapacityWarnings(List<String> warnings, IllegalArgumentException e) {
-        warnings.add("Доставка пропущена из-за ограничений машины: " + e.getMessage());
-        if (e.getMessage() != null && e.getMessage().contains("weight")) {
-            warnings.add("Проблема с весом");
-            if (e.getMessage().contains("kg")) {
-                warnings.add("Вес указан в килограммах");
-                if (e.getMessage().contains("exceed")) {
-                    warnings.add("Превышение лимита");
-                }
-            }
-        }
-    }
-
-    private void addGeneralWarnings(List<String> warnings, Exception e) {
-        warnings.add("Ошибка при создании доставки: " + e.getMessage());
-        if (e instanceof RuntimeException) {
-            warnings.add("Runtime исключение");
-            if (e.getCause() != null) {
-                warnings.add("Есть причина исключения: " + e.getCause().getMessage());
-                if (e.getCause() instanceof IllegalStateException) {
-                    warnings.add("Причина - IllegalStateException");
-                }
-            }
-        }
-    }
-
-    private void addResourceWarnings(List<String> warnings, int idx, List<User> couriers, List<Vehicle> vehicles) {
-        warnings.add("Недостаточно ресурсов для создания всех доставок");
-        if (idx >= couriers.size()) {
-            warnings.add("Не хватает курьеров");
-            if (couriers.isEmpty()) {
-                warnings.add("Курьеров вообще нет");
-            }
-        }
-        if (idx >= vehicles.size()) {
-            warnings.add("Не хватает машин");
-            if (vehicles.isEmpty()) {
-                warnings.add("Машин вообще нет");
-            }
-        }
+        deliveryPointRepository.saveAll(points);
+        deliveryPointProductRepository.saveAll(pointProducts);
     }
 }
\ No newline at end of file
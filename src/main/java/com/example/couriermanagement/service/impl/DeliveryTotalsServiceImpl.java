@@ -0,0 +1,197 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.dto.response.DeliveryTotalsCheck;
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.repository.DeliveryRepository;
+import com.example.couriermanagement.repository.DeliveryTotals;
+import com.example.couriermanagement.service.DeliveryTotalsService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@code total_weight}, {@code total_volume}, {@code points_count} and {@code products_count}
+ * of deliveries in step with their points and products. Changes are collected per transaction by
+ * {@link com.example.couriermanagement.entity.DeliveryTotalsListener} and recalculated with one
+ * aggregate query just before commit, so the columns commit together with the rows they summarize.
+ */
+@Service
+public class DeliveryTotalsServiceImpl implements DeliveryTotalsService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryTotalsServiceImpl.class);
+
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+    private static final int REPAIR_CHUNK = 500;
+
+    private final DeliveryRepository deliveryRepository;
+    private final EntityManager entityManager;
+    // ключ ресурса транзакции с измененными в ней доставками и товарами
+    private final Object pendingResourceKey = new Object();
+
+    public DeliveryTotalsServiceImpl(DeliveryRepository deliveryRepository, EntityManager entityManager) {
+        this.deliveryRepository = deliveryRepository;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void deliveryChanged(Long deliveryId) {
+        Pending pending = pending(true);
+        if (pending != null) {
+            pending.deliveryIds.add(deliveryId);
+        }
+    }
+
+    @Override
+    public void productChanged(Long productId) {
+        Pending pending = pending(true);
+        if (pending != null) {
+            pending.productIds.add(productId);
+        }
+    }
+
+    @Override
+    public void applyPending() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        // слушатели срабатывают при сбросе, до него часть изменений еще не видна
+        entityManager.flush();
+        Pending pending = pending(false);
+        if (pending == null) {
+            return;
+        }
+        if (!pending.productIds.isEmpty()) {
+            List<Long> productIds = List.copyOf(pending.productIds);
+            pending.productIds.clear();
+            deliveryRepository.recalculateTotalsByProducts(productIds);
+        }
+        if (!pending.deliveryIds.isEmpty()) {
+            List<Long> deliveryIds = List.copyOf(pending.deliveryIds);
+            pending.deliveryIds.clear();
+            recalculate(deliveryIds);
+        }
+    }
+
+    @Override
+    @Transactional
+    public DeliveryTotalsCheck checkConsistency(boolean repair) {
+        applyPending();
+        long checked = deliveryRepository.count();
+        List<Long> stale = deliveryRepository.findIdsWithStaleTotals();
+        int repaired = 0;
+        if (repair) {
+            for (int from = 0; from < stale.size(); from += REPAIR_CHUNK) {
+                repaired += deliveryRepository.recalculateTotals(
+                    stale.subList(from, Math.min(from + REPAIR_CHUNK, stale.size())));
+            }
+        }
+        if (!stale.isEmpty()) {
+            log.warn("Delivery totals differ from points and products: {} of {}, repaired {}",
+                stale.size(), checked, repaired);
+        }
+        return DeliveryTotalsCheck.builder()
+            .checkedDeliveries((int) checked)
+            .mismatchedDeliveries(stale.size())
+            .repairedDeliveries(repaired)
+            .mismatchedDeliveryIds(List.copyOf(stale.subList(0, Math.min(stale.size(), MAX_REPORTED_MISMATCHES))))
+            .build();
+    }
+
+    /**
+     * Sets the totals on the managed entities, so they are written with the rest of the flush and
+     * a later merge of the same delivery does not overwrite them with stale values.
+     */
+    private void recalculate(Collection<Long> deliveryIds) {
+        Map<Long, DeliveryTotals> totals = deliveryRepository.findTotalsByIds(deliveryIds).stream()
+            .collect(Collectors.toMap(DeliveryTotals::deliveryId, Function.identity()));
+        // удаленные в этой транзакции доставки не найдутся
+        for (Delivery delivery : deliveryRepository.findAllById(deliveryIds)) {
+            // точки и товары в своих таблицах, версия доставки поднимается явно: по ней строится ETag
+            entityManager.lock(delivery, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            DeliveryTotals total = totals.get(delivery.getId());
+            int pointsCount = total != null ? total.pointsCount().intValue() : 0;
+            int productsCount = total != null && total.productsCount() != null ? total.productsCount().intValue() : 0;
+            BigDecimal weight = total != null && total.weight() != null
+                ? total.weight().setScale(3, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO.setScale(3);
+            BigDecimal volume = total != null && total.volumeCm3() != null
+                ? total.volumeCm3().movePointLeft(6).setScale(6, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO.setScale(6);
+
+            // неизмененная строка не попадает в UPDATE
+            if (delivery.getPointsCount() == null || delivery.getPointsCount() != pointsCount) {
+                delivery.setPointsCount(pointsCount);
+            }
+            if (delivery.getProductsCount() == null || delivery.getProductsCount() != productsCount) {
+                delivery.setProductsCount(productsCount);
+            }
+            if (delivery.getTotalWeight() == null || delivery.getTotalWeight().compareTo(weight) != 0) {
+                delivery.setTotalWeight(weight);
+            }
+            if (delivery.getTotalVolume() == null || delivery.getTotalVolume().compareTo(volume) != 0) {
+                delivery.setTotalVolume(volume);
+            }
+        }
+    }
+
+    private Pending pending(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(pendingResourceKey);
+        if (pending != null || !create) {
+            return pending;
+        }
+        Pending created = new Pending();
+        TransactionSynchronizationManager.bindResource(pendingResourceKey, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // итоги пишутся тем же сбросом при коммите, что и точки с товарами
+                applyPending();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(pendingResourceKey);
+            }
+        });
+        // изменения, сброшенные только самим коммитом, приходят уже после beforeCommit;
+        // процесс Hibernate выполняется после этого последнего сброса
+        entityManager.unwrap(SessionImplementor.class).getActionQueue()
+            .registerProcess((BeforeTransactionCompletionProcess) session -> applyFlushedAtCommit(created));
+        return created;
+    }
+
+    /**
+     * The entities are already written by now, so the deliveries left in {@code pending} are
+     * recalculated by the native updates, which also raise their versions.
+     */
+    private void applyFlushedAtCommit(Pending pending) {
+        if (!pending.productIds.isEmpty()) {
+            deliveryRepository.recalculateTotalsByProducts(List.copyOf(pending.productIds));
+        }
+        if (!pending.deliveryIds.isEmpty()) {
+            deliveryRepository.recalculateTotals(List.copyOf(pending.deliveryIds));
+        }
+    }
+
+    private static final class Pending {
+        private final Set<Long> deliveryIds = new LinkedHashSet<>();
+        private final Set<Long> productIds = new LinkedHashSet<>();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.dto.response.DistanceCacheStats;
+import com.example.couriermanagement.entity.DeliveryPoint;
+import com.example.couriermanagement.repository.DeliveryPointRepository;
+import com.example.couriermanagement.routing.DistanceCache;
+import com.example.couriermanagement.service.DistanceCacheService;
+import com.example.couriermanagement.service.OpenStreetMapService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+public class DistanceCacheServiceImpl implements DistanceCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(DistanceCacheServiceImpl.class);
+
+    private final DistanceCache distanceCache;
+    private final OpenStreetMapService openStreetMapService;
+    private final DeliveryPointRepository deliveryPointRepository;
+    private final boolean warmUpOnStartup;
+    private final int warmUpDaysBack;
+    private final int warmUpMaxPoints;
+
+    public DistanceCacheServiceImpl(
+            DistanceCache distanceCache,
+            OpenStreetMapService openStreetMapService,
+            DeliveryPointRepository deliveryPointRepository,
+            @Value("${routing.distance-cache.warm-up.enabled:false}") boolean warmUpOnStartup,
+            @Value("${routing.distance-cache.warm-up.days-back:30}") int warmUpDaysBack,
+            @Value("${routing.distance-cache.warm-up.max-points:20000}") int warmUpMaxPoints) {
+        this.distanceCache = distanceCache;
+        this.openStreetMapService = openStreetMapService;
+        this.deliveryPointRepository = deliveryPointRepository;
+        this.warmUpOnStartup = warmUpOnStartup;
+        this.warmUpDaysBack = warmUpDaysBack;
+        this.warmUpMaxPoints = warmUpMaxPoints;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (!warmUpOnStartup) {
+            return;
+        }
+        Thread.ofVirtual().name("distance-cache-warm-up").start(() -> {
+            try {
+                int pairs = warmUp(LocalDate.now().minusDays(warmUpDaysBack), warmUpMaxPoints);
+                log.info("Distance cache warmed up with {} route pairs", pairs);
+            } catch (RuntimeException e) {
+                log.warn("Distance cache warm-up failed", e);
+            }
+        });
+    }
+
+    @Override
+    public int warmUp(LocalDate since, int maxPoints) {
+        List<DeliveryPoint> points = deliveryPointRepository.findForRouteWarmUp(since, PageRequest.of(0, maxPoints));
+
+        // validateRouteTime запрашивает расстояние между первой и последней точкой доставки
+        int pairs = 0;
+        int start = 0;
+        while (start < points.size()) {
+            Long deliveryId = points.get(start).getDelivery().getId();
+            int end = start;
+            while (end + 1 < points.size() && points.get(end + 1).getDelivery().getId().equals(deliveryId)) {
+                end++;
+            }
+            if (end > start) {
+                DeliveryPoint first = points.get(start);
+                DeliveryPoint last = points.get(end);
+                openStreetMapService.calculateDistance(
+                    first.getLatitude(), first.getLongitude(), last.getLatitude(), last.getLongitude());
+                pairs++;
+            }
+            start = end + 1;
+        }
+        return pairs;
+    }
+
+    @Override
+    public DistanceCacheStats getStats() {
+        DistanceCache.Stats stats = distanceCache.stats();
+        return DistanceCacheStats.builder()
+            .precision(distanceCache.getPrecision())
+            .memoryHits(stats.memoryHits())
+            .diskHits(stats.diskHits())
+            .misses(stats.misses())
+            .memoryEvictions(stats.memoryEvictions())
+            .diskEvictions(stats.diskEvictions())
+            .memorySize(stats.memorySize())
+            .diskSize(stats.diskSize())
+            .build();
+    }
+}
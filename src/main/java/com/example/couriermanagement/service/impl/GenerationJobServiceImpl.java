@@ -0,0 +1,229 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.dto.request.GenerateDeliveriesRequest;
+import com.example.couriermanagement.dto.response.GenerationDateProgress;
+import com.example.couriermanagement.dto.response.GenerationJobDto;
+import com.example.couriermanagement.dto.response.GenerationResultByDate;
+import com.example.couriermanagement.service.DeliveryService;
+import com.example.couriermanagement.service.GenerationJobService;
+import com.example.couriermanagement.service.GenerationProgressListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Jobs live in memory on the node that accepted them and are dropped {@code generation-jobs.retention}
+ * after they finish. Finished dates are already committed, so a restart loses only the report.
+ */
+@Service
+public class GenerationJobServiceImpl implements GenerationJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(GenerationJobServiceImpl.class);
+
+    private final DeliveryService deliveryService;
+    private final ExecutorService executor;
+    private final Duration retention;
+    private final Duration sseTimeout;
+    private final Clock clock;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GenerationJobServiceImpl(
+            DeliveryService deliveryService,
+            @Qualifier("generationJobExecutor") ExecutorService executor,
+            @Value("${generation-jobs.retention:1h}") Duration retention,
+            @Value("${generation-jobs.sse-timeout:30m}") Duration sseTimeout) {
+        this(deliveryService, executor, retention, sseTimeout, Clock.systemUTC());
+    }
+
+    public GenerationJobServiceImpl(DeliveryService deliveryService, ExecutorService executor,
+                                    Duration retention, Duration sseTimeout, Clock clock) {
+        this.deliveryService = deliveryService;
+        this.executor = executor;
+        this.retention = retention;
+        this.sseTimeout = sseTimeout;
+        this.clock = clock;
+    }
+
+    @Override
+    public GenerationJobDto submit(GenerateDeliveriesRequest generateRequest) {
+        purgeExpired();
+        Job job = new Job(UUID.randomUUID().toString(), clock.instant());
+        jobs.put(job.id, job);
+        try {
+            // задача выполняется от имени пользователя, отправившего запрос
+            executor.execute(new DelegatingSecurityContextRunnable(() -> run(job, generateRequest)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RejectedExecutionException("Слишком много задач генерации, повторите позже", e);
+        }
+        return job.snapshot();
+    }
+
+    @Override
+    public GenerationJobDto getJob(String jobId) {
+        purgeExpired();
+        return findJob(jobId).snapshot();
+    }
+
+    @Override
+    public SseEmitter subscribe(String jobId) {
+        Job job = findJob(jobId);
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        emitter.onError(error -> job.emitters.remove(emitter));
+        synchronized (job) {
+            try {
+                emitter.send(SseEmitter.event().name("job").data(job.snapshot()));
+                if (job.isFinished()) {
+                    emitter.complete();
+                } else {
+                    job.emitters.add(emitter);
+                }
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+
+    private void run(Job job, GenerateDeliveriesRequest generateRequest) {
+        synchronized (job) {
+            job.status = GenerationJobDto.Status.RUNNING;
+            job.startedAt = clock.instant();
+        }
+        try {
+            deliveryService.generateDeliveries(generateRequest, new GenerationProgressListener() {
+                @Override
+                public void datesPlanned(Set<LocalDate> dates) {
+                    synchronized (job) {
+                        job.totalDates = dates.size();
+                    }
+                }
+
+                @Override
+                public void dateCompleted(LocalDate date, GenerationResultByDate result) {
+                    synchronized (job) {
+                        job.results.put(date, result);
+                        job.broadcast("date", GenerationDateProgress.builder()
+                                .jobId(job.id)
+                                .date(date)
+                                .completedDates(job.results.size())
+                                .totalDates(job.totalDates)
+                                .result(result)
+                                .build());
+                    }
+                }
+            });
+            finish(job, GenerationJobDto.Status.COMPLETED, null);
+        } catch (RuntimeException e) {
+            log.warn("Generation job {} failed", job.id, e);
+            finish(job, GenerationJobDto.Status.FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(Job job, GenerationJobDto.Status status, String error) {
+        synchronized (job) {
+            job.status = status;
+            job.error = error;
+            job.finishedAt = clock.instant();
+            job.broadcast("finished", job.snapshot());
+            List<SseEmitter> subscribers = List.copyOf(job.emitters);
+            job.emitters.clear();
+            subscribers.forEach(SseEmitter::complete);
+        }
+    }
+
+    private Job findJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Задача генерации не найдена");
+        }
+        return job;
+    }
+
+    private void purgeExpired() {
+        Instant expiredBefore = clock.instant().minus(retention);
+        jobs.values().removeIf(job -> {
+            synchronized (job) {
+                return job.finishedAt != null && job.finishedAt.isBefore(expiredBefore);
+            }
+        });
+    }
+
+    /**
+     * State of one job; guarded by its own monitor, which is also held while sending events so
+     * that a new subscriber never misses or duplicates a date.
+     */
+    private static final class Job {
+        private final String id;
+        private final Instant submittedAt;
+        private GenerationJobDto.Status status = GenerationJobDto.Status.QUEUED;
+        private Instant startedAt;
+        private Instant finishedAt;
+        private Integer totalDates;
+        private String error;
+        private final Map<LocalDate, GenerationResultByDate> results = new TreeMap<>();
+        // колбэки завершения SseEmitter приходят из потоков контейнера без монитора задачи
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        private Job(String id, Instant submittedAt) {
+            this.id = id;
+            this.submittedAt = submittedAt;
+        }
+
+        private boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        private GenerationJobDto snapshot() {
+            synchronized (this) {
+                return GenerationJobDto.builder()
+                        .jobId(id)
+                        .status(status)
+                        .submittedAt(submittedAt)
+                        .startedAt(startedAt)
+                        .finishedAt(finishedAt)
+                        .totalDates(totalDates)
+                        .completedDates(results.size())
+                        .totalGenerated(results.values().stream().mapToInt(GenerationResultByDate::getGeneratedCount).sum())
+                        .byDate(new TreeMap<>(results))
+                        .error(error)
+                        .build();
+            }
+        }
+
+        private void broadcast(String eventName, Object data) {
+            // отвалившийся клиент не должен мешать остальным и самой генерации
+            emitters.removeIf(emitter -> {
+                try {
+                    emitter.send(SseEmitter.event().name(eventName).data(data));
+                    return false;
+                } catch (IOException | IllegalStateException e) {
+                    return true;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.dto.request.RoutePoint;
+import com.example.couriermanagement.geo.DistanceMatrix;
+import com.example.couriermanagement.geo.GeoMath;
+import com.example.couriermanagement.routing.RoadDistance;
+import com.example.couriermanagement.routing.RoutingBackend;
+import com.example.couriermanagement.routing.offline.OfflineRouter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Routing backend that answers from a preprocessed OSM road graph in-process.
+ * Points outside the loaded region fall back to the great-circle distance.
+ */
+@Service
+@ConditionalOnProperty(name = "routing.engine", havingValue = "offline")
+public class OfflineOpenStreetMapService implements RoutingBackend {
+
+    private final OfflineRouter router;
+
+    public OfflineOpenStreetMapService(OfflineRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public RoadDistance distance(
+            BigDecimal startLatitude,
+            BigDecimal startLongitude,
+            BigDecimal endLatitude,
+            BigDecimal endLongitude) {
+        double distanceKm = router.distanceKm(
+            startLatitude.doubleValue(), startLongitude.doubleValue(),
+            endLatitude.doubleValue(), endLongitude.doubleValue());
+        boolean estimated = Double.isNaN(distanceKm);
+        if (estimated) {
+            distanceKm = GeoMath.haversineKm(
+                startLatitude.doubleValue(), startLongitude.doubleValue(),
+                endLatitude.doubleValue(), endLongitude.doubleValue());
+        }
+        return new RoadDistance(BigDecimal.valueOf(distanceKm).setScale(2, RoundingMode.HALF_UP), estimated);
+    }
+
+    @Override
+    public DistanceMatrix calculateDistanceMatrix(List<RoutePoint> points) {
+        int size = points.size();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = points.get(i).getLatitude().doubleValue();
+            longitudes[i] = points.get(i).getLongitude().doubleValue();
+        }
+
+        DistanceMatrix matrix = new DistanceMatrix(size, router.distanceMatrixKm(latitudes, longitudes));
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (Double.isNaN(matrix.get(i, j))) {
+                    matrix.set(i, j, GeoMath.haversineKm(latitudes[i], longitudes[i], latitudes[j], longitudes[j]));
+                    matrix.markEstimated(i, j);
+                }
+            }
+        }
+        return matrix;
+    }
+}
@@ -1,51 +1,183 @@
 package com.example.couriermanagement.service.impl;
 
-import com.example.couriermanagement.service.OpenStreetMapService;
+import com.example.couriermanagement.dto.request.RoutePoint;
+import com.example.couriermanagement.geo.DistanceMatrix;
+import com.example.couriermanagement.geo.GeoMath;
+import com.example.couriermanagement.routing.RoadDistance;
+import com.example.couriermanagement.routing.RoutingBackend;
+import com.example.couriermanagement.routing.RoutingCallGuard;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.List;
 
 @Service
-public class OpenStreetMapServiceImpl implements OpenStreetMapService {
+@ConditionalOnProperty(name = "routing.engine", havingValue = "ors", matchIfMissing = true)
+public class OpenStreetMapServiceImpl implements RoutingBackend {
     
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
-    private final String openRouteServiceUrl = "https://api.openrouteservice.org/v2/directions/driving-car";
+    private final RoutingCallGuard callGuard;
+    private final String openRouteServiceUrl;
+    private final String matrixUrl;
+    private final int matrixMaxLocations;
 
-    public OpenStreetMapServiceImpl(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    public OpenStreetMapServiceImpl(
+            @Qualifier("routingRestTemplate") RestTemplate restTemplate,
+            ObjectMapper objectMapper,
+            RoutingCallGuard callGuard,
+            @Value("${routing.ors.base-url:https://api.openrouteservice.org}") String baseUrl,
+            @Value("${routing.ors.matrix-max-locations:50}") int matrixMaxLocations) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.callGuard = callGuard;
+        this.openRouteServiceUrl = baseUrl + "/v2/directions/driving-car";
+        this.matrixUrl = baseUrl + "/v2/matrix/driving-car";
+        this.matrixMaxLocations = Math.max(matrixMaxLocations, 2);
     }
     
     @Override
-    public BigDecimal calculateDistance(
+    public RoadDistance distance(
             BigDecimal startLatitude,
             BigDecimal startLongitude,
             BigDecimal endLatitude,
             BigDecimal endLongitude) {
-        try {
-            String url = String.format("%s?start=%s,%s&end=%s,%s", 
-                openRouteServiceUrl, startLongitude, startLatitude, endLongitude, endLatitude);
-            
-            String response = restTemplate.getForObject(url, String.class);
-            if (response == null) {
-                throw new RuntimeException("Failed to get response from OpenStreetMap");
-            }
-            
-            JsonNode jsonNode = objectMapper.readTree(response);
-            BigDecimal distance = extractDistanceFromResponse(jsonNode);
+        RoutingCallGuard.Answer<BigDecimal> answer = callGuard.attempt(
+            "distance",
+            () -> requestDistance(startLatitude, startLongitude, endLatitude, endLongitude),
+            () -> calculateHaversineDistance(startLatitude, startLongitude, endLatitude, endLongitude)
+        );
+        return new RoadDistance(answer.value(), !answer.remote());
+    }
 
-            return distance.divide(BigDecimal.valueOf(1000), 2, RoundingMode.HALF_UP);
-            
-        } catch (Exception e) {
-            return calculateHaversineDistance(startLatitude, startLongitude, endLatitude, endLongitude);
+    private BigDecimal requestDistance(
+            BigDecimal startLatitude,
+            BigDecimal startLongitude,
+            BigDecimal endLatitude,
+            BigDecimal endLongitude) throws Exception {
+        String url = String.format("%s?start=%s,%s&end=%s,%s", 
+            openRouteServiceUrl, startLongitude, startLatitude, endLongitude, endLatitude);
+        
+        String response = restTemplate.getForObject(url, String.class);
+        if (response == null) {
+            throw new RuntimeException("Failed to get response from OpenStreetMap");
         }
+        
+        JsonNode jsonNode = objectMapper.readTree(response);
+        BigDecimal distance = extractDistanceFromResponse(jsonNode);
+
+        return distance.divide(BigDecimal.valueOf(1000), 2, RoundingMode.HALF_UP);
     }
     
+    @Override
+    public DistanceMatrix calculateDistanceMatrix(List<RoutePoint> points) {
+        int size = points.size();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = points.get(i).getLatitude().doubleValue();
+            longitudes[i] = points.get(i).getLongitude().doubleValue();
+        }
+
+        GeoMath.PreparedPoints prepared = GeoMath.prepare(latitudes, longitudes);
+        DistanceMatrix matrix = new DistanceMatrix(size);
+        int blockSize = size <= matrixMaxLocations ? size : matrixMaxLocations / 2;
+        for (int rowStart = 0; rowStart < size; rowStart += blockSize) {
+            int rowEnd = Math.min(rowStart + blockSize, size);
+            for (int columnStart = 0; columnStart < size; columnStart += blockSize) {
+                int columnEnd = Math.min(columnStart + blockSize, size);
+                int fromRow = rowStart;
+                int fromColumn = columnStart;
+                RoutingCallGuard.Answer<double[]> block = callGuard.attempt(
+                    "matrix",
+                    () -> requestMatrixBlock(latitudes, longitudes, fromRow, rowEnd, fromColumn, columnEnd),
+                    () -> GeoMath.haversineBlockKm(prepared, fromRow, rowEnd, fromColumn, columnEnd)
+                );
+                int columns = columnEnd - columnStart;
+                for (int i = rowStart; i < rowEnd; i++) {
+                    System.arraycopy(block.value(), (i - rowStart) * columns, matrix.values(), i * size + columnStart, columns);
+                    if (!block.remote()) {
+                        for (int j = columnStart; j < columnEnd; j++) {
+                            matrix.markEstimated(i, j);
+                        }
+                    }
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the block as a row-major {@code rows x columns} array. The result is not written
+     * into the shared matrix directly because in hedged mode it may arrive after the fallback.
+     */
+    private double[] requestMatrixBlock(double[] latitudes, double[] longitudes,
+                                        int rowStart, int rowEnd, int columnStart, int columnEnd) throws Exception {
+        boolean diagonal = rowStart == columnStart;
+        int rows = rowEnd - rowStart;
+        int columns = columnEnd - columnStart;
+
+        ObjectNode body = objectMapper.createObjectNode();
+        ArrayNode locations = body.putArray("locations");
+        ArrayNode sources = body.putArray("sources");
+        ArrayNode destinations = body.putArray("destinations");
+        for (int i = rowStart; i < rowEnd; i++) {
+            locations.addArray().add(longitudes[i]).add(latitudes[i]);
+            sources.add(i - rowStart);
+        }
+        for (int j = columnStart; j < columnEnd; j++) {
+            if (!diagonal) {
+                locations.addArray().add(longitudes[j]).add(latitudes[j]);
+            }
+            destinations.add(diagonal ? j - columnStart : rows + j - columnStart);
+        }
+        body.putArray("metrics").add("distance");
+        body.put("units", "km");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String response = restTemplate.postForObject(
+            matrixUrl, new HttpEntity<>(objectMapper.writeValueAsString(body), headers), String.class);
+        if (response == null) {
+            throw new RuntimeException("Failed to get matrix response from OpenStreetMap");
+        }
+
+        JsonNode distances = objectMapper.readTree(response).get("distances");
+        if (distances == null || !distances.isArray() || distances.size() != rows) {
+            throw new RuntimeException("Unable to extract distance matrix from OpenStreetMap response");
+        }
+        double[] block = new double[rows * columns];
+        for (int i = 0; i < rows; i++) {
+            JsonNode row = distances.get(i);
+            if (row == null || row.size() != columns) {
+                throw new RuntimeException("Unable to extract distance matrix from OpenStreetMap response");
+            }
+            for (int j = 0; j < columns; j++) {
+                JsonNode value = row.get(j);
+                if (value == null || value.isNull()) {
+                    // ORS возвращает null для недостижимых пар
+                    block[i * columns + j] = GeoMath.haversineKm(latitudes[rowStart + i], longitudes[rowStart + i],
+                        latitudes[columnStart + j], longitudes[columnStart + j]);
+                } else {
+                    block[i * columns + j] = value.asDouble();
+                }
+            }
+        }
+        return block;
+    }
+
     private BigDecimal extractDistanceFromResponse(JsonNode jsonNode) {
         JsonNode features = jsonNode.get("features");
         if (features != null && features.isArray() && features.size() > 0) {
@@ -68,21 +200,8 @@ public class OpenStreetMapServiceImpl implements OpenStreetMapService {
             BigDecimal lon1,
             BigDecimal lat2,
             BigDecimal lon2) {
-        double earthRadius = 6371.0;
-        
-        double dLat = Math.toRadians(lat2.doubleValue() - lat1.doubleValue());
-        double dLon = Math.toRadians(lon2.doubleValue() - lon1.doubleValue());
-        
-        double sinDLatHalf = Math.sin(dLat / 2);
-        double sinDLonHalf = Math.sin(dLon / 2);
-        
-        double a = sinDLatHalf * sinDLatHalf + 
-                Math.cos(Math.toRadians(lat1.doubleValue())) * 
-                Math.cos(Math.toRadians(lat2.doubleValue())) * 
-                sinDLonHalf * sinDLonHalf;
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return BigDecimal.valueOf(earthRadius * c).setScale(2, RoundingMode.HALF_UP);
+        double distanceKm = GeoMath.haversineKm(
+            lat1.doubleValue(), lon1.doubleValue(), lat2.doubleValue(), lon2.doubleValue());
+        return BigDecimal.valueOf(distanceKm).setScale(2, RoundingMode.HALF_UP);
     }
 }
\ No newline at end of file
@@ -4,25 +4,52 @@ import com.example.couriermanagement.dto.request.RouteCalculationRequest;
 import com.example.couriermanagement.dto.request.RoutePoint;
 import com.example.couriermanagement.dto.response.RouteCalculationResponse;
 import com.example.couriermanagement.dto.response.SuggestedTime;
+import com.example.couriermanagement.geo.DistanceMatrix;
+import com.example.couriermanagement.geo.GeoMath;
+import com.example.couriermanagement.routing.StopSequenceOptimizer;
+import com.example.couriermanagement.service.CourierScheduleService;
 import com.example.couriermanagement.service.RouteService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 
 @Service
 public class RouteServiceImpl implements RouteService {
+
+    // рекомендуемое время подбирается в рабочем дне курьера
+    private static final LocalTime WORKDAY_START = LocalTime.of(9, 0);
+    private static final LocalTime WORKDAY_END = LocalTime.of(18, 0);
     
     private final Random random = new Random();
+    private final Duration defaultTimeBudget;
+    private final int maxOptimizedPoints;
+    private final CourierScheduleService courierScheduleService;
+
+    public RouteServiceImpl(
+            @Value("${routing.optimizer.time-budget:300ms}") Duration defaultTimeBudget,
+            @Value("${routing.optimizer.max-points:1000}") int maxOptimizedPoints,
+            CourierScheduleService courierScheduleService) {
+        this.defaultTimeBudget = defaultTimeBudget;
+        this.maxOptimizedPoints = maxOptimizedPoints;
+        this.courierScheduleService = courierScheduleService;
+    }
     
     @Override
     public RouteCalculationResponse calculateRoute(RouteCalculationRequest request) {
         if (request.getPoints().size() < 2) {
             throw new IllegalArgumentException("Маршрут должен содержать минимум 2 точки");
         }
+        if (Boolean.TRUE.equals(request.getOptimize())) {
+            return calculateOptimizedRoute(request);
+        }
 
         BigDecimal totalDistance = BigDecimal.ZERO;
         
@@ -41,6 +68,47 @@ public class RouteServiceImpl implements RouteService {
             totalDistance = totalDistance.add(BigDecimal.valueOf(distance));
         }
 
+        return buildResponse(totalDistance, request).build();
+    }
+
+    private RouteCalculationResponse calculateOptimizedRoute(RouteCalculationRequest request) {
+        List<RoutePoint> points = request.getPoints();
+        // матрица расстояний растет квадратично от числа точек
+        if (points.size() > maxOptimizedPoints) {
+            throw new IllegalArgumentException("Оптимизировать можно маршрут не более чем из " + maxOptimizedPoints + " точек");
+        }
+        double[] latitudes = new double[points.size()];
+        double[] longitudes = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            latitudes[i] = points.get(i).getLatitude().doubleValue();
+            longitudes[i] = points.get(i).getLongitude().doubleValue();
+        }
+        DistanceMatrix matrix = GeoMath.haversineMatrixKm(latitudes, longitudes);
+
+        Duration budget = request.getTimeBudgetMs() != null
+            ? Duration.ofMillis(request.getTimeBudgetMs())
+            : defaultTimeBudget;
+        int[] order = StopSequenceOptimizer.optimize(
+            matrix,
+            !Boolean.FALSE.equals(request.getFixedStart()),
+            Boolean.TRUE.equals(request.getFixedEnd()),
+            budget
+        );
+
+        int[] original = new int[points.size()];
+        Arrays.setAll(original, i -> i);
+        BigDecimal originalDistance = BigDecimal.valueOf(StopSequenceOptimizer.pathLength(matrix, original));
+        BigDecimal optimizedDistance = BigDecimal.valueOf(StopSequenceOptimizer.pathLength(matrix, order));
+
+        return buildResponse(optimizedDistance, request)
+                .originalDistanceKm(originalDistance.setScale(2, RoundingMode.HALF_UP))
+                .optimizedDistanceKm(optimizedDistance.setScale(2, RoundingMode.HALF_UP))
+                .order(Arrays.stream(order).boxed().toList())
+                .build();
+    }
+
+    private RouteCalculationResponse.RouteCalculationResponseBuilder buildResponse(BigDecimal totalDistance,
+                                                                                  RouteCalculationRequest request) {
         double averageSpeedKmh = 30.0;
         double durationHours = totalDistance.doubleValue() / averageSpeedKmh;
         int durationMinutes = (int) (durationHours * 60);
@@ -48,34 +116,35 @@ public class RouteServiceImpl implements RouteService {
         double bufferMultiplier = 1.0 + (random.nextDouble() * 0.1 + 0.2); // Random between 0.2 and 0.3
         int totalDurationMinutes = (int) (durationMinutes * bufferMultiplier);
 
-        LocalTime suggestedStart = LocalTime.of(9, 0);
-        LocalTime suggestedEnd = suggestedStart.plusMinutes(totalDurationMinutes);
-        
         return RouteCalculationResponse.builder()
                 .distanceKm(totalDistance.setScale(2, RoundingMode.HALF_UP))
                 .durationMinutes(totalDurationMinutes)
-                .suggestedTime(SuggestedTime.builder()
-                        .start(suggestedStart)
-                        .end(suggestedEnd)
-                        .build())
-                .build();
+                .suggestedTime(suggestTime(request, totalDurationMinutes));
+    }
+
+    /**
+     * Earliest slot of the route's duration that the courier has free on the date, or the start
+     * of the working day when no courier is given.
+     */
+    private SuggestedTime suggestTime(RouteCalculationRequest request, int durationMinutes) {
+        if (request.getCourierId() == null || request.getDeliveryDate() == null) {
+            return SuggestedTime.builder()
+                    .start(WORKDAY_START)
+                    .end(WORKDAY_START.plusMinutes(durationMinutes))
+                    .build();
+        }
+        Optional<LocalTime> start = courierScheduleService.earliestSlot(
+            request.getCourierId(), request.getDeliveryDate(), WORKDAY_START, WORKDAY_END,
+            Duration.ofMinutes(durationMinutes));
+        return start.map(time -> SuggestedTime.builder()
+                    .start(time)
+                    .end(time.plusMinutes(durationMinutes))
+                    .build())
+                .orElseThrow(() -> new IllegalArgumentException("У курьера нет свободного окна на "
+                    + durationMinutes + " мин " + request.getDeliveryDate() + " с " + WORKDAY_START + " до " + WORKDAY_END));
     }
 
     private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        double radius = 6371.0;
-        
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        
-        double sinDLatHalf = Math.sin(dLat / 2);
-        double sinDLonHalf = Math.sin(dLon / 2);
-        
-        double a = sinDLatHalf * sinDLatHalf + 
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * 
-                sinDLonHalf * sinDLonHalf;
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return radius * c;
+        return GeoMath.haversineKm(lat1, lon1, lat2, lon2);
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.dto.response.NearbyPointDto;
+import com.example.couriermanagement.geo.PointGrid;
+import com.example.couriermanagement.repository.DeliveryPointLocation;
+import com.example.couriermanagement.repository.DeliveryPointRepository;
+import com.example.couriermanagement.service.SpatialIndexService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Keeps one {@link PointGrid} per delivery date. A date is loaded from the database on its first
+ * query and then follows committed point changes, so queries never touch the database.
+ */
+@Service
+public class SpatialIndexServiceImpl implements SpatialIndexService {
+
+    private static final int MAX_NEAREST = 1000;
+
+    private final DeliveryPointRepository deliveryPointRepository;
+    private final TransactionalCache<LocalDate, DayIndex> days;
+
+    public SpatialIndexServiceImpl(
+            DeliveryPointRepository deliveryPointRepository,
+            @Value("${spatial-index.cell-degrees:0.01}") double cellDegrees,
+            @Value("${spatial-index.max-days:30}") int maxDays) {
+        this.deliveryPointRepository = deliveryPointRepository;
+        this.days = new TransactionalCache<>(() -> new DayIndex(new PointGrid(cellDegrees)), maxDays);
+    }
+
+    @Override
+    public List<NearbyPointDto> findNearest(LocalDate date, double latitude, double longitude, int limit) {
+        if (limit < 1 || limit > MAX_NEAREST) {
+            throw new IllegalArgumentException("Количество точек должно быть от 1 до " + MAX_NEAREST);
+        }
+        return query(date, grid -> grid.nearest(latitude, longitude, limit));
+    }
+
+    @Override
+    public List<NearbyPointDto> findWithinRadius(LocalDate date, double latitude, double longitude, double radiusKm) {
+        if (!(radiusKm > 0)) {
+            throw new IllegalArgumentException("Радиус должен быть больше нуля");
+        }
+        return query(date, grid -> grid.withinRadius(latitude, longitude, radiusKm));
+    }
+
+    @Override
+    public List<NearbyPointDto> findInBoundingBox(LocalDate date, double minLatitude, double minLongitude,
+                                                  double maxLatitude, double maxLongitude) {
+        return query(date, grid -> grid.inBoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude));
+    }
+
+    @Override
+    public void pointSaved(Long pointId, Long deliveryId, LocalDate date, double latitude, double longitude) {
+        TransactionalCache.afterCommit(() -> {
+            // дата доставки могла смениться, поэтому точка сначала убирается из всех дней
+            removeEverywhere(pointId);
+            DayIndex day = days.get(date);
+            if (day != null) {
+                day.lock.writeLock().lock();
+                try {
+                    day.grid.put(pointId, deliveryId, latitude, longitude);
+                } finally {
+                    day.lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void pointRemoved(Long pointId) {
+        TransactionalCache.afterCommit(() -> removeEverywhere(pointId));
+    }
+
+    private List<NearbyPointDto> query(LocalDate date, Function<PointGrid, List<PointGrid.Hit>> search) {
+        if (date == null) {
+            throw new IllegalArgumentException("Дата обязательна");
+        }
+        DayIndex day = days.loaded(List.of(date), missing -> missing.forEach(this::load)).get(date);
+        List<PointGrid.Hit> hits;
+        day.lock.readLock().lock();
+        try {
+            hits = search.apply(day.grid);
+        } finally {
+            day.lock.readLock().unlock();
+        }
+        return hits.stream().map(SpatialIndexServiceImpl::toDto).toList();
+    }
+
+    /**
+     * Loads under the write lock: changes committed meanwhile wait for it and are applied on top.
+     */
+    private void load(LocalDate date, DayIndex day) {
+        day.lock.writeLock().lock();
+        try {
+            if (!day.loaded) {
+                day.grid.clear();
+                for (DeliveryPointLocation location : deliveryPointRepository.findLocationsByDeliveryDate(date)) {
+                    day.grid.put(location.pointId(), location.deliveryId(),
+                        location.latitude().doubleValue(), location.longitude().doubleValue());
+                }
+                day.loaded = true;
+            }
+        } finally {
+            day.lock.writeLock().unlock();
+        }
+    }
+
+    private void removeEverywhere(Long pointId) {
+        for (DayIndex day : days.values()) {
+            day.lock.writeLock().lock();
+            try {
+                day.grid.remove(pointId);
+            } finally {
+                day.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static NearbyPointDto toDto(PointGrid.Hit hit) {
+        return NearbyPointDto.builder()
+            .pointId(hit.pointId())
+            .deliveryId(hit.deliveryId())
+            .latitude(BigDecimal.valueOf(hit.latitude()))
+            .longitude(BigDecimal.valueOf(hit.longitude()))
+            .distanceKm(Double.isNaN(hit.distanceKm()) ? null : hit.distanceKm())
+            .build();
+    }
+
+    private static final class DayIndex extends TransactionalCache.Entry {
+        private final PointGrid grid;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private DayIndex(PointGrid grid) {
+            this.grid = grid;
+        }
+    }
+}
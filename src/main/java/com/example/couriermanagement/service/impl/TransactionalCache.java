@@ -0,0 +1,202 @@
+package com.example.couriermanagement.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.*;
+
+/**
+ * In-memory entries loaded from the database on first use and kept in step with committed changes,
+ * with at most {@code maxEntries} of them kept by last access. Changes made by a transaction are
+ * collected while it runs and applied after it commits; until then the transaction sees them only
+ * through an overlay laid over the entry for the duration of a query.
+ */
+final class TransactionalCache<K, V extends TransactionalCache.Entry> {
+
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+    private final Supplier<V> factory;
+    private final int maxEntries;
+
+    TransactionalCache(Supplier<V> factory, int maxEntries) {
+        this.factory = factory;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the entries of the keys, creating empty ones. Those not loaded yet are passed to
+     * {@code load} together; afterwards the least recently used entries beyond the limit are evicted.
+     */
+    Map<K, V> loaded(Collection<K> keys, Consumer<Map<K, V>> load) {
+        Map<K, V> result = new HashMap<>();
+        Map<K, V> missing = new HashMap<>();
+        long now = System.nanoTime();
+        for (K key : keys) {
+            V entry = entries.computeIfAbsent(key, k -> factory.get());
+            entry.lastAccess = now;
+            result.put(key, entry);
+            if (!entry.loaded) {
+                missing.put(key, entry);
+            }
+        }
+        if (!missing.isEmpty()) {
+            load.accept(missing);
+            missing.forEach(this::forgetOnRollback);
+            evictIfNeeded(result.values());
+        }
+        return result;
+    }
+
+    V get(K key) {
+        return entries.get(key);
+    }
+
+    Collection<V> values() {
+        return entries.values();
+    }
+
+    void forEach(BiConsumer<K, V> action) {
+        entries.forEach(action);
+    }
+
+    void remove(K key) {
+        entries.remove(key);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Inside a transaction the load may see uncommitted rows, so the entry is dropped if it rolls back.
+     */
+    private void forgetOnRollback(K key, V entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    entries.remove(key, entry);
+                }
+            }
+        });
+    }
+
+    private void evictIfNeeded(Collection<V> keep) {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        List<Map.Entry<K, V>> candidates = entries.entrySet().stream()
+            .filter(entry -> !keep.contains(entry.getValue()))
+            .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+            .toList();
+        for (Map.Entry<K, V> entry : candidates) {
+            if (entries.size() <= maxEntries) {
+                return;
+            }
+            entries.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Returns the changes the current transaction collected under {@code resourceKey}, or
+     * {@code null} when it has none. With {@code create} set, the collection is created on first
+     * use and handed to {@code onCommit} after the transaction commits.
+     */
+    static <P> P pending(Object resourceKey, boolean create, Supplier<P> factory, Consumer<P> onCommit) {
+        return pending(resourceKey, create, factory, pending -> { }, onCommit);
+    }
+
+    /**
+     * Like {@link #pending(Object, boolean, Supplier, Consumer)}, also handing the collection to
+     * {@code beforeCommit} while the transaction still runs. Whatever {@code onCommit} needs from
+     * the database is read there: after the commit the transaction's connection is still held, and
+     * a read in a new transaction would need a second one from the pool.
+     */
+    @SuppressWarnings("unchecked")
+    static <P> P pending(Object resourceKey, boolean create, Supplier<P> factory,
+                         Consumer<P> beforeCommit, Consumer<P> onCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        P pending = (P) TransactionSynchronizationManager.getResource(resourceKey);
+        if (pending != null || !create) {
+            return pending;
+        }
+        P created = factory.get();
+        TransactionSynchronizationManager.bindResource(resourceKey, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                beforeCommit.accept(created);
+            }
+
+            @Override
+            public void afterCommit() {
+                onCommit.accept(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(resourceKey);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Runs the action after the current transaction commits, or at once outside a transaction.
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Takes the elements of {@code replacedIds} out of a cached structure, puts {@code current} in,
+     * runs the query and restores the structure.
+     */
+    static <E, T> T withOverlay(Collection<Long> replacedIds, Collection<E> current, LongFunction<E> remove,
+                                Consumer<E> put, ToLongFunction<E> idOf, Supplier<T> query) {
+        if (replacedIds.isEmpty() && current.isEmpty()) {
+            return query.get();
+        }
+        List<E> removed = new ArrayList<>();
+        List<Long> added = new ArrayList<>();
+        try {
+            for (Long id : replacedIds) {
+                E element = remove.apply(id);
+                if (element != null) {
+                    removed.add(element);
+                }
+            }
+            for (E element : current) {
+                put.accept(element);
+                added.add(idOf.applyAsLong(element));
+            }
+            return query.get();
+        } finally {
+            added.forEach(remove::apply);
+            removed.forEach(put);
+        }
+    }
+
+    /**
+     * State shared by every cached entry; the entry's data is guarded by its own lock.
+     */
+    abstract static class Entry {
+        volatile boolean loaded;
+        volatile long lastAccess;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.repository.VehicleRepository;
+import com.example.couriermanagement.service.VehicleBookingLockService;
+import com.example.couriermanagement.service.VehicleLoadService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Two locks per vehicle and date, both held until the transaction ends. The in-process one is a
+ * stripe of {@code planning.booking-locks.stripes} reentrant locks, so bookings of one vehicle and
+ * date wait for each other without a connection round trip while other vehicles and dates proceed
+ * in parallel. The database one is the row of {@code vehicle_day_reservations} locked with
+ * {@code SELECT ... FOR UPDATE}, which orders bookings made by different application instances.
+ * <p>
+ * Each booking increments the row's revision. A revision other than the one this instance
+ * committed last means another instance booked the vehicle, and its cached load timeline is dropped.
+ * <p>
+ * Stripes are taken in ascending index order across all calls of one transaction, so no two
+ * transactions can wait for each other. A later call that needs a stripe below the highest one
+ * already held takes it only if it is free and otherwise fails at once instead of waiting; callers
+ * that know all their vehicles and dates upfront pass them in one call to avoid that.
+ */
+@Service
+public class VehicleBookingLockServiceImpl implements VehicleBookingLockService {
+
+    private final VehicleRepository vehicleRepository;
+    private final VehicleLoadService vehicleLoadService;
+    private final ReentrantLock[] stripes;
+    private final long timeoutNanos;
+    private final int maxKnownRevisions;
+    // ревизии строк, закоммиченные этим экземпляром
+    private final Map<VehicleDay, Long> knownRevisions = new ConcurrentHashMap<>();
+    // ключ ресурса транзакции с захваченными в ней блокировками
+    private final Object heldResourceKey = new Object();
+
+    public VehicleBookingLockServiceImpl(
+            VehicleRepository vehicleRepository,
+            VehicleLoadService vehicleLoadService,
+            @Value("${planning.booking-locks.stripes:256}") int stripes,
+            @Value("${planning.booking-locks.timeout:10s}") Duration timeout,
+            @Value("${planning.booking-locks.max-known-revisions:10000}") int maxKnownRevisions) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Число блокировок должно быть положительным");
+        }
+        this.vehicleRepository = vehicleRepository;
+        this.vehicleLoadService = vehicleLoadService;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutNanos = timeout.toNanos();
+        this.maxKnownRevisions = maxKnownRevisions;
+    }
+
+    @Override
+    public void lock(Long vehicleId, LocalDate date) {
+        lock(Map.of(date, List.of(vehicleId)));
+    }
+
+    @Override
+    public void lock(Map<LocalDate, ? extends Collection<Long>> vehicleIdsByDate) {
+        Held held = held();
+        SortedSet<VehicleDay> keys = new TreeSet<>(Comparator.comparingInt(this::stripe)
+            .thenComparing(VehicleDay::date)
+            .thenComparing(VehicleDay::vehicleId));
+        vehicleIdsByDate.forEach((date, vehicleIds) -> {
+            for (Long vehicleId : vehicleIds) {
+                VehicleDay key = new VehicleDay(vehicleId, date);
+                if (!held.revisions.containsKey(key)) {
+                    keys.add(key);
+                }
+            }
+        });
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        // одинаковый порядок захвата во всех потоках исключает взаимную блокировку
+        for (VehicleDay key : keys) {
+            int index = stripe(key);
+            if (held.stripes.contains(index)) {
+                continue;
+            }
+            if (!held.stripes.isEmpty() && index < held.stripes.last()) {
+                // ожидание против порядка могло бы замкнуть цикл с другой транзакцией
+                acquireNow(stripes[index]);
+            } else {
+                acquire(stripes[index]);
+            }
+            held.stripes.add(index);
+        }
+        for (VehicleDay key : keys) {
+            held.revisions.put(key, reserve(key));
+        }
+    }
+
+    /**
+     * Locks the reservation row, creating it first if this is the first booking of the vehicle on
+     * the date, and returns the revision the row will have after commit. The row is created in the
+     * same transaction, so a booking never needs a second connection; within one instance the
+     * stripe makes the creation exclusive, and an instance that loses the race to another one fails
+     * on the primary key and asks to repeat the request.
+     */
+    private long reserve(VehicleDay key) {
+        Long revision = vehicleRepository.lockReservation(key.vehicleId(), key.date());
+        if (revision == null) {
+            try {
+                vehicleRepository.createReservation(key.vehicleId(), key.date());
+            } catch (DataIntegrityViolationException e) {
+                throw new CannotAcquireLockException("Машина занята другим бронированием, повторите запрос", e);
+            }
+            revision = vehicleRepository.lockReservation(key.vehicleId(), key.date());
+            if (revision == null) {
+                throw new IllegalStateException("Не удалось создать бронь машины " + key.vehicleId() + " на " + key.date());
+            }
+        }
+        if (!revision.equals(knownRevisions.get(key))) {
+            // машину на эту дату бронировал другой экземпляр или этот о ней еще не знает
+            vehicleLoadService.forget(key.vehicleId(), key.date());
+        }
+        vehicleRepository.bumpReservation(key.vehicleId(), key.date());
+        return revision + 1;
+    }
+
+    private void acquire(ReentrantLock lock) {
+        try {
+            if (!lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new CannotAcquireLockException("Машина занята другим бронированием, повторите запрос");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Ожидание брони машины прервано", e);
+        }
+    }
+
+    private void acquireNow(ReentrantLock lock) {
+        if (!lock.tryLock()) {
+            throw new CannotAcquireLockException("Машина занята другим бронированием, повторите запрос");
+        }
+    }
+
+    private int stripe(VehicleDay key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    private Held held() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Бронирование машины возможно только в транзакции");
+        }
+        Held held = (Held) TransactionSynchronizationManager.getResource(heldResourceKey);
+        if (held != null) {
+            return held;
+        }
+        Held created = new Held();
+        TransactionSynchronizationManager.bindResource(heldResourceKey, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (knownRevisions.size() + created.revisions.size() > maxKnownRevisions) {
+                    // забытая ревизия стоит только одной перезагрузки графика
+                    knownRevisions.clear();
+                }
+                knownRevisions.putAll(created.revisions);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(heldResourceKey);
+                // графики загрузки обновляются в afterCommit, до снятия блокировок
+                for (int index : created.stripes) {
+                    stripes[index].unlock();
+                }
+            }
+        });
+        return created;
+    }
+
+    private record VehicleDay(Long vehicleId, LocalDate date) {
+    }
+
+    private static final class Held {
+        private final SortedSet<Integer> stripes = new TreeSet<>();
+        private final Map<VehicleDay, Long> revisions = new HashMap<>();
+    }
+}
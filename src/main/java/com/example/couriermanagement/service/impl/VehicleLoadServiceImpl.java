@@ -0,0 +1,452 @@
+package com.example.couriermanagement.service.impl;
+
+import com.example.couriermanagement.dto.response.LoadTimelineCheck;
+import com.example.couriermanagement.entity.DeliveryStatus;
+import com.example.couriermanagement.measure.FixedPoint;
+import com.example.couriermanagement.planning.LoadTimeline;
+import com.example.couriermanagement.repository.DeliveryLoad;
+import com.example.couriermanagement.repository.DeliveryRepository;
+import com.example.couriermanagement.service.VehicleLoadService;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps one {@link LoadTimeline} per vehicle and date. A timeline is loaded from the database on
+ * its first query and then follows committed delivery changes, so a capacity check is a range-max
+ * query in memory. Deliveries changed by the current transaction are not committed yet; they are
+ * re-read from the database and laid over the timeline for the duration of a query, and read once
+ * more just before the commit to be applied after it.
+ */
+@Service
+public class VehicleLoadServiceImpl implements VehicleLoadService {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleLoadServiceImpl.class);
+
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    private final DeliveryRepository deliveryRepository;
+    private final EntityManager entityManager;
+    private final TransactionalCache<TimelineKey, VehicleDay> timelines;
+    private final Map<Long, TimelineKey> keyByDelivery = new ConcurrentHashMap<>();
+    // ключ ресурса транзакции со списком измененных в ней доставок
+    private final Object pendingResourceKey = new Object();
+
+    public VehicleLoadServiceImpl(
+            DeliveryRepository deliveryRepository,
+            EntityManager entityManager,
+            @Value("${vehicle-load.max-timelines:10000}") int maxTimelines) {
+        this.deliveryRepository = deliveryRepository;
+        this.entityManager = entityManager;
+        this.timelines = new TransactionalCache<>(VehicleDay::new, maxTimelines);
+    }
+
+    @Override
+    public LoadTimeline.Peak peakLoad(Long vehicleId, LocalDate date, LocalTime start, LocalTime end,
+                                      Long excludeDeliveryId) {
+        return peaks(List.of(vehicleId), date, start, end, excludeDeliveryId).get(vehicleId);
+    }
+
+    @Override
+    public Map<Long, LoadTimeline.Peak> peakLoads(Collection<Long> vehicleIds, LocalDate date,
+                                                  LocalTime start, LocalTime end) {
+        return peaks(vehicleIds, date, start, end, null);
+    }
+
+    @Override
+    public void deliveryChanged(Long deliveryId) {
+        if (deliveryId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(Set.of(deliveryId), loadsById(deliveryRepository.findLoadsByIds(Set.of(deliveryId))));
+            return;
+        }
+        pendingChanges(true).deliveryIds.add(deliveryId);
+    }
+
+    @Override
+    public void productChanged() {
+        TransactionalCache.afterCommit(this::clear);
+    }
+
+    @Override
+    public void forget(Long vehicleId, LocalDate date) {
+        timelines.remove(new TimelineKey(vehicleId, date));
+    }
+
+    @Override
+    public int rebuild() {
+        Map<LocalDate, Map<Long, VehicleDay>> byDate = loadedByDate();
+        byDate.forEach(this::load);
+        int rebuilt = byDate.values().stream().mapToInt(Map::size).sum();
+        log.info("Rebuilt {} vehicle load timelines", rebuilt);
+        return rebuilt;
+    }
+
+    @Override
+    public LoadTimelineCheck checkConsistency(boolean repair) {
+        Set<Long> pending = pendingDeliveries(false);
+        List<String> mismatches = new ArrayList<>();
+        int checked = 0;
+        int mismatched = 0;
+        int repaired = 0;
+        for (Map.Entry<LocalDate, Map<Long, VehicleDay>> dateEntry : loadedByDate().entrySet()) {
+            LocalDate date = dateEntry.getKey();
+            Map<Long, VehicleDay> days = dateEntry.getValue();
+            Map<Long, Long> versions = versions(days);
+            Map<Long, List<LoadTimeline.Booking>> expected = bookingsByVehicle(
+                deliveryRepository.findActiveLoadsByDateAndVehicles(date, days.keySet()));
+
+            for (Map.Entry<Long, VehicleDay> dayEntry : days.entrySet()) {
+                Long vehicleId = dayEntry.getKey();
+                VehicleDay day = dayEntry.getValue();
+                day.lock.lock();
+                try {
+                    // изменение, закоммиченное во время сверки, не считается расхождением
+                    if (day.version != versions.get(vehicleId) || !day.loaded) {
+                        continue;
+                    }
+                    checked++;
+                    List<String> differences = compare(day.timeline,
+                        expected.getOrDefault(vehicleId, List.of()), pending);
+                    if (differences.isEmpty()) {
+                        continue;
+                    }
+                    mismatched++;
+                    for (String difference : differences) {
+                        if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                            mismatches.add(String.format("Машина %d, %s: %s", vehicleId, date, difference));
+                        }
+                    }
+                    if (repair) {
+                        install(new TimelineKey(vehicleId, date), day, expected.getOrDefault(vehicleId, List.of()));
+                        repaired++;
+                    }
+                } finally {
+                    day.lock.unlock();
+                }
+            }
+        }
+        if (mismatched > 0) {
+            log.warn("Vehicle load timelines differ from database: {} of {}, repaired {}", mismatched, checked, repaired);
+        }
+        return LoadTimelineCheck.builder()
+            .checkedTimelines(checked)
+            .mismatchedTimelines(mismatched)
+            .repairedTimelines(repaired)
+            .mismatches(mismatches)
+            .build();
+    }
+
+    private Map<Long, LoadTimeline.Peak> peaks(Collection<Long> vehicleIds, LocalDate date, LocalTime start,
+                                               LocalTime end, Long excludeDeliveryId) {
+        if (date == null || start == null || end == null) {
+            throw new IllegalArgumentException("Дата и время обязательны");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // изменения доходят до слушателя при сбросе, как и перед JPQL-запросом
+            entityManager.flush();
+        }
+        Map<Long, VehicleDay> days = loadedDays(vehicleIds, date);
+        Set<Long> pending = pendingDeliveries(false);
+        Map<Long, List<LoadTimeline.Booking>> overlay = pendingBookings(pending, date);
+        Set<Long> replaced = pending;
+        if (excludeDeliveryId != null) {
+            replaced = new HashSet<>(pending);
+            replaced.add(excludeDeliveryId);
+        }
+
+        int startMinute = LoadTimeline.startMinute(start);
+        int endMinute = LoadTimeline.endMinute(end);
+        Map<Long, LoadTimeline.Peak> peaks = new HashMap<>();
+        for (Map.Entry<Long, VehicleDay> entry : days.entrySet()) {
+            VehicleDay day = entry.getValue();
+            List<LoadTimeline.Booking> current = overlay.getOrDefault(entry.getKey(), List.of()).stream()
+                .filter(booking -> excludeDeliveryId == null || booking.deliveryId() != excludeDeliveryId)
+                .toList();
+            day.lock.lock();
+            try {
+                peaks.put(entry.getKey(), TransactionalCache.withOverlay(replaced, current,
+                    day.timeline::remove, day.timeline::put, LoadTimeline.Booking::deliveryId,
+                    () -> day.timeline.peak(startMinute, endMinute)));
+            } finally {
+                day.lock.unlock();
+            }
+        }
+        return peaks;
+    }
+
+    @Override
+    public Map<Long, List<LoadTimeline.Booking>> bookings(Collection<Long> vehicleIds, LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Дата обязательна");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+        Map<Long, VehicleDay> days = loadedDays(vehicleIds, date);
+        Set<Long> pending = pendingDeliveries(false);
+        Map<Long, List<LoadTimeline.Booking>> overlay = pendingBookings(pending, date);
+
+        Map<Long, List<LoadTimeline.Booking>> result = new HashMap<>();
+        for (Map.Entry<Long, VehicleDay> entry : days.entrySet()) {
+            List<LoadTimeline.Booking> bookings = new ArrayList<>();
+            VehicleDay day = entry.getValue();
+            day.lock.lock();
+            try {
+                for (LoadTimeline.Booking booking : day.timeline.bookings()) {
+                    if (!pending.contains(booking.deliveryId())) {
+                        bookings.add(booking);
+                    }
+                }
+            } finally {
+                day.lock.unlock();
+            }
+            bookings.addAll(overlay.getOrDefault(entry.getKey(), List.of()));
+            result.put(entry.getKey(), bookings);
+        }
+        return result;
+    }
+
+    private Map<Long, List<LoadTimeline.Booking>> pendingBookings(Set<Long> pending, LocalDate date) {
+        if (pending.isEmpty()) {
+            return Map.of();
+        }
+        return bookingsByVehicle(deliveryRepository.findLoadsByIds(pending).stream()
+            .filter(load -> date.equals(load.deliveryDate()) && isActive(load))
+            .toList());
+    }
+
+    private Map<Long, VehicleDay> loadedDays(Collection<Long> vehicleIds, LocalDate date) {
+        List<TimelineKey> keys = vehicleIds.stream().map(vehicleId -> new TimelineKey(vehicleId, date)).toList();
+        Map<Long, VehicleDay> days = new HashMap<>();
+        timelines.loaded(keys, missing -> load(date, byVehicle(missing)))
+            .forEach((key, day) -> days.put(key.vehicleId(), day));
+        return days;
+    }
+
+    /**
+     * Loads the timelines of several vehicles with one query. A timeline changed by a commit while
+     * the query ran is reloaded on its own under its lock, so that change is not lost.
+     */
+    private void load(LocalDate date, Map<Long, VehicleDay> days) {
+        Map<Long, Long> versions = versions(days);
+        Map<Long, List<LoadTimeline.Booking>> bookings = bookingsByVehicle(
+            deliveryRepository.findActiveLoadsByDateAndVehicles(date, days.keySet()));
+        for (Map.Entry<Long, VehicleDay> entry : days.entrySet()) {
+            Long vehicleId = entry.getKey();
+            VehicleDay day = entry.getValue();
+            TimelineKey key = new TimelineKey(vehicleId, date);
+            day.lock.lock();
+            try {
+                if (day.version == versions.get(vehicleId)) {
+                    install(key, day, bookings.getOrDefault(vehicleId, List.of()));
+                } else {
+                    install(key, day, bookingsByVehicle(deliveryRepository.findActiveLoadsByDateAndVehicles(
+                        date, List.of(vehicleId))).getOrDefault(vehicleId, List.of()));
+                }
+            } finally {
+                day.lock.unlock();
+            }
+        }
+    }
+
+    private void install(TimelineKey key, VehicleDay day, List<LoadTimeline.Booking> bookings) {
+        LoadTimeline timeline = new LoadTimeline();
+        for (LoadTimeline.Booking booking : bookings) {
+            timeline.put(booking);
+            keyByDelivery.put(booking.deliveryId(), key);
+        }
+        day.timeline = timeline;
+        day.loaded = true;
+        day.version++;
+    }
+
+    /**
+     * Reads the loads of the changed deliveries in the committing transaction, so that applying
+     * them after the commit needs no database access.
+     */
+    private void collectLoads(PendingChanges pending) {
+        // сброс может добавить доставки в список, поэтому идет до чтения
+        entityManager.flush();
+        pending.loads.putAll(loadsById(deliveryRepository.findLoadsByIds(List.copyOf(pending.deliveryIds))));
+    }
+
+    /**
+     * Applies committed changes: every delivery leaves its previous timeline and joins the one of
+     * its current vehicle and date if that timeline is loaded and the delivery is still active.
+     */
+    private void refresh(Set<Long> deliveryIds, Map<Long, DeliveryLoad> loads) {
+        for (Long deliveryId : deliveryIds) {
+            TimelineKey previous = keyByDelivery.remove(deliveryId);
+            if (previous != null) {
+                VehicleDay day = timelines.get(previous);
+                if (day != null) {
+                    day.lock.lock();
+                    try {
+                        day.timeline.remove(deliveryId);
+                        day.version++;
+                    } finally {
+                        day.lock.unlock();
+                    }
+                }
+            }
+            DeliveryLoad load = loads.get(deliveryId);
+            if (load == null || !isActive(load)) {
+                continue;
+            }
+            TimelineKey key = new TimelineKey(load.vehicleId(), load.deliveryDate());
+            VehicleDay day = timelines.get(key);
+            if (day != null) {
+                day.lock.lock();
+                try {
+                    // незагруженный график увидит изменение при загрузке, версия нужна только ей
+                    if (day.loaded) {
+                        day.timeline.put(toBooking(load));
+                        keyByDelivery.put(deliveryId, key);
+                    }
+                    day.version++;
+                } finally {
+                    day.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private List<String> compare(LoadTimeline timeline, List<LoadTimeline.Booking> expected, Set<Long> pending) {
+        List<String> differences = new ArrayList<>();
+        Map<Long, LoadTimeline.Booking> actual = new HashMap<>();
+        for (LoadTimeline.Booking booking : timeline.bookings()) {
+            actual.put(booking.deliveryId(), booking);
+        }
+        for (LoadTimeline.Booking booking : expected) {
+            if (pending.contains(booking.deliveryId())) {
+                continue;
+            }
+            LoadTimeline.Booking cached = actual.remove(booking.deliveryId());
+            if (cached == null) {
+                differences.add("нет доставки " + booking.deliveryId());
+            } else if (!sameBooking(cached, booking)) {
+                differences.add("доставка " + booking.deliveryId() + " устарела: " + cached + " вместо " + booking);
+            }
+        }
+        for (Long deliveryId : actual.keySet()) {
+            if (!pending.contains(deliveryId)) {
+                differences.add("лишняя доставка " + deliveryId);
+            }
+        }
+        List<Integer> minutes = timeline.verify();
+        if (!minutes.isEmpty()) {
+            differences.add("дерево расходится с окнами доставок в " + minutes.size() + " минутах");
+        }
+        return differences;
+    }
+
+    private static boolean sameBooking(LoadTimeline.Booking first, LoadTimeline.Booking second) {
+        return first.startMinute() == second.startMinute()
+            && first.endMinute() == second.endMinute()
+            && first.weightGrams() == second.weightGrams()
+            && first.volumeCm3() == second.volumeCm3();
+    }
+
+    private Set<Long> pendingDeliveries(boolean create) {
+        PendingChanges pending = pendingChanges(create);
+        return pending != null ? pending.deliveryIds : Set.of();
+    }
+
+    private PendingChanges pendingChanges(boolean create) {
+        return TransactionalCache.pending(pendingResourceKey, create, PendingChanges::new,
+            this::collectLoads, pending -> refresh(pending.deliveryIds, pending.loads));
+    }
+
+    private void clear() {
+        timelines.clear();
+        keyByDelivery.clear();
+    }
+
+    private Map<LocalDate, Map<Long, VehicleDay>> loadedByDate() {
+        Map<LocalDate, Map<Long, VehicleDay>> byDate = new HashMap<>();
+        timelines.forEach((key, day) -> {
+            if (day.loaded) {
+                byDate.computeIfAbsent(key.date(), date -> new HashMap<>()).put(key.vehicleId(), day);
+            }
+        });
+        return byDate;
+    }
+
+    private static Map<Long, VehicleDay> byVehicle(Map<TimelineKey, VehicleDay> days) {
+        Map<Long, VehicleDay> byVehicle = new HashMap<>();
+        days.forEach((key, day) -> byVehicle.put(key.vehicleId(), day));
+        return byVehicle;
+    }
+
+    private static Map<Long, Long> versions(Map<Long, VehicleDay> days) {
+        Map<Long, Long> versions = new HashMap<>();
+        days.forEach((vehicleId, day) -> {
+            day.lock.lock();
+            try {
+                versions.put(vehicleId, day.version);
+            } finally {
+                day.lock.unlock();
+            }
+        });
+        return versions;
+    }
+
+    private static Map<Long, DeliveryLoad> loadsById(List<DeliveryLoad> loads) {
+        Map<Long, DeliveryLoad> byId = new HashMap<>();
+        for (DeliveryLoad load : loads) {
+            byId.put(load.deliveryId(), load);
+        }
+        return byId;
+    }
+
+    private static Map<Long, List<LoadTimeline.Booking>> bookingsByVehicle(List<DeliveryLoad> loads) {
+        Map<Long, List<LoadTimeline.Booking>> bookings = new HashMap<>();
+        for (DeliveryLoad load : loads) {
+            bookings.computeIfAbsent(load.vehicleId(), id -> new ArrayList<>()).add(toBooking(load));
+        }
+        return bookings;
+    }
+
+    private static LoadTimeline.Booking toBooking(DeliveryLoad load) {
+        long weightGrams = load.weight() == null ? 0 : FixedPoint.grams(load.weight());
+        // сумма уже в см³, округляется до целых
+        long volumeCm3 = load.volumeCm3() == null ? 0 : load.volumeCm3().setScale(0, RoundingMode.HALF_UP).longValueExact();
+        return LoadTimeline.Booking.of(load.deliveryId(), load.timeStart(), load.timeEnd(), weightGrams, volumeCm3);
+    }
+
+    private static boolean isActive(DeliveryLoad load) {
+        return load.status() != DeliveryStatus.CANCELLED && load.status() != DeliveryStatus.COMPLETED;
+    }
+
+    private record TimelineKey(Long vehicleId, LocalDate date) {
+    }
+
+    /**
+     * Deliveries changed by a transaction and their loads, read just before it commits.
+     */
+    private static final class PendingChanges {
+        private final Set<Long> deliveryIds = new LinkedHashSet<>();
+        private final Map<Long, DeliveryLoad> loads = new HashMap<>();
+    }
+
+    private static final class VehicleDay extends TransactionalCache.Entry {
+        // загрузка читает базу под этой блокировкой; монитор synchronized закрепил бы виртуальный поток за несущим
+        private final ReentrantLock lock = new ReentrantLock();
+        // поля меняются под блокировкой lock
+        private LoadTimeline timeline = new LoadTimeline();
+        private long version;
+    }
+}
@@ -0,0 +1,16 @@
+--liquibase formatted sql
+
+--changeset staziss:016-create-pooled-id-sequences
+-- Hibernate берет из последовательности блок из 50 id за один запрос, поэтому вставки точек и товаров идут пачками
+CREATE SEQUENCE deliveries_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE delivery_points_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE delivery_point_products_seq START WITH 1 INCREMENT BY 50;
+
+--changeset staziss:017-align-pooled-id-sequences dbms:postgresql
+-- Новые блоки начинаются после уже выданных id; вставки в обход приложения тоже берут id из новых последовательностей
+SELECT setval('deliveries_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM deliveries));
+SELECT setval('delivery_points_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM delivery_points));
+SELECT setval('delivery_point_products_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM delivery_point_products));
+ALTER TABLE deliveries ALTER COLUMN id SET DEFAULT nextval('deliveries_seq');
+ALTER TABLE delivery_points ALTER COLUMN id SET DEFAULT nextval('delivery_points_seq');
+ALTER TABLE delivery_point_products ALTER COLUMN id SET DEFAULT nextval('delivery_point_products_seq');
@@ -0,0 +1,23 @@
+--liquibase formatted sql
+
+--changeset staziss:018-add-delivery-totals
+-- Итоги доставки хранятся в самой строке, чтобы списки не читали точки и товары
+ALTER TABLE deliveries ADD COLUMN total_weight DECIMAL(12,3) DEFAULT 0 NOT NULL;
+ALTER TABLE deliveries ADD COLUMN total_volume DECIMAL(14,6) DEFAULT 0 NOT NULL;
+ALTER TABLE deliveries ADD COLUMN points_count INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE deliveries ADD COLUMN products_count INTEGER DEFAULT 0 NOT NULL;
+
+--changeset staziss:019-backfill-delivery-totals
+UPDATE deliveries d SET
+    points_count = (SELECT COUNT(*) FROM delivery_points dp WHERE dp.delivery_id = d.id),
+    products_count = (SELECT COALESCE(SUM(dpp.quantity), 0)
+        FROM delivery_points dp JOIN delivery_point_products dpp ON dpp.delivery_point_id = dp.id
+        WHERE dp.delivery_id = d.id),
+    total_weight = (SELECT COALESCE(SUM(p.weight * dpp.quantity), 0)
+        FROM delivery_points dp JOIN delivery_point_products dpp ON dpp.delivery_point_id = dp.id
+        JOIN products p ON p.id = dpp.product_id
+        WHERE dp.delivery_id = d.id),
+    total_volume = (SELECT ROUND(COALESCE(SUM(p.length * p.width * p.height * dpp.quantity), 0) / 1000000, 6)
+        FROM delivery_points dp JOIN delivery_point_products dpp ON dpp.delivery_point_id = dp.id
+        JOIN products p ON p.id = dpp.product_id
+        WHERE dp.delivery_id = d.id);
@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset staziss:020-create-vehicle-day-reservations
+-- Строка на машину и дату блокируется SELECT ... FOR UPDATE на время бронирования вместимости,
+-- поэтому проверки загрузки одной машины на одну дату идут по очереди и между экземплярами приложения
+CREATE TABLE vehicle_day_reservations (
+    vehicle_id BIGINT NOT NULL,
+    reservation_date DATE NOT NULL,
+    revision BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (vehicle_id, reservation_date),
+    FOREIGN KEY (vehicle_id) REFERENCES vehicles(id) ON DELETE CASCADE
+);
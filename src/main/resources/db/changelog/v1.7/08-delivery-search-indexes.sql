@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset staziss:021-add-delivery-keyset-indexes
+-- Поиск доставок идет страницами по (delivery_date, time_start, id); индекс на каждый фильтр
+-- начинается с него и продолжается ключом страницы, поэтому страница читается диапазоном индекса без сортировки
+CREATE INDEX idx_deliveries_keyset ON deliveries(delivery_date, time_start, id);
+CREATE INDEX idx_deliveries_courier_keyset ON deliveries(courier_id, delivery_date, time_start, id);
+CREATE INDEX idx_deliveries_vehicle_keyset ON deliveries(vehicle_id, delivery_date, time_start, id);
+CREATE INDEX idx_deliveries_status_keyset ON deliveries(status, delivery_date, time_start, id);
+-- фильтр по товару проверяет его наличие в точках доставки только по индексу
+CREATE INDEX idx_delivery_point_products_product_point ON delivery_point_products(product_id, delivery_point_id);
+
+--changeset staziss:022-drop-delivery-indexes-covered-by-keyset
+-- их запросы обслуживают новые индексы с теми же первыми колонками
+DROP INDEX idx_deliveries_date_courier;
+DROP INDEX idx_deliveries_status;
+DROP INDEX idx_delivery_point_products_product_id;
@@ -0,0 +1,15 @@
+--liquibase formatted sql
+
+--changeset staziss:023-add-delivery-version
+-- Версия доставки растет при каждом изменении строки, ее точек и товаров; из нее строится ETag
+ALTER TABLE deliveries ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+--changeset staziss:024-create-catalog-versions
+-- Счетчик изменений справочника: условный GET списка сверяет ETag с одной строкой, не читая сам список
+CREATE TABLE catalog_versions (
+    name VARCHAR(20) PRIMARY KEY,
+    version BIGINT DEFAULT 0 NOT NULL
+);
+INSERT INTO catalog_versions (name, version) VALUES ('PRODUCTS', 0);
+INSERT INTO catalog_versions (name, version) VALUES ('VEHICLES', 0);
+INSERT INTO catalog_versions (name, version) VALUES ('USERS', 0);
@@ -0,0 +1,247 @@
+package com.example.couriermanagement.controller;
+
+import com.example.couriermanagement.dto.request.ProductRequest;
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryPoint;
+import com.example.couriermanagement.entity.DeliveryPointProduct;
+import com.example.couriermanagement.entity.DeliveryStatus;
+import com.example.couriermanagement.entity.Product;
+import com.example.couriermanagement.entity.User;
+import com.example.couriermanagement.entity.UserRole;
+import com.example.couriermanagement.entity.Vehicle;
+import com.example.couriermanagement.repository.DeliveryPointProductRepository;
+import com.example.couriermanagement.repository.DeliveryPointRepository;
+import com.example.couriermanagement.repository.DeliveryRepository;
+import com.example.couriermanagement.repository.ProductRepository;
+import com.example.couriermanagement.repository.UserRepository;
+import com.example.couriermanagement.repository.VehicleRepository;
+import com.example.couriermanagement.security.JwtUtil;
+import com.example.couriermanagement.service.OpenStreetMapService;
+import com.example.couriermanagement.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Catalog versions are bumped and forced delivery versions written only at commit, so this test does
+ * not extend the transactional {@code BaseIntegrationTest}; it removes its own rows afterwards.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml"
+    }
+)
+@AutoConfigureMockMvc(addFilters = true)
+public class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private DeliveryPointRepository deliveryPointRepository;
+
+    @Autowired
+    private DeliveryPointProductRepository deliveryPointProductRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private OpenStreetMapService openStreetMapService;
+
+    private User manager;
+    private Vehicle vehicle;
+    private Product product;
+    private Delivery delivery;
+    private DeliveryPoint point;
+    private String token;
+
+    @BeforeEach
+    public void setUp() {
+        manager = userRepository.save(
+            User.builder()
+                .login("etag-manager")
+                .passwordHash("-")
+                .name("Менеджер")
+                .role(UserRole.MANAGER)
+                .createdAt(LocalDateTime.now())
+                .build()
+        );
+        token = jwtUtil.generateToken(manager.getLogin(), manager.getRole().name());
+        vehicle = vehicleRepository.save(
+            Vehicle.builder()
+                .brand("Газель")
+                .licensePlate("ETAG-1")
+                .maxWeight(new BigDecimal("1000.0"))
+                .maxVolume(new BigDecimal("15.0"))
+                .build()
+        );
+        product = productRepository.save(
+            Product.builder()
+                .name("Коробка")
+                .weight(new BigDecimal("1.5"))
+                .length(new BigDecimal("10.0"))
+                .width(new BigDecimal("10.0"))
+                .height(new BigDecimal("10.0"))
+                .build()
+        );
+        delivery = deliveryRepository.save(
+            Delivery.builder()
+                .courier(manager)
+                .vehicle(vehicle)
+                .createdBy(manager)
+                .deliveryDate(LocalDate.now().plusDays(5))
+                .timeStart(LocalTime.of(9, 0))
+                .timeEnd(LocalTime.of(18, 0))
+                .status(DeliveryStatus.PLANNED)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build()
+        );
+        point = deliveryPointRepository.save(
+            DeliveryPoint.builder()
+                .delivery(delivery)
+                .sequence(1)
+                .latitude(new BigDecimal("55.7558"))
+                .longitude(new BigDecimal("37.6176"))
+                .build()
+        );
+        deliveryPointProductRepository.save(
+            DeliveryPointProduct.builder()
+                .deliveryPoint(point)
+                .product(product)
+                .quantity(2)
+                .build()
+        );
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            deliveryRepository.deleteById(delivery.getId());
+            productRepository.deleteById(product.getId());
+            vehicleRepository.deleteById(vehicle.getId());
+            userRepository.deleteById(manager.getId());
+        });
+    }
+
+    @Test
+    public void productsETagShouldChangeOnlyWhenProductsCommit() throws Exception {
+        String productsETag = eTag(getIfNoneMatch("/products", null).andExpect(status().isOk()));
+        String vehiclesETag = eTag(getIfNoneMatch("/vehicles", null).andExpect(status().isOk()));
+        getIfNoneMatch("/products", productsETag).andExpect(status().isNotModified());
+
+        // откат не меняет версию справочника
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.updateProduct(product.getId(), productRequest("2.0"));
+            status.setRollbackOnly();
+        });
+        getIfNoneMatch("/products", productsETag).andExpect(status().isNotModified());
+
+        productService.updateProduct(product.getId(), productRequest("3.0"));
+
+        String newETag = eTag(getIfNoneMatch("/products", productsETag)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.id == " + product.getId() + ")].weight").value(3.0)));
+        assertNotEquals(productsETag, newETag);
+        getIfNoneMatch("/vehicles", vehiclesETag).andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void deliveryETagShouldChangeWhenOnlyPointMoves() throws Exception {
+        String url = "/deliveries/" + delivery.getId();
+        String eTag = eTag(getIfNoneMatch(url, null).andExpect(status().isOk()));
+
+        // итоги доставки от координат не зависят, строка доставки сама по себе не меняется
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            DeliveryPoint moved = deliveryPointRepository.findById(point.getId()).orElseThrow();
+            moved.setLatitude(new BigDecimal("55.7600"));
+            deliveryPointRepository.save(moved);
+        });
+
+        String newETag = eTag(getIfNoneMatch(url, eTag)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.deliveryPoints[0].latitude").value(55.76)));
+        assertNotEquals(eTag, newETag);
+        getIfNoneMatch(url, newETag).andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void productChangeShouldChangeETagOfDeliveriesContainingIt() throws Exception {
+        String url = "/deliveries/" + delivery.getId();
+        String eTag = eTag(getIfNoneMatch(url, null).andExpect(status().isOk()));
+
+        productService.updateProduct(product.getId(), productRequest("4.0"));
+
+        getIfNoneMatch(url, eTag)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalWeight").value(8.0));
+    }
+
+    private ResultActions getIfNoneMatch(String url, String eTag) throws Exception {
+        var request = get(url).header("Authorization", "Bearer " + token);
+        if (eTag != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, eTag);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private static String eTag(ResultActions resultActions) {
+        String eTag = resultActions.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        return eTag;
+    }
+
+    private static ProductRequest productRequest(String weight) {
+        return ProductRequest.builder()
+            .name("Коробка")
+            .weight(new BigDecimal(weight))
+            .length(new BigDecimal("10.0"))
+            .width(new BigDecimal("10.0"))
+            .height(new BigDecimal("10.0"))
+            .build();
+    }
+}
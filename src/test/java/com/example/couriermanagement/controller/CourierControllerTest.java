@@ -7,6 +7,7 @@ import com.example.couriermanagement.entity.User;
 import com.example.couriermanagement.entity.UserRole;
 import com.example.couriermanagement.entity.Vehicle;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -29,6 +30,29 @@ public class CourierControllerTest extends BaseIntegrationTest {
             .andExpect(jsonPath("$[0].productsCount").value(2));
     }
 
+    @Test
+    public void getCourierDeliveriesWithMatchingETagShouldReturn304UntilListChanges() throws Exception {
+        Vehicle vehicle = createVehicle();
+        createDelivery(courierUser, vehicle);
+
+        String eTag = expectSuccess(getWithAuth("/courier/deliveries", courierToken))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/courier/deliveries")
+                .header("Authorization", "Bearer " + courierToken)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+
+        createDelivery(courierUser, vehicle);
+
+        mockMvc.perform(get("/courier/deliveries")
+                .header("Authorization", "Bearer " + courierToken)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2));
+    }
+
     @Test
     public void getCourierDeliveriesAsAdminShouldReturn403() throws Exception {
         createDelivery(courierUser, createVehicle());
@@ -86,6 +110,26 @@ public class CourierControllerTest extends BaseIntegrationTest {
             .andExpect(jsonPath("$.length()").value(1));
     }
 
+    @Test
+    public void getCourierDeliveriesWithStatusAndDateRangeShouldReturnOrderedSummaries() throws Exception {
+        Vehicle vehicle = createVehicle();
+        Delivery later = createDelivery(courierUser, vehicle);
+        Delivery earlier = createDelivery(courierUser, vehicle);
+        earlier.setDeliveryDate(later.getDeliveryDate().minusDays(1));
+        Delivery cancelled = createDelivery(courierUser, vehicle);
+        cancelled.setStatus(DeliveryStatus.CANCELLED);
+        LocalDate dateFrom = earlier.getDeliveryDate();
+        LocalDate dateTo = later.getDeliveryDate();
+
+        expectSuccess(getWithAuth("/courier/deliveries?status=PLANNED&date_from=" + dateFrom + "&date_to=" + dateTo, courierToken))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(earlier.getId()))
+            .andExpect(jsonPath("$[1].id").value(later.getId()))
+            .andExpect(jsonPath("$[1].pointsCount").value(1))
+            .andExpect(jsonPath("$[1].productsCount").value(2))
+            .andExpect(jsonPath("$[1].totalWeight").value(3.0));
+    }
+
     @Test
     public void getCourierDeliveriesShouldNotReturnOtherCourierDeliveries() throws Exception {
         // Create delivery for another courier
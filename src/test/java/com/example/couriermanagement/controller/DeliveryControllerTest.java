@@ -3,20 +3,30 @@ package com.example.couriermanagement.controller;
 import com.example.couriermanagement.BaseIntegrationTest;
 import com.example.couriermanagement.dto.request.*;
 import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryPoint;
+import com.example.couriermanagement.entity.DeliveryPointProduct;
 import com.example.couriermanagement.entity.DeliveryStatus;
 import com.example.couriermanagement.entity.Product;
 import com.example.couriermanagement.entity.Vehicle;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 public class DeliveryControllerTest extends BaseIntegrationTest {
@@ -30,6 +40,29 @@ public class DeliveryControllerTest extends BaseIntegrationTest {
             .andExpect(jsonPath("$.length()").value(1));
     }
 
+    @Test
+    public void spatialQueriesShouldFindDeliveryPointsForDate() throws Exception {
+        Delivery delivery = createDelivery();
+        LocalDate date = delivery.getDeliveryDate();
+
+        expectSuccess(getWithAuth("/deliveries/points/nearest?date=" + date
+                + "&latitude=55.76&longitude=37.62&limit=5", managerToken))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].deliveryId").value(delivery.getId()))
+            .andExpect(jsonPath("$[0].latitude").value(55.7558));
+        expectSuccess(getWithAuth("/deliveries/points/within-radius?date=" + date
+                + "&latitude=55.80&longitude=37.62&radius_km=1", managerToken))
+            .andExpect(jsonPath("$.length()").value(0));
+        expectSuccess(getWithAuth("/deliveries/points/in-area?date=" + date
+                + "&min_latitude=55.7&min_longitude=37.6&max_latitude=55.8&max_longitude=37.7", managerToken))
+            .andExpect(jsonPath("$.length()").value(1));
+        expectSuccess(getWithAuth("/deliveries/points/nearest?date=" + date.plusDays(1)
+                + "&latitude=55.76&longitude=37.62", managerToken))
+            .andExpect(jsonPath("$.length()").value(0));
+        expectForbidden(getWithAuth("/deliveries/points/nearest?date=" + date
+                + "&latitude=55.76&longitude=37.62", courierToken));
+    }
+
     @Test
     public void getAllDeliveriesAsCourierShouldReturn403() throws Exception {
         expectForbidden(getWithAuth("/deliveries", courierToken));
@@ -66,6 +99,46 @@ public class DeliveryControllerTest extends BaseIntegrationTest {
             .andExpect(jsonPath("$[0].status").value("PLANNED"));
     }
 
+    @Test
+    public void getDeliveriesShouldPageWithCursor() throws Exception {
+        Vehicle vehicle = createVehicle();
+        Delivery first = createDelivery(courierUser, vehicle);
+        Delivery second = createDelivery(courierUser, vehicle);
+        Delivery third = createDelivery(courierUser, vehicle);
+
+        String cursor = expectSuccess(getWithAuth("/deliveries?limit=2", managerToken))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(first.getId()))
+            .andExpect(jsonPath("$[1].id").value(second.getId()))
+            .andExpect(header().exists("X-Next-Cursor"))
+            .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        expectSuccess(getWithAuth("/deliveries?limit=2&cursor=" + cursor, managerToken))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(third.getId()))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+        expectBadRequest(getWithAuth("/deliveries?cursor=not-a-cursor", managerToken));
+        expectBadRequest(getWithAuth("/deliveries?limit=0", managerToken));
+    }
+
+    @Test
+    public void getDeliveriesWithVehicleProductAndPeriodFiltersShouldReturnFilteredResults() throws Exception {
+        Delivery delivery = createDelivery();
+        Product product = deliveryPointProductRepository.findAll().get(0).getProduct();
+        LocalDate date = delivery.getDeliveryDate();
+
+        expectSuccess(getWithAuth("/deliveries?vehicle_id=" + delivery.getVehicle().getId()
+                + "&product_id=" + product.getId(), managerToken))
+            .andExpect(jsonPath("$.length()").value(1));
+        expectSuccess(getWithAuth("/deliveries?product_id=" + (product.getId() + 1000), managerToken))
+            .andExpect(jsonPath("$.length()").value(0));
+        expectSuccess(getWithAuth("/deliveries?date_from=" + date.minusDays(1) + "&date_to=" + date, managerToken))
+            .andExpect(jsonPath("$.length()").value(1));
+        expectSuccess(getWithAuth("/deliveries?date_from=" + date.plusDays(1), managerToken))
+            .andExpect(jsonPath("$.length()").value(0));
+        expectBadRequest(getWithAuth("/deliveries?date_from=" + date + "&date_to=" + date.minusDays(1), managerToken));
+    }
+
     @Test
     public void createDeliveryAsManagerShouldSucceed() throws Exception {
         Vehicle vehicle = createVehicle();
@@ -226,6 +299,57 @@ public class DeliveryControllerTest extends BaseIntegrationTest {
             .andExpect(jsonPath("$.canEdit").isBoolean());
     }
 
+    @Test
+    public void getDeliveryByIdWithMatchingETagShouldReturn304UntilDeliveryChanges() throws Exception {
+        Delivery delivery = createDelivery();
+        String url = "/deliveries/" + delivery.getId();
+
+        String eTag = expectSuccess(getWithAuth(url, managerToken))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(url)
+                .header("Authorization", "Bearer " + managerToken)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        DeliveryRequest deliveryRequest = DeliveryRequest.builder()
+            .courierId(courierUser.getId())
+            .vehicleId(delivery.getVehicle().getId())
+            .deliveryDate(delivery.getDeliveryDate())
+            .timeStart(LocalTime.of(10, 0))
+            .timeEnd(LocalTime.of(18, 0))
+            .points(List.of(
+                DeliveryPointRequest.builder()
+                    .sequence(1)
+                    .latitude(new BigDecimal("55.7558"))
+                    .longitude(new BigDecimal("37.6176"))
+                    .products(List.of(
+                        DeliveryProductRequest.builder()
+                            .productId(createProduct().getId())
+                            .quantity(1)
+                            .build()
+                    ))
+                    .build()
+            ))
+            .build();
+        expectSuccess(putJson(url, deliveryRequest, managerToken));
+
+        String newETag = mockMvc.perform(get(url)
+                .header("Authorization", "Bearer " + managerToken)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.timeStart").value("10:00:00"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(newETag != null && !newETag.equals(eTag));
+    }
+
+    @Test
+    public void getDeliveryByIdWithoutDeliveryShouldNotReturnETag() throws Exception {
+        expectBadRequest(getWithAuth("/deliveries/999999", managerToken))
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
     @Test
     public void updateDeliveryAsManagerShouldSucceedWhenMoreThan3DaysBefore() throws Exception {
         Delivery delivery = createDelivery();
@@ -361,6 +485,95 @@ public class DeliveryControllerTest extends BaseIntegrationTest {
             .andExpect(jsonPath("$.byDate").exists());
     }
 
+    @Test
+    public void generateDeliveriesShouldPlaceHeavyRouteOnLargeVehicle() throws Exception {
+        Product product = createProduct();
+        vehicleRepository.save(
+            Vehicle.builder()
+                .brand("Lada Largus")
+                .licensePlate("В456ГД")
+                .maxWeight(new BigDecimal("100.0"))
+                .maxVolume(new BigDecimal("2.0"))
+                .build()
+        );
+        Vehicle largeVehicle = createVehicle();
+        LocalDate date = LocalDate.now().plusDays(5);
+
+        Map<LocalDate, java.util.List<RouteWithProducts>> deliveryData = new HashMap<>();
+        deliveryData.put(date, Arrays.asList(
+            RouteWithProducts.builder()
+                .route(Arrays.asList(
+                    DeliveryPointRequest.builder()
+                        .sequence(1)
+                        .latitude(new BigDecimal("55.7558"))
+                        .longitude(new BigDecimal("37.6176"))
+                        .products(Arrays.asList(
+                            DeliveryProductRequest.builder()
+                                .productId(product.getId())
+                                .quantity(200)
+                                .build()
+                        ))
+                        .build()
+                ))
+                .products(Arrays.asList(
+                    DeliveryProductRequest.builder()
+                        .productId(product.getId())
+                        .quantity(200)
+                        .build()
+                ))
+                .build()
+        ));
+
+        GenerateDeliveriesRequest generateRequest = GenerateDeliveriesRequest.builder()
+            .deliveryData(deliveryData)
+            .build();
+
+        expectSuccess(postJson("/deliveries/generate", generateRequest, managerToken))
+            .andExpect(jsonPath("$.totalGenerated").value(1));
+
+        java.util.List<Delivery> generated = deliveryRepository.findByDeliveryDate(date);
+        assertEquals(1, generated.size());
+        assertEquals(largeVehicle.getId(), generated.get(0).getVehicle().getId());
+    }
+
+    @Test
+    public void generateDeliveriesShouldClusterDropPointsIntoRoute() throws Exception {
+        Product product = createProduct();
+        Vehicle vehicle = createVehicle();
+        LocalDate date = LocalDate.now().plusDays(5);
+
+        java.util.List<DropPointRequest> dropPoints = new java.util.ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            dropPoints.add(DropPointRequest.builder()
+                .latitude(new BigDecimal("55.75").add(new BigDecimal("0.01").multiply(BigDecimal.valueOf(i % 3))))
+                .longitude(new BigDecimal("37.61").add(new BigDecimal("0.01").multiply(BigDecimal.valueOf(i))))
+                .products(Arrays.asList(
+                    DeliveryProductRequest.builder()
+                        .productId(product.getId())
+                        .quantity(2)
+                        .build()
+                ))
+                .build());
+        }
+
+        GenerateDeliveriesRequest generateRequest = GenerateDeliveriesRequest.builder()
+            .dropPoints(Map.of(date, dropPoints))
+            .build();
+
+        expectSuccess(postJson("/deliveries/generate", generateRequest, managerToken))
+            .andExpect(jsonPath("$.totalGenerated").value(1));
+
+        java.util.List<Delivery> generated = deliveryRepository.findByDeliveryDate(date);
+        assertEquals(1, generated.size());
+        assertEquals(vehicle.getId(), generated.get(0).getVehicle().getId());
+        assertEquals(5, deliveryPointRepository.findByDeliveryIdOrderBySequence(generated.get(0).getId()).size());
+    }
+
+    @Test
+    public void generateDeliveriesWithoutDataShouldReturn400() throws Exception {
+        expectBadRequest(postJson("/deliveries/generate", GenerateDeliveriesRequest.builder().build(), managerToken));
+    }
+
     @Test
     public void generateDeliveriesAsCourierShouldReturn403() throws Exception {
         Product product = createProduct();
@@ -606,4 +819,212 @@ public class DeliveryControllerTest extends BaseIntegrationTest {
 
         expectBadRequest(postJson("/deliveries", deliveryRequest, managerToken));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void importNdjsonShouldReportEveryRowAndCountEarlierRowsOfBatch() throws Exception {
+        Vehicle vehicle = createVehicle();
+        Product product = createProduct();
+        LocalDate date = LocalDate.now().plusDays(6);
+        // 600 * 1.5 кг = 900 кг при грузоподъемности 1000 кг: вторая такая же строка уже не помещается
+        DeliveryRequest heavy = singlePointRequest(vehicle, product, date, 600);
+
+        String body = objectMapper.writeValueAsString(heavy) + "\n"
+            + objectMapper.writeValueAsString(heavy) + "\n"
+            + "\n"
+            + "{\"courierId\": \n";
+
+        String content = mockMvc.perform(post("/deliveries/import")
+                .header("Authorization", "Bearer " + managerToken)
+                .contentType("application/x-ndjson")
+                .content(body))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> results = readLines(content);
+        assertEquals(3, results.size());
+        assertEquals("1", results.get(0).get("ref").asText());
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("REJECTED", results.get(1).get("status").asText());
+        assertTrue(results.get(1).get("error").asText().startsWith("Превышена грузоподъемность"));
+        assertEquals("4", results.get(2).get("ref").asText());
+        assertTrue(results.get(2).get("error").asText().startsWith("Некорректный JSON"));
+
+        List<Delivery> imported = deliveryRepository.findByDeliveryDate(date);
+        assertEquals(1, imported.size());
+        assertEquals(results.get(0).get("deliveryId").asLong(), imported.get(0).getId());
+    }
+
+    @Test
+    public void importCsvShouldGroupAdjacentRowsByRef() throws Exception {
+        Vehicle vehicle = createVehicle();
+        Product product = createProduct();
+        LocalDate date = LocalDate.now().plusDays(6);
+        String prefix = courierUser.getId() + "," + vehicle.getId() + "," + date + ",09:00,18:00,";
+
+        String body = "ref,courier_id,vehicle_id,delivery_date,time_start,time_end,sequence,latitude,longitude,product_id,quantity\n"
+            + "A-1," + prefix + "1,55.7558,37.6176," + product.getId() + ",2\n"
+            + "A-1," + prefix + "2,55.7558,37.6176," + product.getId() + ",1\n"
+            + "B-2," + prefix + "1,55.7600,37.6200,999999,1\n";
+
+        String content = mockMvc.perform(post("/deliveries/import")
+                .header("Authorization", "Bearer " + managerToken)
+                .contentType("text/csv")
+                .content(body))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> results = readLines(content);
+        assertEquals(2, results.size());
+        assertEquals("A-1", results.get(0).get("ref").asText());
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("B-2", results.get(1).get("ref").asText());
+        assertEquals("Товар с ID 999999 не найден", results.get(1).get("error").asText());
+
+        Delivery imported = deliveryRepository.findById(results.get(0).get("deliveryId").asLong()).orElseThrow();
+        assertEquals(2, deliveryPointRepository.findByDeliveryId(imported.getId()).size());
+    }
+
+    @Test
+    public void importCsvShouldRejectConflictingPointsLongLinesAndLargeDeliveries() throws Exception {
+        Vehicle vehicle = createVehicle();
+        Product product = createProduct();
+        LocalDate date = LocalDate.now().plusDays(6);
+        String prefix = courierUser.getId() + "," + vehicle.getId() + "," + date + ",09:00,18:00,";
+
+        StringBuilder body = new StringBuilder(
+            "ref,courier_id,vehicle_id,delivery_date,time_start,time_end,sequence,latitude,longitude,product_id,quantity\n");
+        body.append("A-1,").append(prefix).append("1,55.7558,37.6176,").append(product.getId()).append(",2\n");
+        body.append("A-1,").append(prefix).append("1,55.7600,37.6176,").append(product.getId()).append(",1\n");
+        body.append("B-2,").append(prefix).append("1,55.7558,37.6176,").append(product.getId()).append(",1")
+            .append(" ".repeat(5000)).append('\n');
+        // одна строка сверх предела в 1000 строк на доставку
+        for (int i = 0; i <= 1000; i++) {
+            body.append("C-3,").append(prefix).append(i + 1).append(",55.7558,37.6176,").append(product.getId()).append(",1\n");
+        }
+
+        String content = mockMvc.perform(post("/deliveries/import")
+                .header("Authorization", "Bearer " + managerToken)
+                .contentType("text/csv")
+                .content(body.toString()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> results = readLines(content);
+        assertEquals(3, results.size());
+        assertEquals("A-1", results.get(0).get("ref").asText());
+        assertEquals("Координаты точки 1 различаются в строках доставки", results.get(0).get("error").asText());
+        assertEquals("строка 4", results.get(1).get("ref").asText());
+        assertEquals("Строка длиннее 4096 символов", results.get(1).get("error").asText());
+        assertEquals("C-3", results.get(2).get("ref").asText());
+        assertEquals("В доставке больше 1000 строк", results.get(2).get("error").asText());
+        assertTrue(deliveryRepository.findByDeliveryDate(date).isEmpty());
+    }
+
+    @Test
+    public void importShouldBeForbiddenForCourier() throws Exception {
+        mockMvc.perform(post("/deliveries/import")
+                .header("Authorization", "Bearer " + courierToken)
+                .contentType("application/x-ndjson")
+                .content(""))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void exportShouldStreamAttachmentAndRejectBadRequestsBeforeStreaming() throws Exception {
+        getWithAuth("/deliveries/export?format=csv", managerToken)
+            .andExpect(request().asyncStarted())
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"deliveries.csv\""));
+        expectBadRequest(getWithAuth("/deliveries/export?format=xml", managerToken));
+        expectBadRequest(getWithAuth("/deliveries/export?date_from=2025-02-01&date_to=2025-01-01", managerToken));
+        expectForbidden(getWithAuth("/deliveries/export", courierToken));
+    }
+
+    @Test
+    public void updateDeliveryShouldRewriteOnlyChangedPointsAndProducts() throws Exception {
+        Vehicle vehicle = createVehicle();
+        Product product = createProduct();
+        Product otherProduct = createProduct();
+        DeliveryRequest original = singlePointRequest(vehicle, product, LocalDate.now().plusDays(6), 2);
+        original.setPoints(new ArrayList<>(original.getPoints()));
+        original.getPoints().add(DeliveryPointRequest.builder()
+            .sequence(2)
+            .latitude(new BigDecimal("55.7600"))
+            .longitude(new BigDecimal("37.6200"))
+            .products(List.of(
+                DeliveryProductRequest.builder().productId(product.getId()).quantity(1).build(),
+                DeliveryProductRequest.builder().productId(otherProduct.getId()).quantity(1).build()
+            ))
+            .build());
+        long deliveryId = objectMapper.readTree(expectSuccess(postJson("/deliveries", original, managerToken))
+            .andReturn().getResponse().getContentAsString()).get("id").asLong();
+        Map<Integer, DeliveryPoint> storedPoints = new HashMap<>();
+        deliveryPointRepository.findByDeliveryId(deliveryId).forEach(point -> storedPoints.put(point.getSequence(), point));
+        Long untouchedLineId = deliveryPointProductRepository.findByDeliveryPointId(storedPoints.get(1).getId()).get(0).getId();
+
+        // точка 1 без изменений, в точке 2 меняется количество и убирается товар, точка 3 новая
+        DeliveryRequest edited = singlePointRequest(vehicle, product, LocalDate.now().plusDays(6), 2);
+        edited.setTimeStart(LocalTime.of(10, 0));
+        edited.setPoints(List.of(
+            edited.getPoints().get(0),
+            DeliveryPointRequest.builder()
+                .sequence(2)
+                .latitude(new BigDecimal("55.7600"))
+                .longitude(new BigDecimal("37.6200"))
+                .products(List.of(DeliveryProductRequest.builder().productId(product.getId()).quantity(4).build()))
+                .build(),
+            DeliveryPointRequest.builder()
+                .sequence(3)
+                .latitude(new BigDecimal("55.7700"))
+                .longitude(new BigDecimal("37.6300"))
+                .products(List.of(DeliveryProductRequest.builder().productId(otherProduct.getId()).quantity(1).build()))
+                .build()
+        ));
+        expectSuccess(putJson("/deliveries/" + deliveryId, edited, managerToken))
+            .andExpect(jsonPath("$.deliveryPoints.length()").value(3));
+
+        Map<Integer, DeliveryPoint> updatedPoints = new HashMap<>();
+        deliveryPointRepository.findByDeliveryId(deliveryId).forEach(point -> updatedPoints.put(point.getSequence(), point));
+        assertEquals(storedPoints.get(1).getId(), updatedPoints.get(1).getId());
+        assertEquals(storedPoints.get(2).getId(), updatedPoints.get(2).getId());
+        assertEquals(untouchedLineId,
+            deliveryPointProductRepository.findByDeliveryPointId(updatedPoints.get(1).getId()).get(0).getId());
+
+        List<DeliveryPointProduct> secondPointLines = deliveryPointProductRepository.findByDeliveryPointId(updatedPoints.get(2).getId());
+        assertEquals(1, secondPointLines.size());
+        assertEquals(4, secondPointLines.get(0).getQuantity());
+        assertEquals(1, deliveryPointProductRepository.findByDeliveryPointId(updatedPoints.get(3).getId()).size());
+    }
+
+    private DeliveryRequest singlePointRequest(Vehicle vehicle, Product product, LocalDate date, int quantity) {
+        return DeliveryRequest.builder()
+            .courierId(courierUser.getId())
+            .vehicleId(vehicle.getId())
+            .deliveryDate(date)
+            .timeStart(LocalTime.of(9, 0))
+            .timeEnd(LocalTime.of(18, 0))
+            .points(List.of(
+                DeliveryPointRequest.builder()
+                    .sequence(1)
+                    .latitude(new BigDecimal("55.7558"))
+                    .longitude(new BigDecimal("37.6176"))
+                    .products(List.of(
+                        DeliveryProductRequest.builder()
+                            .productId(product.getId())
+                            .quantity(quantity)
+                            .build()
+                    ))
+                    .build()
+            ))
+            .build();
+    }
+
+    private List<JsonNode> readLines(String content) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+}
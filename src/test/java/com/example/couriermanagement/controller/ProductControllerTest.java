@@ -4,6 +4,7 @@ import com.example.couriermanagement.BaseIntegrationTest;
 import com.example.couriermanagement.dto.request.ProductRequest;
 import com.example.couriermanagement.entity.Product;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 
 import java.math.BigDecimal;
 
@@ -22,6 +23,22 @@ public class ProductControllerTest extends BaseIntegrationTest {
             .andExpect(jsonPath("$[0].weight").value(1.5));
     }
 
+    @Test
+    public void getAllProductsWithMatchingETagShouldReturn304() throws Exception {
+        createProduct();
+
+        String eTag = expectSuccess(getWithAuth("/products", adminToken))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/products")
+                .header("Authorization", "Bearer " + courierToken)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+    }
+
     @Test
     public void getAllProductsWithoutAuthShouldReturn403() throws Exception {
         expectForbidden(mockMvc.perform(get("/products")));
@@ -0,0 +1,42 @@
+package com.example.couriermanagement.controller;
+
+import com.example.couriermanagement.BaseIntegrationTest;
+import com.example.couriermanagement.dto.request.RouteCalculationRequest;
+import com.example.couriermanagement.dto.request.RoutePoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class RouteControllerTest extends BaseIntegrationTest {
+
+    @Test
+    public void optimizedRouteShouldReturnOrderOfAllPoints() throws Exception {
+        expectSuccess(postJson("/routes/calculate", request(10), courierToken))
+            .andExpect(jsonPath("$.order.length()").value(10))
+            .andExpect(jsonPath("$.order[0]").value(0));
+    }
+
+    @Test
+    public void optimizedRouteAboveMaxPointsShouldReturn400() throws Exception {
+        // по умолчанию routing.optimizer.max-points = 1000
+        expectBadRequest(postJson("/routes/calculate", request(1001), courierToken))
+            .andExpect(jsonPath("$.error.message").value("Оптимизировать можно маршрут не более чем из 1000 точек"));
+    }
+
+    private static RouteCalculationRequest request(int size) {
+        List<RoutePoint> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            points.add(new RoutePoint(
+                new BigDecimal("55.7").add(BigDecimal.valueOf(i % 100, 3)),
+                new BigDecimal("37.6").add(BigDecimal.valueOf(i / 100, 3))));
+        }
+        return RouteCalculationRequest.builder()
+            .points(points)
+            .optimize(true)
+            .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.couriermanagement.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class GeoMathTest {
+
+    @Test
+    public void haversineShouldMatchKnownDistance() {
+        // Москва - Санкт-Петербург по большому кругу
+        assertEquals(631.75, GeoMath.haversineKm(55.7558, 37.6176, 59.9311, 30.3609), 0.01);
+        assertEquals(0.0, GeoMath.haversineKm(55.7558, 37.6176, 55.7558, 37.6176), 1e-12);
+    }
+
+    @Test
+    public void equirectangularShouldStayWithinDocumentedBound() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            double latitude = random.nextDouble() * 120 - 60;
+            double longitude = random.nextDouble() * 360 - 180;
+            double latitude2 = latitude + (random.nextDouble() - 0.5) * 1.2;
+            double longitude2 = longitude + (random.nextDouble() - 0.5) * 1.2;
+
+            double exact = GeoMath.haversineKm(latitude, longitude, latitude2, longitude2);
+            double approximate = GeoMath.equirectangularKm(latitude, longitude, latitude2, longitude2);
+
+            if (exact <= 100) {
+                assertEquals(exact, approximate, exact * 1e-4);
+            }
+        }
+    }
+
+    @Test
+    public void equirectangularShouldHandleAntimeridian() {
+        assertEquals(GeoMath.haversineKm(10, 179.99, 10, -179.99), GeoMath.equirectangularKm(10, 179.99, 10, -179.99), 1e-6);
+    }
+
+    /**
+     * Runs only with {@code -PvectorGeo}, the default build has no vector kernel.
+     */
+    @Test
+    public void vectorKernelShouldMatchScalarKernel() {
+        GeoKernel vector = GeoMath.selectKernel();
+        assumeFalse(vector instanceof ScalarGeoKernel, "Векторное ядро не собрано или модуль не подключен");
+
+        Random random = new Random(7);
+        int size = 103;
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = 55 + random.nextDouble();
+            longitudes[i] = 37 + random.nextDouble() * 2;
+        }
+        longitudes[0] = 179.9;
+        longitudes[1] = -179.9;
+        GeoMath.PreparedPoints points = GeoMath.prepare(latitudes, longitudes);
+
+        GeoKernel scalar = new ScalarGeoKernel();
+        for (int i = 0; i < size; i++) {
+            double[] expected = new double[size];
+            double[] actual = new double[size];
+            double lat = points.latitudes()[i];
+            double lon = points.longitudes()[i];
+            double cos = points.cosLatitudes()[i];
+
+            scalar.haversine(lat, lon, cos, points, 0, size, expected, 0);
+            vector.haversine(lat, lon, cos, points, 0, size, actual, 0);
+            assertArrayEquals(expected, actual, 1e-9);
+
+            scalar.equirectangular(lat, lon, cos, points, 0, size, expected, 0);
+            vector.equirectangular(lat, lon, cos, points, 0, size, actual, 0);
+            assertArrayEquals(expected, actual, 1e-9);
+        }
+    }
+
+    @Test
+    public void matrixShouldAgreeWithPairwiseDistances() {
+        double[] latitudes = {55.7558, 55.7600, 55.7700, 59.9311};
+        double[] longitudes = {37.6176, 37.6200, 37.6300, 30.3609};
+
+        DistanceMatrix matrix = GeoMath.haversineMatrixKm(latitudes, longitudes);
+
+        for (int i = 0; i < latitudes.length; i++) {
+            for (int j = 0; j < latitudes.length; j++) {
+                assertEquals(GeoMath.haversineKm(latitudes[i], longitudes[i], latitudes[j], longitudes[j]),
+                    matrix.get(i, j), 1e-9);
+            }
+        }
+    }
+}
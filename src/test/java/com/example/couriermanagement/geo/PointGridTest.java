@@ -0,0 +1,124 @@
+package com.example.couriermanagement.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PointGridTest {
+
+    @Test
+    public void queriesShouldMatchBruteForceAfterUpdates() {
+        Random random = new Random(3);
+        PointGrid grid = new PointGrid(0.01);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            double[] point = {55.5 + random.nextDouble() * 0.5, 37.3 + random.nextDouble() * 0.6};
+            points.add(point);
+            grid.put(i, i / 10, point[0], point[1]);
+        }
+        // каждая третья точка удаляется, каждая пятая переезжает
+        for (int i = 0; i < 3000; i++) {
+            if (i % 3 == 0) {
+                assertTrue(grid.remove(i));
+                points.set(i, null);
+            } else if (i % 5 == 0) {
+                double[] point = {55.5 + random.nextDouble() * 0.5, 37.3 + random.nextDouble() * 0.6};
+                points.set(i, point);
+                grid.put(i, i / 10, point[0], point[1]);
+            }
+        }
+        assertEquals(2000, grid.size());
+
+        for (int q = 0; q < 50; q++) {
+            double lat = 55.4 + random.nextDouble() * 0.7;
+            double lon = 37.2 + random.nextDouble() * 0.8;
+
+            List<Long> expectedNearest = bruteForce(points, lat, lon, Double.POSITIVE_INFINITY).stream()
+                .limit(7).toList();
+            assertEquals(expectedNearest, ids(grid.nearest(lat, lon, 7)));
+
+            double radius = random.nextDouble() * 5;
+            assertEquals(new HashSet<>(bruteForce(points, lat, lon, radius)),
+                new HashSet<>(ids(grid.withinRadius(lat, lon, radius))));
+
+            double minLat = lat - random.nextDouble() * 0.05;
+            double minLon = lon - random.nextDouble() * 0.05;
+            double maxLat = lat + random.nextDouble() * 0.05;
+            double maxLon = lon + random.nextDouble() * 0.05;
+            Set<Long> expectedBox = new HashSet<>();
+            for (int i = 0; i < points.size(); i++) {
+                double[] point = points.get(i);
+                if (point != null && point[0] >= minLat && point[0] <= maxLat && point[1] >= minLon && point[1] <= maxLon) {
+                    expectedBox.add((long) i);
+                }
+            }
+            assertEquals(expectedBox, new HashSet<>(ids(grid.inBoundingBox(minLat, minLon, maxLat, maxLon))));
+        }
+    }
+
+    @Test
+    public void nearestShouldWorkAcrossAntimeridianAndForSparseGrid() {
+        PointGrid grid = new PointGrid(0.01);
+        grid.put(1, 1, 10, 179.999);
+        grid.put(2, 1, 10, -179.999);
+        grid.put(3, 1, 10, 170);
+        grid.put(4, 1, -40, 20);
+
+        List<PointGrid.Hit> hits = grid.nearest(10, 179.9995, 2);
+
+        assertEquals(List.of(1L, 2L), ids(hits));
+        assertEquals(4L, grid.nearest(-45, 25, 1).get(0).pointId());
+        assertEquals(List.of(2L, 1L), ids(grid.withinRadius(10, -179.9995, 1)));
+    }
+
+    @Test
+    public void pointOnAntimeridianShouldBeFoundByEveryQuery() {
+        PointGrid grid = new PointGrid(0.01);
+        grid.put(1, 1, 10, 180);
+        grid.put(2, 1, 10, -179.998);
+        // точек больше, чем ячеек в области, иначе запрос просто перебирает все точки
+        for (int i = 0; i < 1000; i++) {
+            grid.put(100 + i, 2, -40 + i * 0.001, 20);
+        }
+
+        assertEquals(List.of(1L), ids(grid.inBoundingBox(9.9, 179.9, 10.1, 180)));
+        assertEquals(List.of(1L), ids(grid.nearest(10, 180, 1)));
+        assertEquals(List.of(1L), ids(grid.nearest(10, 179.995, 1)));
+        assertEquals(List.of(1L, 2L), ids(grid.withinRadius(10, -179.9995, 1)));
+        assertEquals(List.of(1L, 2L), ids(grid.withinRadius(10, 179.9995, 1)));
+    }
+
+    private static List<Long> bruteForce(List<double[]> points, double lat, double lon, double radiusKm) {
+        List<long[]> ids = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            double[] point = points.get(i);
+            if (point == null) {
+                continue;
+            }
+            double distance = GeoMath.haversineKm(lat, lon, point[0], point[1]);
+            if (distance <= radiusKm) {
+                ids.add(new long[]{i});
+                distances.add(distance);
+            }
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(distances::get));
+        return order.stream().map(i -> ids.get(i)[0]).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<PointGrid.Hit> hits) {
+        return hits.stream().map(PointGrid.Hit::pointId).toList();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.couriermanagement.planning;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CapacityAssignmentTest {
+
+    @Test
+    public void hungarianShouldMatchBruteForce() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            int rows = 1 + random.nextInt(5);
+            int columns = rows + random.nextInt(3);
+            double[][] cost = new double[rows][columns];
+            for (double[] row : cost) {
+                for (int j = 0; j < columns; j++) {
+                    row[j] = random.nextInt(100);
+                }
+            }
+
+            int[] assignment = MinCostAssignment.solve(cost);
+
+            Set<Integer> columnsUsed = new HashSet<>();
+            double total = 0;
+            for (int i = 0; i < rows; i++) {
+                assertTrue(columnsUsed.add(assignment[i]));
+                total += cost[i][assignment[i]];
+            }
+            assertEquals(bruteForce(cost, 0, new boolean[columns]), total, 1e-9);
+        }
+    }
+
+    @Test
+    public void heavyRouteShouldGetLargeVehicle() {
+        int[] result = CapacityAssignment.assign(
+            new long[]{100, 900}, new long[]{1, 10},
+            new long[]{1000, 200}, new long[]{15, 2},
+            2);
+
+        assertArrayEquals(new int[]{1, 0}, result);
+    }
+
+    @Test
+    public void routesShouldNotExceedCouriersOrCapacity() {
+        int[] result = CapacityAssignment.assign(
+            new long[]{100, 100, 5000}, new long[]{1, 1, 1},
+            new long[]{1000, 1000, 1000}, new long[]{15, 15, 15},
+            1);
+
+        assertEquals(1, Arrays.stream(result).filter(v -> v != CapacityAssignment.UNASSIGNED).count());
+        assertEquals(CapacityAssignment.UNASSIGNED, result[2]);
+    }
+
+    @Test
+    public void hundredsOfRoutesShouldBePlacedInOnePass() {
+        Random random = new Random(9);
+        int routes = 300;
+        long[] routeWeights = new long[routes];
+        long[] routeVolumes = new long[routes];
+        for (int r = 0; r < routes; r++) {
+            routeWeights[r] = 50 + random.nextInt(900);
+            routeVolumes[r] = 1 + random.nextInt(10);
+        }
+        long[] vehicleWeights = new long[routes];
+        long[] vehicleVolumes = new long[routes];
+        Arrays.fill(vehicleWeights, 1000);
+        Arrays.fill(vehicleVolumes, 15);
+
+        int[] result = CapacityAssignment.assign(routeWeights, routeVolumes, vehicleWeights, vehicleVolumes, routes);
+
+        Set<Integer> vehiclesUsed = new HashSet<>();
+        for (int vehicle : result) {
+            assertNotEquals(CapacityAssignment.UNASSIGNED, vehicle);
+            assertTrue(vehiclesUsed.add(vehicle));
+        }
+    }
+
+    private static double bruteForce(double[][] cost, int row, boolean[] used) {
+        if (row == cost.length) {
+            return 0;
+        }
+        double best = Double.MAX_VALUE;
+        for (int j = 0; j < used.length; j++) {
+            if (!used[j]) {
+                used[j] = true;
+                best = Math.min(best, cost[row][j] + bruteForce(cost, row + 1, used));
+                used[j] = false;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.couriermanagement.planning;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourierScheduleTest {
+
+    @Test
+    public void queriesShouldMatchBruteForceAfterUpdates() {
+        Random random = new Random(23);
+        CourierSchedule schedule = new CourierSchedule();
+        Map<Long, CourierSchedule.Window> windows = new HashMap<>();
+
+        for (int step = 0; step < 2000; step++) {
+            long deliveryId = random.nextInt(12);
+            if (random.nextInt(3) == 0) {
+                assertEquals(windows.remove(deliveryId), schedule.remove(deliveryId));
+            } else {
+                int start = 480 + random.nextInt(600);
+                CourierSchedule.Window window = new CourierSchedule.Window(deliveryId, start, start + 15 + random.nextInt(120));
+                schedule.put(window);
+                windows.put(deliveryId, window);
+            }
+
+            int from = 420 + random.nextInt(700);
+            int to = from + 1 + random.nextInt(300);
+            boolean[] busy = busyMinutes(windows);
+
+            boolean expectedConflict = false;
+            List<Long> expectedConflicts = new ArrayList<>();
+            for (CourierSchedule.Window window : windows.values()) {
+                if (window.startMinute() < to && window.endMinute() > from) {
+                    expectedConflict = true;
+                    expectedConflicts.add(window.deliveryId());
+                }
+            }
+            assertEquals(expectedConflict, schedule.hasConflict(from, to));
+            assertEquals(expectedConflicts.stream().sorted().toList(),
+                schedule.conflicts(from, to).stream().map(CourierSchedule.Window::deliveryId).sorted().toList());
+
+            List<CourierSchedule.Gap> expectedGaps = new ArrayList<>();
+            int gapStart = -1;
+            for (int minute = from; minute <= to; minute++) {
+                boolean free = minute < to && !busy[minute];
+                if (free && gapStart < 0) {
+                    gapStart = minute;
+                } else if (!free && gapStart >= 0) {
+                    expectedGaps.add(new CourierSchedule.Gap(gapStart, minute));
+                    gapStart = -1;
+                }
+            }
+            assertEquals(expectedGaps, schedule.freeGaps(from, to));
+
+            int length = 1 + random.nextInt(90);
+            int expectedSlot = expectedGaps.stream()
+                .filter(gap -> gap.endMinute() - gap.startMinute() >= length)
+                .mapToInt(CourierSchedule.Gap::startMinute)
+                .findFirst()
+                .orElse(-1);
+            assertEquals(expectedSlot, schedule.earliestSlot(from, to, length));
+        }
+    }
+
+    @Test
+    public void adjacentWindowsShouldNotConflict() {
+        CourierSchedule schedule = new CourierSchedule();
+        schedule.put(new CourierSchedule.Window(1, 540, 720));
+        schedule.put(new CourierSchedule.Window(2, 600, 660));
+
+        assertFalse(schedule.hasConflict(720, 780));
+        assertFalse(schedule.hasConflict(480, 540));
+        assertTrue(schedule.hasConflict(719, 720));
+        assertEquals(List.of(new CourierSchedule.Gap(480, 540), new CourierSchedule.Gap(720, 1080)),
+            schedule.freeGaps(480, 1080));
+        assertEquals(720, schedule.earliestSlot(480, 1080, 61));
+        assertEquals(-1, schedule.earliestSlot(480, 1080, 361));
+    }
+
+    private static boolean[] busyMinutes(Map<Long, CourierSchedule.Window> windows) {
+        boolean[] busy = new boolean[LoadTimeline.MINUTES_PER_DAY + 1];
+        for (CourierSchedule.Window window : windows.values()) {
+            for (int minute = window.startMinute(); minute < window.endMinute(); minute++) {
+                busy[minute] = true;
+            }
+        }
+        return busy;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.couriermanagement.planning;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadTimelineTest {
+
+    @Test
+    public void peakShouldMatchBruteForceAfterUpdates() {
+        Random random = new Random(17);
+        LoadTimeline timeline = new LoadTimeline();
+        Map<Long, LoadTimeline.Booking> bookings = new HashMap<>();
+
+        for (int step = 0; step < 3000; step++) {
+            long deliveryId = random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                assertEquals(bookings.remove(deliveryId), timeline.remove(deliveryId));
+            } else {
+                int start = random.nextInt(LoadTimeline.MINUTES_PER_DAY);
+                int end = start + 1 + random.nextInt(LoadTimeline.MINUTES_PER_DAY - start);
+                LoadTimeline.Booking booking = new LoadTimeline.Booking(
+                    deliveryId, start, end, random.nextInt(500_000), random.nextInt(5_000_000));
+                // повторное бронирование той же доставки заменяет прежнее окно
+                timeline.put(booking);
+                bookings.put(deliveryId, booking);
+            }
+
+            if (step % 30 == 0) {
+                int from = random.nextInt(LoadTimeline.MINUTES_PER_DAY);
+                int to = from + 1 + random.nextInt(LoadTimeline.MINUTES_PER_DAY - from);
+                LoadTimeline.Peak peak = timeline.peak(from, to);
+                assertEquals(bruteForcePeak(bookings, from, to, true), peak.weightGrams());
+                assertEquals(bruteForcePeak(bookings, from, to, false), peak.volumeCm3());
+            }
+        }
+        assertEquals(bookings.size(), timeline.size());
+        assertTrue(timeline.verify().isEmpty());
+    }
+
+    @Test
+    public void adjacentWindowsShouldNotOverlap() {
+        LoadTimeline timeline = new LoadTimeline();
+        timeline.put(LoadTimeline.Booking.of(1, LocalTime.of(9, 0), LocalTime.of(12, 0), 600_000, 1_000_000));
+        timeline.put(LoadTimeline.Booking.of(2, LocalTime.of(13, 0), LocalTime.of(16, 0), 300_000, 2_000_000));
+
+        assertEquals(600_000, timeline.peak(LocalTime.of(11, 0), LocalTime.of(14, 0)).weightGrams());
+        assertEquals(2_000_000, timeline.peak(LocalTime.of(11, 0), LocalTime.of(14, 0)).volumeCm3());
+        assertEquals(0, timeline.peak(LocalTime.of(12, 0), LocalTime.of(13, 0)).weightGrams());
+        // секунды округляются наружу: окно до 13:00:30 задевает минуту 13:00
+        assertEquals(300_000, timeline.peak(LocalTime.of(12, 0), LocalTime.of(13, 0, 30)).weightGrams());
+
+        timeline.remove(1);
+        assertEquals(0, timeline.peak(LocalTime.of(9, 0), LocalTime.of(12, 0)).weightGrams());
+    }
+
+    private static long bruteForcePeak(Map<Long, LoadTimeline.Booking> bookings, int from, int to, boolean weight) {
+        long peak = 0;
+        for (int minute = from; minute < to; minute++) {
+            long load = 0;
+            for (LoadTimeline.Booking booking : bookings.values()) {
+                if (booking.startMinute() <= minute && minute < booking.endMinute()) {
+                    load += weight ? booking.weightGrams() : booking.volumeCm3();
+                }
+            }
+            peak = Math.max(peak, load);
+        }
+        return peak;
+    }
+}
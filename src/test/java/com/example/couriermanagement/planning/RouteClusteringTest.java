@@ -0,0 +1,103 @@
+package com.example.couriermanagement.planning;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteClusteringTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    @AfterAll
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void largeDayShouldBeSplitIntoFeasibleCompactClusters() {
+        Random random = new Random(11);
+        int size = 50_000;
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double[][] loads = new double[3][size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = 55.5 + random.nextDouble() * 0.5;
+            longitudes[i] = 37.3 + random.nextDouble() * 0.6;
+            loads[0][i] = 1 + random.nextDouble() * 30;
+            loads[1][i] = 0.01 + random.nextDouble() * 0.1;
+            loads[2][i] = 1;
+        }
+        double[] capacities = {500, 3, 19};
+
+        // время кластеризации измеряет RouteClusteringBenchmark
+        int[][] clusters = RouteClustering.cluster(latitudes, longitudes, loads, capacities, POOL);
+
+        boolean[] seen = new boolean[size];
+        double spread = 0;
+        for (int[] cluster : clusters) {
+            double[] total = new double[3];
+            double centreLat = 0;
+            double centreLon = 0;
+            for (int point : cluster) {
+                assertFalse(seen[point]);
+                seen[point] = true;
+                for (int d = 0; d < 3; d++) {
+                    total[d] += loads[d][point];
+                }
+                centreLat += latitudes[point] / cluster.length;
+                centreLon += longitudes[point] / cluster.length;
+            }
+            for (int d = 0; d < 3; d++) {
+                assertTrue(total[d] <= capacities[d] + 1e-9, "Кластер превышает вместимость по измерению " + d);
+            }
+            for (int point : cluster) {
+                spread += Math.hypot(latitudes[point] - centreLat, (longitudes[point] - centreLon) * 0.565);
+            }
+        }
+        for (boolean pointSeen : seen) {
+            assertTrue(pointSeen);
+        }
+
+        // нижняя граница числа кластеров - по точкам (50000 / 19)
+        assertTrue(clusters.length < 2632 * 1.35, "Кластеров: " + clusters.length);
+        // в среднем точка не дальше ~1 км от центра своего кластера (0.5 x 0.6 градуса на ~2700 кластеров)
+        assertTrue(spread / size * 111 < 1.0, "Средний радиус кластера: " + spread / size * 111 + " км");
+    }
+
+    @Test
+    public void overweightPointShouldStayAlone() {
+        double[] latitudes = {55.75, 55.751, 55.752, 55.753};
+        double[] longitudes = {37.61, 37.611, 37.612, 37.613};
+        double[][] loads = {{10, 600, 10, 10}};
+
+        int[][] clusters = RouteClustering.cluster(latitudes, longitudes, loads, new double[]{500}, POOL);
+
+        boolean aloneFound = false;
+        for (int[] cluster : clusters) {
+            if (cluster.length == 1 && cluster[0] == 1) {
+                aloneFound = true;
+            } else {
+                for (int point : cluster) {
+                    assertNotEquals(1, point);
+                }
+            }
+        }
+        assertTrue(aloneFound);
+    }
+
+    @Test
+    public void lightDayShouldFormSingleCluster() {
+        double[] latitudes = {55.75, 55.76, 55.77};
+        double[] longitudes = {37.61, 37.62, 37.63};
+        double[][] loads = {{1, 1, 1}, {1, 1, 1}};
+
+        int[][] clusters = RouteClustering.cluster(latitudes, longitudes, loads, new double[]{100, 19}, POOL);
+
+        assertEquals(1, clusters.length);
+        assertEquals(3, clusters[0].length);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.couriermanagement.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void nearbyCoordinatesShouldShareQuantizedKey() {
+        DistanceCache cache = new DistanceCache(4, 100, Duration.ofDays(1), null, 0, Clock.systemUTC());
+
+        DistanceCache.Key key = cache.key(
+            new BigDecimal("55.75581"), new BigDecimal("37.61761"),
+            new BigDecimal("55.76000"), new BigDecimal("37.62000"));
+        cache.put(key, 2.5);
+
+        DistanceCache.Key nearby = cache.key(
+            new BigDecimal("55.75579"), new BigDecimal("37.61759"),
+            new BigDecimal("55.76001"), new BigDecimal("37.62003"));
+
+        assertEquals(key, nearby);
+        assertEquals(2.5, cache.get(nearby));
+        assertEquals(1, cache.stats().memoryHits());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryShouldBeEvicted() {
+        DistanceCache cache = new DistanceCache(4, 2, Duration.ofDays(1), null, 0, Clock.systemUTC());
+        DistanceCache.Key first = key(cache, "55.1");
+        DistanceCache.Key second = key(cache, "55.2");
+        DistanceCache.Key third = key(cache, "55.3");
+
+        cache.put(first, 1.0);
+        cache.put(second, 2.0);
+        cache.get(first);
+        cache.put(third, 3.0);
+
+        assertEquals(1.0, cache.get(first));
+        assertNull(cache.get(second));
+        assertEquals(1, cache.stats().memoryEvictions());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    public void expiredEntryShouldBeMiss() {
+        MutableClock clock = new MutableClock();
+        DistanceCache cache = new DistanceCache(4, 10, Duration.ofMinutes(5), null, 0, clock);
+        DistanceCache.Key key = key(cache, "55.1");
+
+        cache.put(key, 1.0);
+        clock.advance(Duration.ofMinutes(6));
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void diskTierShouldSurviveReopen() {
+        Path file = tempDir.resolve("distance-cache.bin");
+        DistanceCache.Key key;
+        try (DistanceCache cache = new DistanceCache(4, 10, Duration.ofDays(1), file, 1024, Clock.systemUTC())) {
+            key = key(cache, "55.1");
+            cache.put(key, 12.34);
+        }
+
+        try (DistanceCache reopened = new DistanceCache(4, 10, Duration.ofDays(1), file, 1024, Clock.systemUTC())) {
+            assertEquals(12.34, reopened.get(key));
+            assertEquals(1, reopened.stats().diskHits());
+            assertEquals(1, reopened.stats().diskSize());
+        }
+    }
+
+    @Test
+    public void diskTierShouldResetOnPrecisionChange() {
+        Path file = tempDir.resolve("distance-cache.bin");
+        try (DistanceCache cache = new DistanceCache(4, 10, Duration.ofDays(1), file, 1024, Clock.systemUTC())) {
+            cache.put(key(cache, "55.1"), 12.34);
+        }
+
+        try (DistanceCache reopened = new DistanceCache(3, 10, Duration.ofDays(1), file, 1024, Clock.systemUTC())) {
+            assertNull(reopened.get(key(reopened, "55.1")));
+            assertEquals(0, reopened.stats().diskSize());
+        }
+    }
+
+    private DistanceCache.Key key(DistanceCache cache, String latitude) {
+        return cache.key(new BigDecimal(latitude), new BigDecimal("37.6"), new BigDecimal("55.9"), new BigDecimal("37.8"));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.couriermanagement.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoutingCallGuardTest {
+
+    @Test
+    public void openCircuitShouldSkipRemoteCall() {
+        MutableClock clock = new MutableClock();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RoutingCallGuard guard = new RoutingCallGuard(new CircuitBreaker(2, Duration.ofSeconds(30), clock), null, registry);
+        AtomicInteger remoteCalls = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("local", guard.call("distance", () -> {
+                remoteCalls.incrementAndGet();
+                throw new IllegalStateException("ORS недоступен");
+            }, () -> "local"));
+        }
+
+        assertEquals(2, remoteCalls.get());
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+        assertEquals(3.0, registry.get("routing.fallback").tag("reason", "circuit_open").counter().count());
+        assertEquals(2, registry.get("routing.circuit.state").gauge().value());
+    }
+
+    @Test
+    public void successfulTrialShouldCloseCircuit() {
+        MutableClock clock = new MutableClock();
+        RoutingCallGuard guard = new RoutingCallGuard(
+            new CircuitBreaker(1, Duration.ofSeconds(30), clock), null, new SimpleMeterRegistry());
+
+        guard.call("distance", () -> {
+            throw new IllegalStateException("ORS недоступен");
+        }, () -> "local");
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+
+        clock.advance(Duration.ofSeconds(31));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.getCircuitState());
+        assertEquals("remote", guard.call("distance", () -> "remote", () -> "local"));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+    }
+
+    @Test
+    public void slowRemoteShouldBeHedgedWithLocalEstimate() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (RoutingCallGuard guard = new RoutingCallGuard(
+                new CircuitBreaker(5, Duration.ofSeconds(30), Clock.systemUTC()),
+                Duration.ofMillis(50),
+                new SimpleMeterRegistry())) {
+
+            assertEquals("local", guard.call("distance", () -> {
+                release.await();
+                return "remote";
+            }, () -> "local"));
+            assertEquals("remote", guard.call("distance", () -> "remote", () -> "local"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.couriermanagement.routing;
+
+import com.example.couriermanagement.geo.DistanceMatrix;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StopSequenceOptimizerTest {
+
+    @Test
+    public void shuffledPointsOnLineShouldBeSorted() {
+        double[] positions = {0, 7, 2, 9, 4, 1, 8, 3, 6, 5};
+        DistanceMatrix matrix = new DistanceMatrix(positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            for (int j = 0; j < positions.length; j++) {
+                matrix.set(i, j, Math.abs(positions[i] - positions[j]));
+            }
+        }
+
+        int[] order = StopSequenceOptimizer.optimize(matrix, true, false, Duration.ofSeconds(1));
+
+        assertEquals(0, order[0]);
+        assertEquals(9.0, StopSequenceOptimizer.pathLength(matrix, order), 1e-9);
+    }
+
+    @Test
+    public void fixedEndpointsShouldStayInPlace() {
+        DistanceMatrix matrix = randomMatrix(40, new Random(3), false);
+
+        int[] order = StopSequenceOptimizer.optimize(matrix, true, true, Duration.ofSeconds(1));
+
+        assertEquals(0, order[0]);
+        assertEquals(39, order[39]);
+        assertPermutation(order);
+    }
+
+    @Test
+    public void asymmetricMatrixShouldNotGetWorse() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            DistanceMatrix matrix = randomMatrix(3 + random.nextInt(15), random, true);
+            int[] original = new int[matrix.size()];
+            Arrays.setAll(original, i -> i);
+
+            int[] order = StopSequenceOptimizer.optimize(matrix, random.nextBoolean(), random.nextBoolean(), Duration.ofSeconds(1));
+
+            assertPermutation(order);
+            assertTrue(StopSequenceOptimizer.pathLength(matrix, order)
+                <= StopSequenceOptimizer.pathLength(matrix, original) + 1e-9);
+        }
+    }
+
+    @Test
+    public void hundredsOfPointsShouldGiveNoLongerPermutation() {
+        DistanceMatrix matrix = randomMatrix(500, new Random(7), false);
+        int[] original = new int[matrix.size()];
+        Arrays.setAll(original, i -> i);
+
+        // время оптимизации измеряет StopSequenceOptimizerBenchmark
+        int[] order = StopSequenceOptimizer.optimize(matrix, true, false, Duration.ofMillis(300));
+
+        assertPermutation(order);
+        assertTrue(StopSequenceOptimizer.pathLength(matrix, order) <= StopSequenceOptimizer.pathLength(matrix, original));
+    }
+
+    private static DistanceMatrix randomMatrix(int size, Random random, boolean asymmetric) {
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = random.nextDouble() * 10;
+            y[i] = random.nextDouble() * 10;
+        }
+        DistanceMatrix matrix = new DistanceMatrix(size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                double distance = Math.hypot(x[i] - x[j], y[i] - y[j]);
+                matrix.set(i, j, asymmetric && i != j ? distance * (1 + random.nextDouble()) : distance);
+            }
+        }
+        return matrix;
+    }
+
+    private static void assertPermutation(int[] order) {
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(i, sorted[i]);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.couriermanagement.routing.offline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OfflineRouterTest {
+
+    private static final int GRID = 15;
+    private static final int BASE_LATITUDE = 55_750_000;
+    private static final int BASE_LONGITUDE = 37_600_000;
+    private static final int STEP = 1_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void contractedDistancesShouldMatchDijkstra() {
+        RoadGraph roadGraph = randomGrid(new Random(42));
+        OfflineRouter router = new OfflineRouter(ContractionHierarchy.contract(roadGraph), 500);
+        Random random = new Random(7);
+
+        for (int query = 0; query < 200; query++) {
+            int source = random.nextInt(roadGraph.nodeCount());
+            int target = random.nextInt(roadGraph.nodeCount());
+            int expected = dijkstra(roadGraph, source)[target];
+
+            double actual = router.distanceKm(
+                roadGraph.latitude(source) / 1e6, roadGraph.longitude(source) / 1e6,
+                roadGraph.latitude(target) / 1e6, roadGraph.longitude(target) / 1e6);
+
+            if (expected == Integer.MAX_VALUE) {
+                assertTrue(Double.isNaN(actual), "Узлы " + source + " и " + target + " не связаны");
+            } else {
+                assertEquals(expected / 1000.0, actual, 1e-9, "Неверное расстояние " + source + " -> " + target);
+            }
+        }
+    }
+
+    @Test
+    public void mappedGraphShouldAnswerLikeHeapGraph() throws IOException {
+        RoadGraph roadGraph = randomGrid(new Random(1));
+        RoutingGraph contracted = ContractionHierarchy.contract(roadGraph);
+        Path file = tempDir.resolve("graph.chg");
+        RoutingGraphFile.write(contracted, file, 123, 456);
+
+        RoutingGraphFile.Header header = RoutingGraphFile.readHeader(file);
+        assertEquals(contracted.nodeCount(), header.nodeCount());
+        assertEquals(123, header.sourceSize());
+
+        OfflineRouter heap = new OfflineRouter(contracted, 500);
+        OfflineRouter mapped = new OfflineRouter(RoutingGraphFile.open(file), 500);
+        double[] latitudes = new double[12];
+        double[] longitudes = new double[12];
+        Random random = new Random(3);
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = (BASE_LATITUDE + random.nextInt(GRID * STEP)) / 1e6;
+            longitudes[i] = (BASE_LONGITUDE + random.nextInt(GRID * STEP)) / 1e6;
+        }
+
+        double[] matrix = mapped.distanceMatrixKm(latitudes, longitudes);
+        for (int i = 0; i < latitudes.length; i++) {
+            for (int j = 0; j < latitudes.length; j++) {
+                double expected = i == j ? 0.0 : heap.distanceKm(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+                assertEquals(expected, matrix[i * latitudes.length + j], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void pointsFarFromNetworkShouldNotBeRouted() {
+        OfflineRouter router = new OfflineRouter(ContractionHierarchy.contract(randomGrid(new Random(5))), 500);
+
+        assertTrue(Double.isNaN(router.distanceKm(55.75, 37.6, 59.93, 30.36)));
+    }
+
+    @Test
+    public void graphShouldBeBuiltFromPbf() throws IOException {
+        Path pbf = tempDir.resolve("region.osm.pbf");
+        Files.write(pbf, tinyExtract());
+
+        RoadGraph graph = RoadGraphBuilder.fromPbf(pbf);
+
+        // промежуточный узел 2 свернут в ребро, пешеходная дорожка отброшена
+        assertEquals(2, graph.nodeCount());
+        assertEquals(1, graph.edgeCount());
+        double expected = RoadGraph.distanceMeters(55_750_000, 37_600_000, 55_751_000, 37_600_000)
+            + RoadGraph.distanceMeters(55_751_000, 37_600_000, 55_751_000, 37_602_000);
+        assertEquals(Math.round(expected), graph.edgeWeight(graph.firstEdge(0)));
+        assertEquals(55_750_000, graph.latitude(0));
+    }
+
+    private static RoadGraph randomGrid(Random random) {
+        int nodes = GRID * GRID;
+        int[] latitudes = new int[nodes];
+        int[] longitudes = new int[nodes];
+        int[] from = new int[2 * nodes];
+        int[] to = new int[2 * nodes];
+        int[] weights = new int[2 * nodes];
+        int edges = 0;
+        for (int row = 0; row < GRID; row++) {
+            for (int column = 0; column < GRID; column++) {
+                int node = row * GRID + column;
+                latitudes[node] = BASE_LATITUDE + row * STEP;
+                longitudes[node] = BASE_LONGITUDE + column * STEP;
+            }
+        }
+        for (int row = 0; row < GRID; row++) {
+            for (int column = 0; column < GRID; column++) {
+                int node = row * GRID + column;
+                int[] neighbours = {column + 1 < GRID ? node + 1 : -1, row + 1 < GRID ? node + GRID : -1};
+                for (int neighbour : neighbours) {
+                    if (neighbour < 0 || random.nextInt(10) == 0) {
+                        continue;
+                    }
+                    from[edges] = node;
+                    to[edges] = neighbour;
+                    double meters = RoadGraph.distanceMeters(
+                        latitudes[node], longitudes[node], latitudes[neighbour], longitudes[neighbour]);
+                    weights[edges] = (int) Math.round(meters * (1 + random.nextInt(3)));
+                    edges++;
+                }
+            }
+        }
+        return RoadGraph.fromEdges(latitudes, longitudes, from, to, weights, edges);
+    }
+
+    private static int[] dijkstra(RoadGraph graph, int source) {
+        int[] distance = new int[graph.nodeCount()];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        distance[source] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        queue.add(new long[]{0, source});
+        while (!queue.isEmpty()) {
+            long[] top = queue.poll();
+            int node = (int) top[1];
+            if (top[0] > distance[node]) {
+                continue;
+            }
+            for (int e = graph.firstEdge(node); e < graph.firstEdge(node + 1); e++) {
+                int candidate = distance[node] + graph.edgeWeight(e);
+                if (candidate < distance[graph.edgeTarget(e)]) {
+                    distance[graph.edgeTarget(e)] = candidate;
+                    queue.add(new long[]{candidate, graph.edgeTarget(e)});
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Three nodes joined by a residential street plus a footway, encoded as a zlib-compressed PBF.
+     */
+    private static byte[] tinyExtract() throws IOException {
+        ProtoWriter header = new ProtoWriter();
+        header.string(4, "OsmSchema-V0.6");
+        header.string(4, "DenseNodes");
+
+        ProtoWriter strings = new ProtoWriter();
+        for (String value : new String[]{"", "highway", "residential", "footway"}) {
+            strings.string(1, value);
+        }
+
+        ProtoWriter dense = new ProtoWriter();
+        // идентификаторы и координаты закодированы дельтами, единица координат при granularity 100 - 1e-7 градуса
+        dense.packedSigned(1, 1, 1, 1);
+        dense.packedSigned(8, 557_500_000, 10_000, 0);
+        dense.packedSigned(9, 376_000_000, 0, 20_000);
+
+        ProtoWriter street = new ProtoWriter();
+        street.varint(1, 10);
+        street.packed(2, 1);
+        street.packed(3, 2);
+        street.packedSigned(8, 1, 1, 1);
+
+        ProtoWriter footway = new ProtoWriter();
+        footway.varint(1, 11);
+        footway.packed(2, 1);
+        footway.packed(3, 3);
+        footway.packedSigned(8, 3, 1);
+
+        ProtoWriter nodesGroup = new ProtoWriter();
+        nodesGroup.message(2, dense);
+        ProtoWriter waysGroup = new ProtoWriter();
+        waysGroup.message(3, street);
+        waysGroup.message(3, footway);
+
+        ProtoWriter block = new ProtoWriter();
+        block.message(2, waysGroup);
+        block.message(2, nodesGroup);
+        block.message(1, strings);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(file);
+        writeBlob(output, "OSMHeader", header.toByteArray());
+        writeBlob(output, "OSMData", block.toByteArray());
+        return file.toByteArray();
+    }
+
+    private static void writeBlob(DataOutputStream output, String type, byte[] raw) throws IOException {
+        Deflater deflater = new Deflater();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] buffer = new byte[raw.length + 64];
+        int compressed = deflater.deflate(buffer);
+        deflater.end();
+
+        ProtoWriter blob = new ProtoWriter();
+        blob.varint(2, raw.length);
+        blob.bytes(3, Arrays.copyOf(buffer, compressed));
+        byte[] blobBytes = blob.toByteArray();
+
+        ProtoWriter blobHeader = new ProtoWriter();
+        blobHeader.string(1, type);
+        blobHeader.varint(3, blobBytes.length);
+        byte[] headerBytes = blobHeader.toByteArray();
+
+        output.writeInt(headerBytes.length);
+        output.write(headerBytes);
+        output.write(blobBytes);
+    }
+
+    private static final class ProtoWriter {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        void varint(int field, long value) {
+            rawVarint((long) field << 3);
+            rawVarint(value);
+        }
+
+        void string(int field, String value) {
+            bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void bytes(int field, byte[] value) {
+            rawVarint(((long) field << 3) | 2);
+            rawVarint(value.length);
+            output.writeBytes(value);
+        }
+
+        void message(int field, ProtoWriter message) {
+            bytes(field, message.toByteArray());
+        }
+
+        void packed(int field, long... values) {
+            ProtoWriter packed = new ProtoWriter();
+            for (long value : values) {
+                packed.rawVarint(value);
+            }
+            bytes(field, packed.toByteArray());
+        }
+
+        void packedSigned(int field, long... values) {
+            long[] zigzag = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                zigzag[i] = (values[i] << 1) ^ (values[i] >> 63);
+            }
+            packed(field, zigzag);
+        }
+
+        byte[] toByteArray() {
+            return output.toByteArray();
+        }
+
+        private void rawVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                output.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            output.write((int) value);
+        }
+    }
+}
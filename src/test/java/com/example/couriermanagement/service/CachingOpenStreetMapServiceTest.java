@@ -0,0 +1,103 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.request.RoutePoint;
+import com.example.couriermanagement.geo.DistanceMatrix;
+import com.example.couriermanagement.routing.DistanceCache;
+import com.example.couriermanagement.routing.RoadDistance;
+import com.example.couriermanagement.routing.RoutingBackend;
+import com.example.couriermanagement.service.impl.CachingOpenStreetMapService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingOpenStreetMapServiceTest {
+
+    private static final BigDecimal LAT_1 = new BigDecimal("55.7558");
+    private static final BigDecimal LON_1 = new BigDecimal("37.6176");
+    private static final BigDecimal LAT_2 = new BigDecimal("59.9311");
+    private static final BigDecimal LON_2 = new BigDecimal("30.3609");
+
+    private final DistanceCache cache = new DistanceCache(4, 100, Duration.ofDays(1), null, 0, Clock.systemUTC());
+    private final StubBackend backend = new StubBackend();
+    private final CachingOpenStreetMapService service = new CachingOpenStreetMapService(backend, cache);
+
+    @Test
+    public void roadDistanceShouldBeCached() {
+        assertEquals(new BigDecimal("635.00"), service.calculateDistance(LAT_1, LON_1, LAT_2, LON_2));
+        assertEquals(new BigDecimal("635.00"), service.calculateDistance(LAT_1, LON_1, LAT_2, LON_2));
+
+        assertEquals(1, backend.distanceCalls.get());
+    }
+
+    @Test
+    public void estimatedDistanceShouldNotBeCached() {
+        backend.estimating = true;
+        service.calculateDistance(LAT_1, LON_1, LAT_2, LON_2);
+
+        backend.estimating = false;
+        assertEquals(new BigDecimal("635.00"), service.calculateDistance(LAT_1, LON_1, LAT_2, LON_2));
+        assertEquals(2, backend.distanceCalls.get());
+    }
+
+    @Test
+    public void matrixShouldReuseCachedPairsAndSkipEstimates() {
+        List<RoutePoint> points = List.of(new RoutePoint(LAT_1, LON_1), new RoutePoint(LAT_2, LON_2));
+
+        backend.estimating = true;
+        DistanceMatrix estimated = service.calculateDistanceMatrix(points);
+        assertTrue(estimated.isEstimated(0, 1));
+
+        backend.estimating = false;
+        DistanceMatrix road = service.calculateDistanceMatrix(points);
+        DistanceMatrix cached = service.calculateDistanceMatrix(points);
+
+        assertEquals(2, backend.matrixCalls.get());
+        assertEquals(635.0, road.get(0, 1), 1e-9);
+        assertEquals(635.0, cached.get(1, 0), 1e-9);
+        assertFalse(cached.isEstimated(0, 1));
+        // одиночное расстояние берется из пар, сохраненных матрицей
+        assertEquals(new BigDecimal("635.00"), service.calculateDistance(LAT_1, LON_1, LAT_2, LON_2));
+        assertEquals(0, backend.distanceCalls.get());
+    }
+
+    /**
+     * Answers 635 km as a road distance, or 600 km as an estimate while {@code estimating} is set.
+     */
+    private static final class StubBackend implements RoutingBackend {
+        private final AtomicInteger distanceCalls = new AtomicInteger();
+        private final AtomicInteger matrixCalls = new AtomicInteger();
+        private volatile boolean estimating;
+
+        @Override
+        public RoadDistance distance(BigDecimal startLatitude, BigDecimal startLongitude,
+                                     BigDecimal endLatitude, BigDecimal endLongitude) {
+            distanceCalls.incrementAndGet();
+            return estimating
+                ? new RoadDistance(new BigDecimal("600.00"), true)
+                : new RoadDistance(new BigDecimal("635.00"), false);
+        }
+
+        @Override
+        public DistanceMatrix calculateDistanceMatrix(List<RoutePoint> points) {
+            matrixCalls.incrementAndGet();
+            DistanceMatrix matrix = new DistanceMatrix(points.size());
+            for (int i = 0; i < points.size(); i++) {
+                for (int j = 0; j < points.size(); j++) {
+                    if (i != j) {
+                        matrix.set(i, j, estimating ? 600.0 : 635.0);
+                        if (estimating) {
+                            matrix.markEstimated(i, j);
+                        }
+                    }
+                }
+            }
+            return matrix;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.BaseIntegrationTest;
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryStatus;
+import com.example.couriermanagement.entity.Vehicle;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourierScheduleServiceTest extends BaseIntegrationTest {
+
+    private static final LocalTime DAY_START = LocalTime.of(9, 0);
+    private static final LocalTime DAY_END = LocalTime.of(18, 0);
+
+    @Autowired
+    private CourierScheduleService courierScheduleService;
+
+    @Test
+    public void scheduleShouldFollowDeliveriesOfCurrentTransaction() {
+        Vehicle vehicle = createVehicle();
+        LocalDate date = LocalDate.now().plusDays(5);
+        saveDelivery(vehicle, date, LocalTime.of(10, 0), LocalTime.of(12, 0));
+
+        // окно 9:00-10:00 короче полутора часов
+        assertEquals(Optional.of(LocalTime.of(12, 0)), courierScheduleService.earliestSlot(
+            courierUser.getId(), date, DAY_START, DAY_END, Duration.ofMinutes(90)));
+        assertTrue(courierScheduleService.hasConflict(courierUser.getId(), date, LocalTime.of(11, 30), LocalTime.of(13, 0)));
+        assertFalse(courierScheduleService.hasConflict(courierUser.getId(), date, LocalTime.of(12, 0), LocalTime.of(13, 0)));
+
+        // расписание уже в памяти, новая доставка видна до коммита
+        Delivery second = saveDelivery(vehicle, date, LocalTime.of(12, 0), LocalTime.of(14, 0));
+        assertEquals(Optional.of(LocalTime.of(14, 0)), courierScheduleService.earliestSlot(
+            courierUser.getId(), date, DAY_START, DAY_END, Duration.ofMinutes(90)));
+        assertEquals(Set.of(courierUser.getId()), courierScheduleService.busyCouriers(
+            List.of(courierUser.getId(), managerUser.getId()), date, LocalTime.of(13, 0), LocalTime.of(13, 30)));
+
+        // отмененная доставка время не занимает
+        deliveryRepository.save(second.toBuilder().status(DeliveryStatus.CANCELLED).build());
+        assertEquals(Optional.of(LocalTime.of(12, 0)), courierScheduleService.earliestSlot(
+            courierUser.getId(), date, DAY_START, DAY_END, Duration.ofMinutes(90)));
+        assertEquals(2, courierScheduleService.freeGaps(courierUser.getId(), date, DAY_START, DAY_END).size());
+    }
+
+    private Delivery saveDelivery(Vehicle vehicle, LocalDate date, LocalTime start, LocalTime end) {
+        return deliveryRepository.save(
+            Delivery.builder()
+                .courier(courierUser)
+                .vehicle(vehicle)
+                .createdBy(managerUser)
+                .deliveryDate(date)
+                .timeStart(start)
+                .timeEnd(end)
+                .status(DeliveryStatus.PLANNED)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build()
+        );
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.BaseIntegrationTest;
+import com.example.couriermanagement.dto.DeliveryDto;
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryStatus;
+import com.example.couriermanagement.entity.Vehicle;
+import com.example.couriermanagement.exporting.DeliveryExportWriter;
+import com.example.couriermanagement.importing.CsvDeliveryReader;
+import com.example.couriermanagement.importing.DeliveryImportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryExportTest extends BaseIntegrationTest {
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Test
+    public void csvExportShouldBeReadableByImport() throws Exception {
+        Vehicle vehicle = createVehicle();
+        Delivery first = createDelivery(courierUser, vehicle);
+        Delivery second = createDelivery(courierUser, vehicle);
+        Long productId = deliveryPointProductRepository.findAll().get(0).getProduct().getId();
+
+        String csv = export(DeliveryExportWriter.CSV, new DeliveryDto.DeliveryFilterRequest());
+
+        List<String> lines = csv.lines().toList();
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).endsWith(",status"));
+        assertTrue(lines.get(1).startsWith(first.getId() + "," + courierUser.getId() + "," + vehicle.getId() + ","));
+        assertTrue(lines.get(1).endsWith(",1,55.7558,37.6176," + productId + ",2,PLANNED"));
+
+        CsvDeliveryReader reader = new CsvDeliveryReader(new BufferedReader(new StringReader(csv)), 4096, 1000);
+        DeliveryImportRow row = reader.next();
+        assertNull(row.error());
+        assertEquals(String.valueOf(first.getId()), row.ref());
+        assertEquals(vehicle.getId(), row.request().getVehicleId());
+        assertEquals(2, row.request().getPoints().get(0).getProducts().get(0).getQuantity());
+        assertEquals(String.valueOf(second.getId()), reader.next().ref());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void ndjsonExportShouldApplyFilters() throws Exception {
+        Delivery delivery = createDelivery();
+
+        String ndjson = export(DeliveryExportWriter.NDJSON, DeliveryDto.DeliveryFilterRequest.builder()
+            .startDate(delivery.getDeliveryDate())
+            .courierId(courierUser.getId())
+            .build());
+
+        List<String> lines = ndjson.lines().toList();
+        assertEquals(1, lines.size());
+        JsonNode exported = objectMapper.readTree(lines.get(0));
+        assertEquals(delivery.getId(), exported.get("id").asLong());
+        assertEquals(2, exported.get("deliveryPoints").get(0).get("products").get(0).get("quantity").asInt());
+
+        String empty = export(DeliveryExportWriter.NDJSON, DeliveryDto.DeliveryFilterRequest.builder()
+            .startDate(delivery.getDeliveryDate().plusDays(1))
+            .build());
+        assertEquals("", empty);
+        assertEquals(1, export(DeliveryExportWriter.CSV, DeliveryDto.DeliveryFilterRequest.builder()
+            .status(DeliveryStatus.CANCELLED)
+            .build()).lines().count());
+    }
+
+    private String export(MediaType mediaType, DeliveryDto.DeliveryFilterRequest filter) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        deliveryService.exportDeliveries(filter, DeliveryExportWriter.open(mediaType, out, objectMapper));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.request.DeliveryPointRequest;
+import com.example.couriermanagement.dto.request.DeliveryProductRequest;
+import com.example.couriermanagement.dto.request.GenerateDeliveriesRequest;
+import com.example.couriermanagement.dto.request.RouteWithProducts;
+import com.example.couriermanagement.dto.response.GenerateDeliveriesResponse;
+import com.example.couriermanagement.dto.response.GenerationResultByDate;
+import com.example.couriermanagement.entity.Product;
+import com.example.couriermanagement.entity.User;
+import com.example.couriermanagement.entity.UserRole;
+import com.example.couriermanagement.entity.Vehicle;
+import com.example.couriermanagement.repository.DeliveryRepository;
+import com.example.couriermanagement.repository.ProductRepository;
+import com.example.couriermanagement.repository.UserRepository;
+import com.example.couriermanagement.repository.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Generation outside a caller's transaction runs every date in its own transaction, so this test
+ * does not extend the transactional {@code BaseIntegrationTest}; it removes its own rows afterwards.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml",
+        "planning.generation.max-concurrent-dates=2"
+    }
+)
+@AutoConfigureMockMvc(addFilters = true)
+public class DeliveryGenerationConcurrencyTest {
+
+    private static final int DATES = 6;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @SpyBean
+    private CourierScheduleService courierScheduleService;
+
+    @MockBean
+    private OpenStreetMapService openStreetMapService;
+
+    private final List<LocalDate> dates = new ArrayList<>();
+    private User manager;
+    private User courier;
+    private Product product;
+    private Vehicle vehicle;
+
+    @BeforeEach
+    public void setUp() {
+        manager = userRepository.save(user("generation-manager", UserRole.MANAGER));
+        courier = userRepository.save(user("generation-courier", UserRole.COURIER));
+        product = productRepository.save(
+            Product.builder()
+                .name("Ящик 10 кг")
+                .weight(new BigDecimal("10.0"))
+                .length(new BigDecimal("10.0"))
+                .width(new BigDecimal("10.0"))
+                .height(new BigDecimal("10.0"))
+                .build()
+        );
+        vehicle = vehicleRepository.save(
+            Vehicle.builder()
+                .brand("Газель")
+                .licensePlate("GEN-1000")
+                .maxWeight(new BigDecimal("1000.0"))
+                .maxVolume(new BigDecimal("1000.0"))
+                .build()
+        );
+        for (int i = 0; i < DATES; i++) {
+            dates.add(LocalDate.now().plusDays(30 + i));
+        }
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(manager.getLogin(), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        SecurityContextHolder.clearContext();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (LocalDate date : dates) {
+                deliveryRepository.deleteAll(deliveryRepository.findByDeliveryDate(date));
+            }
+            vehicleRepository.delete(vehicle);
+            productRepository.delete(product);
+            userRepository.deleteAll(List.of(manager, courier));
+        });
+    }
+
+    @Test
+    public void failedDateShouldRollBackAloneWithinConcurrencyLimit() {
+        LocalDate failing = dates.get(2);
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        // расписание читается в транзакции даты; она считается открытой с этого момента до завершения
+        doAnswer(invocation -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    open.decrementAndGet();
+                }
+            });
+            Thread.sleep(200);
+            if (failing.equals(invocation.getArgument(1))) {
+                throw new IllegalStateException("could not execute statement: SQL [insert into deliveries ...]");
+            }
+            return invocation.callRealMethod();
+        }).when(courierScheduleService).busyCouriers(any(), any(), any(), any());
+
+        GenerateDeliveriesResponse response = deliveryService.generateDeliveries(request());
+
+        assertEquals(DATES - 1, response.getTotalGenerated());
+        GenerationResultByDate failed = response.getByDate().get(failing);
+        assertEquals(0, failed.getGeneratedCount());
+        assertEquals(List.of("Генерация на дату отменена из-за внутренней ошибки"), failed.getWarnings());
+        for (LocalDate date : dates) {
+            int expected = date.equals(failing) ? 0 : 1;
+            assertEquals(expected, deliveryRepository.findByDeliveryDate(date).size(), date.toString());
+        }
+        // даты шли параллельно, но не больше двух транзакций сразу
+        assertEquals(2, maxOpen.get());
+        assertEquals(0, open.get());
+    }
+
+    private GenerateDeliveriesRequest request() {
+        Map<LocalDate, List<RouteWithProducts>> deliveryData = new HashMap<>();
+        for (LocalDate date : dates) {
+            deliveryData.put(date, List.of(RouteWithProducts.builder()
+                .route(List.of(DeliveryPointRequest.builder()
+                    .sequence(1)
+                    .latitude(new BigDecimal("55.7558"))
+                    .longitude(new BigDecimal("37.6176"))
+                    .products(List.of(DeliveryProductRequest.builder()
+                        .productId(product.getId())
+                        .quantity(1)
+                        .build()))
+                    .build()))
+                .products(List.of(DeliveryProductRequest.builder()
+                    .productId(product.getId())
+                    .quantity(1)
+                    .build()))
+                .build()));
+        }
+        return GenerateDeliveriesRequest.builder()
+            .deliveryData(deliveryData)
+            .build();
+    }
+
+    private static User user(String login, UserRole role) {
+        return User.builder()
+            .login(login)
+            .passwordHash("-")
+            .name(login)
+            .role(role)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+}
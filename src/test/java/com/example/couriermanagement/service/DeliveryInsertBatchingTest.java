@@ -0,0 +1,138 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.BaseIntegrationTest;
+import com.example.couriermanagement.dto.request.DeliveryPointRequest;
+import com.example.couriermanagement.dto.request.DeliveryProductRequest;
+import com.example.couriermanagement.dto.request.DeliveryRequest;
+import com.example.couriermanagement.dto.request.GenerateDeliveriesRequest;
+import com.example.couriermanagement.dto.request.RouteWithProducts;
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.Product;
+import com.example.couriermanagement.entity.Vehicle;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements Hibernate prepares for the real write paths: with pooled sequence ids
+ * and insert batching the count does not grow with the number of stops.
+ */
+public class DeliveryInsertBatchingTest extends BaseIntegrationTest {
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Vehicle vehicle;
+    private Product product;
+
+    @BeforeEach
+    public void setUpDelivery() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        vehicle = createVehicle();
+        product = createProduct();
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(managerUser.getLogin(), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    public void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void createdDeliveryShouldInsertStopsInBatches() {
+        long oneStop = statements(() -> deliveryService.createDelivery(deliveryRequest(1, 5)));
+        long twentyStops = statements(() -> deliveryService.createDelivery(deliveryRequest(20, 6)));
+
+        assertEquals(20, stopsOn(LocalDate.now().plusDays(6)));
+        // IDENTITY или сброс после каждой строки дали бы по два лишних оператора на точку
+        assertTrue(twentyStops - oneStop <= 3, "1 stop: " + oneStop + ", 20 stops: " + twentyStops);
+    }
+
+    @Test
+    public void generatedDeliveryShouldInsertStopsInBatches() {
+        long oneStop = statements(() -> deliveryService.generateDeliveries(generateRequest(1, 5)));
+        long manyStops = statements(() -> deliveryService.generateDeliveries(generateRequest(19, 6)));
+
+        assertEquals(19, stopsOn(LocalDate.now().plusDays(6)));
+        assertTrue(manyStops - oneStop <= 3, "1 stop: " + oneStop + ", 19 stops: " + manyStops);
+    }
+
+    /**
+     * Statements prepared by the action and the flush of everything it left in the persistence
+     * context; a new block of 50 sequence ids may add one {@code nextval} per sequence.
+     */
+    private long statements(Runnable action) {
+        entityManager.flush();
+        long before = statistics.getPrepareStatementCount();
+        action.run();
+        entityManager.flush();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    private int stopsOn(LocalDate date) {
+        List<Delivery> deliveries = deliveryRepository.findByDeliveryDate(date);
+        assertEquals(1, deliveries.size());
+        return deliveryPointRepository.findByDeliveryId(deliveries.get(0).getId()).size();
+    }
+
+    private DeliveryRequest deliveryRequest(int stops, int daysAhead) {
+        return DeliveryRequest.builder()
+            .courierId(courierUser.getId())
+            .vehicleId(vehicle.getId())
+            .deliveryDate(LocalDate.now().plusDays(daysAhead))
+            .timeStart(LocalTime.of(7, 0))
+            .timeEnd(LocalTime.of(21, 0))
+            .points(points(stops))
+            .build();
+    }
+
+    private GenerateDeliveriesRequest generateRequest(int stops, int daysAhead) {
+        return GenerateDeliveriesRequest.builder()
+            .deliveryData(Map.of(LocalDate.now().plusDays(daysAhead), List.of(RouteWithProducts.builder()
+                .route(points(stops))
+                .products(List.of(productLine()))
+                .build())))
+            .build();
+    }
+
+    private List<DeliveryPointRequest> points(int stops) {
+        List<DeliveryPointRequest> points = new ArrayList<>();
+        for (int i = 0; i < stops; i++) {
+            points.add(DeliveryPointRequest.builder()
+                .sequence(i + 1)
+                .latitude(new BigDecimal("55.7558"))
+                .longitude(new BigDecimal("37.6176"))
+                .products(List.of(productLine()))
+                .build());
+        }
+        return points;
+    }
+
+    private DeliveryProductRequest productLine() {
+        return DeliveryProductRequest.builder()
+            .productId(product.getId())
+            .quantity(1)
+            .build();
+    }
+}
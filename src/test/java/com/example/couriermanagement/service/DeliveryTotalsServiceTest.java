@@ -0,0 +1,81 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.BaseIntegrationTest;
+import com.example.couriermanagement.dto.response.DeliveryTotalsCheck;
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.DeliveryPointProduct;
+import com.example.couriermanagement.entity.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryTotalsServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private DeliveryTotalsService deliveryTotalsService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void totalsShouldFollowPointsAndProductsWrittenThroughRepositories() {
+        Delivery delivery = createDelivery();
+
+        deliveryTotalsService.applyPending();
+
+        // 2 шт. по 1.5 кг и 10×10×10 см
+        assertEquals(1, delivery.getPointsCount());
+        assertEquals(2, delivery.getProductsCount());
+        assertEquals(0, new BigDecimal("3.000").compareTo(delivery.getTotalWeight()));
+        assertEquals(0, new BigDecimal("0.002").compareTo(delivery.getTotalVolume()));
+
+        DeliveryPointProduct line = deliveryPointProductRepository.findAll().get(0);
+        line.setQuantity(5);
+        deliveryTotalsService.applyPending();
+
+        assertEquals(5, delivery.getProductsCount());
+        assertEquals(0, new BigDecimal("7.500").compareTo(delivery.getTotalWeight()));
+    }
+
+    @Test
+    public void productChangeShouldRecalculateDeliveriesContainingIt() {
+        Delivery delivery = createDelivery();
+        deliveryTotalsService.applyPending();
+
+        Product product = productRepository.findAll().get(0);
+        product.setWeight(new BigDecimal("4.0"));
+        deliveryTotalsService.applyPending();
+        entityManager.refresh(delivery);
+
+        assertEquals(0, new BigDecimal("8.000").compareTo(delivery.getTotalWeight()));
+        assertEquals(0, deliveryTotalsService.checkConsistency(false).getMismatchedDeliveries());
+    }
+
+    @Test
+    public void checkShouldFindAndRepairStaleTotals() {
+        Delivery delivery = createDelivery();
+        deliveryTotalsService.applyPending();
+        entityManager.flush();
+        // запись в обход приложения
+        entityManager.createNativeQuery("UPDATE deliveries SET total_weight = 0, products_count = 0 WHERE id = :id")
+            .setParameter("id", delivery.getId())
+            .executeUpdate();
+
+        DeliveryTotalsCheck check = deliveryTotalsService.checkConsistency(false);
+        assertEquals(1, check.getMismatchedDeliveries());
+        assertEquals(List.of(delivery.getId()), check.getMismatchedDeliveryIds());
+        assertEquals(0, check.getRepairedDeliveries());
+
+        DeliveryTotalsCheck repaired = deliveryTotalsService.checkConsistency(true);
+        assertEquals(1, repaired.getRepairedDeliveries());
+        assertEquals(0, deliveryTotalsService.checkConsistency(false).getMismatchedDeliveries());
+
+        entityManager.refresh(delivery);
+        assertEquals(2, delivery.getProductsCount());
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.request.ProductRequest;
+import com.example.couriermanagement.dto.request.UserUpdateRequest;
+import com.example.couriermanagement.dto.request.VehicleRequest;
+import com.example.couriermanagement.entity.CacheRegions;
+import com.example.couriermanagement.entity.Product;
+import com.example.couriermanagement.entity.User;
+import com.example.couriermanagement.entity.UserRole;
+import com.example.couriermanagement.entity.Vehicle;
+import com.example.couriermanagement.repository.DeliveryRepository;
+import com.example.couriermanagement.repository.ProductRepository;
+import com.example.couriermanagement.repository.UserRepository;
+import com.example.couriermanagement.repository.VehicleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The second-level cache is only filled and invalidated on commit, so this test does not extend the
+ * transactional {@code BaseIntegrationTest}; it removes its own rows afterwards.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml"
+    }
+)
+@AutoConfigureMockMvc(addFilters = true)
+public class EntityCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private OpenStreetMapService openStreetMapService;
+
+    private Statistics statistics;
+    private Product product;
+    private Vehicle vehicle;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        product = productRepository.save(
+            Product.builder()
+                .name("Коробка")
+                .weight(new BigDecimal("1.5"))
+                .length(new BigDecimal("10.0"))
+                .width(new BigDecimal("10.0"))
+                .height(new BigDecimal("10.0"))
+                .build()
+        );
+        vehicle = vehicleRepository.save(
+            Vehicle.builder()
+                .brand("Газель")
+                .licensePlate("CACHE-1")
+                .maxWeight(new BigDecimal("1000.0"))
+                .maxVolume(new BigDecimal("15.0"))
+                .build()
+        );
+        user = userRepository.save(
+            User.builder()
+                .login("cache-courier")
+                .passwordHash("-")
+                .name("Курьер")
+                .role(UserRole.COURIER)
+                .createdAt(LocalDateTime.now())
+                .build()
+        );
+        // строки с id из IDENTITY попадают в кэш при первом чтении, а не при вставке
+        inTransaction(() -> productRepository.findById(product.getId()));
+        inTransaction(() -> vehicleRepository.findByLicensePlate("CACHE-1"));
+        inTransaction(() -> userRepository.findByLogin("cache-courier"));
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        inTransaction(() -> {
+            productRepository.deleteById(product.getId());
+            vehicleRepository.deleteById(vehicle.getId());
+            userRepository.deleteById(user.getId());
+            return null;
+        });
+    }
+
+    @Test
+    public void lookupsByIdAndNaturalIdShouldNotQueryDatabase() {
+        for (int i = 0; i < 3; i++) {
+            inTransaction(() -> productRepository.findById(product.getId()));
+            inTransaction(() -> vehicleRepository.findByLicensePlate("CACHE-1"));
+            inTransaction(() -> userRepository.findByLogin("cache-courier"));
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(3, hits(CacheRegions.PRODUCTS));
+        assertEquals(3, hits(CacheRegions.VEHICLES_BY_PLATE));
+        assertEquals(3, hits(CacheRegions.USERS_BY_LOGIN));
+        assertEquals(0, statistics.getDomainDataRegionStatistics(CacheRegions.PRODUCTS).getMissCount());
+    }
+
+    @Test
+    public void serviceWritesShouldReplaceCachedEntries() {
+        productService.updateProduct(product.getId(), ProductRequest.builder()
+            .name("Коробка")
+            .weight(new BigDecimal("4.0"))
+            .length(new BigDecimal("10.0"))
+            .width(new BigDecimal("10.0"))
+            .height(new BigDecimal("10.0"))
+            .build());
+        vehicleService.updateVehicle(vehicle.getId(), VehicleRequest.builder()
+            .brand("Газель")
+            .licensePlate("CACHE-2")
+            .maxWeight(new BigDecimal("1000.0"))
+            .maxVolume(new BigDecimal("15.0"))
+            .build());
+        userService.updateUser(user.getId(), UserUpdateRequest.builder()
+            .login("cache-courier-2")
+            .build());
+
+        Product cachedProduct = inTransaction(() -> productRepository.findById(product.getId()).orElseThrow());
+        assertEquals(0, new BigDecimal("4.0").compareTo(cachedProduct.getWeight()));
+        assertTrue(inTransaction(() -> vehicleRepository.findByLicensePlate("CACHE-1")).isEmpty());
+        assertEquals(vehicle.getId(), inTransaction(() -> vehicleRepository.findByLicensePlate("CACHE-2")).orElseThrow().getId());
+        assertTrue(inTransaction(() -> userRepository.findByLogin("cache-courier")).isEmpty());
+        assertEquals(user.getId(), inTransaction(() -> userRepository.findByLogin("cache-courier-2")).orElseThrow().getId());
+    }
+
+    @Test
+    public void nativeTotalsUpdateShouldKeepReferenceDataCached() {
+        inTransaction(() -> deliveryRepository.recalculateTotals(List.of(-1L)));
+        statistics.clear();
+
+        inTransaction(() -> productRepository.findById(product.getId()));
+
+        assertEquals(1, hits(CacheRegions.PRODUCTS));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void catalogVersionBumpShouldKeepOtherRegionsCached() {
+        productService.updateProduct(product.getId(), ProductRequest.builder()
+            .name("Коробка")
+            .weight(new BigDecimal("2.0"))
+            .length(new BigDecimal("10.0"))
+            .width(new BigDecimal("10.0"))
+            .height(new BigDecimal("10.0"))
+            .build());
+        statistics.clear();
+
+        inTransaction(() -> vehicleRepository.findByLicensePlate("CACHE-1"));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private long hits(String region) {
+        return statistics.getDomainDataRegionStatistics(region).getHitCount();
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+}
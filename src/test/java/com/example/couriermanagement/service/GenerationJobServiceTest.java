@@ -0,0 +1,158 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.request.GenerateDeliveriesRequest;
+import com.example.couriermanagement.dto.response.GenerationJobDto;
+import com.example.couriermanagement.dto.response.GenerationResultByDate;
+import com.example.couriermanagement.service.impl.GenerationJobServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class GenerationJobServiceTest {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2025, 1, 30);
+    private static final LocalDate SECOND_DATE = LocalDate.of(2025, 1, 31);
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+    private final MutableClock clock = new MutableClock();
+    private final DeliveryService deliveryService = mock(DeliveryService.class);
+    private final GenerationJobService jobService = new GenerationJobServiceImpl(
+        deliveryService, executor, Duration.ofMinutes(10), Duration.ofMinutes(1), clock);
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void jobShouldCollectResultsOfEveryDate() throws Exception {
+        CountDownLatch firstDateDone = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            GenerationProgressListener listener = invocation.getArgument(1);
+            listener.datesPlanned(Set.of(FIRST_DATE, SECOND_DATE));
+            listener.dateCompleted(FIRST_DATE, result(2));
+            firstDateDone.countDown();
+            release.await();
+            listener.dateCompleted(SECOND_DATE, result(3));
+            return null;
+        }).when(deliveryService).generateDeliveries(any(), any());
+
+        GenerationJobDto submitted = jobService.submit(new GenerateDeliveriesRequest());
+        assertTrue(firstDateDone.await(5, TimeUnit.SECONDS));
+
+        GenerationJobDto running = jobService.getJob(submitted.getJobId());
+        assertEquals(GenerationJobDto.Status.RUNNING, running.getStatus());
+        assertEquals(2, running.getTotalDates());
+        assertEquals(1, running.getCompletedDates());
+        assertEquals(2, running.getTotalGenerated());
+
+        release.countDown();
+        GenerationJobDto finished = awaitFinished(submitted.getJobId());
+        assertEquals(GenerationJobDto.Status.COMPLETED, finished.getStatus());
+        assertEquals(List.of(FIRST_DATE, SECOND_DATE), new ArrayList<>(finished.getByDate().keySet()));
+        assertEquals(5, finished.getTotalGenerated());
+    }
+
+    @Test
+    public void failedJobShouldKeepReason() throws Exception {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("Пользователь не авторизован");
+        }).when(deliveryService).generateDeliveries(any(), any());
+
+        GenerationJobDto finished = awaitFinished(jobService.submit(new GenerateDeliveriesRequest()).getJobId());
+
+        assertEquals(GenerationJobDto.Status.FAILED, finished.getStatus());
+        assertEquals("Пользователь не авторизован", finished.getError());
+    }
+
+    @Test
+    public void jobsBeyondQueueShouldBeRejected() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(deliveryService).generateDeliveries(any(), any());
+
+        try {
+            jobService.submit(new GenerateDeliveriesRequest());
+            GenerationJobDto queued = jobService.submit(new GenerateDeliveriesRequest());
+            assertEquals(GenerationJobDto.Status.QUEUED, queued.getStatus());
+
+            assertThrows(RejectedExecutionException.class, () -> jobService.submit(new GenerateDeliveriesRequest()));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void finishedJobShouldBeDroppedAfterRetention() throws Exception {
+        String jobId = jobService.submit(new GenerateDeliveriesRequest()).getJobId();
+        awaitFinished(jobId);
+
+        clock.advance(Duration.ofMinutes(9));
+        assertNotNull(jobService.getJob(jobId));
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThrows(IllegalArgumentException.class, () -> jobService.getJob(jobId));
+    }
+
+    private GenerationJobDto awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            GenerationJobDto job = jobService.getJob(jobId);
+            if (job.getFinishedAt() != null) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Задача не завершилась");
+    }
+
+    private static GenerationResultByDate result(int generated) {
+        return GenerationResultByDate.builder().generatedCount(generated).deliveries(List.of()).build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2025-01-20T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
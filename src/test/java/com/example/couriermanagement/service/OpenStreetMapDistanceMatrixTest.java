@@ -0,0 +1,149 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.request.RoutePoint;
+import com.example.couriermanagement.geo.DistanceMatrix;
+import com.example.couriermanagement.routing.CircuitBreaker;
+import com.example.couriermanagement.routing.RoutingCallGuard;
+import com.example.couriermanagement.service.impl.OpenStreetMapServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the matrix client against a local stub that answers like the ORS matrix endpoint:
+ * the distance between two locations is {@code |lat1 - lat2| * 100 + |lon1 - lon2|}.
+ */
+public class OpenStreetMapDistanceMatrixTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v2/matrix/driving-car", this::handleMatrix);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void smallMatrixShouldBeFetchedInSingleRequest() {
+        OpenStreetMapService service = service(50);
+
+        DistanceMatrix matrix = service.calculateDistanceMatrix(points(4));
+
+        assertEquals(1, requests.get());
+        assertMatrixMatchesStub(matrix);
+        assertFalse(matrix.isEstimated(0, 1));
+    }
+
+    @Test
+    public void largeMatrixShouldBeChunked() {
+        OpenStreetMapService service = service(4);
+
+        DistanceMatrix matrix = service.calculateDistanceMatrix(points(5));
+
+        // блоки по 2 точки: 3 x 3 запроса
+        assertEquals(9, requests.get());
+        assertMatrixMatchesStub(matrix);
+    }
+
+    @Test
+    public void failedRequestShouldFallBackToHaversine() {
+        failing.set(true);
+        OpenStreetMapService service = service(50);
+
+        DistanceMatrix matrix = service.calculateDistanceMatrix(List.of(
+            new RoutePoint(new BigDecimal("55.7558"), new BigDecimal("37.6176")),
+            new RoutePoint(new BigDecimal("59.9311"), new BigDecimal("30.3609"))
+        ));
+
+        assertEquals(0.0, matrix.get(0, 0), 1e-9);
+        assertEquals(matrix.get(0, 1), matrix.get(1, 0), 1e-9);
+        assertEquals(634.0, matrix.get(0, 1), 5.0);
+        assertTrue(matrix.isEstimated(0, 1));
+    }
+
+    private OpenStreetMapService service(int matrixMaxLocations) {
+        RoutingCallGuard callGuard = new RoutingCallGuard(
+            new CircuitBreaker(100, Duration.ofSeconds(30), Clock.systemUTC()), null, new SimpleMeterRegistry());
+        return new OpenStreetMapServiceImpl(new RestTemplate(), objectMapper, callGuard, baseUrl, matrixMaxLocations);
+    }
+
+    private List<RoutePoint> points(int count) {
+        List<RoutePoint> points = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            points.add(new RoutePoint(BigDecimal.valueOf(50 + i), BigDecimal.valueOf(30 + 2 * i)));
+        }
+        return points;
+    }
+
+    private void assertMatrixMatchesStub(DistanceMatrix matrix) {
+        for (int i = 0; i < matrix.size(); i++) {
+            for (int j = 0; j < matrix.size(); j++) {
+                assertEquals(Math.abs(i - j) * 100 + Math.abs(2 * i - 2 * j), matrix.get(i, j), 1e-9,
+                    "Неверное расстояние " + i + " -> " + j);
+            }
+        }
+    }
+
+    private void handleMatrix(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (failing.get()) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        JsonNode locations = request.get("locations");
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode distances = response.putArray("distances");
+        for (JsonNode source : request.get("sources")) {
+            JsonNode from = locations.get(source.asInt());
+            ArrayNode row = distances.addArray();
+            for (JsonNode destination : request.get("destinations")) {
+                JsonNode to = locations.get(destination.asInt());
+                row.add(Math.abs(from.get(1).asDouble() - to.get(1).asDouble()) * 100
+                    + Math.abs(from.get(0).asDouble() - to.get(0).asDouble()));
+            }
+        }
+
+        byte[] body = objectMapper.writeValueAsString(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
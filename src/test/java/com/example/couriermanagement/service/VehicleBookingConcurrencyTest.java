@@ -0,0 +1,355 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.request.DeliveryPointRequest;
+import com.example.couriermanagement.dto.request.DeliveryProductRequest;
+import com.example.couriermanagement.dto.request.DeliveryRequest;
+import com.example.couriermanagement.entity.Delivery;
+import com.example.couriermanagement.entity.Product;
+import com.example.couriermanagement.entity.User;
+import com.example.couriermanagement.entity.UserRole;
+import com.example.couriermanagement.entity.Vehicle;
+import com.example.couriermanagement.repository.DeliveryRepository;
+import com.example.couriermanagement.repository.ProductRepository;
+import com.example.couriermanagement.repository.UserRepository;
+import com.example.couriermanagement.repository.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bookings from many threads that commit for real, so this test does not extend the transactional
+ * {@code BaseIntegrationTest}; it shares its context configuration and removes its own rows afterwards.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml",
+        // машины теста не должны делить полосу блокировок, иначе их брони ждали бы друг друга
+        "planning.booking-locks.stripes=65536"
+    }
+)
+@AutoConfigureMockMvc(addFilters = true)
+public class VehicleBookingConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final LocalTime START = LocalTime.of(9, 0);
+    private static final LocalTime END = LocalTime.of(18, 0);
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private VehicleBookingLockService vehicleBookingLockService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private OpenStreetMapService openStreetMapService;
+
+    private final LocalDate date = LocalDate.now().plusDays(20);
+    private final Queue<Long> createdDeliveryIds = new ConcurrentLinkedQueue<>();
+    private final List<Vehicle> vehicles = new ArrayList<>();
+    private User manager;
+    private User courier;
+    private Product product;
+
+    @BeforeEach
+    public void setUp() {
+        manager = userRepository.save(user("booking-manager", UserRole.MANAGER));
+        courier = userRepository.save(user("booking-courier", UserRole.COURIER));
+        product = productRepository.save(
+            Product.builder()
+                .name("Ящик 10 кг")
+                .weight(new BigDecimal("10.0"))
+                .length(new BigDecimal("10.0"))
+                .width(new BigDecimal("10.0"))
+                .height(new BigDecimal("10.0"))
+                .build()
+        );
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        // удаление через репозитории, чтобы графики загрузки и расписания забыли эти доставки
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            deliveryRepository.deleteAll(deliveryRepository.findAllById(createdDeliveryIds));
+            vehicleRepository.deleteAll(vehicles);
+            productRepository.delete(product);
+            userRepository.deleteAll(List.of(manager, courier));
+        });
+    }
+
+    @Test
+    public void concurrentBookingsShouldNotOverbookVehicle() throws Exception {
+        // 100 кг вмещают ровно 10 доставок по 10 кг
+        Vehicle vehicle = createVehicle("LOCK-100", "100.0");
+        int attempts = THREADS * 5;
+
+        Result result = book(attempts, i -> vehicle);
+
+        assertEquals(List.of(), result.timeouts());
+        assertEquals(10, result.created(), "Rejected: " + result.rejections());
+        assertEquals(attempts - 10, result.rejections().size());
+        assertTrue(result.rejections().stream().allMatch(message -> message.contains("грузоподъемность")),
+            "Unexpected rejections: " + result.rejections());
+        BigDecimal booked = deliveryRepository.findAllById(createdDeliveryIds).stream()
+            .map(Delivery::getTotalWeight)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertTrue(booked.compareTo(vehicle.getMaxWeight()) <= 0, "Booked " + booked + " kg");
+        assertEquals(0, new BigDecimal("100").compareTo(booked));
+    }
+
+    @Test
+    public void bookingsOfDifferentVehiclesShouldProceedInParallel() throws Exception {
+        int attempts = THREADS * 25;
+        Vehicle shared = createVehicle("LOCK-SHARED", "100000.0");
+        List<Vehicle> own = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            own.add(createVehicle("LOCK-OWN-" + i, "100000.0"));
+        }
+
+        Result sameVehicle = book(attempts, i -> shared);
+        Result separateVehicles = book(attempts, i -> own.get(i % THREADS));
+
+        assertEquals(List.of(), sameVehicle.timeouts());
+        assertEquals(List.of(), separateVehicles.timeouts());
+        assertEquals(attempts, sameVehicle.created(), "Rejected: " + sameVehicle.rejections());
+        assertEquals(attempts, separateVehicles.created(), "Rejected: " + separateVehicles.rejections());
+        // 10 кг на каждую доставку, ни одна машина не загружена сверх грузоподъемности
+        Map<Long, BigDecimal> bookedByVehicle = deliveryRepository.findAllById(createdDeliveryIds).stream()
+            .collect(Collectors.groupingBy(delivery -> delivery.getVehicle().getId(),
+                Collectors.reducing(BigDecimal.ZERO, Delivery::getTotalWeight, BigDecimal::add)));
+        assertEquals(0, new BigDecimal(attempts * 10).compareTo(bookedByVehicle.get(shared.getId())));
+        for (Vehicle vehicle : own) {
+            BigDecimal booked = bookedByVehicle.get(vehicle.getId());
+            assertEquals(0, new BigDecimal(attempts / THREADS * 10).compareTo(booked), vehicle.getLicensePlate());
+            assertTrue(booked.compareTo(vehicle.getMaxWeight()) <= 0, "Booked " + booked + " kg");
+        }
+
+        // каждый поток ждет остальных, держа блокировку своей машины; общая блокировка не дала бы им встретиться
+        assertEquals(THREADS, holdLocksTogether(i -> own.get(i)));
+        // у одной машины блокировку держит один поток за раз, и до барьера никто не доходит вместе с другими
+        assertEquals(0, holdLocksTogether(i -> shared));
+    }
+
+    @Test
+    public void locksTakenInOppositeOrderShouldNotDeadlock() throws Exception {
+        Vehicle first = createVehicle("LOCK-FIRST", "1000.0");
+        Vehicle second = createVehicle("LOCK-SECOND", "1000.0");
+        CyclicBarrier bothLocked = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> forward = executor.submit(() -> lockInTurn(first, second, bothLocked));
+            Future<Boolean> backward = executor.submit(() -> lockInTurn(second, first, bothLocked));
+
+            // без общего порядка обе транзакции ждали бы друг друга до таймаута и обе откатились бы
+            boolean forwardCommitted = forward.get(60, TimeUnit.SECONDS);
+            boolean backwardCommitted = backward.get(60, TimeUnit.SECONDS);
+            assertTrue(forwardCommitted || backwardCommitted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Every thread locks its vehicle in its own transaction and waits at a barrier for all the
+     * others while holding the lock; returns how many threads passed the barrier.
+     */
+    private int holdLocksTogether(IntFunction<Vehicle> vehicleOfThread) throws Exception {
+        CyclicBarrier allLocked = new CyclicBarrier(THREADS);
+        AtomicInteger passed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                Vehicle vehicle = vehicleOfThread.apply(t);
+                futures.add(executor.submit(() -> {
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                        vehicleBookingLockService.lock(vehicle.getId(), date);
+                        try {
+                            allLocked.await(2, TimeUnit.SECONDS);
+                            passed.incrementAndGet();
+                        } catch (BrokenBarrierException | TimeoutException e) {
+                            // остальные потоки ждут блокировку, которую держит этот
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            return passed.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Locks the two vehicles in separate calls of one transaction, taking the second only after the
+     * other thread has taken its first; returns whether the transaction committed.
+     */
+    private boolean lockInTurn(Vehicle firstVehicle, Vehicle secondVehicle, CyclicBarrier bothLocked) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                vehicleBookingLockService.lock(firstVehicle.getId(), date);
+                try {
+                    bothLocked.await(5, TimeUnit.SECONDS);
+                } catch (BrokenBarrierException | TimeoutException e) {
+                    // обе машины попали в одну полосу, и другой поток ждет эту транзакцию
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+                vehicleBookingLockService.lock(secondVehicle.getId(), date);
+            });
+            return true;
+        } catch (CannotAcquireLockException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts all threads at once; each makes every {@code THREADS}-th of the attempts.
+     */
+    private Result book(int attempts, IntFunction<Vehicle> vehicleOfAttempt) throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        Queue<String> rejections = new ConcurrentLinkedQueue<>();
+        Queue<String> timeouts = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(manager.getLogin(), null, Collections.emptyList()));
+                    try {
+                        start.await();
+                        for (int i = thread; i < attempts; i += THREADS) {
+                            try {
+                                createdDeliveryIds.add(deliveryService.createDelivery(request(vehicleOfAttempt.apply(i))).getId());
+                                created.incrementAndGet();
+                            } catch (IllegalArgumentException e) {
+                                rejections.add(e.getMessage());
+                            } catch (CannotAcquireLockException e) {
+                                timeouts.add(e.getMessage());
+                            }
+                        }
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            return new Result(created.get(), List.copyOf(rejections), List.copyOf(timeouts));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DeliveryRequest request(Vehicle vehicle) {
+        return DeliveryRequest.builder()
+            .courierId(courier.getId())
+            .vehicleId(vehicle.getId())
+            .deliveryDate(date)
+            .timeStart(START)
+            .timeEnd(END)
+            .points(List.of(DeliveryPointRequest.builder()
+                .sequence(1)
+                .latitude(new BigDecimal("55.7558"))
+                .longitude(new BigDecimal("37.6176"))
+                .products(List.of(DeliveryProductRequest.builder()
+                    .productId(product.getId())
+                    .quantity(1)
+                    .build()))
+                .build()))
+            .build();
+    }
+
+    private Vehicle createVehicle(String licensePlate, String maxWeight) {
+        Vehicle vehicle = vehicleRepository.save(
+            Vehicle.builder()
+                .brand("Газель")
+                .licensePlate(licensePlate)
+                .maxWeight(new BigDecimal(maxWeight))
+                .maxVolume(new BigDecimal("1000.0"))
+                .build()
+        );
+        vehicles.add(vehicle);
+        return vehicle;
+    }
+
+    private static User user(String login, UserRole role) {
+        return User.builder()
+            .login(login)
+            .passwordHash("-")
+            .name(login)
+            .role(role)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+
+    private record Result(int created, List<String> rejections, List<String> timeouts) {
+    }
+}
@@ -497,6 +497,7 @@ public class VehicleCapacityValidationTest extends BaseIntegrationTest {
         Delivery existingDelivery = deliveryRepository.findById(firstDeliveryId).get();
         Delivery completedDelivery = Delivery.builder()
             .id(existingDelivery.getId())
+            .version(existingDelivery.getVersion())
             .courier(existingDelivery.getCourier())
             .vehicle(existingDelivery.getVehicle())
             .createdBy(existingDelivery.getCreatedBy())
@@ -546,4 +547,57 @@ public class VehicleCapacityValidationTest extends BaseIntegrationTest {
             SecurityContextHolder.clearContext();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void capacityShouldBeCheckedAgainstPeakLoadInsideWindow() {
+        Vehicle vehicle = createSmallVehicle(); // 1000 кг, 10 м³
+        Product heavyProduct = createHeavyProduct(); // 600 кг каждый
+        Product lightProduct = createProduct(); // 1.5 кг
+        LocalDate date = LocalDate.now().plusDays(5);
+
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+            managerUser.getLogin(), null, Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        try {
+            // 9:00-12:00 - 600 кг, 13:00-16:00 - 300 кг: одновременно в машине не больше 600 кг
+            deliveryService.createDelivery(singleProductRequest(vehicle, date, 9, 12, heavyProduct, 1));
+            deliveryService.createDelivery(singleProductRequest(vehicle, date, 13, 16, lightProduct, 200));
+
+            // 11:00-14:00 пересекается с обеими, но пик 600 + 390 кг помещается в 1000 кг
+            DeliveryDto fitting = deliveryService.createDelivery(
+                singleProductRequest(vehicle, date, 11, 14, lightProduct, 260));
+            assertNotNull(fitting.getId());
+
+            // теперь пик в 11:00-12:00 равен 990 кг, еще 15 кг уже не помещаются
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () ->
+                deliveryService.createDelivery(singleProductRequest(vehicle, date, 10, 12, lightProduct, 10)));
+            assertTrue(error.getMessage().contains("Превышена грузоподъемность машины в период"), error.getMessage());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private DeliveryRequest singleProductRequest(Vehicle vehicle, LocalDate date, int startHour, int endHour,
+                                                 Product product, int quantity) {
+        return DeliveryRequest.builder()
+            .courierId(courierUser.getId())
+            .vehicleId(vehicle.getId())
+            .deliveryDate(date)
+            .timeStart(LocalTime.of(startHour, 0))
+            .timeEnd(LocalTime.of(endHour, 0))
+            .points(Arrays.asList(
+                DeliveryPointRequest.builder()
+                    .sequence(1)
+                    .latitude(new BigDecimal("55.7558"))
+                    .longitude(new BigDecimal("37.6176"))
+                    .products(Arrays.asList(
+                        DeliveryProductRequest.builder()
+                            .productId(product.getId())
+                            .quantity(quantity)
+                            .build()
+                    ))
+                    .build()
+            ))
+            .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.couriermanagement.service;
+
+import com.example.couriermanagement.dto.request.DeliveryPointRequest;
+import com.example.couriermanagement.dto.request.DeliveryProductRequest;
+import com.example.couriermanagement.dto.request.DeliveryRequest;
+import com.example.couriermanagement.entity.Product;
+import com.example.couriermanagement.entity.User;
+import com.example.couriermanagement.entity.UserRole;
+import com.example.couriermanagement.entity.Vehicle;
+import com.example.couriermanagement.repository.DeliveryRepository;
+import com.example.couriermanagement.repository.ProductRepository;
+import com.example.couriermanagement.repository.UserRepository;
+import com.example.couriermanagement.repository.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Commits with a pool of one connection: applying a commit to the vehicle load timelines must not
+ * need a second one while the committing transaction still holds the first.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=2000"
+    }
+)
+@AutoConfigureMockMvc(addFilters = true)
+public class VehicleLoadSingleConnectionTest {
+
+    private static final LocalTime START = LocalTime.of(9, 0);
+    private static final LocalTime END = LocalTime.of(18, 0);
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private VehicleLoadService vehicleLoadService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private OpenStreetMapService openStreetMapService;
+
+    private final LocalDate date = LocalDate.now().plusDays(21);
+    private final List<Long> createdDeliveryIds = new ArrayList<>();
+    private User manager;
+    private User courier;
+    private Product product;
+    private Vehicle vehicle;
+
+    @BeforeEach
+    public void setUp() {
+        manager = userRepository.save(user("pool-manager", UserRole.MANAGER));
+        courier = userRepository.save(user("pool-courier", UserRole.COURIER));
+        product = productRepository.save(
+            Product.builder()
+                .name("Ящик 10 кг")
+                .weight(new BigDecimal("10.0"))
+                .length(new BigDecimal("10.0"))
+                .width(new BigDecimal("10.0"))
+                .height(new BigDecimal("10.0"))
+                .build()
+        );
+        vehicle = vehicleRepository.save(
+            Vehicle.builder()
+                .brand("Газель")
+                .licensePlate("POOL-20")
+                .maxWeight(new BigDecimal("20.0"))
+                .maxVolume(new BigDecimal("1000.0"))
+                .build()
+        );
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(manager.getLogin(), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        SecurityContextHolder.clearContext();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            deliveryRepository.deleteAll(deliveryRepository.findAllById(createdDeliveryIds));
+            vehicleRepository.delete(vehicle);
+            productRepository.delete(product);
+            userRepository.deleteAll(List.of(manager, courier));
+        });
+    }
+
+    @Test
+    public void commitsShouldReachLoadedTimelineWithSingleConnection() {
+        // график загружен до записей, дальше он следует только за коммитами
+        assertEquals(0, vehicleLoadService.peakLoad(vehicle.getId(), date, START, END, null).weightGrams());
+
+        createdDeliveryIds.add(deliveryService.createDelivery(request()).getId());
+        createdDeliveryIds.add(deliveryService.createDelivery(request()).getId());
+
+        assertEquals(20_000, vehicleLoadService.peakLoad(vehicle.getId(), date, START, END, null).weightGrams());
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+            () -> createdDeliveryIds.add(deliveryService.createDelivery(request()).getId()));
+        assertTrue(rejected.getMessage().contains("грузоподъемность"), rejected.getMessage());
+    }
+
+    private DeliveryRequest request() {
+        return DeliveryRequest.builder()
+            .courierId(courier.getId())
+            .vehicleId(vehicle.getId())
+            .deliveryDate(date)
+            .timeStart(START)
+            .timeEnd(END)
+            .points(List.of(DeliveryPointRequest.builder()
+                .sequence(1)
+                .latitude(new BigDecimal("55.7558"))
+                .longitude(new BigDecimal("37.6176"))
+                .products(List.of(DeliveryProductRequest.builder()
+                    .productId(product.getId())
+                    .quantity(1)
+                    .build()))
+                .build()))
+            .build();
+    }
+
+    private static User user(String login, UserRole role) {
+        return User.builder()
+            .login(login)
+            .passwordHash("-")
+            .name(login)
+            .role(role)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.couriermanagement.geo;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD loops on {@code jdk.incubator.vector}. Loaded reflectively by {@link GeoMath} only when
+ * the module is present, so the class never links on a JVM started without it.
+ */
+final class VectorGeoKernel implements GeoKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void haversine(double latitude, double longitude, double cosLatitude,
+                          GeoMath.PreparedPoints targets, int from, int to, double[] out, int offset) {
+        double[] latitudes = targets.latitudes();
+        double[] longitudes = targets.longitudes();
+        double[] cosLatitudes = targets.cosLatitudes();
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector sinDLatHalf = DoubleVector.fromArray(SPECIES, latitudes, i)
+                .sub(latitude).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector sinDLonHalf = DoubleVector.fromArray(SPECIES, longitudes, i)
+                .sub(longitude).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector a = sinDLonHalf.mul(sinDLonHalf)
+                .mul(DoubleVector.fromArray(SPECIES, cosLatitudes, i)).mul(cosLatitude)
+                .add(sinDLatHalf.mul(sinDLatHalf));
+            a.min(1.0).sqrt().lanewise(VectorOperators.ASIN).mul(2 * GeoMath.EARTH_RADIUS_KM)
+                .intoArray(out, offset + i - from);
+        }
+        for (; i < to; i++) {
+            out[offset + i - from] = GeoMath.haversineRadians(
+                latitude, longitude, cosLatitude, latitudes[i], longitudes[i], cosLatitudes[i]);
+        }
+    }
+
+    @Override
+    public void equirectangular(double latitude, double longitude, double cosLatitude,
+                                GeoMath.PreparedPoints targets, int from, int to, double[] out, int offset) {
+        double[] latitudes = targets.latitudes();
+        double[] longitudes = targets.longitudes();
+        double[] cosLatitudes = targets.cosLatitudes();
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector dLat = DoubleVector.fromArray(SPECIES, latitudes, i).sub(latitude);
+            DoubleVector dLon = DoubleVector.fromArray(SPECIES, longitudes, i).sub(longitude);
+            // разность долгот приводится к [-pi, pi] для пар через антимеридиан
+            VectorMask<Double> above = dLon.compare(VectorOperators.GT, Math.PI);
+            VectorMask<Double> below = dLon.compare(VectorOperators.LT, -Math.PI);
+            dLon = dLon.sub(2 * Math.PI, above).add(2 * Math.PI, below);
+            DoubleVector x = dLon.mul(DoubleVector.fromArray(SPECIES, cosLatitudes, i).add(cosLatitude).mul(0.5));
+            x.mul(x).add(dLat.mul(dLat)).sqrt().mul(GeoMath.EARTH_RADIUS_KM)
+                .intoArray(out, offset + i - from);
+        }
+        for (; i < to; i++) {
+            out[offset + i - from] = GeoMath.equirectangularRadians(
+                latitude, longitude, cosLatitude, latitudes[i], longitudes[i], cosLatitudes[i]);
+        }
+    }
+}